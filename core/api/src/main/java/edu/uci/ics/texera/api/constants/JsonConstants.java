@@ -12,6 +12,7 @@ public class JsonConstants {
     
     public static final String FIELDS = "fields";
     public static final String FIELD_VALUE = "value";
+    public static final String ID_NUMERIC = "numeric";
     
     public static final String SPAN_START = "start";
     public static final String SPAN_END = "end";
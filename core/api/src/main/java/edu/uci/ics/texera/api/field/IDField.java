@@ -3,29 +3,82 @@ package edu.uci.ics.texera.api.field;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import edu.uci.ics.texera.api.constants.JsonConstants;
 
+/**
+ * IDField is the "_id" field of a tuple.
+ *
+ * An ID is either a string (the UUIDs generated by newRandomID()),
+ *   or a 64-bit number (the row IDs assigned to the tables with NUMERIC row IDs by the storage layer).
+ * The kind of an ID is decided by its constructor, it's never guessed from the value:
+ *   a string ID and a numeric ID are never equal, even if the string is the digits of the number.
+ * A numeric ID is kept as a long, its string value is only created when getValue() is called.
+ * The JSON of an ID has its kind besides its string value, so a numeric ID is still numeric after a JSON round trip.
+ */
 public class IDField implements IField {
-    
-    private final String _id;
-    
-    @JsonCreator
-    public IDField(
-            @JsonProperty(value = JsonConstants.FIELD_VALUE, required = true)
-            String idValue) {
+
+    private final boolean isNumeric;
+    private final long numericID;
+    private String _id;
+
+    public IDField(String idValue) {
         checkNotNull(idValue);
+        this.isNumeric = false;
+        this.numericID = 0;
         this._id = idValue;
     }
 
+    public IDField(long idValue) {
+        this.isNumeric = true;
+        this.numericID = idValue;
+        this._id = null;
+    }
+
+    /*
+     * The JSON of an ID without its kind is a string ID.
+     */
+    @JsonCreator
+    private static IDField fromJson(
+            @JsonProperty(value = JsonConstants.FIELD_VALUE, required = true)
+            String idValue,
+            @JsonProperty(value = JsonConstants.ID_NUMERIC, required = false)
+            Boolean isNumeric) {
+        return Boolean.TRUE.equals(isNumeric) ? new IDField(Long.parseLong(idValue)) : new IDField(idValue);
+    }
+
     @Override
     public String getValue() {
+        if (this._id == null) {
+            this._id = Long.toString(numericID);
+        }
         return this._id;
     }
-    
+
+    @JsonProperty(value = JsonConstants.ID_NUMERIC)
+    public boolean isNumeric() {
+        return this.isNumeric;
+    }
+
+    /**
+     * Gets the value of a numeric ID.
+     *
+     * @return
+     * @throws IllegalStateException, if the ID is not numeric
+     */
+    @JsonIgnore
+    public long getNumericValue() {
+        if (! isNumeric) {
+            throw new IllegalStateException("IDField " + _id + " is not numeric");
+        }
+        return this.numericID;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -34,26 +87,35 @@ public class IDField implements IField {
             return false;
 
         IDField that = (IDField) o;
-        return _id != null ? _id.equals(that._id) : that._id == null;
+        if (isNumeric != that.isNumeric) {
+            return false;
+        }
+        return isNumeric ? numericID == that.numericID : _id.equals(that._id);
     }
 
     @Override
     public int hashCode() {
-        return _id != null ? _id.hashCode() : 0;
+        return isNumeric ? Long.hashCode(numericID) : _id.hashCode();
     }
 
     @Override
     public String toString() {
-        return "IDField [_id = " + _id + "]";
+        return "IDField [_id = " + getValue() + "]";
     }
-    
+
     /**
-     * Generates a new IDField with a random UUID.
-     * 
+     * Generates a new IDField with a random (version 4) UUID.
+     *
+     * The bits are drawn from ThreadLocalRandom instead of the SecureRandom of UUID.randomUUID(),
+     *   so threads generating IDs don't contend on a shared random generator.
+     *
      * @return
      */
     public static IDField newRandomID() {
-        return new IDField(UUID.randomUUID().toString());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new IDField(new UUID(mostSigBits, leastSigBits).toString());
     }
 
 }
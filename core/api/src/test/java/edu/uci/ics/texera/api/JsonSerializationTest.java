@@ -6,6 +6,7 @@ import java.util.Date;
 import org.junit.Test;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import edu.uci.ics.texera.api.constants.JsonConstants;
 import edu.uci.ics.texera.api.field.DateField;
@@ -97,6 +98,20 @@ public class JsonSerializationTest {
         TestUtils.testJsonSerialization(tuple);
     }
     
+    @Test
+    public void testTupleWithNumericID() throws Exception {
+        Schema schema = new Schema(Arrays.asList(
+                new Attribute("_id", AttributeType._ID_TYPE),
+                new Attribute("text", AttributeType.TEXT)));
+        Tuple tuple = new Tuple(schema, Arrays.asList(
+                new IDField(42), new TextField("tuple test text")));
+        TestUtils.testJsonSerialization(tuple);
+        
+        // the JSON of an ID without its kind is a string ID
+        IDField idField = new ObjectMapper().readValue("{\"value\": \"42\"}", IDField.class);
+        Assert.assertEquals(new IDField("42"), idField);
+    }
+    
     @Test
     public void testTupleWithSpanlist() {
         Tuple tuple = new Tuple.Builder()
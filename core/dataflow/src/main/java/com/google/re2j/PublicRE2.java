@@ -45,4 +45,7 @@ public class PublicRE2 {
     // A flag that tells fold case during matching (case-insensitive).
     public static final int FOLD_CASE = RE2.FOLD_CASE;
 
+    // A flag of an END_TEXT node that tells it's parsed from "$" instead of "\\z".
+    public static final int WAS_DOLLAR = RE2.WAS_DOLLAR;
+
 }
@@ -0,0 +1,118 @@
+package edu.uci.ics.texera.dataflow.aggregator;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.ICountableSourceOperator;
+import edu.uci.ics.texera.storage.RelationManager;
+
+/**
+ * SourceCountAggregator computes an Aggregator whose aggregations are all COUNT directly on its source,
+ *   by counting the matching documents in the index, without reading any tuple from the source.
+ *
+ * LogicalPlan replaces an Aggregator with a SourceCountAggregator if canCount() is true for its source.
+ * Like Aggregator, it outputs one tuple with the count as an IntegerField for every aggregation.
+ *
+ */
+public class SourceCountAggregator implements IOperator {
+
+    private final AggregatorPredicate predicate;
+
+    private ICountableSourceOperator inputOperator;
+    private Schema outputSchema;
+
+    private int cursor = CLOSED;
+
+    public SourceCountAggregator(AggregatorPredicate predicate) {
+        this.predicate = predicate;
+    }
+
+    /**
+     * Checks if the aggregations of an Aggregator can be computed by counting the results of its source.
+     *
+     * All aggregations must be COUNT, the index query of the source must be exact,
+     *   and the attributes must be valid for the table, otherwise the Aggregator reports the errors.
+     *
+     * @param predicate, the predicate of the Aggregator
+     * @param sourceOperator, the input operator of the Aggregator
+     * @return
+     */
+    public static boolean canCount(AggregatorPredicate predicate, ICountableSourceOperator sourceOperator) {
+        if (! sourceOperator.isIndexQueryExact()) {
+            return false;
+        }
+        Schema tableSchema = RelationManager.getInstance().getTableSchema(sourceOperator.getTableName());
+        for (AggregationAttributeAndResult aggregationItem : predicate.getAttributeAggregateResultList()) {
+            if (aggregationItem.getAggregatorType() != AggregationType.COUNT
+                    || ! tableSchema.containsAttribute(aggregationItem.getAttributeName())
+                    || tableSchema.containsAttribute(aggregationItem.getResultAttributeName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (cursor != CLOSED) {
+            return;
+        }
+        if (inputOperator == null) {
+            throw new DataflowException(ErrorMessages.INPUT_OPERATOR_NOT_SPECIFIED);
+        }
+        outputSchema = transformToOutputSchema();
+        cursor = OPENED;
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (cursor >= 1) {
+            return null;
+        }
+        IntegerField countField = new IntegerField(inputOperator.countMatchingTuples());
+        Tuple.Builder tupleBuilder = new Tuple.Builder();
+        for (AggregationAttributeAndResult aggregationItem : predicate.getAttributeAggregateResultList()) {
+            tupleBuilder.add(aggregationItem.getResultAttributeName(), AttributeType.INTEGER, countField);
+        }
+        cursor++;
+        return tupleBuilder.build();
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        cursor = CLOSED;
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return outputSchema;
+    }
+
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        Schema.Builder schemaBuilder = new Schema.Builder();
+        for (AggregationAttributeAndResult aggregationItem : predicate.getAttributeAggregateResultList()) {
+            schemaBuilder.add(aggregationItem.getResultAttributeName(), AttributeType.INTEGER);
+        }
+        return schemaBuilder.build();
+    }
+
+    public void setInputOperator(IOperator inputOperator) {
+        if (! (inputOperator instanceof ICountableSourceOperator)) {
+            throw new DataflowException("the input operator of SourceCountAggregator must be a countable source operator");
+        }
+        this.inputOperator = (ICountableSourceOperator) inputOperator;
+    }
+
+    public AggregatorPredicate getPredicate() {
+        return this.predicate;
+    }
+
+}
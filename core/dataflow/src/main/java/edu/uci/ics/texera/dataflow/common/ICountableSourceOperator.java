@@ -0,0 +1,48 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import edu.uci.ics.texera.api.dataflow.ISourceOperator;
+import edu.uci.ics.texera.api.exception.TexeraException;
+
+/**
+ * ICountableSourceOperator is a source operator which reads the tuples of a table matching an index query.
+ *
+ * If the index query is exact, which means every matching document is a result tuple of the source,
+ *   the number of results can be counted by the index without reading the tuples,
+ *   and the index search can stop after the first results if only a limited number of them is needed.
+ * The plan generator (LogicalPlan) uses them to answer count queries and limit queries.
+ *
+ */
+public interface ICountableSourceOperator extends ISourceOperator {
+
+    /**
+     * Returns true if every document matching the index query of the source is a result tuple,
+     *   false if the source filters the matching documents further.
+     *
+     * @return
+     */
+    boolean isIndexQueryExact();
+
+    /**
+     * Counts the result tuples of the source by the index, it should only be called if the index query is exact.
+     *
+     * @return the number of result tuples
+     * @throws TexeraException
+     */
+    int countMatchingTuples() throws TexeraException;
+
+    /**
+     * Sets the maximum number of result tuples to read from the index, it must be set before the source is opened.
+     *
+     * @param limit
+     * @throws TexeraException
+     */
+    void setMatchingTupleLimit(int limit) throws TexeraException;
+
+    /**
+     * Gets the name of the table read by the source.
+     *
+     * @return
+     */
+    String getTableName();
+
+}
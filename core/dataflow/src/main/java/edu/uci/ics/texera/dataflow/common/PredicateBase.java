@@ -38,6 +38,7 @@ import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate;
 import edu.uci.ics.texera.dataflow.sink.mysql.MysqlSinkPredicate;
 import edu.uci.ics.texera.dataflow.sink.tuple.TupleSinkPredicate;
 import edu.uci.ics.texera.dataflow.source.asterix.AsterixSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.daterange.DateRangeSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.file.FileSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
 import edu.uci.ics.texera.dataflow.twitter.TwitterConverterPredicate;
@@ -91,6 +92,7 @@ import edu.uci.ics.texera.dataflow.wordcount.WordCountOperatorPredicate;
         @Type(value = TwitterConverterPredicate.class, name = "TwitterConverter"),
         
         @Type(value = ScanSourcePredicate.class, name = "ScanSource"),
+        @Type(value = DateRangeSourcePredicate.class, name = "DateRangeSource"),
         @Type(value = FileSourcePredicate.class, name = "FileSource"),        
         @Type(value = TupleSinkPredicate.class, name = "ViewResults"),
         @Type(value = MysqlSinkPredicate.class, name = "MysqlSink"),
@@ -46,6 +46,7 @@ public class PropertyNameConstants {
     // related to keyword matcher
     public static final String KEYWORD_QUERY = "query";
     public static final String KEYWORD_MATCHING_TYPE = "matchingType";
+    public static final String KEYWORD_SCORE_ATTRIBUTE_NAME = "scoreAttribute";
     
     // related to dictionary matcher
     public static final String DICTIONARY = "dictionary";
@@ -55,6 +56,7 @@ public class PropertyNameConstants {
     public static final String REGEX = "regex";
     public static final String REGEX_IGNORE_CASE = "regexIgnoreCase";
     public static final String REGEX_USE_INDEX = "regexUseIndex";
+    public static final String REGEX_ENGINE = "regexEngine";
     
     // related to fuzzy token matcher
     public static final String FUZZY_TOKEN_QUERY = "query";
@@ -102,6 +104,10 @@ public class PropertyNameConstants {
     public static final String ASTERIX_START_DATE = "startDate";
     public static final String ASTERIX_END_DATE = "endDate";
 
+    // related to DateRangeSource
+    public static final String DATE_RANGE_START_DATE = "startDate";
+    public static final String DATE_RANGE_END_DATE = "endDate";
+
     // related to ComparableMatcher
     public static final String COMPARISON_TYPE = "comparisonType";
     public static final String COMPARE_TO_VALUE = "compareTo";
@@ -6,9 +6,13 @@ package edu.uci.ics.texera.dataflow.dictionarymatcher;
 
 import java.util.*;
 
+import edu.uci.ics.texera.dataflow.utils.CaseInsensitiveSubstringSearcher;
+
 /**
  * This is to implement the aho-corasick algorithm to build automaton
  * for all dictionary entries with a prefix trie and failure transactions.
+ * If it's case insensitive, the chars of the keywords and the text are folded one by one
+ * (see CaseInsensitiveSubstringSearcher.foldCase()), the text is parsed without a lower case copy.
  * Wiki page link: https://github.com/Texera/texera/wiki/Aho-Corasick-String-Matching-Algorithm
  * Created by Chang on 8/29/17.
  */
@@ -22,15 +26,11 @@ public class ACTrie {
 
     private void addKeyword(String keyword) {
         if (keyword == null || keyword.length() == 0) return;
-        String originalWord = keyword;
-        if (caseInsensitive) {
-            keyword = keyword.toLowerCase();
-        }
         TrieNode currentNode = this.rootNode;
-        for (Character character : keyword.toCharArray()) {
-            currentNode = currentNode.addTrieNode(character);
+        for (int i = 0; i < keyword.length(); i++) {
+            currentNode = currentNode.addTrieNode(foldCase(keyword.charAt(i)));
         }
-        currentNode.addEmit(originalWord);
+        currentNode.addEmit(keyword);
     }
 
     public void addKeywords(List<String> keywordList) {
@@ -82,14 +82,9 @@ public class ACTrie {
         List<Emit> resultList = new ArrayList<>();
         if (text == null || text.isEmpty()) return resultList;
 
-        if (caseInsensitive) {
-            text = text.toLowerCase();
-        }
         TrieNode currentNode = this.rootNode;
-        char[] textArray = text.toCharArray();
-        for (int i = 0; i < textArray.length; i++) {
-            Character character = textArray[i];
-            currentNode = getNextTransition(character, currentNode);
+        for (int i = 0; i < text.length(); i++) {
+            currentNode = getNextTransition(foldCase(text.charAt(i)), currentNode);
             if (!currentNode.getEmits().isEmpty()) {
                 resultList.addAll(storeEmits(currentNode, i));
             }
@@ -97,6 +92,29 @@ public class ACTrie {
         return resultList;
     }
 
+    /**
+     * Traverse the input text like parseText(), but only collect the distinct keywords found in the text,
+     * without their positions.
+     *
+     * @param text
+     * @return
+     */
+    public Set<String> findKeywords(String text) {
+        Set<String> keywords = new HashSet<>();
+        if (text == null || text.isEmpty()) return keywords;
+
+        TrieNode currentNode = this.rootNode;
+        for (int i = 0; i < text.length(); i++) {
+            currentNode = getNextTransition(foldCase(text.charAt(i)), currentNode);
+            keywords.addAll(currentNode.getEmits());
+        }
+        return keywords;
+    }
+
+    private char foldCase(char c) {
+        return caseInsensitive ? CaseInsensitiveSubstringSearcher.foldCase(c) : c;
+    }
+
     private TrieNode getNextTransition(Character c, TrieNode node) {
         TrieNode nextNode = node.getNextTrieNode(c);
         while (nextNode == null) {
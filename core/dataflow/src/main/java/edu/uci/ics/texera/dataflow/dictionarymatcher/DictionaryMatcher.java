@@ -36,6 +36,8 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
     private Schema inputSchema;
     private ACTrie dictionaryTrie;
+    // the offsets of the tokens of each entry in its phrase, for the phrase matching type
+    private ArrayList<int[]> phraseTokenOffsetsList;
 
     @Override
     protected void setUp() throws TexeraException {
@@ -62,6 +64,12 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
             predicate.getDictionary().setDictionaryTokenListWithStopwords(predicate.getAnalyzerString());
             predicate.getDictionary().setDictionaryTokenSetList(predicate.getAnalyzerString());
+            phraseTokenOffsetsList = new ArrayList<>();
+            for (int i = 0; i < predicate.getDictionary().getDictionaryEntries().size(); i++) {
+                phraseTokenOffsetsList.add(DataflowUtils.getPhraseTokenOffsets(
+                        predicate.getDictionary().getTokenListsWithStopwords().get(i), 
+                        predicate.getDictionary().getTokenListsNoStopwords().get(i)));
+            }
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
             predicate.getDictionary().setPatternList();
         } else {
@@ -117,10 +125,9 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
             ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
             ArrayList<List<String>> tokenListsNoStopwords = predicate.getDictionary().getTokenListsNoStopwords();
-            ArrayList<List<String>> tokenListsWithStopwords = predicate.getDictionary().getTokenListsWithStopwords();
             ArrayList<Set<String>> tokenSetsNoStopwords = predicate.getDictionary().getTokenSetsNoStopwords();
 
-            matchingResults = appendPhraseMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(), tokenListsNoStopwords, tokenSetsNoStopwords, tokenListsWithStopwords, dictionaryEntries);
+            matchingResults = appendPhraseMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(), tokenListsNoStopwords, tokenSetsNoStopwords, phraseTokenOffsetsList, dictionaryEntries);
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
             matchingResults = new ArrayList<Span>();
@@ -217,7 +224,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         return matchingResults;
     }
 
-    public List<Span> appendPhraseMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<List<String>> queryTokenList, List<Set<String>> queryTokenSetList, List<List<String>> queryTokenListWithStopwords, List<String> queryList) throws DataflowException {
+    public List<Span> appendPhraseMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<List<String>> queryTokenList, List<Set<String>> queryTokenSetList, List<int[]> phraseTokenOffsetsList, List<String> queryList) throws DataflowException {
         List<Span> matchingResults = new ArrayList<>();
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
         List<Span> payload = payloadField.getValue();
@@ -247,7 +254,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                     if (fieldSpanList.isEmpty() || !DataflowUtils.isAllQueryTokensPresent(fieldSpanList, queryTokenSetList.get(index))) {
                         continue;
                     }
-                    matchingResults.addAll(DataflowUtils.constructPhraseMatchingSpans(attributeName, fieldValue, queryList.get(index), fieldSpanList, queryTokenListWithStopwords.get(index), queryTokenList.get(index)));
+                    matchingResults.addAll(DataflowUtils.constructPhraseMatchingSpans(attributeName, fieldValue, queryList.get(index), fieldSpanList, queryTokenList.get(index), phraseTokenOffsetsList.get(index)));
                 }
             }
         }
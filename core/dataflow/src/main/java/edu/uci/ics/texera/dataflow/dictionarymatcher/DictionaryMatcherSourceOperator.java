@@ -1,28 +1,32 @@
-
 package edu.uci.ics.texera.dataflow.dictionarymatcher;
 
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
-import edu.uci.ics.texera.api.field.ListField;
-import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
-import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.DataStore;
+import edu.uci.ics.texera.storage.RelationManager;
 
 
 /**
@@ -33,27 +37,18 @@ import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
  */
 public class DictionaryMatcherSourceOperator implements ISourceOperator {
 
-    private ISourceOperator indexSource;
+    private IOperator indexSource;
     
-    private KeywordMatcherSourceOperator keywordSource;
     private DictionaryMatcher dictionaryMatcher;
 
     private Schema outputSchema;
 
-    private String currentDictionaryEntry;
-
     private final DictionarySourcePredicate predicate;
 
     private int limit;
     private int offset;
 
-    private HashMap<String, Tuple> tupleIDMap; // map of tuple's ID to the tuple itself
-    private Map<String, List<Span>> tupleResultMap; // map of tuple's ID to the tuples's results (for Conjunction and Phrase)
-    private boolean resultMapPopulated = false;
-    
-    private Iterator<String> resultIterator;
-
-    private int cursor = CLOSED;  //Flag for computing matching results for CONJUNCTION and PHRASE.
+    private int cursor = CLOSED;
 
     /**
      * Constructs a DictionaryMatcher with a dictionary predicate.
@@ -67,10 +62,10 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
      * DictionaryMatcher. <br>
      *
      * DictionaryOperatorType.PHRASE_INDEX, CONJUNCTION_INDEX: <br>
-     * Loop through the dictionary entries.
-     * For each entry, use an index-based KeywordMatcher to get the matching results.
-     * Maintain a HashMap </Tuple_ID, Tuple> to add all the matching results
-     * into the spanlist of each input tuple.
+     * Read the documents matching the index query of any dictionary entry in one pass,
+     * followed by a Dictionary Matcher, which matches all the entries on each document,
+     * so the cost of N entries is about one index scan instead of N. <br>
+     * The payload of the documents only has the spans of the tokens of the entries.
      *
      * CONJUNCTION_INDEX corresponds to KeywordOperatorType.BASIC, which
      * performs keyword search on the document. The input query is
@@ -88,9 +83,6 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         this.limit = Integer.MAX_VALUE;
         this.offset = 0;
         this.predicate = predicate;
-        
-        this.tupleIDMap = new HashMap<>();
-        this.tupleResultMap = new HashMap<>();
     }
 
     @Override
@@ -99,39 +91,87 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             return;
         }
 
-        currentDictionaryEntry = predicate.getDictionary().getNextEntry();
-
         if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED
                 || predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
 
             // For Substring matching and Regex matching, create a scan source operator followed by a dictionary matcher.
             indexSource = new ScanBasedSourceOperator(new ScanSourcePredicate(predicate.getTableName()));
+        } else {
+            // For other keyword matching types (CONJUNCTION and PHRASE),
+            // read the candidate documents of all the entries with one index-based data reader.
+            indexSource = createSharedIndexReader();
+        }
 
-            dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getSpanListName()));
+        dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
+                predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getSpanListName()));
 
-            dictionaryMatcher.setInputOperator(indexSource);
-            dictionaryMatcher.open();
-            outputSchema = dictionaryMatcher.getOutputSchema();
+        dictionaryMatcher.setInputOperator(indexSource);
+        dictionaryMatcher.open();
+        outputSchema = dictionaryMatcher.getOutputSchema();
+        if (isPayloadOfEntryTokens()) {
+            outputSchema = new Schema.Builder(outputSchema).removeIfExists(SchemaConstants.PAYLOAD).build();
+        }
+        cursor = OPENED;
+    }
 
-        } else {
-            // For other keyword matching types (CONJUNCTION and PHRASE),
-            // create an index-based keyword source operator.
-            keywordSource = new KeywordMatcherSourceOperator(new KeywordSourcePredicate(
-                    currentDictionaryEntry,
+    /*
+     * Creates a data reader of the documents matching the index query of any of the dictionary entries,
+     *   with the spans of the entries' tokens in the payload.
+     * The index query of each entry is the query of the index-based keyword source of the entry.
+     */
+    private DataReader createSharedIndexReader() {
+        DataStore dataStore = RelationManager.getInstance().getTableDataStore(predicate.getTableName());
+        String tableAnalyzerString = RelationManager.getInstance().getTableAnalyzerString(predicate.getTableName());
+        
+        List<Query> entryQueries = new ArrayList<>();
+        Set<String> entryTokens = new HashSet<>();
+        for (String entry : predicate.getDictionary().getDictionaryEntries()) {
+            KeywordSourcePredicate keywordSourcePredicate = new KeywordSourcePredicate(
+                    entry,
                     predicate.getAttributeNames(),
                     predicate.getAnalyzerString(),
                     predicate.getKeywordMatchingType(),
                     predicate.getTableName(),
-                    predicate.getSpanListName()));
+                    predicate.getSpanListName());
+            entryQueries.add(KeywordMatcherSourceOperator.createLuceneQuery(keywordSourcePredicate, dataStore, tableAnalyzerString));
+            entryTokens.addAll(DataflowUtils.tokenizeQuery(predicate.getAnalyzerString(), entry));
+        }
 
-            keywordSource.open();
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                predicate.getTableName(), createDisjunctionQuery(entryQueries));
+        dataReader.setPayloadAdded(true);
+        dataReader.setPayloadTerms(entryTokens);
+        return dataReader;
+    }
 
-            // Other keyword matching types uses a KeywordMatcher, so the
-            // output schema is the same as keywordMatcher's schema.
-            outputSchema = keywordSource.getOutputSchema();
-        }
-        cursor = OPENED;
+    /*
+     * Creates a query matching any of the queries.
+     * A boolean query has at most BooleanQuery.getMaxClauseCount() clauses, so a large dictionary is split into nested queries.
+     */
+    private static Query createDisjunctionQuery(List<Query> queries) {
+        int maxClauseCount = BooleanQuery.getMaxClauseCount();
+        List<Query> clauses = queries;
+        do {
+            List<Query> groupQueries = new ArrayList<>();
+            for (int start = 0; start < clauses.size(); start += maxClauseCount) {
+                BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
+                for (Query query : clauses.subList(start, Math.min(clauses.size(), start + maxClauseCount))) {
+                    booleanQueryBuilder.add(query, BooleanClause.Occur.SHOULD);
+                }
+                groupQueries.add(booleanQueryBuilder.build());
+            }
+            clauses = groupQueries;
+        } while (clauses.size() > 1);
+        return clauses.get(0);
+    }
+
+    /*
+     * The matching types that only read the spans of the entries' tokens in the payload,
+     *   the payload is removed from the output tuples.
+     */
+    private boolean isPayloadOfEntryTokens() {
+        return predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED
+                || predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED;
     }
 
     @Override
@@ -140,45 +180,19 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             return null;
         }
         
-        if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED
-                || predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
-            // For each dictionary entry, get all results from KeywordMatcher.
-            if(! resultMapPopulated){
-                computeMatchingResults();
-                resultIterator = tupleIDMap.keySet().iterator();
-                
-                resultMapPopulated = true;
-            }
-            while (true) {
-                if (resultIterator.hasNext()) {
-                    cursor++;
-                    String tupleID = resultIterator.next();
-                    Tuple resultTuple = new Tuple.Builder(tupleIDMap.get(tupleID))
-                        .add(predicate.getSpanListName(), AttributeType.LIST, 
-                                new ListField<Span>(tupleResultMap.get(tupleID))).build();
-                    if (cursor > offset) {
-                        return resultTuple;
-                    }
-                    continue;
-                } else {
-                    return null;
-                }
-            }
-        }
-
-        // Substring matching or regex matching (scan based)
-        else {
-            while(true) {
-                Tuple inputTuple;
-                if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
-                    cursor++;
-                    if(cursor > offset) {
-                        return inputTuple;
+        while(true) {
+            Tuple inputTuple;
+            if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
+                cursor++;
+                if(cursor > offset) {
+                    if (isPayloadOfEntryTokens()) {
+                        inputTuple = new Tuple.Builder(inputTuple).removeIfExists(SchemaConstants.PAYLOAD).build();
                     }
-                    continue;
-                } else {
-                    return null;
+                    return inputTuple;
                 }
+                continue;
+            } else {
+                return null;
             }
         }
     }
@@ -200,56 +214,12 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         return this.offset;
     }
 
-    /***
-     *  Maintain a HashMap </Tuple_ID, Tuple> to compute all the keyword
-     *  matching results for each tuple.
-     *
-     */
-
-    @SuppressWarnings("unchecked")
-	private void computeMatchingResults(){
-        Tuple inputTuple;
-        
-        while(true) {
-            while((inputTuple = keywordSource.getNextTuple()) != null){
-                String tupleID = inputTuple.getField(SchemaConstants._ID).getValue().toString();
-                ListField<Span> keywordResultsField = inputTuple.getField(predicate.getSpanListName(), ListField.class);
-                List<Span> keywordResults = keywordResultsField.getValue();
-                
-                if (tupleResultMap.containsKey(tupleID)) {
-                    tupleResultMap.get(tupleID).addAll(keywordResults);
-                } else {
-                    tupleIDMap.put(tupleID, new Tuple.Builder(inputTuple).remove(predicate.getSpanListName()).build());
-                    tupleResultMap.put(tupleID, new ArrayList<>(keywordResults));
-                }
-            }
-
-            if ((currentDictionaryEntry = predicate.getDictionary().getNextEntry()) == null) {
-                 return;
-            }
-
-            keywordSource.close();
-
-            KeywordSourcePredicate keywordSourcePredicate = new KeywordSourcePredicate(currentDictionaryEntry,
-                    predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(),
-                    predicate.getTableName(),
-                    predicate.getSpanListName());
-
-            keywordSource = new KeywordMatcherSourceOperator(keywordSourcePredicate);
-            keywordSource.open();
-        }
-    }
-
     /**
      * @about Closes the operator
      */
     @Override
     public void close() throws DataflowException {
         try {
-            if (keywordSource != null) {
-                keywordSource.close();
-            }
             if (indexSource != null) {
                 indexSource.close();
             }
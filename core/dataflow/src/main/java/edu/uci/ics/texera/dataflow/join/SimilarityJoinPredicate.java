@@ -217,7 +217,7 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
         for (String attrName : outputSchema.getAttributeNames()) {
             // generate a new _ID field for this tuple
             if (attrName.equals(SchemaConstants._ID)) {
-                IDField newID = new IDField(UUID.randomUUID().toString());
+                IDField newID = IDField.newRandomID();
                 resultFields.add(newID);
             // use the generated spanList
             } else if (attrName.equals(SchemaConstants.SPAN_LIST)) {
@@ -13,6 +13,7 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.utils.CaseInsensitiveSubstringSearcher;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 
 public class KeywordMatcher extends AbstractSingleInputOperator {
@@ -22,7 +23,8 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
     private Schema inputSchema;
     private Set<String> queryTokenSet;
     private ArrayList<String> queryTokenList;
-    private ArrayList<String> queryTokenWithStopwordsList;
+    private int[] phraseTokenOffsets;
+    private CaseInsensitiveSubstringSearcher substringSearcher;
     
     private boolean addPayload = false;
     private boolean addResultAttribute = false;
@@ -53,6 +55,8 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             preProcessKeywordTokens();
         } else if (this.predicate.getMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
             preProcessKeywordTokensWithStopwords();
+        } else if (this.predicate.getMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
+            substringSearcher = new CaseInsensitiveSubstringSearcher(predicate.getQuery());
         }
     }
 
@@ -62,8 +66,10 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
 
     private void preProcessKeywordTokensWithStopwords() {
         queryTokenList = DataflowUtils.tokenizeQuery(predicate.getLuceneAnalyzerString(), predicate.getQuery());
-        queryTokenWithStopwordsList = DataflowUtils.tokenizeQueryWithStopwords(
+        queryTokenSet = new HashSet<>(queryTokenList);
+        ArrayList<String> queryTokenWithStopwordsList = DataflowUtils.tokenizeQueryWithStopwords(
                 predicate.getLuceneAnalyzerString(), predicate.getQuery());
+        phraseTokenOffsets = DataflowUtils.getPhraseTokenOffsets(queryTokenWithStopwordsList, queryTokenList);
     }
 
     @Override
@@ -97,7 +103,7 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
            matchingResults =  appendConjunctionMatchingSpans(inputTuple, predicate.getAttributeNames(), queryTokenSet, predicate.getQuery());
         }
         if (this.predicate.getMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
-            matchingResults = appendPhraseMatchingSpans(inputTuple, predicate.getAttributeNames(), queryTokenList, queryTokenWithStopwordsList, predicate.getQuery());
+            matchingResults = appendPhraseMatchingSpans(inputTuple, predicate.getAttributeNames(), queryTokenList, queryTokenSet, phraseTokenOffsets, predicate.getQuery());
         }
         if (this.predicate.getMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
             matchingResults = appendSubstringMatchingSpans(inputTuple, predicate.getAttributeNames(), predicate.getQuery());
@@ -118,9 +124,9 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
     protected void cleanUp() {
     }
 
-    private List<Span> appendPhraseMatchingSpans(Tuple inputTuple, List<String> attributeNames, List<String> queryTokenList, List<String> queryTokenListWithStopwords, String queryKeyword) throws DataflowException {
+    private List<Span> appendPhraseMatchingSpans(Tuple inputTuple, List<String> attributeNames, List<String> queryTokenList, Set<String> queryTokenSet, int[] phraseTokenOffsets, String queryKeyword) throws DataflowException {
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
+        List<Span> relevantSpans = filterRelevantSpans(payloadField.getValue(), queryTokenSet);
         List<Span> matchingResults = new ArrayList<>();
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -142,8 +148,6 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             // for TEXT type, spans need to be reconstructed according to the
             // phrase query
             if (attributeType == AttributeType.TEXT) {
-                Set<String> queryTokenSet = new HashSet<>(queryTokenList);
-                List<Span> relevantSpans = filterRelevantSpans(payload, queryTokenSet);
                 List<Span> fieldSpanList = relevantSpans.stream().filter(span -> span.getAttributeName().equals(attributeName))
                         .collect(Collectors.toList());
 
@@ -152,7 +156,7 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
                     // in the spans
                     continue;
                 }
-                matchingResults.addAll(DataflowUtils.constructPhraseMatchingSpans(attributeName, fieldValue, queryKeyword, fieldSpanList, queryTokenListWithStopwords, queryTokenList));
+                matchingResults.addAll(DataflowUtils.constructPhraseMatchingSpans(attributeName, fieldValue, queryKeyword, fieldSpanList, queryTokenList, phraseTokenOffsets));
             }
         }
         return matchingResults;
@@ -160,7 +164,7 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
 
     private List<Span> appendConjunctionMatchingSpans(Tuple inputTuple, List<String> attributeNames, Set<String> queryTokenSet, String queryKeyword) throws DataflowException {
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
+        List<Span> relevantSpans = filterRelevantSpans(payloadField.getValue(), queryTokenSet);
         List<Span> matchingResults = new ArrayList<>();
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -182,7 +186,6 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             // for TEXT type, every token in the query should be present in span
             // list for this field
             if (attributeType == AttributeType.TEXT) {
-                List<Span> relevantSpans = filterRelevantSpans(payload, queryTokenSet);
                 List<Span> fieldSpanList = relevantSpans.stream().filter(span -> span.getAttributeName().equals(attributeName))
                         .collect(Collectors.toList());
                 if (DataflowUtils.isAllQueryTokensPresent(fieldSpanList, queryTokenSet)) {
@@ -212,21 +215,14 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
                 }
             }
 
+            // for TEXT type, every occurrence of the query ignoring the case is a match
             if (attributeType == AttributeType.TEXT) {
-
-                String fieldValueLowerCase = fieldValue.toLowerCase();
-                String queryKeywordLowerCase = queryKeyword.toLowerCase();
-                for (int i = 0; i < fieldValueLowerCase.length(); i++) {
-                    int index = -1;
-                    if ((index = fieldValueLowerCase.indexOf(queryKeywordLowerCase, i)) != -1) {
-                        matchingResults.add(new Span(attributeName, index, index + queryKeyword.length(), queryKeyword,
-                                fieldValue.substring(index, index + queryKeyword.length())));
-                        i = index + 1;
-                    } else {
-                        break;
-                    }
+                int index = substringSearcher.indexOf(fieldValue, 0);
+                while (index != -1) {
+                    matchingResults.add(new Span(attributeName, index, index + queryKeyword.length(), queryKeyword,
+                            fieldValue.substring(index, index + queryKeyword.length())));
+                    index = substringSearcher.indexOf(fieldValue, index + 1);
                 }
-
             }
         }
         return matchingResults;
@@ -2,11 +2,12 @@ package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -14,8 +15,8 @@ import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 
+import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.dataflow.IOperator;
-import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
@@ -23,50 +24,67 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.ICountableSourceOperator;
+import edu.uci.ics.texera.dataflow.utils.CaseInsensitiveSubstringSearcher;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.DataStore;
 import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
  * KeywordMatcherSourceOperator is a source operator with a keyword query.
  * 
+ * For the conjunction and phrase matching types, the DataReader only adds the spans of the query tokens to the payload,
+ *   they are looked up in the term vectors of the matching documents, and KeywordMatcher builds the results from them.
+ * Since this payload isn't the payload of all the tokens, it's removed from the output tuples,
+ *   an operator after this operator that needs the payload generates it by itself.
+ * 
+ * If the predicate has a score attribute, the source is ranked (see KeywordSourcePredicate),
+ *   the DataReader reads the matching documents by their BM25 scores, and KeywordMatcher keeps their order.
+ *   A limit pushed down to an exact conjunction query is collected as the top results by the searcher.
+ * 
+ * For the substring matching type, if the table has gram fields (see DataStore.getGramSize()),
+ *   the documents containing all the grams of the query are read as the candidates,
+ *   and KeywordMatcher verifies the positions of the substring in them.
+ *   The table is scanned instead if the query is shorter than the grams, or an attribute is a STRING attribute.
+ * 
  * @author Zuozhi Wang
  * @author Zhenfeng Qi
  *
  */
-public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator implements ISourceOperator {
+public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator implements ICountableSourceOperator {
+
+    // the most case variants of a gram that are queried, a gram with more variants is left out of the gram query
+    private static final int MAX_GRAM_VARIANTS = 64;
 
     private final KeywordPredicate predicate;
 
     private final DataReader dataReader;
     private final KeywordMatcher keywordMatcher;
     
-    private final Schema inputSchema;
-    
-    private final ArrayList<String> queryTokenList;
     private final HashSet<String> queryTokenSet;
-    private ArrayList<String> queryTokensWithStopwords;
     
 
     public KeywordMatcherSourceOperator(KeywordSourcePredicate predicate) 
             throws DataflowException, StorageException {
         this.predicate = predicate;
         
-        this.queryTokenList = DataflowUtils.tokenizeQuery(predicate.getLuceneAnalyzerString(), predicate.getQuery());
-        this.queryTokenSet = new HashSet<>(this.queryTokenList);
-        
-        this.queryTokensWithStopwords = DataflowUtils.tokenizeQueryWithStopwords(
-                RelationManager.getInstance().getTableAnalyzerString(predicate.getTableName()),
-                predicate.getQuery());
-                
-        // input schema must be specified before creating query
-        this.inputSchema = RelationManager.getInstance().getTableDataStore(predicate.getTableName()).getSchema();
+        this.queryTokenSet = new HashSet<>(
+                DataflowUtils.tokenizeQuery(predicate.getLuceneAnalyzerString(), predicate.getQuery()));
         
         // generate dataReader
-        Query luceneQuery = createLuceneQueryObject();
+        Query luceneQuery = createLuceneQuery(predicate, 
+                RelationManager.getInstance().getTableDataStore(predicate.getTableName()),
+                RelationManager.getInstance().getTableAnalyzerString(predicate.getTableName()));
 
         this.dataReader = RelationManager.getInstance().getTableDataReader(predicate.getTableName(), luceneQuery);
         this.dataReader.setPayloadAdded(true);
+        if (isPayloadOfQueryTokens()) {
+            this.dataReader.setPayloadTerms(queryTokenSet);
+        }
+        this.dataReader.setScoreAttributeName(predicate.getScoreAttributeName());
         
         // generate KeywordMatcher
         keywordMatcher = new KeywordMatcher(predicate);
@@ -83,11 +101,26 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
     @Override
     protected void setUp() throws DataflowException {
         this.outputSchema = keywordMatcher.getOutputSchema();
+        if (isPayloadOfQueryTokens()) {
+            this.outputSchema = new Schema.Builder(this.outputSchema).removeIfExists(SchemaConstants.PAYLOAD).build();
+        }
     }
 
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
-        return this.keywordMatcher.getNextTuple();
+        Tuple resultTuple = this.keywordMatcher.getNextTuple();
+        if (resultTuple == null || ! isPayloadOfQueryTokens()) {
+            return resultTuple;
+        }
+        return new Tuple.Builder(resultTuple).removeIfExists(SchemaConstants.PAYLOAD).build();
+    }
+    
+    /*
+     * The matching types that only need the spans of the query tokens in the payload.
+     */
+    private boolean isPayloadOfQueryTokens() {
+        return this.predicate.getMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED
+                || this.predicate.getMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED;
     }
 
     @Override
@@ -110,37 +143,86 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
     public KeywordPredicate getPredicate() {
         return this.predicate;
     }
+    
+    /**
+     * The index query is exact for the conjunction matching type:
+     *   a document matches the conjunction query if and only if KeywordMatcher finds all the query tokens in it.
+     * The phrase query and the scan (substring) query are further filtered by KeywordMatcher.
+     */
+    @Override
+    public boolean isIndexQueryExact() {
+        return this.predicate.getMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED;
+    }
+    
+    @Override
+    public int countMatchingTuples() throws TexeraException {
+        if (! isIndexQueryExact()) {
+            throw new DataflowException("the results of keyword matching type " + predicate.getMatchingType() 
+                    + " can't be counted by the index");
+        }
+        return this.dataReader.count();
+    }
+    
+    /**
+     * The limit is only pushed down to the index if the index query is exact,
+     *   otherwise the documents filtered out by KeywordMatcher would be counted in the limit.
+     * If the source is ranked, the limit is the number of top results collected by the searcher.
+     */
+    @Override
+    public void setMatchingTupleLimit(int limit) throws TexeraException {
+        if (isIndexQueryExact()) {
+            this.dataReader.setLimit(limit);
+        }
+    }
+    
+    @Override
+    public String getTableName() {
+        return ((KeywordSourcePredicate) this.predicate).getTableName();
+    }
 
     /**
      * Creates a Query object as a boolean Query on all attributes Example: For
      * creating a query like (TestConstants.DESCRIPTION + ":lin" + " AND " +
      * TestConstants.LAST_NAME + ":lin") we provide a list of AttributeFields
      * (Description, Last_name) to search on and a query string (lin)
+     * 
+     * The table is passed in by the caller, so an operator reading the documents of many keyword queries
+     *   looks up the table once (see DictionaryMatcherSourceOperator).
      *
+     * @param predicate, the keyword predicate
+     * @param dataStore, the data store of the table of the predicate
+     * @param tableAnalyzerString, the analyzer string of the table of the predicate
      * @return Query
-     * @throws ParseException
      * @throws DataflowException
      */
-    private Query createLuceneQueryObject() throws DataflowException {
+    public static Query createLuceneQuery(KeywordSourcePredicate predicate, DataStore dataStore, String tableAnalyzerString) 
+            throws DataflowException {
+        Schema inputSchema = dataStore.getSchema();
+        ArrayList<String> queryTokenList = DataflowUtils.tokenizeQuery(
+                predicate.getLuceneAnalyzerString(), predicate.getQuery());
+        
         Query query = null;
-        if (this.predicate.getMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
-            query = buildConjunctionQuery();
+        if (predicate.getMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
+            query = buildConjunctionQuery(predicate, inputSchema, new HashSet<>(queryTokenList));
         }
-        if (this.predicate.getMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
-            query = buildPhraseQuery();
+        if (predicate.getMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED) {
+            ArrayList<String> queryTokensWithStopwords = DataflowUtils.tokenizeQueryWithStopwords(
+                    tableAnalyzerString, predicate.getQuery());
+            query = buildPhraseQuery(predicate, inputSchema, queryTokenList, queryTokensWithStopwords);
         }
-        if (this.predicate.getMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
-            query = buildScanQuery();
+        if (predicate.getMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
+            query = buildScanQuery(predicate, dataStore);
         }
 
         return query;
     }
 
-    private Query buildConjunctionQuery() throws DataflowException {
+    private static Query buildConjunctionQuery(KeywordPredicate predicate, Schema inputSchema, 
+            HashSet<String> queryTokenSet) throws DataflowException {
         BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
 
-        for (String attributeName : this.predicate.getAttributeNames()) {
-            AttributeType attributeType = this.inputSchema.getAttribute(attributeName).getType();
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
 
             // types other than TEXT and STRING: throw Exception for now
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
@@ -166,11 +248,12 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
         return booleanQueryBuilder.build();
     }
 
-    private Query buildPhraseQuery() throws DataflowException {
+    private static Query buildPhraseQuery(KeywordPredicate predicate, Schema inputSchema, 
+            ArrayList<String> queryTokenList, ArrayList<String> queryTokensWithStopwords) throws DataflowException {
         BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
 
-        for (String attributeName : this.predicate.getAttributeNames()) {
-            AttributeType attributeType = this.inputSchema.getAttribute(attributeName).getType();
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
 
             // types other than TEXT and STRING: throw Exception for now
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
@@ -205,9 +288,9 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
         return booleanQueryBuilder.build();
     }
 
-    private Query buildScanQuery() throws DataflowException {
-        for (String attributeName : this.predicate.getAttributeNames()) {
-            AttributeType attributeType = this.inputSchema.getAttribute(attributeName).getType();
+    private static Query buildScanQuery(KeywordPredicate predicate, DataStore dataStore) throws DataflowException {
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = dataStore.getSchema().getAttribute(attributeName).getType();
 
             // types other than TEXT and STRING: throw Exception for now
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
@@ -215,8 +298,92 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
                         "KeywordPredicate: Fields other than STRING and TEXT are not supported yet");
             }
         }
-
-        return new MatchAllDocsQuery();
+        
+        Query gramQuery = buildGramQuery(predicate, dataStore);
+        return gramQuery == null ? new MatchAllDocsQuery() : gramQuery;
+    }
+    
+    /*
+     * Builds the query of the candidates of a substring on the gram fields of the attributes.
+     * A document containing the substring contains all of its grams, so it's enough to match grams covering the substring:
+     *   the grams starting at 0, n, 2n, ... and the last gram.
+     * The substring is matched ignoring the case by folding the chars (see CaseInsensitiveSubstringSearcher),
+     *   but the grams are indexed in lower case, and some chars equal ignoring the case have different lower cases,
+     *   like the sigma and the final sigma, so a gram matches any of its lower case variants.
+     * 
+     * Returns null if the table must be scanned: the table doesn't have gram fields, 
+     *   an attribute doesn't have a gram field (STRING), or the query is shorter than the grams.
+     */
+    private static Query buildGramQuery(KeywordPredicate predicate, DataStore dataStore) throws DataflowException {
+        if (! dataStore.hasGramFields()) {
+            return null;
+        }
+        int gramSize = dataStore.getGramSize();
+        ArrayList<String> queryGrams = DataflowUtils.tokenizeQuery(
+                LuceneAnalyzerConstants.nGramAnalyzerString(gramSize), predicate.getQuery());
+        if (queryGrams.isEmpty()) {
+            return null;
+        }
+        LinkedHashSet<String> coveringGrams = new LinkedHashSet<>();
+        for (int i = 0; i < queryGrams.size(); i += gramSize) {
+            coveringGrams.add(queryGrams.get(i));
+        }
+        coveringGrams.add(queryGrams.get(queryGrams.size() - 1));
+        
+        List<List<String>> coveringGramVariants = new ArrayList<>();
+        for (String gram : coveringGrams) {
+            List<String> gramVariants = getLowerCaseVariants(gram);
+            if (gramVariants.size() <= MAX_GRAM_VARIANTS) {
+                coveringGramVariants.add(gramVariants);
+            }
+        }
+        if (coveringGramVariants.isEmpty()) {
+            return null;
+        }
+        
+        BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
+        for (String attributeName : predicate.getAttributeNames()) {
+            if (dataStore.getSchema().getAttribute(attributeName).getType() != AttributeType.TEXT) {
+                return null;
+            }
+            String gramFieldName = StorageUtils.getGramFieldName(attributeName);
+            BooleanQuery.Builder fieldQueryBuilder = new BooleanQuery.Builder();
+            for (List<String> gramVariants : coveringGramVariants) {
+                if (gramVariants.size() == 1) {
+                    fieldQueryBuilder.add(new TermQuery(new Term(gramFieldName, gramVariants.get(0))), 
+                            BooleanClause.Occur.MUST);
+                    continue;
+                }
+                BooleanQuery.Builder variantsQueryBuilder = new BooleanQuery.Builder();
+                for (String gramVariant : gramVariants) {
+                    variantsQueryBuilder.add(new TermQuery(new Term(gramFieldName, gramVariant)), 
+                            BooleanClause.Occur.SHOULD);
+                }
+                fieldQueryBuilder.add(variantsQueryBuilder.build(), BooleanClause.Occur.MUST);
+            }
+            booleanQueryBuilder.add(fieldQueryBuilder.build(), BooleanClause.Occur.SHOULD);
+        }
+        return booleanQueryBuilder.build();
+    }
+    
+    /*
+     * Gets the lower case grams that the grams equal to a gram ignoring the case are indexed as.
+     * Stops at more than MAX_GRAM_VARIANTS variants.
+     */
+    private static List<String> getLowerCaseVariants(String gram) {
+        List<String> variants = new ArrayList<>();
+        variants.add("");
+        for (int i = 0; i < gram.length() && variants.size() <= MAX_GRAM_VARIANTS; i++) {
+            char[] charVariants = CaseInsensitiveSubstringSearcher.getLowerCaseVariants(gram.charAt(i));
+            List<String> longerVariants = new ArrayList<>();
+            for (String variant : variants) {
+                for (char charVariant : charVariants) {
+                    longerVariants.add(variant + charVariant);
+                }
+            }
+            variants = longerVariants;
+        }
+        return variants;
     }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
 
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
 import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 
@@ -15,6 +16,9 @@ import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
  * KeywordSourcePredicate is the predicate used by KeywordMatcherSourceOperator.
  * This predicate is based on KeywordPredicate, with an additional member "tableName".
  * 
+ * If the optional "scoreAttribute" is set, the source is ranked: the results are returned by their BM25 scores 
+ *   in descending order, and the score of each result is in the score attribute.
+ * 
  * 
  * @author Zuozhi Wang
  *
@@ -22,6 +26,20 @@ import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 public class KeywordSourcePredicate extends KeywordPredicate {
     
     private final String tableName;
+    private final String scoreAttributeName;
+    
+    /*
+     * This constructor is for internal use. It's not a JSON entry point.
+     */
+    public KeywordSourcePredicate(
+            String query,
+            List<String> attributeNames,
+            String luceneAnalyzerString, 
+            KeywordMatchingType matchingType,
+            String tableName,
+            String spanListName) {
+        this(query, attributeNames, luceneAnalyzerString, matchingType, tableName, spanListName, null);
+    }
     
     //TODO find a way to not write duplicate annotations (for fields declared in superclass)
     @JsonCreator
@@ -37,7 +55,10 @@ public class KeywordSourcePredicate extends KeywordPredicate {
             @JsonProperty(value = PropertyNameConstants.TABLE_NAME, required = true)
             String tableName,
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
-            String spanListName) {
+            String spanListName,
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.KEYWORD_SCORE_ATTRIBUTE_NAME, required = false)
+            String scoreAttributeName) {
         
         super(query, attributeNames, luceneAnalyzerString, matchingType, spanListName);
 
@@ -45,6 +66,14 @@ public class KeywordSourcePredicate extends KeywordPredicate {
             throw new TexeraException(PropertyNameConstants.EMPTY_NAME_EXCEPTION);
         }
         this.tableName = tableName;
+        
+        if (scoreAttributeName == null || scoreAttributeName.trim().isEmpty()) {
+            this.scoreAttributeName = null;
+        } else if (matchingType == KeywordMatchingType.SUBSTRING_SCANBASED) {
+            throw new TexeraException("the results of keyword matching type " + matchingType + " can't be ranked");
+        } else {
+            this.scoreAttributeName = scoreAttributeName.trim();
+        }
     }
     
     @JsonProperty(PropertyNameConstants.TABLE_NAME)
@@ -52,6 +81,11 @@ public class KeywordSourcePredicate extends KeywordPredicate {
         return tableName;
     }
     
+    @JsonProperty(PropertyNameConstants.KEYWORD_SCORE_ATTRIBUTE_NAME)
+    public String getScoreAttributeName() {
+        return scoreAttributeName;
+    }
+    
     @Override
     public KeywordMatcherSourceOperator newOperator() {
         return new KeywordMatcherSourceOperator(this);
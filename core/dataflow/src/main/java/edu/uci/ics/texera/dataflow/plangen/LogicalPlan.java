@@ -13,10 +13,14 @@ import edu.uci.ics.texera.api.engine.Plan;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.PlanGenException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.aggregator.AggregatorPredicate;
+import edu.uci.ics.texera.dataflow.aggregator.SourceCountAggregator;
+import edu.uci.ics.texera.dataflow.common.ICountableSourceOperator;
 import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 import edu.uci.ics.texera.dataflow.connector.OneToNBroadcastConnector;
 import edu.uci.ics.texera.dataflow.join.Join;
+import edu.uci.ics.texera.dataflow.sink.tuple.TupleSinkPredicate;
 import edu.uci.ics.texera.api.schema.Schema;
 
 
@@ -249,6 +253,7 @@ public class LogicalPlan {
 
         buildOperators();
         validateOperatorGraph();
+        rewriteCountAndLimitQueries();
         connectOperators(operatorObjectMap);
 
         ISink sink = findSinkOperator(operatorObjectMap);
@@ -452,6 +457,47 @@ public class LogicalPlan {
                 String.format("There must be exaxtly one sink operator, got %d.", sinkOperatorNumber));
     }
     
+    /*
+     * Rewrites the operators that only need the number of results of a source, 
+     *   or only need its first results, so that they are answered by the index of the source:
+     * 
+     *   source -> Aggregator (COUNT only): the Aggregator is replaced by a SourceCountAggregator,
+     *     which counts the matching documents in the index without reading the tuples.
+     *   source -> TupleSink (with a limit): the limit is pushed down to the source,
+     *     so that the index search stops after enough results are found (a limit of 1 is an existence check).
+     * 
+     * Only a source whose index query is exact, and whose only output is the rewritten operator, is rewritten.
+     * 
+     * This function assumes that the operator graph is valid.
+     */
+    private void rewriteCountAndLimitQueries() throws PlanGenException {
+        for (String vertex : adjacencyList.keySet()) {
+            IOperator currentOperator = operatorObjectMap.get(vertex);
+            if (! (currentOperator instanceof ICountableSourceOperator) || adjacencyList.get(vertex).size() != 1) {
+                continue;
+            }
+            ICountableSourceOperator sourceOperator = (ICountableSourceOperator) currentOperator;
+            if (! sourceOperator.isIndexQueryExact()) {
+                continue;
+            }
+            String adjacentVertex = adjacencyList.get(vertex).iterator().next();
+            PredicateBase adjacentPredicate = operatorPredicateMap.get(adjacentVertex);
+            
+            if (adjacentPredicate instanceof AggregatorPredicate) {
+                AggregatorPredicate aggregatorPredicate = (AggregatorPredicate) adjacentPredicate;
+                if (SourceCountAggregator.canCount(aggregatorPredicate, sourceOperator)) {
+                    operatorObjectMap.put(adjacentVertex, new SourceCountAggregator(aggregatorPredicate));
+                }
+            } else if (adjacentPredicate instanceof TupleSinkPredicate) {
+                TupleSinkPredicate sinkPredicate = (TupleSinkPredicate) adjacentPredicate;
+                long tupleLimit = (long) sinkPredicate.getLimit() + sinkPredicate.getOffset();
+                if (tupleLimit > 0 && tupleLimit < Integer.MAX_VALUE) {
+                    sourceOperator.setMatchingTupleLimit((int) tupleLimit);
+                }
+            }
+        }
+    }
+    
     /*
      * Connects IOperator objects together according to the operator graph.
      * 
@@ -29,6 +29,7 @@ import edu.uci.ics.texera.dataflow.sink.excel.ExcelSinkPredicate;
 import edu.uci.ics.texera.dataflow.sink.mysql.MysqlSinkPredicate;
 import edu.uci.ics.texera.dataflow.sink.tuple.TupleSinkPredicate;
 import edu.uci.ics.texera.dataflow.source.asterix.AsterixSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.daterange.DateRangeSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.file.FileSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
 import edu.uci.ics.texera.dataflow.twitter.TwitterConverterPredicate;
@@ -76,6 +77,7 @@ public class OperatorArityConstants {
         fixedInputArityMap.put(TwitterConverterPredicate.class, 1);
 
         fixedInputArityMap.put(ScanSourcePredicate.class, 0);
+        fixedInputArityMap.put(DateRangeSourcePredicate.class, 0);
         fixedInputArityMap.put(FileSourcePredicate.class, 0);
         fixedInputArityMap.put(TwitterFeedSourcePredicate.class, 0);
         
@@ -117,6 +119,7 @@ public class OperatorArityConstants {
         fixedOutputArityMap.put(TwitterConverterPredicate.class, 1);
 
         fixedOutputArityMap.put(ScanSourcePredicate.class, 1);
+        fixedOutputArityMap.put(DateRangeSourcePredicate.class, 1);
         fixedOutputArityMap.put(FileSourcePredicate.class, 1);
         fixedOutputArityMap.put(TwitterFeedSourcePredicate.class, 1);
         
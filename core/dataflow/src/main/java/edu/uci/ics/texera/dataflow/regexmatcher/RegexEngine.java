@@ -0,0 +1,55 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * RegexEngine: the engine that RegexMatcher uses to match a regex. <br>
+ *
+ * JAVA: <br>
+ * java.util.regex, a backtracking engine. It supports the whole Java regex syntax,
+ * including back references and lookarounds, but a regex like "(a|aa)*b" can take
+ * exponential time on a long text. <br>
+ *
+ * RE2J: <br>
+ * com.google.re2j, which matches in linear time of the text. It supports the RE2 syntax,
+ * which doesn't have back references and lookarounds. Some constructs match differently
+ * than in java.util.regex (see RegexMatcher.isMatchedLikeJava), for example "." also matches "\r",
+ * "\s" doesn't match "\x0B", "$" doesn't match before a final line terminator,
+ * and ignoring case also folds non-ASCII letters (the Kelvin sign matches "k"). <br>
+ *
+ * AUTO: <br>
+ * uses RE2J if the regex is backtracking-prone (see RegexMatcher.isBacktrackingProne),
+ * RE2J supports it, and RE2J matches it exactly like java.util.regex, and JAVA otherwise.
+ * So AUTO always gives the results of JAVA, a backtracking-prone regex using one of the constructs above
+ * (or the ignore case option) is still matched by java.util.regex. <br>
+ *
+ */
+public enum RegexEngine {
+    AUTO(RegexEngineName.AUTO),
+    JAVA(RegexEngineName.JAVA),
+    RE2J(RegexEngineName.RE2J);
+
+    private final String name;
+
+    private RegexEngine(String name) {
+        this.name = name;
+    }
+
+    // use the name string instead of enum string in JSON
+    @JsonValue
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    public class RegexEngineName {
+        public static final String AUTO = "auto";
+        public static final String JAVA = "java";
+        public static final String RE2J = "re2j";
+    }
+
+}
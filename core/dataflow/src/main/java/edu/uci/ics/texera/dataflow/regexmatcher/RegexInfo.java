@@ -102,17 +102,17 @@ class RegexInfo {
      * {@code force} if true.
      * 
      * @param force
+     * @param gramLength
      */
-    RegexInfo simplify(boolean force) {
+    RegexInfo simplify(boolean force, int gramLength) {
         TranslatorUtils.removeDuplicateAffix(exact, false);
-        int gramLength = TranslatorUtils.GRAM_LENGTH;
 
         if (exact.size() > TranslatorUtils.MAX_EXACT_SIZE
                 || (TranslatorUtils.minLenOfString(exact) >= gramLength && force)
                 || TranslatorUtils.minLenOfString(exact) >= gramLength + 1) {
             // Add exact to match (query tree)
             // Transfer information from exact to prefix and suffix
-            match = GramBooleanQuery.combine(match, exact);
+            match = GramBooleanQuery.combine(match, exact, gramLength);
             for (String str : exact) {
                 if (str.length() < gramLength) {
                     prefix.add(str);
@@ -127,8 +127,8 @@ class RegexInfo {
 
         // Add information in prefix and suffix to match
         if (exact.isEmpty()) {
-            simplifyAffix(prefix, false);
-            simplifyAffix(suffix, true);
+            simplifyAffix(prefix, false, gramLength);
+            simplifyAffix(suffix, true, gramLength);
         }
 
         /**
@@ -147,13 +147,13 @@ class RegexInfo {
      * @param strList
      * @param isSuffix
      *            indicates if given string list is suffix list or not
+     * @param gramLength
      */
-    void simplifyAffix(List<String> strList, boolean isSuffix) {
+    void simplifyAffix(List<String> strList, boolean isSuffix, int gramLength) {
         TranslatorUtils.removeDuplicateAffix(strList, isSuffix);
-        int gramLength = TranslatorUtils.GRAM_LENGTH;
 
         // Add the current prefix/suffix set to "match" query.
-        match = GramBooleanQuery.combine(match, strList);
+        match = GramBooleanQuery.combine(match, strList, gramLength);
 
         // This loop reduces the length of prefix/suffix. It cuts all
         // strings longer than {@code gramLength}, and continues to cut strings
@@ -0,0 +1,94 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACTrie;
+import edu.uci.ics.texera.dataflow.regexmatcher.GramBooleanQuery.QueryOp;
+
+/**
+ * RegexLiteralFilter rejects the texts that can't match a regex, before the regex engine runs on them.
+ *
+ * It uses the boolean query of n-grams that RegexToGramQueryTranslator builds for the gram index query:
+ *   a text that matches the regex contains all the grams of at least one conjunction of the query.
+ * The grams are found in a text by one pass of an Aho-Corasick automaton, ignoring the case,
+ *   then the query is evaluated on the grams found.
+ */
+class RegexLiteralFilter {
+
+    private final GramBooleanQuery gramQuery;
+    private final ACTrie gramTrie;
+
+    private RegexLiteralFilter(GramBooleanQuery gramQuery, Set<String> grams) {
+        this.gramQuery = gramQuery;
+        this.gramTrie = new ACTrie();
+        this.gramTrie.setCaseInsensitive(true);
+        this.gramTrie.addKeywords(new ArrayList<>(grams));
+        this.gramTrie.constructFailureTransactions();
+    }
+
+    /**
+     * Creates the filter of a regex.
+     *
+     * @param regex
+     * @return the filter, or null if the regex doesn't require any gram, or can't be translated
+     */
+    static RegexLiteralFilter create(String regex) {
+        GramBooleanQuery gramQuery = RegexToGramQueryTranslator.translateToRequiredGrams(
+                regex, TranslatorUtils.DEFAULT_GRAM_LENGTH);
+        if (gramQuery == null) {
+            return null;
+        }
+        Set<String> grams = new HashSet<>();
+        collectGrams(gramQuery, grams);
+        if (grams.isEmpty()) {
+            return null;
+        }
+        return new RegexLiteralFilter(gramQuery, grams);
+    }
+
+    private static void collectGrams(GramBooleanQuery query, Set<String> grams) {
+        if (query.operator == QueryOp.LEAF) {
+            grams.add(query.leaf);
+        } else {
+            for (GramBooleanQuery subQuery : query.subQuerySet) {
+                collectGrams(subQuery, grams);
+            }
+        }
+    }
+
+    /**
+     * @param text
+     * @return false if the text can't match the regex, true if it may match
+     */
+    boolean mayMatch(String text) {
+        return evaluate(gramQuery, gramTrie.findKeywords(text));
+    }
+
+    private static boolean evaluate(GramBooleanQuery query, Set<String> foundGrams) {
+        switch (query.operator) {
+        case LEAF:
+            return foundGrams.contains(query.leaf);
+        case AND:
+            for (GramBooleanQuery subQuery : query.subQuerySet) {
+                if (! evaluate(subQuery, foundGrams)) {
+                    return false;
+                }
+            }
+            return true;
+        case OR:
+            for (GramBooleanQuery subQuery : query.subQuerySet) {
+                if (evaluate(subQuery, foundGrams)) {
+                    return true;
+                }
+            }
+            // an empty OR doesn't require anything
+            return query.subQuerySet.isEmpty();
+        default:
+            // ANY, and NONE which the translator only uses for the parts it can't analyze
+            return true;
+        }
+    }
+
+}
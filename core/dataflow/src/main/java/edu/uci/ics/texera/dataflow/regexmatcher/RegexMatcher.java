@@ -4,6 +4,11 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.google.re2j.PublicParser;
+import com.google.re2j.PublicRE2;
+import com.google.re2j.PublicRegexp;
+import com.google.re2j.PublicRegexp.PublicOp;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.exception.DataflowException;
@@ -20,6 +25,10 @@ import edu.uci.ics.texera.dataflow.regexmatcher.label.LabledRegexNoQualifierProc
 /**
  * Created by chenli on 3/25/16.
  * 
+ * A regex without labels is matched by java.util.regex or by RE2J, see RegexEngine.
+ * Before the engine runs on a tuple, the tuple is rejected if it doesn't contain 
+ *   the literals that the regex requires (see RegexLiteralFilter).
+ * 
  * @author Shuying Lai (laisycs)
  * @author Zuozhi Wang (zuozhiw)
  */
@@ -62,6 +71,9 @@ public class RegexMatcher extends AbstractSingleInputOperator {
     private RegexType regexType;
         
     private Pattern regexPattern;
+    private com.google.re2j.Pattern re2jPattern;
+    private RegexLiteralFilter literalFilter;
+    private boolean useLiteralFilter = true;
     LabeledRegexProcessor labeledRegexProcessor;
     LabledRegexNoQualifierProcessor labledRegexNoQualifierProcessor;
     
@@ -90,9 +102,14 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         findRegexType();
         // Check if labeled or unlabeled
         if (this.regexType == RegexType.NO_LABELS) {
-            regexPattern = predicate.isIgnoreCase() ? 
-                    Pattern.compile(predicate.getRegex(), Pattern.CASE_INSENSITIVE)
-                    : Pattern.compile(predicate.getRegex());
+            if (findRegexEngine(predicate) == RegexEngine.RE2J) {
+                re2jPattern = compileRe2jPattern(predicate);
+            } else {
+                regexPattern = predicate.isIgnoreCase() ? 
+                        Pattern.compile(predicate.getRegex(), Pattern.CASE_INSENSITIVE)
+                        : Pattern.compile(predicate.getRegex());
+            }
+            literalFilter = useLiteralFilter ? RegexLiteralFilter.create(predicate.getRegex()) : null;
         } else if (this.regexType == RegexType.LABELED_WITH_QUALIFIERS) {
             labeledRegexProcessor = new LabeledRegexProcessor(predicate);
         } else {
@@ -117,6 +134,161 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         }
     }
     
+    /*
+     * Determines the engine of a regex without labels, resolves AUTO to JAVA or RE2J.
+     * AUTO only uses RE2J if it matches the regex exactly like java.util.regex.
+     */
+    static RegexEngine findRegexEngine(RegexPredicate predicate) {
+        if (predicate.getRegexEngine() != RegexEngine.AUTO) {
+            return predicate.getRegexEngine();
+        }
+        if (predicate.isIgnoreCase()) {
+            // RE2J also folds the case of non-ASCII letters
+            return RegexEngine.JAVA;
+        }
+        try {
+            return isBacktrackingProne(predicate.getRegex()) && isMatchedLikeJava(predicate.getRegex()) ? 
+                    RegexEngine.RE2J : RegexEngine.JAVA;
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            // the regex uses the syntax that only java.util.regex supports, such as back references
+            return RegexEngine.JAVA;
+        }
+    }
+    
+    private static com.google.re2j.Pattern compileRe2jPattern(RegexPredicate predicate) throws DataflowException {
+        try {
+            return predicate.isIgnoreCase() ?
+                    com.google.re2j.Pattern.compile(predicate.getRegex(), com.google.re2j.Pattern.CASE_INSENSITIVE)
+                    : com.google.re2j.Pattern.compile(predicate.getRegex());
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            throw new DataflowException(String.format("regex %s is not supported by the %s engine: %s", 
+                    predicate.getRegex(), RegexEngine.RE2J, e.getMessage()), e);
+        }
+    }
+    
+    /**
+     * Checks if a regex can take exponential time to match with a backtracking engine (java.util.regex).
+     * 
+     * A regex is backtracking-prone if it repeats a sub-expression that can match a text in more than one way,
+     *   that is, a repetition (*, +, ?, {m,n}) or an alternation inside another repetition, 
+     *   for example "(a|aa)*b", "(\w+\s?)+$" or "(x*)*y".
+     * 
+     * @param regex
+     * @return
+     * @throws com.google.re2j.PatternSyntaxException, if RE2J doesn't support the regex
+     */
+    public static boolean isBacktrackingProne(String regex) throws com.google.re2j.PatternSyntaxException {
+        return hasNestedRepetition(PublicParser.parse(regex, PublicRE2.PERL), false);
+    }
+    
+    /**
+     * Checks if RE2J matches a regex (without the ignore case option) exactly like java.util.regex.
+     * 
+     * It's false if the regex uses one of the constructs that RE2J matches differently:
+     *   ".", which also matches "\r", U+0085, U+2028 and U+2029 in RE2J,
+     *   "\s" and "\S", since "\s" doesn't match "\x0B" in RE2J, and "\v", which is only "\x0B" in RE2J,
+     *   "$", which only matches at the end of the text in RE2J, not before a final line terminator,
+     *   "^" and "$" in the multi-line mode, which only break lines at "\n" in RE2J,
+     *   "\b" and "\B", which only treat ASCII letters and digits as word characters in RE2J,
+     *   "[:alpha:]", which is a POSIX class in RE2J and a set of characters in java.util.regex,
+     *   and the inline "i" flag, since RE2J also folds the case of non-ASCII letters.
+     * 
+     * @param regex
+     * @return
+     * @throws com.google.re2j.PatternSyntaxException, if RE2J doesn't support the regex
+     */
+    public static boolean isMatchedLikeJava(String regex) throws com.google.re2j.PatternSyntaxException {
+        return ! hasJavaIncompatibleSyntax(regex) 
+                && ! hasJavaIncompatibleNode(PublicParser.parse(regex, PublicRE2.PERL));
+    }
+    
+    /*
+     * Finds the constructs that are lost in the parse tree of RE2J: 
+     *   the "\s", "\S" and "\v" escapes, POSIX classes, and inline flag groups with "i".
+     */
+    private static boolean hasJavaIncompatibleSyntax(String regex) {
+        for (int i = 0; i + 1 < regex.length(); i++) {
+            char c = regex.charAt(i);
+            char next = regex.charAt(i + 1);
+            if (c == '\\') {
+                if (next == 's' || next == 'S' || next == 'v') {
+                    return true;
+                }
+                // skip the escaped character
+                i++;
+            } else if (c == '[' && next == ':') {
+                return true;
+            } else if (c == '(' && next == '?') {
+                for (int j = i + 2; j < regex.length() && Character.isLetter(regex.charAt(j)); j++) {
+                    if (regex.charAt(j) == 'i') {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static boolean hasJavaIncompatibleNode(PublicRegexp re) {
+        switch (re.getOp()) {
+        case ANY_CHAR_NOT_NL:
+        case BEGIN_LINE:
+        case END_LINE:
+        case WORD_BOUNDARY:
+        case NO_WORD_BOUNDARY:
+            return true;
+        case END_TEXT:
+            if ((re.getFlags() & PublicRE2.WAS_DOLLAR) != 0) {
+                return true;
+            }
+            break;
+        default:
+            break;
+        }
+        if (re.getSubs() == null) {
+            return false;
+        }
+        for (PublicRegexp sub : re.getSubs()) {
+            if (hasJavaIncompatibleNode(sub)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean hasNestedRepetition(PublicRegexp re, boolean insideRepetition) {
+        boolean isRepetition = false;
+        switch (re.getOp()) {
+        case STAR:
+        case PLUS:
+        case QUEST:
+        case REPEAT:
+            isRepetition = true;
+            break;
+        case ALTERNATE:
+            if (insideRepetition) {
+                return true;
+            }
+            break;
+        default:
+            break;
+        }
+        if (isRepetition && insideRepetition) {
+            return true;
+        }
+        if (re.getSubs() == null) {
+            return false;
+        }
+        // "?" matches its sub-expression at most once, it doesn't repeat it
+        boolean subInsideRepetition = insideRepetition || (isRepetition && re.getOp() != PublicOp.QUEST);
+        for (PublicRegexp sub : re.getSubs()) {
+            if (hasNestedRepetition(sub, subInsideRepetition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
         Tuple inputTuple = null;
@@ -153,7 +325,12 @@ public class RegexMatcher extends AbstractSingleInputOperator {
 
         List<Span> matchingResults = null;
         if (this.regexType == RegexType.NO_LABELS) {
-            matchingResults = computeMatchingResultsWithPattern(inputTuple, predicate, regexPattern);
+            if (literalFilter != null && ! containsRequiredLiterals(inputTuple)) {
+                return null;
+            }
+            matchingResults = re2jPattern != null ?
+                    computeMatchingResultsWithPattern(inputTuple, predicate, re2jPattern)
+                    : computeMatchingResultsWithPattern(inputTuple, predicate, regexPattern);
         } else if (this.regexType == RegexType.LABELED_WITH_QUALIFIERS) {
             matchingResults = labeledRegexProcessor.computeMatchingResults(inputTuple);
         } else {
@@ -173,17 +350,20 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         return tupleBuilder.build();
     }
 
+    private boolean containsRequiredLiterals(Tuple inputTuple) {
+        for (String attributeName : predicate.getAttributeNames()) {
+            if (literalFilter.mayMatch(getFieldValueToMatch(inputTuple, attributeName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static List<Span> computeMatchingResultsWithPattern(Tuple inputTuple, RegexPredicate predicate, Pattern pattern) {
         List<Span> matchingResults = new ArrayList<>();
 
         for (String attributeName : predicate.getAttributeNames()) {
-            AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
-            String fieldValue = inputTuple.getField(attributeName).getValue().toString();
-
-            // types other than TEXT and STRING: throw Exception for now
-            if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
-                throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
-            }
+            String fieldValue = getFieldValueToMatch(inputTuple, attributeName);
             
             Matcher javaMatcher = pattern.matcher(fieldValue);
             while (javaMatcher.find()) {
@@ -197,6 +377,35 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         return matchingResults;
     }
     
+    public static List<Span> computeMatchingResultsWithPattern(Tuple inputTuple, RegexPredicate predicate, 
+            com.google.re2j.Pattern pattern) {
+        List<Span> matchingResults = new ArrayList<>();
+
+        for (String attributeName : predicate.getAttributeNames()) {
+            String fieldValue = getFieldValueToMatch(inputTuple, attributeName);
+            
+            com.google.re2j.Matcher re2jMatcher = pattern.matcher(fieldValue);
+            while (re2jMatcher.find()) {
+                int start = re2jMatcher.start();
+                int end = re2jMatcher.end();
+                matchingResults.add(
+                        new Span(attributeName, start, end, predicate.getRegex(), fieldValue.substring(start, end)));
+            }
+        }
+        
+        return matchingResults;
+    }
+    
+    private static String getFieldValueToMatch(Tuple inputTuple, String attributeName) {
+        AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
+
+        // types other than TEXT and STRING: throw Exception for now
+        if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
+            throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
+        }
+        return inputTuple.getField(attributeName).getValue().toString();
+    }
+    
     @Override
     protected void cleanUp() throws DataflowException {        
     }
@@ -204,6 +413,15 @@ public class RegexMatcher extends AbstractSingleInputOperator {
     public RegexPredicate getPredicate() {
         return this.predicate;
     }
+    
+    /**
+     * Turns off the literal filter, when the input tuples are already filtered by the gram index query.
+     * 
+     * @param useLiteralFilter
+     */
+    void setUseLiteralFilter(boolean useLiteralFilter) {
+        this.useLiteralFilter = useLiteralFilter;
+    }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
         if (inputSchema.length != 1)
@@ -1,11 +1,16 @@
 package edu.uci.ics.texera.dataflow.regexmatcher;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
@@ -13,10 +18,25 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.regexmatcher.GramBooleanQuery.QueryOp;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.DataStore;
 import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
+/**
+ * RegexMatcherSourceOperator reads the documents of a table that may match a regex, 
+ *   and RegexMatcher verifies them with the regex.
+ * 
+ * If the predicate uses the index and the table has gram fields (see DataStore.getGramSize()), 
+ *   the regex is translated to a boolean query of its grams of the table's gram size,
+ *   which is run on the gram fields of the attributes.
+ *   The gram fields are not used if the regex doesn't require any gram, the grams can't be used as a filter 
+ *   (see RegexToGramQueryTranslator.translateToRequiredGrams), or an attribute is a STRING attribute.
+ * Otherwise, if the predicate uses the index, the gram query is parsed with the analyzer of the table,
+ *   and if it doesn't, the table is scanned and RegexMatcher filters the texts by the grams of the regex.
+ */
 public class RegexMatcherSourceOperator extends AbstractSingleInputOperator implements ISourceOperator {
     
     private final RegexSourcePredicate predicate;
@@ -27,15 +47,24 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
     public RegexMatcherSourceOperator(RegexSourcePredicate predicate) throws StorageException, DataflowException {
         this.predicate = predicate;
         
+        Query gramFieldQuery = null;
         if (this.predicate.isUseIndex()) {
-            this.dataReader = RelationManager.getInstance().getTableDataReader(this.predicate.getTableName(), 
-                    createLuceneQuery(this.predicate));
+            gramFieldQuery = createGramFieldQuery(this.predicate, 
+                    RelationManager.getInstance().getTableDataStore(this.predicate.getTableName()));
+        }
+        Query luceneQuery;
+        if (gramFieldQuery != null) {
+            luceneQuery = gramFieldQuery;
+        } else if (this.predicate.isUseIndex()) {
+            luceneQuery = createLuceneQuery(this.predicate);
         } else {
-            this.dataReader = RelationManager.getInstance().getTableDataReader(this.predicate.getTableName(), 
-                    new MatchAllDocsQuery());
+            luceneQuery = new MatchAllDocsQuery();
         }
+        this.dataReader = RelationManager.getInstance().getTableDataReader(this.predicate.getTableName(), luceneQuery);
         
         regexMatcher = new RegexMatcher(this.predicate);
+        // the documents read by an index query already contain the grams of the regex
+        regexMatcher.setUseLiteralFilter(! this.predicate.isUseIndex());
         regexMatcher.setInputOperator(dataReader);
         
         this.inputOperator = this.regexMatcher;
@@ -83,6 +112,78 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
         
         return luceneQuery;
     }
+    
+    /**
+     * Builds the query of the documents that may match the regex on the gram fields of the attributes.
+     * The grams are matched as terms, so they don't need to be escaped for the query parser.
+     * 
+     * @param predicate
+     * @param dataStore, the DataStore of the table
+     * @return the query, or null if the table must be scanned
+     */
+    public static Query createGramFieldQuery(RegexSourcePredicate predicate, DataStore dataStore) {
+        if (! dataStore.hasGramFields()) {
+            return null;
+        }
+        for (String attributeName : predicate.getAttributeNames()) {
+            if (dataStore.getSchema().getAttribute(attributeName).getType() != AttributeType.TEXT) {
+                return null;
+            }
+        }
+        GramBooleanQuery gramQuery = RegexToGramQueryTranslator.translateToRequiredGrams(
+                predicate.getRegex(), dataStore.getGramSize());
+        if (gramQuery == null) {
+            return null;
+        }
+        
+        BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
+        try {
+            for (String attributeName : predicate.getAttributeNames()) {
+                Query fieldQuery = toGramFieldQuery(gramQuery, StorageUtils.getGramFieldName(attributeName));
+                if (fieldQuery == null) {
+                    return null;
+                }
+                booleanQueryBuilder.add(fieldQuery, BooleanClause.Occur.SHOULD);
+            }
+        } catch (BooleanQuery.TooManyClauses e) {
+            return null;
+        }
+        return booleanQueryBuilder.build();
+    }
+    
+    /*
+     * Converts a gram query to a Lucene query on a gram field, 
+     *   returns null if the gram query doesn't restrict the documents.
+     */
+    private static Query toGramFieldQuery(GramBooleanQuery gramQuery, String gramFieldName) {
+        if (gramQuery.operator == QueryOp.LEAF) {
+            return new TermQuery(new Term(gramFieldName, gramQuery.leaf));
+        }
+        // ANY, and NONE which the translator only uses for the parts it can't analyze
+        if (gramQuery.operator != QueryOp.AND && gramQuery.operator != QueryOp.OR) {
+            return null;
+        }
+        BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
+        boolean hasClause = false;
+        for (GramBooleanQuery subQuery : gramQuery.subQuerySet) {
+            Query subLuceneQuery = toGramFieldQuery(subQuery, gramFieldName);
+            if (gramQuery.operator == QueryOp.AND) {
+                // a sub query that doesn't restrict the documents is dropped from a conjunction
+                if (subLuceneQuery != null) {
+                    booleanQueryBuilder.add(subLuceneQuery, BooleanClause.Occur.MUST);
+                    hasClause = true;
+                }
+            } else {
+                // and makes a disjunction not restrict the documents
+                if (subLuceneQuery == null) {
+                    return null;
+                }
+                booleanQueryBuilder.add(subLuceneQuery, BooleanClause.Occur.SHOULD);
+                hasClause = true;
+            }
+        }
+        return hasClause ? booleanQueryBuilder.build() : null;
+    }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
         if (inputSchema == null || inputSchema.length == 0) {
@@ -25,7 +25,7 @@ public class RegexSourcePredicate extends RegexPredicate {
             List<String> attributeNames, 
             String tableName,
             String spanListName) {
-        this(regex, attributeNames, null, tableName, null, spanListName);
+        this(regex, attributeNames, null, null, tableName, null, spanListName);
     }
 
     /**
@@ -34,6 +34,8 @@ public class RegexSourcePredicate extends RegexPredicate {
      * @param regex, the regex to be used
      * @param attributeNames, a list of attribute names to match regex on
      * @param ignoreCase, optional, ignores regex case, default false
+     * @param regexEngine, optional, the engine to match the regex with (see RegexEngine), default auto,
+     *   which gives the same results as java, while re2j matches some constructs differently
      * @param tableName, the name of the source table
      * @param useIndex, optional, use the gram-based regex index query, default true
      * @param spanListName, the name of the attribute where the results will be put in
@@ -51,6 +53,11 @@ public class RegexSourcePredicate extends RegexPredicate {
                     defaultValue = "false")
             Boolean ignoreCase, 
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_ENGINE, required = false,
+                    defaultValue = RegexEngine.RegexEngineName.AUTO)
+            RegexEngine regexEngine,
+            
             @JsonProperty(value = PropertyNameConstants.TABLE_NAME, required = true)
             String tableName,
             
@@ -61,7 +68,7 @@ public class RegexSourcePredicate extends RegexPredicate {
             
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = true)
             String spanListName) {
-        super(regex, attributeNames, ignoreCase, spanListName);
+        super(regex, attributeNames, ignoreCase, regexEngine, spanListName);
 
         if (tableName == null || tableName.isEmpty()) {
             throw new TexeraException(PropertyNameConstants.EMPTY_NAME_EXCEPTION);
@@ -15,6 +15,14 @@ import com.google.re2j.PublicSimplify;
  * 
  */
 public class RegexToGramQueryTranslator {
+
+    // the length of the grams, passed to each translation instead of shared by all of them
+    private final int gramLength;
+
+    private RegexToGramQueryTranslator(int gramLength) {
+        this.gramLength = gramLength;
+    }
+
     /**
      * This method translates a regular expression to a boolean expression of
      * n-grams. (default is TranslatorUtils.DEFAULT_GRAM_LENGTH, which is 3)
@@ -43,23 +51,170 @@ public class RegexToGramQueryTranslator {
     public static GramBooleanQuery translate(String regex, int gramLength)
             throws com.google.re2j.PatternSyntaxException {
 
-        TranslatorUtils.GRAM_LENGTH = gramLength;
+        GramBooleanQuery query = translateToGrams(regex, gramLength);
+        TranslatorUtils.escapeSpecialCharacters(query);
+        return query;
+    }
 
-        // Since the inverted index relies on lower-case grams, we need to
-        // convert the characters to lower case.
-        regex = regex.toLowerCase();
-        
+    /**
+     * This method translates a regular expression to a boolean expression of
+     * the lower case n-grams, without escaping them for the Lucene query parser. <br>
+     * 
+     * @param regex,
+     *            the regex string to be translated.
+     * @return GamBooleanQeruy, a boolean query of n-grams.
+     */
+    static GramBooleanQuery translateToGrams(String regex, int gramLength)
+            throws com.google.re2j.PatternSyntaxException {
+
+        // Since the inverted index relies on lower-case grams, the chars of the
+        // literals and classes are converted to lower case by analyze(). 
+        // The regex itself isn't lower cased, which would change the escapes 
+        // like "\S" and "\D" to "\s" and "\d".
         PublicRegexp re = PublicParser.parse(regex, PublicRE2.PERL);
         re = PublicSimplify.simplify(re);
 
-        RegexInfo regexInfo = analyze(re);
-        regexInfo.simplify(true);
+        RegexInfo regexInfo = new RegexToGramQueryTranslator(gramLength).analyze(re);
+        regexInfo.simplify(true, gramLength);
 
-        TranslatorUtils.GRAM_LENGTH = TranslatorUtils.DEFAULT_GRAM_LENGTH;
+        return regexInfo.match;
+    }
 
-        TranslatorUtils.escapeSpecialCharacters(regexInfo.match);
+    /**
+     * This method translates a regular expression to the boolean expression of
+     * the lower case n-grams that a matching text must contain, for filtering
+     * the texts before matching the regex. The grams are not escaped. <br>
+     * 
+     * The grams can't be used as a filter if RE2J can't parse the regex, 
+     * if the regex has a nested character class or a class intersection, 
+     * which java.util.regex supports but RE2J parses as literal chars, 
+     * if the regex has a "\v", which is a vertical whitespace class in java.util.regex 
+     * but a vertical tab in RE2J, 
+     * or if the grams aren't aligned with the chars of the regex: 
+     * its lower case has a different length, or it has supplementary chars, 
+     * which the n-gram tokenizer counts as one char. <br>
+     * 
+     * @param regex,
+     *            the regex string to be translated.
+     * @return GamBooleanQeruy, a boolean query of n-grams, or null if the 
+     *            grams can't be used as a filter.
+     */
+    static GramBooleanQuery translateToRequiredGrams(String regex, int gramLength) {
+        if (regex.toLowerCase().length() != regex.length() 
+                || regex.codePointCount(0, regex.length()) != regex.length() 
+                || hasJavaOnlyCharClass(regex)
+                || hasVerticalWhitespaceEscape(regex)) {
+            return null;
+        }
+        try {
+            String re2jRegex = addVerticalTabToWhitespaceEscapes(regex);
+            return re2jRegex == null ? null : translateToGrams(re2jRegex, gramLength);
+        } catch (com.google.re2j.PatternSyntaxException e) {
+            return null;
+        }
+    }
 
-        return regexInfo.match;
+    /*
+     * Checks if the regex has a nested character class or a class intersection, like "[a[bc]]" or "[a-z&&[^b]]".
+     */
+    private static boolean hasJavaOnlyCharClass(String regex) {
+        boolean inCharClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (! inCharClass) {
+                if (c == '[') {
+                    inCharClass = true;
+                    // a "]" right after "[" or "[^" is a literal
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                        i++;
+                    }
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                        i++;
+                    }
+                }
+            } else if (c == '[' || (c == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&')) {
+                return true;
+            } else if (c == ']') {
+                inCharClass = false;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Checks if the regex has a "\v" escape.
+     */
+    private static boolean hasVerticalWhitespaceEscape(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            if (regex.charAt(i) == '\\') {
+                if (regex.charAt(i + 1) == 'v') {
+                    return true;
+                }
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Adds the vertical tab to the "\s" escapes, since the "\s" of RE2J doesn't 
+     * match it but the "\s" of java.util.regex does.
+     * Returns null for a "\S" in a negated class, which then matches the vertical tab 
+     * in java.util.regex but not in RE2J.
+     * The regex has no nested character classes here.
+     */
+    private static String addVerticalTabToWhitespaceEscapes(String regex) {
+        StringBuilder result = new StringBuilder(regex.length());
+        boolean inCharClass = false;
+        boolean negated = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                char escaped = regex.charAt(++i);
+                if (escaped == 'S' && negated) {
+                    return null;
+                } else if (escaped == 's') {
+                    result.append(inCharClass ? "\\s\\x0B" : "[\\s\\x0B]");
+                } else if (escaped == 'Q') {
+                    // the chars up to "\E" are quoted
+                    int end = regex.indexOf("\\E", i + 1);
+                    end = end < 0 ? regex.length() : end + 2;
+                    result.append(regex, i - 1, end);
+                    i = end - 1;
+                } else {
+                    result.append(c).append(escaped);
+                }
+                continue;
+            }
+            if (! inCharClass && c == '[') {
+                inCharClass = true;
+                result.append(c);
+                // a "]" right after "[" or "[^" is a literal
+                negated = i + 1 < regex.length() && regex.charAt(i + 1) == '^';
+                if (negated) {
+                    result.append(regex.charAt(++i));
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    result.append(regex.charAt(++i));
+                }
+                continue;
+            }
+            if (inCharClass && c == ']') {
+                inCharClass = false;
+                negated = false;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /*
+     * Converts a rune to a lower case string, the same as the chars of the n-gram index.
+     */
+    private static String toLowerCaseString(int rune) {
+        return Character.toString((char) Character.toLowerCase(rune));
     }
 
     /**
@@ -70,10 +225,10 @@ public class RegexToGramQueryTranslator {
      * @param PublicRegexp
      * @return RegexInfo
      */
-    private static RegexInfo analyze(PublicRegexp re) {
+    private RegexInfo analyze(PublicRegexp re) {
         RegexInfo info = new RegexInfo();
-        // FOLD_CASE means case insensitive
-        boolean isCaseSensitive = (re.getFlags() & PublicRE2.FOLD_CASE) != PublicRE2.FOLD_CASE;
+        // the runes are converted to lower case whether the regex is case sensitive or not,
+        // because the grams of the index are lower case
         switch (re.getOp()) {
         // NO_MATCH is a regex that doesn't match anything.
         // It's used to handle error cases, which shouldn't
@@ -107,29 +262,17 @@ public class RegexToGramQueryTranslator {
             return fold((x, y) -> concat(x, y), re.getSubs(), RegexInfo.matchNone());
         // (regexp1)
         case CAPTURE:
-            return analyze(re.getSubs()[0]).simplify(false);
+            return analyze(re.getSubs()[0]).simplify(false, gramLength);
         // [a-z]
         case CHAR_CLASS:
             if (re.getRunes().length == 0) {
                 return RegexInfo.matchNone();
             } else if (re.getRunes().length == 1) {
-                String exactStr;
-                if (isCaseSensitive) {
-                    exactStr = Character.toString((char) re.getRunes()[0]);
-                } else {
-                    exactStr = Character.toString((char) re.getRunes()[0]).toLowerCase();
-                }
-                info.exact.add(exactStr);
-                info.simplify(false);
+                info.exact.add(toLowerCaseString(re.getRunes()[0]));
+                info.simplify(false, gramLength);
                 return info;
             }
-            // convert all runes to lower case if not case sensitive
-            if (!isCaseSensitive) {
-                for (int i = 0; i < re.getRunes().length; i++) {
-                    re.getRunes()[i] = Character.toLowerCase(re.getRunes()[i]);
-                }
-            }
-            // add characters between two runes to exact
+            // add the lower case of the characters between two runes to exact
             int count = 0;
             for (int i = 0; i < re.getRunes().length; i += 2) {
                 count += re.getRunes()[i + 1] - re.getRunes()[i];
@@ -139,10 +282,10 @@ public class RegexToGramQueryTranslator {
                 }
 
                 for (int codePoint = re.getRunes()[i]; codePoint <= re.getRunes()[i + 1]; codePoint++) {
-                    info.exact.add(Character.toString((char) codePoint));
+                    info.exact.add(toLowerCaseString(codePoint));
                 }
             }
-            info.simplify(false);
+            info.simplify(false, gramLength);
             return info;
         // abcd
         case LITERAL:
@@ -151,18 +294,12 @@ public class RegexToGramQueryTranslator {
             }
             // convert runes to string
             String literal = "";
-            if (isCaseSensitive) { // case sensitive
-                for (int rune : re.getRunes()) {
-                    literal += Character.toString((char) rune);
-                }
-            } else {
-                for (int rune : re.getRunes()) {
-                    literal += Character.toString((char) rune).toLowerCase();
-                }
+            for (int rune : re.getRunes()) {
+                literal += toLowerCaseString(rune);
             }
             info = new RegexInfo();
             info.exact.add(literal);
-            info.simplify(false);
+            info.simplify(false, gramLength);
             return info;
         // regexp{min,max} (repeat at least min times, at most max times)
         case REPEAT:
@@ -185,7 +322,7 @@ public class RegexToGramQueryTranslator {
                 info.suffix.addAll(info.exact);
                 info.exact.clear();
             }
-            return info.simplify(false);
+            return info.simplify(false, gramLength);
         // regexp? (repeat zero or one time)
         case QUEST:
             // The regexInfo of "(expr)?" shoud be either the same as the info
@@ -208,7 +345,7 @@ public class RegexToGramQueryTranslator {
      * @param yInfo
      * @return xyInfo
      */
-    private static RegexInfo alternate(RegexInfo xInfo, RegexInfo yInfo) {
+    private RegexInfo alternate(RegexInfo xInfo, RegexInfo yInfo) {
         RegexInfo xyInfo = new RegexInfo();
 
         if (!xInfo.exact.isEmpty() && !yInfo.exact.isEmpty()) {
@@ -216,11 +353,11 @@ public class RegexToGramQueryTranslator {
         } else if (!xInfo.exact.isEmpty()) {
             xyInfo.prefix = TranslatorUtils.union(xInfo.exact, yInfo.prefix, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.exact, yInfo.suffix, true);
-            xInfo.match = GramBooleanQuery.combine(xInfo.match, xInfo.exact);
+            xInfo.match = GramBooleanQuery.combine(xInfo.match, xInfo.exact, gramLength);
         } else if (!yInfo.exact.isEmpty()) {
             xyInfo.prefix = TranslatorUtils.union(xInfo.prefix, yInfo.exact, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.suffix, yInfo.exact, true);
-            yInfo.match = GramBooleanQuery.combine(yInfo.match, yInfo.exact);
+            yInfo.match = GramBooleanQuery.combine(yInfo.match, yInfo.exact, gramLength);
         } else {
             xyInfo.prefix = TranslatorUtils.union(xInfo.prefix, yInfo.prefix, false);
             xyInfo.suffix = TranslatorUtils.union(xInfo.suffix, yInfo.suffix, true);
@@ -230,7 +367,7 @@ public class RegexToGramQueryTranslator {
 
         xyInfo.match = GramBooleanQuery.computeDisjunction(xInfo.match, yInfo.match);
 
-        xyInfo.simplify(false);
+        xyInfo.simplify(false, gramLength);
         return xyInfo;
     }
 
@@ -242,7 +379,7 @@ public class RegexToGramQueryTranslator {
      * @param yInfo
      * @return xyInfo
      */
-    private static RegexInfo concat(RegexInfo xInfo, RegexInfo yInfo) {
+    private RegexInfo concat(RegexInfo xInfo, RegexInfo yInfo) {
         RegexInfo xyInfo = new RegexInfo();
 
         xyInfo.match = GramBooleanQuery.computeConjunction(xInfo.match, yInfo.match);
@@ -271,13 +408,13 @@ public class RegexToGramQueryTranslator {
 
         if (xInfo.exact.isEmpty() && yInfo.exact.isEmpty() && xInfo.suffix.size() <= TranslatorUtils.MAX_SET_SIZE
                 && yInfo.prefix.size() <= TranslatorUtils.MAX_SET_SIZE && TranslatorUtils.minLenOfString(xInfo.suffix)
-                        + TranslatorUtils.minLenOfString(yInfo.prefix) >= TranslatorUtils.GRAM_LENGTH) {
+                        + TranslatorUtils.minLenOfString(yInfo.prefix) >= gramLength) {
 
             xyInfo.match = GramBooleanQuery.combine(xyInfo.match,
-                    TranslatorUtils.cartesianProduct(xInfo.suffix, yInfo.prefix, false));
+                    TranslatorUtils.cartesianProduct(xInfo.suffix, yInfo.prefix, false), gramLength);
         }
 
-        xyInfo.simplify(false);
+        xyInfo.simplify(false, gramLength);
 
         return xyInfo;
     }
@@ -292,7 +429,7 @@ public class RegexToGramQueryTranslator {
      *            returned when the array of regex is empty
      * @return
      */
-    private static RegexInfo fold(TranslatorUtils.IFold iFold, PublicRegexp[] subExpressions, RegexInfo zero) {
+    private RegexInfo fold(TranslatorUtils.IFold iFold, PublicRegexp[] subExpressions, RegexInfo zero) {
         if (subExpressions.length == 0) {
             return zero;
         } else if (subExpressions.length == 1) {
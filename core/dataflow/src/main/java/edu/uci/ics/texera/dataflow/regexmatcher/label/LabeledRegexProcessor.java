@@ -1,13 +1,15 @@
 package edu.uci.ics.texera.dataflow.regexmatcher.label;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.field.ListField;
@@ -19,6 +21,12 @@ import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 /**
  * Helper class for processing labeled regex.
  * 
+ * The regex is split by its labels once, for example "<lab1> is (very )?<lab2>" is split into
+ *   the fragments {"", " is (very )?", ""} and the labels {"lab1", "lab2"}.
+ * For each tuple, the labels are replaced by the alternations of their span values,
+ *   and the regex is compiled only if the same label values weren't seen recently:
+ *   the compiled regexes are cached by the label values.
+ * 
  * @author Bhushan Pagariya (bhushanpagariya)
  * @author Harshini Shah
  * @author Yashaswini Amaresh
@@ -27,10 +35,28 @@ import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
  */
 public class LabeledRegexProcessor {
     
+    // the number of compiled regexes kept in the cache
+    private static final int PATTERN_CACHE_SIZE = 256;
+    
+    // the longer label values are tried first in an alternation, then the values are in their natural order
+    private static final Comparator<String> LABEL_VALUE_ORDER = 
+            Comparator.comparingInt(String::length).reversed().thenComparing(Comparator.naturalOrder());
+    
     private RegexPredicate predicate;
-    private String cleanedRegex;
+    // regexFragments.get(i) is the part of the regex before labelList.get(i), the last fragment is after the last label
+    private ArrayList<String> regexFragments = new ArrayList<>();
     private ArrayList<String> labelList = new ArrayList<>();
     
+    // the regex with the label values -> the compiled regex, the least recently used one is removed first
+    private final Map<String, Pattern> patternCache = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > PATTERN_CACHE_SIZE;
+        }
+    };
+    
     public LabeledRegexProcessor(RegexPredicate predicate) {
         this.predicate = predicate;
         preprocessRegex();
@@ -38,14 +64,14 @@ public class LabeledRegexProcessor {
     
     private void preprocessRegex() {
         Matcher labelMatcher = Pattern.compile(RegexMatcher.CHECK_REGEX_LABEL).matcher(predicate.getRegex());
-        cleanedRegex = predicate.getRegex();
+        int fragmentStart = 0;
         while (labelMatcher.find()) {
-            String labelStr = predicate.getRegex().substring(
-                    labelMatcher.start() + 1, labelMatcher.end() - 1);
-            String substrTrimmed = labelStr.trim();
-            labelList.add(substrTrimmed);
-            cleanedRegex = cleanedRegex.replace("<" + labelStr + ">", "<" + substrTrimmed + ">");
+            regexFragments.add(predicate.getRegex().substring(fragmentStart, labelMatcher.start()));
+            labelList.add(predicate.getRegex().substring(
+                    labelMatcher.start() + 1, labelMatcher.end() - 1).trim());
+            fragmentStart = labelMatcher.end();
         }
+        regexFragments.add(predicate.getRegex().substring(fragmentStart));
     }
     
     /**
@@ -54,34 +80,41 @@ public class LabeledRegexProcessor {
      * @return tuple with matching entries
      */
     public List<Span> computeMatchingResults(Tuple inputTuple) {
-        Map<String, Set<String>> labelValues = fetchLabelValues(inputTuple);
-        String regexWithVal = rewriteRegexWithLabelValues(labelValues);
-        Pattern regexPattern = predicate.isIgnoreCase() ? 
-                Pattern.compile(regexWithVal, Pattern.CASE_INSENSITIVE)
-                : Pattern.compile(regexWithVal);
+        Map<String, String> labelAlternations = fetchLabelAlternations(inputTuple);
+        String regexWithVal = rewriteRegexWithLabelValues(labelAlternations);
+        Pattern regexPattern = patternCache.get(regexWithVal);
+        if (regexPattern == null) {
+            regexPattern = predicate.isIgnoreCase() ? 
+                    Pattern.compile(regexWithVal, Pattern.CASE_INSENSITIVE)
+                    : Pattern.compile(regexWithVal);
+            patternCache.put(regexWithVal, regexPattern);
+        }
                 
         return RegexMatcher.computeMatchingResultsWithPattern(inputTuple, predicate, regexPattern);
     }
     
     /**
-     * Create Map of label id and corresponding attribute values
+     * Create Map of label id and the alternation of its escaped attribute values
      * @param inputTuple
-     * @return map of label id and corresponding attribute values
+     * @return map of label id and the alternation of its values, such as "(value1|value2)"
      */
-    private Map<String, Set<String>> fetchLabelValues(Tuple inputTuple) throws DataflowException {
-        Map<String, Set<String>> labelSpanList = new HashMap<>();
+    private Map<String, String> fetchLabelAlternations(Tuple inputTuple) throws DataflowException {
+        Map<String, String> labelAlternations = new HashMap<>();
         for (String label : this.labelList) {
+            if (labelAlternations.containsKey(label)) {
+                continue;
+            }
             if (! inputTuple.getSchema().containsAttribute(label)) {
                 throw new DataflowException("label " + label + " does not exist");
             }
             ListField<Span> spanListField = inputTuple.getField(label);
-            Set<String> labelValues = spanListField.getValue().stream()
-                    .map(span -> span.getValue())
-                    .map(value -> escapeString(value))
-                    .collect(Collectors.toSet());
-            labelSpanList.put(label, labelValues);
+            Set<String> labelValues = new TreeSet<>(LABEL_VALUE_ORDER);
+            for (Span span : spanListField.getValue()) {
+                labelValues.add(escapeString(span.getValue()));
+            }
+            labelAlternations.put(label, "(" + String.join("|", labelValues) + ")");
         }
-        return labelSpanList;
+        return labelAlternations;
     }
     
     /*
@@ -92,24 +125,29 @@ public class LabeledRegexProcessor {
      *   then escaping it will still be itself.
      */
     private static String escapeString(String str) {
-        return str.chars()
-            .mapToObj(ch -> (Character.isLetterOrDigit(ch) ? "" : "\\") + String.valueOf((char) ch))
-            .collect(Collectors.joining());
+        StringBuilder escapedStr = new StringBuilder(str.length() * 2);
+        for (int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (! Character.isLetterOrDigit(ch)) {
+                escapedStr.append('\\');
+            }
+            escapedStr.append(ch);
+        }
+        return escapedStr.toString();
     }
     
     /**
      * Replace labels with actual values in labeled regex
-     * @param cleanedRegex
-     * @param labelValueList
+     * @param labelAlternations
      * @return regex with actual span values
      */
-    private String rewriteRegexWithLabelValues(Map<String, Set<String>> labelValues) {
-        String regexWithValue = cleanedRegex;
-        for(Map.Entry<String, Set<String>> entry : labelValues.entrySet()){
-            String repVal = "(" + entry.getValue().stream().collect(Collectors.joining("|")) + ")";
-            regexWithValue = regexWithValue.replaceAll("<"+entry.getKey()+">", repVal);
+    private String rewriteRegexWithLabelValues(Map<String, String> labelAlternations) {
+        StringBuilder regexWithValue = new StringBuilder(regexFragments.get(0));
+        for (int i = 0; i < labelList.size(); i++) {
+            regexWithValue.append(labelAlternations.get(labelList.get(i)));
+            regexWithValue.append(regexFragments.get(i + 1));
         }
-        return regexWithValue;
+        return regexWithValue.toString();
     }
 
 }
@@ -1,5 +1,13 @@
 package edu.uci.ics.texera.dataflow.sink;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
@@ -11,19 +19,74 @@ import edu.uci.ics.texera.storage.RelationManager;
 
 /**
  * IndexSink is a sink that writes tuples into an index.
- * 
+ *
+ * The tuples are written asynchronously:
+ *   the sink collects the tuples from its input operator into batches and hands them to a background indexing thread,
+ *   so that the input operators keep producing tuples while the previous batches are being indexed.
+ * The indexing thread commits the table when the number of uncommitted tuples reaches the commit size,
+ *   or when the commit interval has passed since the last commit.
+ * The number of committed tuples (getCommittedTupleCount) is the durable progress of the sink:
+ *   if the plan fails, the committed tuples stay in the table.
+ *
+ * If indexing fails, the sink throws the failure to the thread running the plan
+ *   on the next batch hand-off, or when the sink is closed.
+ *
  * @author zuozhi
  */
 public class IndexSink extends AbstractSink {
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_COMMIT_SIZE = 100000;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10000;
+
+    // the number of batches waiting to be indexed, the sink waits for the indexing thread if it's full
+    private static final int BATCH_QUEUE_CAPACITY = 4;
+    // the batch put to the queue to stop the indexing thread
+    private static final List<Tuple> END_OF_BATCHES = Collections.emptyList();
+
+    private final String tableName;
     private DataWriter dataWriter;
     private boolean isAppend = false;
 
+    private final int batchSize;
+    private final int commitSize;
+    private final long commitIntervalMillis;
+
+    private List<Tuple> currentBatch;
+    private BlockingQueue<List<Tuple>> batchQueue;
+    private Thread indexingThread;
+    private volatile TexeraException indexingFailure;
+
+    private final AtomicLong indexedTupleCount = new AtomicLong();
+    private final AtomicLong committedTupleCount = new AtomicLong();
+
     public IndexSink(String tableName, boolean isAppend) throws DataflowException {
+        this(tableName, isAppend, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_SIZE, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates an IndexSink with its batch size and commit thresholds.
+     *
+     * @param tableName, the table to write to
+     * @param isAppend, false if the data of the table is cleared first
+     * @param batchSize, the number of tuples handed to the indexing thread at a time
+     * @param commitSize, the table is committed after this number of tuples are indexed
+     * @param commitIntervalMillis, the table is committed after this time has passed since the last commit
+     * @throws DataflowException
+     */
+    public IndexSink(String tableName, boolean isAppend, int batchSize, int commitSize, long commitIntervalMillis)
+            throws DataflowException {
+        if (batchSize <= 0 || commitSize <= 0 || commitIntervalMillis <= 0) {
+            throw new DataflowException("batch size, commit size and commit interval of IndexSink must be positive");
+        }
         try {
             RelationManager relationManager = RelationManager.getInstance();
             this.dataWriter = relationManager.getTableDataWriter(tableName);
+            this.tableName = tableName;
             this.isAppend = isAppend;
+            this.batchSize = batchSize;
+            this.commitSize = commitSize;
+            this.commitIntervalMillis = commitIntervalMillis;
         } catch (StorageException e) {
             throw new DataflowException(e);
         }
@@ -31,22 +94,156 @@ public class IndexSink extends AbstractSink {
     }
 
     public void open() throws TexeraException {
+        if (indexingThread != null) {
+            return;
+        }
         super.open();
         this.dataWriter.open();
         if (! this.isAppend) {
             this.dataWriter.clearData();
         }
+
+        this.currentBatch = new ArrayList<>(batchSize);
+        this.batchQueue = new ArrayBlockingQueue<>(BATCH_QUEUE_CAPACITY);
+        this.indexingFailure = null;
+        this.indexingThread = new Thread(this::indexBatches, "IndexSink-" + tableName);
+        this.indexingThread.setDaemon(true);
+        this.indexingThread.start();
     }
 
     protected void processOneTuple(Tuple nextTuple) throws TexeraException {
-        dataWriter.insertTuple(nextTuple);
+        currentBatch.add(nextTuple);
+        if (currentBatch.size() >= batchSize) {
+            handOffBatch(currentBatch);
+            currentBatch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /*
+     * Hands a batch to the indexing thread, waits if the indexing thread is behind.
+     */
+    private void handOffBatch(List<Tuple> batch) throws TexeraException {
+        try {
+            while (! batchQueue.offer(batch, commitIntervalMillis, TimeUnit.MILLISECONDS)) {
+                checkIndexingFailure();
+            }
+            checkIndexingFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException("IndexSink is interrupted", e);
+        }
+    }
+
+    private void checkIndexingFailure() throws TexeraException {
+        if (indexingFailure != null) {
+            throw new DataflowException(String.format("IndexSink failed to write to table %s after %d tuples are committed: %s",
+                    tableName, committedTupleCount.get(), indexingFailure.getMessage()), indexingFailure);
+        }
+    }
+
+    /*
+     * The loop of the indexing thread, which indexes the batches and commits the table.
+     */
+    private void indexBatches() {
+        long uncommittedTupleCount = 0;
+        long lastCommitTime = System.currentTimeMillis();
+        try {
+            while (true) {
+                long timeToNextCommit = Math.max(1, lastCommitTime + commitIntervalMillis - System.currentTimeMillis());
+                List<Tuple> batch = batchQueue.poll(timeToNextCommit, TimeUnit.MILLISECONDS);
+                if (batch == END_OF_BATCHES) {
+                    break;
+                }
+                if (batch != null) {
+                    for (Tuple tuple : batch) {
+                        dataWriter.insertTuple(tuple);
+                        uncommittedTupleCount++;
+                        indexedTupleCount.incrementAndGet();
+                    }
+                }
+                if (uncommittedTupleCount > 0 && (uncommittedTupleCount >= commitSize
+                        || System.currentTimeMillis() - lastCommitTime >= commitIntervalMillis)) {
+                    dataWriter.commit();
+                    committedTupleCount.addAndGet(uncommittedTupleCount);
+                    uncommittedTupleCount = 0;
+                    lastCommitTime = System.currentTimeMillis();
+                }
+            }
+            dataWriter.commit();
+            committedTupleCount.addAndGet(uncommittedTupleCount);
+        } catch (RuntimeException e) {
+            indexingFailure = e instanceof TexeraException ? (TexeraException) e : new DataflowException(e.getMessage(), e);
+            commitAfterFailure(uncommittedTupleCount);
+        } catch (InterruptedException e) {
+            indexingFailure = new DataflowException("IndexSink indexing thread is interrupted", e);
+            commitAfterFailure(uncommittedTupleCount);
+        }
+    }
+
+    /*
+     * Commits the tuples indexed before a failure, so that the committed tuple count stays exact.
+     */
+    private void commitAfterFailure(long uncommittedTupleCount) {
+        try {
+            dataWriter.commit();
+            committedTupleCount.addAndGet(uncommittedTupleCount);
+        } catch (TexeraException e) {
+            // the writer is closed by the failure, the uncommitted tuples are not counted
+        }
+    }
+
+    /**
+     * Gets the number of tuples that are committed to the table, they are durable even if the plan fails later.
+     *
+     * @return
+     */
+    public long getCommittedTupleCount() {
+        return committedTupleCount.get();
+    }
+
+    /**
+     * Gets the number of tuples that are written to the table, including the ones not committed yet.
+     *
+     * @return
+     */
+    public long getIndexedTupleCount() {
+        return indexedTupleCount.get();
     }
 
     public void close() throws TexeraException {
+        TexeraException closeFailure = null;
+        if (indexingThread != null) {
+            try {
+                // hand off the last batch
+                if (indexingFailure == null) {
+                    if (! currentBatch.isEmpty()) {
+                        handOffBatch(currentBatch);
+                    }
+                    handOffBatch(END_OF_BATCHES);
+                }
+            } catch (TexeraException e) {
+                closeFailure = e;
+            }
+            try {
+                // wait for the indexing thread to finish, also after a failure,
+                //   so the writer isn't closed while the thread commits the tuples indexed before the failure
+                indexingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closeFailure = new DataflowException("IndexSink is interrupted", e);
+            } finally {
+                indexingThread = null;
+                currentBatch = null;
+            }
+        }
         if (this.dataWriter != null) {
             this.dataWriter.close();
         }
         super.close();
+        if (closeFailure != null) {
+            throw closeFailure;
+        }
+        checkIndexingFailure();
     }
 
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
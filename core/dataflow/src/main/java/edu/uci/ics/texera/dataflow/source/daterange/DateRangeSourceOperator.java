@@ -0,0 +1,222 @@
+package edu.uci.ics.texera.dataflow.source.daterange;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.ISourceOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * DateRangeSourceOperator reads the tuples of a table whose DATE or DATETIME attribute is in a range.
+ *
+ * The range is translated to a NumericRangeQuery on the numeric field that DataWriter indexes for
+ *   every DATE and DATETIME attribute, so only the documents in the range are read from the table,
+ *   instead of scanning the whole table and comparing the dates in a ComparableMatcher.
+ *
+ * DATETIME values are indexed with millisecond precision,
+ *   the tuples returned by the index are checked against the exact range before they are returned.
+ *
+ * Tables written before dates were indexed as numbers need to be rewritten to be used by this operator.
+ *
+ */
+public class DateRangeSourceOperator implements ISourceOperator {
+
+    private final DateRangeSourcePredicate predicate;
+    private final AttributeType attributeType;
+
+    // the exact range of a DATE attribute, both bounds are inclusive, null if the range is open
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // the exact range of a DATETIME attribute, the start is inclusive and the end is exclusive, null if the range is open
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+
+    private DataReader dataReader;
+
+    private boolean isOpen = false;
+
+    public DateRangeSourceOperator(DateRangeSourcePredicate predicate) throws DataflowException {
+        this.predicate = predicate;
+        try {
+            Schema tableSchema = RelationManager.getInstance().getTableSchema(predicate.getTableName());
+            if (! tableSchema.containsAttribute(predicate.getAttributeName())) {
+                throw new DataflowException(String.format("attribute %s not contained in the schema of table %s",
+                        predicate.getAttributeName(), predicate.getTableName()));
+            }
+            this.attributeType = tableSchema.getAttribute(predicate.getAttributeName()).getType();
+
+            this.dataReader = RelationManager.getInstance().getTableDataReader(
+                    predicate.getTableName(), createDateRangeQuery());
+            // add the payload like ScanBasedSourceOperator does
+            this.dataReader.setPayloadAdded(true);
+        } catch (StorageException e) {
+            throw new DataflowException(e);
+        }
+    }
+
+    /*
+     * Parses the start and end dates, and creates the range query on the numeric field of the attribute.
+     */
+    private Query createDateRangeQuery() throws DataflowException {
+        Long lowerValue = null;
+        Long upperValue = null;
+
+        switch (attributeType) {
+        case DATE:
+            if (predicate.getStartDate() != null) {
+                startDate = parseDate(predicate.getStartDate());
+                lowerValue = StorageUtils.encodeDateValue(attributeType, startDate);
+            }
+            if (predicate.getEndDate() != null) {
+                endDate = parseDate(predicate.getEndDate());
+                upperValue = StorageUtils.encodeDateValue(attributeType, endDate);
+            }
+            break;
+        case DATETIME:
+            // the indexed millisecond of a value is always rounded down,
+            // so the range of the query is a superset of the exact range
+            if (predicate.getStartDate() != null) {
+                startDateTime = parseStartDateTime(predicate.getStartDate());
+                lowerValue = StorageUtils.encodeDateValue(attributeType, startDateTime);
+            }
+            if (predicate.getEndDate() != null) {
+                endDateTime = parseEndDateTime(predicate.getEndDate());
+                upperValue = StorageUtils.encodeDateValue(attributeType, endDateTime);
+            }
+            break;
+        default:
+            throw new DataflowException(String.format("attribute %s must be DATE or DATETIME, but it is %s",
+                    predicate.getAttributeName(), attributeType.getName()));
+        }
+
+        return NumericRangeQuery.newLongRange(StorageUtils.getNumericDateFieldName(predicate.getAttributeName()),
+                lowerValue, upperValue, true, true);
+    }
+
+    /*
+     * Parses a date string, a date time string is converted to its date.
+     */
+    private static LocalDate parseDate(String dateString) throws DataflowException {
+        try {
+            return LocalDate.parse(dateString);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(dateString).toLocalDate();
+            } catch (DateTimeParseException e2) {
+                throw new DataflowException("Unable to parse date or time: " + dateString);
+            }
+        }
+    }
+
+    /*
+     * Parses the (inclusive) start of a date time range, a date string starts at the beginning of the day.
+     */
+    private static LocalDateTime parseStartDateTime(String dateString) throws DataflowException {
+        try {
+            return LocalDateTime.parse(dateString);
+        } catch (DateTimeParseException e) {
+            return parseDate(dateString).atStartOfDay();
+        }
+    }
+
+    /*
+     * Parses the inclusive end of a date time range, and converts it to an exclusive end.
+     * A date string ends at the end of the day.
+     */
+    private static LocalDateTime parseEndDateTime(String dateString) throws DataflowException {
+        try {
+            return LocalDateTime.parse(dateString).plusNanos(1);
+        } catch (DateTimeParseException e) {
+            return parseDate(dateString).plusDays(1).atStartOfDay();
+        }
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (isOpen) {
+            return;
+        }
+        try {
+            dataReader.open();
+            isOpen = true;
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (! isOpen) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        try {
+            Tuple tuple;
+            while ((tuple = dataReader.getNextTuple()) != null) {
+                if (isInRange(tuple)) {
+                    return tuple;
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    private boolean isInRange(Tuple tuple) {
+        if (attributeType == AttributeType.DATE) {
+            LocalDate date = tuple.getField(predicate.getAttributeName(), DateField.class).getValue();
+            return (startDate == null || ! date.isBefore(startDate))
+                    && (endDate == null || ! date.isAfter(endDate));
+        } else {
+            LocalDateTime dateTime = tuple.getField(predicate.getAttributeName(), DateTimeField.class).getValue();
+            return (startDateTime == null || ! dateTime.isBefore(startDateTime))
+                    && (endDateTime == null || dateTime.isBefore(endDateTime));
+        }
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (! isOpen) {
+            return;
+        }
+        try {
+            dataReader.close();
+            isOpen = false;
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return dataReader.getOutputSchema();
+    }
+
+    public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
+        if (inputSchema == null || inputSchema.length == 0) {
+            if (getOutputSchema() == null) {
+                open();
+                close();
+            }
+            return getOutputSchema();
+        }
+        throw new TexeraException(ErrorMessages.INVALID_INPUT_SCHEMA_FOR_SOURCE);
+    }
+
+}
@@ -0,0 +1,85 @@
+package edu.uci.ics.texera.dataflow.source.daterange;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
+import edu.uci.ics.texera.dataflow.common.PredicateBase;
+import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+
+/**
+ * DateRangeSourcePredicate is used by DateRangeSourceOperator.
+ *
+ * It selects the tuples of a table whose DATE or DATETIME attribute is between the start date and the end date.
+ * Both dates are inclusive, they can be either a date string (2017-01-31) or a date time string (2017-01-31T10:15:30).
+ * One of them can be empty to express an open range, for example "all the tweets after 2017-01-01".
+ *
+ */
+public class DateRangeSourcePredicate extends PredicateBase {
+
+    private final String tableName;
+    private final String attributeName;
+    private final String startDate;
+    private final String endDate;
+
+    @JsonCreator
+    public DateRangeSourcePredicate(
+            @JsonProperty(value = PropertyNameConstants.TABLE_NAME, required = true)
+            String tableName,
+            @JsonProperty(value = PropertyNameConstants.ATTRIBUTE_NAME, required = true)
+            String attributeName,
+            @JsonProperty(value = PropertyNameConstants.DATE_RANGE_START_DATE, required = false)
+            String startDate,
+            @JsonProperty(value = PropertyNameConstants.DATE_RANGE_END_DATE, required = false)
+            String endDate) {
+
+        if (tableName == null || tableName.isEmpty()) {
+            throw new TexeraException(PropertyNameConstants.EMPTY_NAME_EXCEPTION);
+        }
+        if (attributeName == null || attributeName.trim().isEmpty()) {
+            throw new TexeraException("attribute cannot be empty");
+        }
+        this.tableName = tableName;
+        this.attributeName = attributeName;
+        this.startDate = (startDate == null || startDate.trim().isEmpty()) ? null : startDate.trim();
+        this.endDate = (endDate == null || endDate.trim().isEmpty()) ? null : endDate.trim();
+    }
+
+    @JsonProperty(PropertyNameConstants.TABLE_NAME)
+    public String getTableName() {
+        return this.tableName;
+    }
+
+    @JsonProperty(PropertyNameConstants.ATTRIBUTE_NAME)
+    public String getAttributeName() {
+        return this.attributeName;
+    }
+
+    @JsonProperty(PropertyNameConstants.DATE_RANGE_START_DATE)
+    public String getStartDate() {
+        return this.startDate;
+    }
+
+    @JsonProperty(PropertyNameConstants.DATE_RANGE_END_DATE)
+    public String getEndDate() {
+        return this.endDate;
+    }
+
+    @Override
+    public DateRangeSourceOperator newOperator() {
+        return new DateRangeSourceOperator(this);
+    }
+
+    public static Map<String, Object> getOperatorMetadata() {
+        return ImmutableMap.<String, Object>builder()
+            .put(PropertyNameConstants.USER_FRIENDLY_NAME, "Source: Date Range")
+            .put(PropertyNameConstants.OPERATOR_DESCRIPTION, "Read records from a table whose date is in a range using the index")
+            .put(PropertyNameConstants.OPERATOR_GROUP_NAME, OperatorGroupConstants.SOURCE_GROUP)
+            .build();
+    }
+
+}
@@ -9,21 +9,23 @@ import edu.uci.ics.texera.api.tuple.Tuple;
 import org.apache.lucene.search.MatchAllDocsQuery;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
-import edu.uci.ics.texera.api.dataflow.ISourceOperator;
+import edu.uci.ics.texera.dataflow.common.ICountableSourceOperator;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
 
 /**
  * Created by chenli on 3/28/16.
  */
-public class ScanBasedSourceOperator implements ISourceOperator {
+public class ScanBasedSourceOperator implements ICountableSourceOperator {
 
+    private final String tableName;
     private DataReader dataReader;
     
     private boolean isOpen = false;
 
     public ScanBasedSourceOperator(ScanSourcePredicate predicate) throws DataflowException {
         try {
+            this.tableName = predicate.getTableName();
             this.dataReader = RelationManager.getInstance().getTableDataReader(
                     predicate.getTableName(), new MatchAllDocsQuery());
             // TODO add an option to set if payload is added in the future.
@@ -77,6 +79,33 @@ public class ScanBasedSourceOperator implements ISourceOperator {
         return dataReader.getOutputSchema();
     }
 
+    /**
+     * A scan reads all the tuples of the table, so the index query is always exact.
+     */
+    @Override
+    public boolean isIndexQueryExact() {
+        return true;
+    }
+
+    @Override
+    public int countMatchingTuples() throws TexeraException {
+        try {
+            return dataReader.count();
+        } catch (StorageException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setMatchingTupleLimit(int limit) throws TexeraException {
+        dataReader.setLimit(limit);
+    }
+
+    @Override
+    public String getTableName() {
+        return tableName;
+    }
+
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
         if (inputSchema == null || inputSchema.length == 0) {
             if (getOutputSchema() == null) {
@@ -0,0 +1,119 @@
+package edu.uci.ics.texera.dataflow.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CaseInsensitiveSubstringSearcher finds the occurrences of a keyword in texts, ignoring the case,
+ *   with the Boyer-Moore-Horspool algorithm.
+ *
+ * The keyword is compiled once, and the texts are searched in place, without making lower case copies of them.
+ * The case of each char is folded by a table of all the chars (see foldCase()),
+ *   so a match has the same offsets in the original text,
+ *   unlike String.toLowerCase(), which may change the length of the text.
+ *
+ * A searcher is immutable, it can be shared by threads.
+ */
+public class CaseInsensitiveSubstringSearcher {
+
+    // the folded case of every char: the lower case of its upper case, as String.equalsIgnoreCase() compares chars
+    private static final char[] FOLD_TABLE = new char[Character.MAX_VALUE + 1];
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            FOLD_TABLE[c] = Character.toLowerCase(Character.toUpperCase((char) c));
+        }
+    }
+
+    // the lower cases of the chars sharing a folded case, kept for the folded cases with more than one lower case,
+    //   like "s" and the long s, whose lower cases are themselves but which are equal ignoring the case
+    private static final Map<Character, char[]> LOWER_CASE_VARIANTS = new HashMap<>();
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char folded = FOLD_TABLE[c];
+            char lowerCase = Character.toLowerCase((char) c);
+            char[] variants = LOWER_CASE_VARIANTS.get(folded);
+            if (variants == null) {
+                LOWER_CASE_VARIANTS.put(folded, new char[] { lowerCase });
+            } else if (new String(variants).indexOf(lowerCase) < 0) {
+                variants = Arrays.copyOf(variants, variants.length + 1);
+                variants[variants.length - 1] = lowerCase;
+                LOWER_CASE_VARIANTS.put(folded, variants);
+            }
+        }
+        LOWER_CASE_VARIANTS.values().removeIf(variants -> variants.length == 1);
+    }
+
+    // the bad character shifts are kept by the low bits of the folded chars,
+    //   the chars sharing a slot keep the smallest shift, which is always safe
+    private static final int SHIFT_TABLE_MASK = 0xFF;
+
+    private final char[] foldedKeyword;
+    private final int[] shiftTable;
+
+    public CaseInsensitiveSubstringSearcher(String keyword) {
+        this.foldedKeyword = new char[keyword.length()];
+        for (int i = 0; i < keyword.length(); i++) {
+            this.foldedKeyword[i] = foldCase(keyword.charAt(i));
+        }
+
+        int keywordLength = foldedKeyword.length;
+        this.shiftTable = new int[SHIFT_TABLE_MASK + 1];
+        Arrays.fill(this.shiftTable, Math.max(keywordLength, 1));
+        for (int i = 0; i < keywordLength - 1; i++) {
+            this.shiftTable[foldedKeyword[i] & SHIFT_TABLE_MASK] = keywordLength - 1 - i;
+        }
+    }
+
+    /**
+     * @param c
+     * @return the case folded char, two chars that are equal ignoring the case have the same folded char
+     */
+    public static char foldCase(char c) {
+        return FOLD_TABLE[c];
+    }
+
+    /**
+     * Gets the lower cases (Character.toLowerCase()) of all the chars with the same folded case as a char,
+     *   such as the chars of a lower case index that a text matched ignoring the case can have.
+     *
+     * @param c
+     * @return the lower cases, including the lower case of c
+     */
+    public static char[] getLowerCaseVariants(char c) {
+        char[] variants = LOWER_CASE_VARIANTS.get(foldCase(c));
+        return variants == null ? new char[] { Character.toLowerCase(c) } : variants.clone();
+    }
+
+    public int getKeywordLength() {
+        return foldedKeyword.length;
+    }
+
+    /**
+     * Finds the first occurrence of the keyword in the text, starting from an offset.
+     *
+     * @param text
+     * @param fromIndex, the offset to start from
+     * @return the offset of the occurrence, -1 if the keyword isn't found or is empty
+     */
+    public int indexOf(CharSequence text, int fromIndex) {
+        int keywordLength = foldedKeyword.length;
+        if (keywordLength == 0) {
+            return -1;
+        }
+        int lastStart = text.length() - keywordLength;
+        int start = Math.max(fromIndex, 0);
+        while (start <= lastStart) {
+            int j = keywordLength - 1;
+            while (j >= 0 && foldCase(text.charAt(start + j)) == foldedKeyword[j]) {
+                j--;
+            }
+            if (j < 0) {
+                return start;
+            }
+            start += shiftTable[foldCase(text.charAt(start + keywordLength - 1)) & SHIFT_TABLE_MASK];
+        }
+        return -1;
+    }
+
+}
@@ -10,8 +10,6 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
-import org.apache.lucene.analysis.util.CharArraySet;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
@@ -24,6 +22,13 @@ public class DataflowUtils {
     
     public static final String LUCENE_SCAN_QUERY = "*:*";
 
+    /**
+     * Tokenizes the query string using the analyzer registered for the analyzer string.
+     * 
+     * @param luceneAnalyzerStr
+     * @param query
+     * @return ArrayList<String> list of results
+     */
     public static ArrayList<String> tokenizeQuery(String luceneAnalyzerStr, String query) {
         return tokenizeQuery(LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerStr), query);
     }
@@ -37,14 +42,14 @@ public class DataflowUtils {
      */
     public static ArrayList<String> tokenizeQuery(Analyzer luceneAnalyzer, String query) {
         ArrayList<String> result = new ArrayList<String>();
-        TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query));
-        CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
-        try {
+        // the token stream is reused by the analyzer on this thread, it must be closed even if an error occurs
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()) {
                 result.add(term.toString());
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
         }
@@ -56,8 +61,7 @@ public class DataflowUtils {
         
         if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.standardAnalyzerString())) {
             // use an empty stop word list for standard analyzer
-            CharArraySet emptyStopwords = new CharArraySet(1, true);
-            luceneAnalyzer = new StandardAnalyzer(emptyStopwords);
+            luceneAnalyzer = LuceneAnalyzerConstants.getStandardAnalyzerWithStopwords();
         } else if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.chineseAnalyzerString())) {
             // use the default smart chinese analyzer
             // because the smart chinese analyzer's default stopword list is simply a list of punctuations
@@ -68,24 +72,23 @@ public class DataflowUtils {
         }
 
         ArrayList<String> result = new ArrayList<String>();
-        TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query));
-        CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+        String queryLowerCase = query.toLowerCase();
 
-        try {
+        // the analyzer is shared, only the token stream is closed
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(query))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()) {
                 String token = term.toString();
-                int tokenIndex = query.toLowerCase().indexOf(token);
+                int tokenIndex = queryLowerCase.indexOf(token);
                 // Since tokens are converted to lower case,
                 // get the exact token from the query string.
                 String actualQueryToken = query.substring(tokenIndex, tokenIndex + token.length());
                 result.add(actualQueryToken);
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
-        } finally {
-            luceneAnalyzer.close();
         }
         
         return result;
@@ -110,8 +113,8 @@ public class DataflowUtils {
     public static List<Span> generatePayload(String attributeName, String fieldValue, Analyzer luceneAnalyzer) {
         List<Span> payload = new ArrayList<>();
 
-        try {
-            TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue));
+        // the token stream is reused by the analyzer on this thread, it must be closed even if an error occurs
+        try (TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue))) {
             OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
             CharTermAttribute charTermAttribute = tokenStream.addAttribute(CharTermAttribute.class);
             PositionIncrementAttribute positionIncrementAttribute =
@@ -130,7 +133,7 @@ public class DataflowUtils {
 
                 payload.add(new Span(attributeName, charStart, charEnd, analyzedTermStr, originalTermStr, tokenPosition));
             }
-            tokenStream.close();
+            tokenStream.end();
         } catch (IOException e) {
             throw new DataflowException(e);
         }
@@ -139,68 +142,108 @@ public class DataflowUtils {
     }
 
 
+    /**
+     * Computes the offsets of the query tokens (without stopwords) in the query with stopwords,
+     *   which are the relative positions of the tokens in a matching phrase.
+     * It's computed once per query, and used by constructPhraseMatchingSpans for each field.
+     * 
+     * Example: for the query "lin clooney is short", the tokens are ["lin", "clooney", "short"],
+     *   the tokens with stopwords are ["lin", "clooney", "is", "short"], and the offsets are [0, 1, 3].
+     * 
+     * @param queryTokenListWithStopwords
+     * @param queryTokenList
+     * @return
+     */
+    public static int[] getPhraseTokenOffsets(List<String> queryTokenListWithStopwords, List<String> queryTokenList) {
+        Set<String> queryTokenSet = new HashSet<>(queryTokenList);
+        int[] phraseTokenOffsets = new int[queryTokenList.size()];
+        int tokenCount = 0;
+        for (int i = 0; i < queryTokenListWithStopwords.size() && tokenCount < phraseTokenOffsets.length; i++) {
+            if (queryTokenSet.contains(queryTokenListWithStopwords.get(i))) {
+                phraseTokenOffsets[tokenCount++] = i;
+            }
+        }
+        return Arrays.copyOf(phraseTokenOffsets, tokenCount);
+    }
+
     /**
      * This function is used to generate the SpanList for phrase matching type in both dictionarymatcher and keywordmatcher.
+     * 
+     * The spans of the field are scanned once in the order of their token offsets:
+     *   a span of the first query token starts a match if the other query tokens are at their offsets 
+     *   (see getPhraseTokenOffsets) after it, the matches don't overlap.
+     * 
      * @param attributeName
      * @param fieldValue
      * @param queryKeyword
-     * @param fieldSpanList
-     * @param queryTokenListWithStopwords
+     * @param fieldSpanList, the spans of the query tokens in the field
      * @param queryTokenList
+     * @param phraseTokenOffsets, the offsets of the query tokens computed by getPhraseTokenOffsets
      * @return
      */
-
-    public static List<Span> constructPhraseMatchingSpans(String attributeName, String fieldValue, String queryKeyword, List<Span> fieldSpanList, List<String> queryTokenListWithStopwords, List<String> queryTokenList){
+    public static List<Span> constructPhraseMatchingSpans(String attributeName, String fieldValue, String queryKeyword, 
+            List<Span> fieldSpanList, List<String> queryTokenList, int[] phraseTokenOffsets) {
         List<Span> matchingResults = new ArrayList<>();
-        // Sort current field's span list by token offset for later use
-        Collections.sort(fieldSpanList, (span1, span2) -> span1.getTokenOffset() - span2.getTokenOffset());
-        List<Integer> queryTokenOffset = new ArrayList<>();
-        for (int i = 0; i < queryTokenListWithStopwords.size(); i++) {
-            if (queryTokenList.contains(queryTokenListWithStopwords.get(i))) {
-                queryTokenOffset.add(i);
-            }
+        int tokenCount = queryTokenList.size();
+        if (tokenCount == 0 || phraseTokenOffsets.length != tokenCount) {
+            return matchingResults;
+        }
+        // the spans of a payload are usually in the order of their token offsets already
+        if (! isSortedByTokenOffset(fieldSpanList)) {
+            fieldSpanList = new ArrayList<>(fieldSpanList);
+            Collections.sort(fieldSpanList, (span1, span2) -> span1.getTokenOffset() - span2.getTokenOffset());
         }
-        int iter = 0; // maintains position of term being checked in
-        // spanForThisField list
-        while (iter < fieldSpanList.size()) {
-            if (iter > fieldSpanList.size() - queryTokenList.size()) {
-                break;
+        
+        int spanCount = fieldSpanList.size();
+        int nextTokenOffset = Integer.MIN_VALUE;
+        for (int first = 0; first < spanCount; first++) {
+            Span firstSpan = fieldSpanList.get(first);
+            if (firstSpan.getTokenOffset() < nextTokenOffset) {
+                continue;
             }
-
-            // Verify if span in the spanForThisField correspond to our
-            // phrase query, ie relative position offsets should be
-            // similar
-            // and the value should be same.
-            boolean isMismatchInSpan = false;// flag to check if a
-            // mismatch in spans occurs
-
-            // To check all the terms in query are verified
-            for (int i = 0; i < queryTokenList.size() - 1; i++) {
-                Span first = fieldSpanList.get(iter + i);
-                Span second = fieldSpanList.get(iter + i + 1);
-                if (!(second.getTokenOffset() - first.getTokenOffset() == queryTokenOffset.get(i + 1)
-                        - queryTokenOffset.get(i) && first.getValue().equalsIgnoreCase(queryTokenList.get(i))
-                        && second.getValue().equalsIgnoreCase(queryTokenList.get(i + 1)))) {
-                    iter++;
-                    isMismatchInSpan = true;
-                    break;
-                }
+            // every span of a single token query is a match, since the field spans are the spans of the query tokens
+            if (tokenCount > 1 && ! firstSpan.getValue().equalsIgnoreCase(queryTokenList.get(0))) {
+                continue;
             }
             
-            if (isMismatchInSpan) {
+            // the spans are sorted, so the cursor only moves forward to the offsets of the next query tokens
+            int cursor = first;
+            Span lastSpan = firstSpan;
+            for (int i = 1; i < tokenCount && lastSpan != null; i++) {
+                int tokenOffset = firstSpan.getTokenOffset() + phraseTokenOffsets[i] - phraseTokenOffsets[0];
+                while (cursor < spanCount && fieldSpanList.get(cursor).getTokenOffset() < tokenOffset) {
+                    cursor++;
+                }
+                lastSpan = null;
+                for (int k = cursor; k < spanCount && fieldSpanList.get(k).getTokenOffset() == tokenOffset; k++) {
+                    if (fieldSpanList.get(k).getValue().equalsIgnoreCase(queryTokenList.get(i))) {
+                        lastSpan = fieldSpanList.get(k);
+                        break;
+                    }
+                }
+            }
+            if (lastSpan == null) {
                 continue;
             }
-            
-            int combinedSpanStartIndex = fieldSpanList.get(iter).getStart();
-            int combinedSpanEndIndex = fieldSpanList.get(iter + queryTokenList.size() - 1).getEnd();
 
+            int combinedSpanStartIndex = firstSpan.getStart();
+            int combinedSpanEndIndex = lastSpan.getEnd();
             Span combinedSpan = new Span(attributeName, combinedSpanStartIndex, combinedSpanEndIndex, queryKeyword,
                     fieldValue.substring(combinedSpanStartIndex, combinedSpanEndIndex));
             matchingResults.add(combinedSpan);
-            iter = iter + queryTokenList.size();
+            nextTokenOffset = lastSpan.getTokenOffset() + 1;
         }
         return matchingResults;
     }
+    
+    private static boolean isSortedByTokenOffset(List<Span> spanList) {
+        for (int i = 1; i < spanList.size(); i++) {
+            if (spanList.get(i - 1).getTokenOffset() > spanList.get(i).getTokenOffset()) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     public static boolean isAllQueryTokensPresent(List<Span> fieldSpanList, Set<String> queryTokenSet) {
         Set<String> fieldSpanKeys = fieldSpanList.stream().map(span -> span.getKey()).collect(Collectors.toSet());
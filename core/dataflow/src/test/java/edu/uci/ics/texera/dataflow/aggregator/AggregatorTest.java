@@ -395,6 +395,43 @@ public class AggregatorTest {
         Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
     }
 
+    //TEST 13: Count on a scan source by the index with SourceCountAggregator
+    @Test
+    public void testSourceCountAggregation() throws Exception {
+        String resultAttributeName = AggregatorTestConstants.COUNT_HEIGHT_RESULT_ATTR_NAME;
+        AggregationAttributeAndResult aggEntity = new AggregationAttributeAndResult(
+                TestConstants.HEIGHT_ATTR.getName(), AggregationType.COUNT, resultAttributeName);
+        List<AggregationAttributeAndResult> aggEntitiesList = new ArrayList<>();
+        aggEntitiesList.add(aggEntity);
+        AggregatorPredicate aggPredicate = new AggregatorPredicate(aggEntitiesList);
+
+        ScanBasedSourceOperator sourceOperator = new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE));
+        Assert.assertTrue(SourceCountAggregator.canCount(aggPredicate, sourceOperator));
+
+        SourceCountAggregator countOperator = new SourceCountAggregator(aggPredicate);
+        countOperator.setInputOperator(sourceOperator);
+        countOperator.open();
+        List<Tuple> returnedResults = new ArrayList<>();
+        Tuple nextTuple = null;
+        while ((nextTuple = countOperator.getNextTuple()) != null) {
+            returnedResults.add(nextTuple);
+        }
+        countOperator.close();
+
+        IField[] row1 = {new IntegerField(6)};
+        Schema schema = new Schema(new Attribute(resultAttributeName, AttributeType.INTEGER));
+        List<Tuple> expectedResults = new ArrayList<>();
+        expectedResults.add(new Tuple(schema, row1));
+
+        Assert.assertEquals(1, returnedResults.size());
+        Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
+
+        // aggregations other than count need to read the tuples
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.HEIGHT_ATTR.getName(), AggregationType.MIN,
+                AggregatorTestConstants.MIN_HEIGHT_RESULT_ATTR_NAME));
+        Assert.assertFalse(SourceCountAggregator.canCount(new AggregatorPredicate(aggEntitiesList), sourceOperator));
+    }
+
     @AfterClass
     public static void cleanUp() throws TexeraException {
         RelationManager relationManager = RelationManager.getInstance();
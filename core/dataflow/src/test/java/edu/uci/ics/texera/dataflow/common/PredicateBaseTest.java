@@ -49,6 +49,7 @@ import edu.uci.ics.texera.dataflow.sink.excel.ExcelSinkPredicate;
 import edu.uci.ics.texera.dataflow.sink.mysql.MysqlSinkPredicate;
 import edu.uci.ics.texera.dataflow.sink.tuple.TupleSinkPredicate;
 import edu.uci.ics.texera.dataflow.source.asterix.AsterixSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.daterange.DateRangeSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.file.FileSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
 import edu.uci.ics.texera.dataflow.wordcount.WordCountIndexSourcePredicate;
@@ -255,6 +256,13 @@ public class PredicateBaseTest {
         testPredicate(scanSourcePredicate);
     }
     
+    @Test
+    public void testDateRangeSource() throws Exception {
+        DateRangeSourcePredicate dateRangeSourcePredicate = new DateRangeSourcePredicate(
+                "tableName", "attr1", "2017-01-01", "2017-12-31");
+        testPredicate(dateRangeSourcePredicate);
+    }
+    
     @Test
     public void testTupleSink() throws Exception {
         TupleSinkPredicate tupleSinkPredicate = new TupleSinkPredicate();
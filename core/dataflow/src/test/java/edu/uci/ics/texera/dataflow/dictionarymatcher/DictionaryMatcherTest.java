@@ -1235,6 +1235,39 @@ public class DictionaryMatcherTest {
         boolean contains = TestUtils.equals(expectedResults, returnedResults);
         Assert.assertTrue(contains);
     }
+    
+    /**
+     * Scenario: verifies that a dictionary with more entries than the clauses of a boolean query,
+     * whose documents are read in one pass by the source operator, gets the same results as the scan
+     */
+    @Test
+    public void testLargeDictionaryUsingKeyword() throws Exception {
+        ArrayList<String> entries = new ArrayList<String>();
+        for (int i = 0; i < 1100; i++) {
+            entries.add("missing " + i);
+        }
+        entries.add("angry");
+        entries.add("lin clooney");
+        Dictionary dictionary = new Dictionary(entries);
+        // the scan with only the matching entries gets the same tuples and spans
+        Dictionary matchingDictionary = new Dictionary(Arrays.asList("angry", "lin clooney"));
+        List<String> attributeNames = Arrays.asList(TestConstants.LAST_NAME, TestConstants.DESCRIPTION);
+
+        for (KeywordMatchingType matchingType : Arrays.asList(
+                KeywordMatchingType.CONJUNCTION_INDEXBASED, KeywordMatchingType.PHRASE_INDEXBASED)) {
+            List<Tuple> expectedResults = DictionaryMatcherTestHelper.getScanSourceResults(PEOPLE_TABLE, 
+                    matchingDictionary, attributeNames, matchingType, Integer.MAX_VALUE, 0);
+            List<Tuple> scanResults = DictionaryMatcherTestHelper.getScanSourceResults(PEOPLE_TABLE, 
+                    dictionary, attributeNames, matchingType, Integer.MAX_VALUE, 0);
+            dictionary.resetCursor();
+            List<Tuple> returnedResults = DictionaryMatcherTestHelper.getDictionarySourceResults(PEOPLE_TABLE, 
+                    dictionary, attributeNames, matchingType, Integer.MAX_VALUE, 0);
+            dictionary.resetCursor();
+
+            Assert.assertEquals(4, returnedResults.size());
+            Assert.assertTrue(TestUtils.equals(expectedResults, scanResults));
+            Assert.assertTrue(TestUtils.equals(scanResults, returnedResults));
+        }
+    }
 
 }
-
@@ -2,6 +2,7 @@ package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import edu.uci.ics.texera.api.constants.test.TestConstants;
@@ -20,6 +21,8 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.QueryResultCache;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.junit.AfterClass;
@@ -510,4 +513,76 @@ public class KeywordConjunctionTest {
         Assert.assertTrue(contains);
     }
 
+    private static List<Tuple> readAllTuples(KeywordMatcherSourceOperator keywordSource) throws Exception {
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        keywordSource.open();
+        while ((tuple = keywordSource.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        keywordSource.close();
+        return results;
+    }
+
+    /**
+     * Verifies the ranked keyword source: it returns the same results in the order of their scores,
+     *   and a limit pushed down to it returns the top results.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRankedKeywordSource() throws Exception {
+        String query = "angry";
+        List<String> attributeNames = Arrays.asList(TestConstants.DESCRIPTION);
+        KeywordSourcePredicate rankedPredicate = new KeywordSourcePredicate(query, attributeNames,
+                LuceneAnalyzerConstants.standardAnalyzerString(), conjunction, PEOPLE_TABLE, RESULTS, "score");
+
+        List<Tuple> rankedResults = readAllTuples(new KeywordMatcherSourceOperator(rankedPredicate));
+        List<Tuple> expectedResults = KeywordTestHelper.getQueryResults(PEOPLE_TABLE, query, attributeNames, conjunction);
+        Assert.assertEquals(4, rankedResults.size());
+        Assert.assertTrue(TestUtils.equals(expectedResults, Tuple.Builder.removeIfExists(rankedResults, "score")));
+
+        for (int i = 1; i < rankedResults.size(); i++) {
+            double previousScore = rankedResults.get(i - 1).<DoubleField>getField("score").getValue();
+            Assert.assertTrue(previousScore >= rankedResults.get(i).<DoubleField>getField("score").getValue());
+        }
+        // the longest description has the lowest score
+        Assert.assertEquals("Lin Clooney is Short and lin clooney is Angry",
+                rankedResults.get(3).getField(TestConstants.DESCRIPTION).getValue());
+
+        KeywordMatcherSourceOperator limitedSource = new KeywordMatcherSourceOperator(rankedPredicate);
+        Assert.assertTrue(limitedSource.isIndexQueryExact());
+        limitedSource.setMatchingTupleLimit(2);
+        Assert.assertTrue(TestUtils.equals(rankedResults.subList(0, 2), readAllTuples(limitedSource)));
+    }
+
+    /**
+     * Verifies that a limit pushed down to an unranked keyword source returns the same tuples,
+     *   in the same order, as the first tuples of the source without the limit,
+     *   with and without the QueryResultCache.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLimitedKeywordSource() throws Exception {
+        KeywordSourcePredicate predicate = new KeywordSourcePredicate("angry", Arrays.asList(TestConstants.DESCRIPTION),
+                LuceneAnalyzerConstants.standardAnalyzerString(), conjunction, PEOPLE_TABLE, RESULTS);
+        QueryResultCache queryResultCache = QueryResultCache.getInstance();
+        long maxCacheSize = queryResultCache.getMaxSizeInBytes();
+        try {
+            for (long cacheSize : Arrays.asList(0L, 1024L * 1024L)) {
+                queryResultCache.setMaxSizeInBytes(cacheSize);
+                List<Tuple> results = readAllTuples(new KeywordMatcherSourceOperator(predicate));
+                Assert.assertEquals(4, results.size());
+
+                KeywordMatcherSourceOperator limitedSource = new KeywordMatcherSourceOperator(predicate);
+                limitedSource.setMatchingTupleLimit(2);
+                Assert.assertEquals(results.subList(0, 2), readAllTuples(limitedSource));
+            }
+        } finally {
+            queryResultCache.setMaxSizeInBytes(maxCacheSize);
+            queryResultCache.clear();
+        }
+    }
+
 }
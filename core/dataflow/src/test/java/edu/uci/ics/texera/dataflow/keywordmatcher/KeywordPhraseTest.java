@@ -2,6 +2,7 @@ package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.AfterClass;
@@ -23,6 +24,7 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 
 /**
  * @author Prakul
@@ -397,5 +399,42 @@ public class KeywordPhraseTest {
         boolean contains = TestUtils.equals(expectedResultList, results);
         Assert.assertTrue(contains);
     }
+    
+    /**
+     * Verifies that every occurrence of a phrase in a field is matched, including a phrase ending with a stopword,
+     * and an unsorted span list gets the same spans.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testRepeatedPhraseInField() throws Exception {
+        // Prepare Query
+        String query = "lin clooney is";
+        ArrayList<String> attributeNames = new ArrayList<>();
+        attributeNames.add(TestConstants.DESCRIPTION);
+
+        // Perform Query
+        List<Tuple> results = KeywordTestHelper.getQueryResults(PEOPLE_TABLE, query, attributeNames, phrase);
+
+        // Perform Check
+        Assert.assertEquals(1, results.size());
+        ListField<Span> spanListField = results.get(0).getField(RESULTS);
+        List<Span> spans = spanListField.getValue();
+        Assert.assertEquals(2, spans.size());
+        Assert.assertEquals("Lin Clooney", spans.get(0).getValue());
+        Assert.assertEquals(25, spans.get(1).getStart());
+        Assert.assertEquals(36, spans.get(1).getEnd());
+        
+        String fieldValue = results.get(0).getField(TestConstants.DESCRIPTION).getValue().toString();
+        List<Span> fieldSpanList = new ArrayList<>();
+        fieldSpanList.add(new Span(TestConstants.DESCRIPTION, 29, 36, "clooney", "clooney", 5));
+        fieldSpanList.add(new Span(TestConstants.DESCRIPTION, 4, 11, "clooney", "Clooney", 1));
+        fieldSpanList.add(new Span(TestConstants.DESCRIPTION, 25, 28, "lin", "lin", 4));
+        fieldSpanList.add(new Span(TestConstants.DESCRIPTION, 0, 3, "lin", "Lin", 0));
+        List<String> queryTokenList = Arrays.asList("lin", "clooney");
+        int[] phraseTokenOffsets = DataflowUtils.getPhraseTokenOffsets(Arrays.asList("lin", "clooney", "is"), queryTokenList);
+        Assert.assertEquals(spans, DataflowUtils.constructPhraseMatchingSpans(
+                TestConstants.DESCRIPTION, fieldValue, query, fieldSpanList, queryTokenList, phraseTokenOffsets));
+    }
 
 }
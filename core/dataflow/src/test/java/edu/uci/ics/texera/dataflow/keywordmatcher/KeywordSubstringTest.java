@@ -2,6 +2,7 @@ package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.AfterClass;
@@ -23,6 +24,10 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 
 /**
  * @author ZhenfengQi
@@ -199,5 +204,80 @@ public class KeywordSubstringTest {
         boolean contains = TestUtils.equals(expectedResultList, resultList);
         Assert.assertTrue(contains);
     }
+    
+    /**
+     * Verifies that the substring matching on a table with gram fields, which reads the candidates from the gram fields,
+     *   gets the same results as the scan of the table, including the queries shorter than the grams and the STRING attributes.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSubstringWithGramFields() throws Exception {
+        String gramTable = "keyword_test_people_gram";
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(gramTable);
+        relationManager.createTable(gramTable, TestUtils.getDefaultTestIndex().resolve(gramTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString(), 
+                LuceneCodecProfile.DEFAULT_PROFILE, 3);
+        DataWriter dataWriter = relationManager.getTableDataWriter(gramTable);
+        dataWriter.open();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        ArrayList<String> descriptionAttribute = new ArrayList<>();
+        descriptionAttribute.add(TestConstants.DESCRIPTION);
+        ArrayList<String> allAttributes = new ArrayList<>();
+        allAttributes.add(TestConstants.FIRST_NAME);
+        allAttributes.add(TestConstants.LAST_NAME);
+        allAttributes.add(TestConstants.DESCRIPTION);
+        
+        try {
+            for (String query : new String[] { "lin", "Clooney is ANGRY", "tall angry", "is", "brad and angelina" }) {
+                for (ArrayList<String> attributeNames : Arrays.asList(descriptionAttribute, allAttributes)) {
+                    List<Tuple> results = KeywordTestHelper.getQueryResults(gramTable, query, attributeNames, substring);
+                    List<Tuple> expectedResults = KeywordTestHelper.getScanSourceResults(
+                            PEOPLE_TABLE, query, attributeNames, substring, Integer.MAX_VALUE, 0);
+                    Assert.assertEquals(expectedResults.size(), results.size());
+                }
+            }
+        } finally {
+            relationManager.deleteTable(gramTable);
+        }
+    }
+    
+    /**
+     * Verifies that the gram query finds the texts with chars that are equal to the query ignoring the case, 
+     *   but have different lower cases in the grams, like the final sigma and the long s.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSubstringWithGramFieldsFoldsCase() throws Exception {
+        String gramTable = "keyword_test_fold_gram";
+        String attributeName = "content";
+        Schema schema = new Schema(new Attribute(attributeName, AttributeType.TEXT));
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(gramTable);
+        relationManager.createTable(gramTable, TestUtils.getDefaultTestIndex().resolve(gramTable), 
+                schema, LuceneAnalyzerConstants.standardAnalyzerString(), 
+                LuceneCodecProfile.DEFAULT_PROFILE, 3);
+        DataWriter dataWriter = relationManager.getTableDataWriter(gramTable);
+        dataWriter.open();
+        dataWriter.insertTuple(new Tuple(schema, new TextField("o \u03BB\u03CC\u03B3\u03BF\u03C2 kai")));
+        dataWriter.insertTuple(new Tuple(schema, new TextField("die \u017Ftra\u017F\u017Fe")));
+        dataWriter.close();
+        
+        try {
+            for (String query : new String[] { "\u039B\u038C\u0393\u039F\u03A3", "STRASSE", "strasse" }) {
+                List<Tuple> results = KeywordTestHelper.getQueryResults(
+                        gramTable, query, Arrays.asList(attributeName), substring);
+                Assert.assertEquals(1, results.size());
+            }
+        } finally {
+            relationManager.deleteTable(gramTable);
+        }
+    }
 
 }
@@ -2,6 +2,7 @@ package edu.uci.ics.texera.dataflow.plangen;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -16,7 +17,13 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.Utils;
+import edu.uci.ics.texera.dataflow.aggregator.AggregationAttributeAndResult;
+import edu.uci.ics.texera.dataflow.aggregator.AggregationType;
+import edu.uci.ics.texera.dataflow.aggregator.Aggregator;
+import edu.uci.ics.texera.dataflow.aggregator.AggregatorPredicate;
+import edu.uci.ics.texera.dataflow.aggregator.SourceCountAggregator;
 import edu.uci.ics.texera.dataflow.connector.OneToNBroadcastConnector;
 import edu.uci.ics.texera.dataflow.connector.OneToNBroadcastConnector.ConnectorOutputOperator;
 import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenMatcher;
@@ -692,4 +699,59 @@ public class LogicalPlanTest {
         Schema raiseExceptionSchema  = logicalPlan.getOperatorOutputSchema(REGEX_ID_2);
     }
 
+    /*
+     * Test that a count on a source with an exact index query is answered by the index.
+     * 
+     * KeywordSource (conjunction) --> Aggregator (COUNT) --> TupleSink
+     * 
+     */
+    @Test
+    public void testCountQueryRewrite() throws Exception {
+        KeywordSourcePredicate conjunctionSourcePredicate = new KeywordSourcePredicate(
+                "irvine",
+                Arrays.asList("city", "location", "content"),
+                LuceneAnalyzerConstants.standardAnalyzerString(),
+                KeywordMatchingType.CONJUNCTION_INDEXBASED,
+                TEST_TABLE,
+                "keywordSourceResults");
+        conjunctionSourcePredicate.setID(KEYWORD_SOURCE_ID);
+        
+        TupleSink tupleSink = getCountPlanSink(conjunctionSourcePredicate);
+        Assert.assertTrue(tupleSink.getInputOperator() instanceof SourceCountAggregator);
+        
+        List<Tuple> results = tupleSink.collectAllTuples();
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(0, results.get(0).getField("count").getValue());
+    }
+    
+    /*
+     * Test that a count on a source whose index query is further filtered still reads the tuples.
+     * 
+     * KeywordSource (phrase) --> Aggregator (COUNT) --> TupleSink
+     * 
+     */
+    @Test
+    public void testCountQueryNotRewritten() throws Exception {
+        setDefaultID();
+        TupleSink tupleSink = getCountPlanSink(keywordSourcePredicate);
+        Assert.assertTrue(tupleSink.getInputOperator() instanceof Aggregator);
+    }
+    
+    private static TupleSink getCountPlanSink(KeywordSourcePredicate sourcePredicate) throws TexeraException {
+        String AGGREGATOR_ID = "aggregator";
+        AggregatorPredicate aggregatorPredicate = new AggregatorPredicate(Arrays.asList(
+                new AggregationAttributeAndResult("city", AggregationType.COUNT, "count")));
+        aggregatorPredicate.setID(AGGREGATOR_ID);
+        tupleSinkPredicate.setID(TUPLE_SINK_ID);
+        
+        LogicalPlan logicalPlan = new LogicalPlan();
+        logicalPlan.addOperator(sourcePredicate);
+        logicalPlan.addOperator(aggregatorPredicate);
+        logicalPlan.addOperator(tupleSinkPredicate);
+        logicalPlan.addLink(new OperatorLink(KEYWORD_SOURCE_ID, AGGREGATOR_ID));
+        logicalPlan.addLink(new OperatorLink(AGGREGATOR_ID, TUPLE_SINK_ID));
+        
+        return (TupleSink) logicalPlan.buildQueryPlan().getRoot();
+    }
+
 }
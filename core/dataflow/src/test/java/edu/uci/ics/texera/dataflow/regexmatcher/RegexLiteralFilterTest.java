@@ -0,0 +1,80 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexLiteralFilterTest {
+
+    @Test
+    public void testRequiredLiterals() {
+        RegexLiteralFilter filter = RegexLiteralFilter.create("medic(ine|al|ation)?");
+        Assert.assertNotNull(filter);
+        Assert.assertTrue(filter.mayMatch("a new medicine"));
+        Assert.assertTrue(filter.mayMatch("MEDICAL"));
+        Assert.assertFalse(filter.mayMatch("a gold medal"));
+        Assert.assertFalse(filter.mayMatch(""));
+    }
+
+    @Test
+    public void testAlternativeLiterals() {
+        RegexLiteralFilter filter = RegexLiteralFilter.create("(mosquito|malaria) virus");
+        Assert.assertNotNull(filter);
+        Assert.assertTrue(filter.mayMatch("the malaria virus"));
+        Assert.assertTrue(filter.mayMatch("Mosquito Virus"));
+        Assert.assertFalse(filter.mayMatch("the mosquito"));
+        Assert.assertFalse(filter.mayMatch("a virus"));
+    }
+
+    @Test
+    public void testNoFilter() {
+        // the regex doesn't require any literal
+        Assert.assertNull(RegexLiteralFilter.create("\\d+-[a-z]*"));
+        // back references are only supported by java.util.regex
+        Assert.assertNull(RegexLiteralFilter.create("(abc)\\1"));
+        // RE2J parses the nested class as literal chars
+        Assert.assertNull(RegexLiteralFilter.create("[a-z&&[def]]xyz"));
+        // "\v" is a vertical whitespace class in java.util.regex, but a vertical tab in RE2J
+        Assert.assertNull(RegexLiteralFilter.create("\\vabc"));
+    }
+
+    /*
+     * The upper case escapes keep their meanings, the filter doesn't reject the texts that java.util.regex matches.
+     */
+    @Test
+    public void testUpperCaseEscapes() {
+        assertFilterAccepts("\\Sfoo", "xfoo");
+        assertFilterAccepts("\\Dabc", "xabc");
+        assertFilterAccepts("\\Wabc", "-abc");
+        assertFilterAccepts("\\Babc", "xabc");
+        assertFilterAccepts("\\Aabc", "abcdef");
+        assertFilterAccepts("\\Sfoo\\D", "xfoox");
+
+        RegexLiteralFilter filter = RegexLiteralFilter.create("\\Sfoo");
+        Assert.assertNotNull(filter);
+        Assert.assertFalse(filter.mayMatch("a bar"));
+    }
+
+    /*
+     * The "\s" of java.util.regex matches the vertical tab, which the "\s" of RE2J doesn't.
+     */
+    @Test
+    public void testWhitespaceEscapes() {
+        assertFilterAccepts("a\\sbc", "a\u000Bbc");
+        assertFilterAccepts("a[\\s,]bc", "a\u000Bbc");
+        assertFilterAccepts("a[^\\S]bc", "a\u000Bbc");
+        assertFilterAccepts("\\Q\\s\\Eabc", "\\sabc");
+
+        RegexLiteralFilter filter = RegexLiteralFilter.create("a\\sbc");
+        Assert.assertNotNull(filter);
+        Assert.assertFalse(filter.mayMatch("a-bc"));
+    }
+
+    private static void assertFilterAccepts(String regex, String text) {
+        Assert.assertTrue(Pattern.compile(regex).matcher(text).find());
+        RegexLiteralFilter filter = RegexLiteralFilter.create(regex);
+        Assert.assertTrue(filter == null || filter.mayMatch(text));
+    }
+
+}
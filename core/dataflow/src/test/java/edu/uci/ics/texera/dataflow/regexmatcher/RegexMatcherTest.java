@@ -13,11 +13,18 @@ import edu.uci.ics.texera.api.constants.test.TestConstants;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 
 /**
  * Unit tests for RegexMatcher. Integration tests with RegexToGramTranslator.
@@ -391,6 +398,198 @@ public class RegexMatcherTest {
         Assert.assertEquals(exactResultsWithLimitOffset.size(), 2);
     }
 
+    @Test
+    public void testBacktrackingProneRegex() throws Exception {
+        Assert.assertTrue(RegexMatcher.isBacktrackingProne("(a|aa)*b"));
+        Assert.assertTrue(RegexMatcher.isBacktrackingProne("(\\w+\\s?)+$"));
+        Assert.assertTrue(RegexMatcher.isBacktrackingProne("(x*)*y"));
+        Assert.assertTrue(RegexMatcher.isBacktrackingProne("^(https?:\\/\\/)?([\\da-z\\.-]+)\\.([a-z\\.]{2,6})([\\/\\w \\.-]*)*\\/?$"));
+        
+        Assert.assertFalse(RegexMatcher.isBacktrackingProne("g[^\\s]*"));
+        Assert.assertFalse(RegexMatcher.isBacktrackingProne("\\d{3}-\\d{4}"));
+        Assert.assertFalse(RegexMatcher.isBacktrackingProne("(ab)?c+|d"));
+    }
+    
+    /*
+     * The RE2J engine gives the same results as the java.util.regex engine.
+     */
+    @Test
+    public void testRegexEngines() throws Exception {
+        String query = "^(https?:\\/\\/)?([\\da-z\\.-]+)\\.([a-z\\.]{2,6})([\\/\\w \\.-]*)*\\/?$";
+        List<String> attributeNames = Arrays.asList(RegexTestConstantsCorp.URL);
+        
+        List<Tuple> javaResults = RegexMatcherTestHelper.getScanSourceResults(
+                CORP_TABLE, query, attributeNames, RegexEngine.JAVA);
+        List<Tuple> re2jResults = RegexMatcherTestHelper.getScanSourceResults(
+                CORP_TABLE, query, attributeNames, RegexEngine.RE2J);
+        
+        Assert.assertEquals(2, javaResults.size());
+        Assert.assertTrue(TestUtils.equals(javaResults, re2jResults));
+        
+        query = "g[^\\s]*";
+        attributeNames = Arrays.asList(TestConstants.FIRST_NAME, TestConstants.LAST_NAME);
+        javaResults = RegexMatcherTestHelper.getScanSourceResults(PEOPLE_TABLE, query, attributeNames, RegexEngine.JAVA);
+        re2jResults = RegexMatcherTestHelper.getScanSourceResults(PEOPLE_TABLE, query, attributeNames, RegexEngine.RE2J);
+        
+        Assert.assertFalse(javaResults.isEmpty());
+        Assert.assertTrue(TestUtils.equals(javaResults, re2jResults));
+    }
+    
+    /*
+     * RE2J matches some constructs differently than java.util.regex (see RegexEngine),
+     *   the AUTO engine only uses RE2J for the backtracking-prone regexes that it matches like java.util.regex,
+     *   so AUTO always gives the results of JAVA.
+     */
+    @Test
+    public void testAutoEngineMatchesLikeJava() throws Exception {
+        Assert.assertEquals(RegexEngine.RE2J, RegexMatcher.findRegexEngine(
+                new RegexPredicate("(a|aa)*b", Arrays.asList("content"), false, RegexEngine.AUTO, RESULTS)));
+        Assert.assertEquals(RegexEngine.RE2J, RegexMatcher.findRegexEngine(
+                new RegexPredicate("(?s)(x.|y)*\\z", Arrays.asList("content"), false, RegexEngine.AUTO, RESULTS)));
+        
+        // the regexes, and the texts that RE2J matches differently
+        List<String[]> differentMatches = Arrays.asList(
+                new String[] {"(x.)+y", "x\ry"},
+                new String[] {"(a\\s)+b", "a\u000Bb"},
+                new String[] {"(a\\v)+b", "a\nb"},
+                new String[] {"(ab|c)+$", "ab\n"},
+                new String[] {"(?m)(ab|c)+$", "ab\r\n"},
+                new String[] {"(\u00E9\\b)+", "\u00E9a"},
+                new String[] {"(x[[:alpha:]])+", "xb"},
+                new String[] {"(?i)(k)+", "\u212A"});
+        for (String[] differentMatch : differentMatches) {
+            String regex = differentMatch[0];
+            String text = differentMatch[1];
+            int javaMatches = countMatchingTuples(regex, false, RegexEngine.JAVA, text);
+            Assert.assertFalse(regex, javaMatches == countMatchingTuples(regex, false, RegexEngine.RE2J, text));
+            Assert.assertEquals(regex, javaMatches, countMatchingTuples(regex, false, RegexEngine.AUTO, text));
+            Assert.assertFalse(regex, RegexMatcher.isMatchedLikeJava(regex));
+        }
+        
+        // the ignore case option of RE2J folds "s" and the long s
+        int javaMatches = countMatchingTuples("(s)+", true, RegexEngine.JAVA, "\u017F");
+        Assert.assertFalse(javaMatches == countMatchingTuples("(s)+", true, RegexEngine.RE2J, "\u017F"));
+        Assert.assertEquals(javaMatches, countMatchingTuples("(s)+", true, RegexEngine.AUTO, "\u017F"));
+    }
+    
+    private static int countMatchingTuples(String regex, boolean ignoreCase, RegexEngine regexEngine, String text) 
+            throws Exception {
+        String attributeName = "content";
+        Schema schema = new Schema(new Attribute(attributeName, AttributeType.TEXT));
+        RegexMatcher regexMatcher = new RegexMatcher(
+                new RegexPredicate(regex, Arrays.asList(attributeName), ignoreCase, regexEngine, RESULTS));
+        regexMatcher.setInputOperator(new TupleSourceOperator(
+                Arrays.asList(new Tuple(schema, new TextField(text))), schema));
+        
+        int matchingTuples = 0;
+        regexMatcher.open();
+        while (regexMatcher.getNextTuple() != null) {
+            matchingTuples++;
+        }
+        regexMatcher.close();
+        return matchingTuples;
+    }
+    
+    /*
+     * java.util.regex takes exponential time to find that "(a|aa)*b" doesn't match a long run of "a",
+     *   the regex is matched by the RE2J engine automatically.
+     */
+    @Test(timeout = 10000)
+    public void testBacktrackingProneRegexInLinearTime() throws Exception {
+        String attributeName = "content";
+        Schema schema = new Schema(new Attribute(attributeName, AttributeType.TEXT));
+        String run = new String(new char[100]).replace('\0', 'a');
+        List<Tuple> tuples = Arrays.asList(
+                new Tuple(schema, new TextField(run + "c")),
+                new Tuple(schema, new TextField(run + "b")));
+        
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate("(a|aa)*b", Arrays.asList(attributeName), RESULTS));
+        regexMatcher.setInputOperator(new TupleSourceOperator(tuples, schema));
+        
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        regexMatcher.open();
+        while ((tuple = regexMatcher.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        regexMatcher.close();
+        
+        Assert.assertEquals(1, results.size());
+        ListField<Span> spanListField = results.get(0).getField(RESULTS);
+        Assert.assertEquals(Arrays.asList(new Span(attributeName, 0, 101, "(a|aa)*b", run + "b")), spanListField.getValue());
+    }
+
+    /*
+     * On a table with gram fields, the regex source reads the documents by the grams of the regex,
+     *   and gives the same results as a scan.
+     */
+    @Test
+    public void testRegexWithGramFields() throws Exception {
+        testRegexWithGramFields(3);
+    }
+
+    /*
+     * The grams of the regex have the gram size of the table.
+     */
+    @Test
+    public void testRegexWithGramFieldsOfGramSize4() throws Exception {
+        testRegexWithGramFields(4);
+    }
+
+    private static void testRegexWithGramFields(int gramSize) throws Exception {
+        String gramTable = "regex_test_people_gram";
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(gramTable);
+        relationManager.createTable(gramTable, TestUtils.getDefaultTestIndex().resolve(gramTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString(), 
+                LuceneCodecProfile.DEFAULT_PROFILE, gramSize);
+        DataWriter dataWriter = relationManager.getTableDataWriter(gramTable);
+        dataWriter.open();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        List<String> descriptionAttribute = Arrays.asList(TestConstants.DESCRIPTION);
+        List<String> allAttributes = Arrays.asList(TestConstants.FIRST_NAME, TestConstants.LAST_NAME, TestConstants.DESCRIPTION);
+        
+        try {
+            Assert.assertNotNull(RegexMatcherSourceOperator.createGramFieldQuery(
+                    new RegexSourcePredicate("(angry|tall) and", descriptionAttribute, gramTable, RESULTS), 
+                    relationManager.getTableDataStore(gramTable)));
+            // the regex doesn't require any gram
+            Assert.assertNull(RegexMatcherSourceOperator.createGramFieldQuery(
+                    new RegexSourcePredicate("\\w+", descriptionAttribute, gramTable, RESULTS), 
+                    relationManager.getTableDataStore(gramTable)));
+            // the first name and the last name are STRING attributes
+            Assert.assertNull(RegexMatcherSourceOperator.createGramFieldQuery(
+                    new RegexSourcePredicate("(angry|tall) and", allAttributes, gramTable, RESULTS), 
+                    relationManager.getTableDataStore(gramTable)));
+            
+            for (String regex : new String[] { "(angry|tall) and", "Lin.*e", "is [a-z]+ing", "\\w+", "Clooney" }) {
+                for (List<String> attributeNames : Arrays.asList(descriptionAttribute, allAttributes)) {
+                    List<Tuple> results = RegexMatcherTestHelper.getRegexSourceResults(
+                            gramTable, regex, attributeNames, Integer.MAX_VALUE, 0);
+                    List<Tuple> expectedResults = RegexMatcherTestHelper.getScanSourceResults(
+                            PEOPLE_TABLE, regex, attributeNames, Integer.MAX_VALUE, 0);
+                    Assert.assertTrue(TestUtils.equals(expectedResults, results));
+                }
+            }
+            
+            // the upper case escapes keep their meanings in the grams of the regex
+            for (String regex : new String[] { "\\Sooney", "\\Dall", "\\Wis\\W", "\\Bngry", "\\ATall" }) {
+                List<Tuple> results = RegexMatcherTestHelper.getRegexSourceResults(
+                        gramTable, regex, descriptionAttribute, Integer.MAX_VALUE, 0);
+                List<Tuple> expectedResults = RegexMatcherTestHelper.getScanSourceResults(
+                        PEOPLE_TABLE, regex, descriptionAttribute, Integer.MAX_VALUE, 0);
+                Assert.assertFalse(results.isEmpty());
+                Assert.assertTrue(TestUtils.equals(expectedResults, results));
+            }
+        } finally {
+            relationManager.deleteTable(gramTable);
+        }
+    }
+
     // @Test
     // public void testRegexWithLimitProblem() throws Exception {
     // List<ITuple> data = RegexTestConstantsText.getSampleTextTuples();
@@ -156,6 +156,25 @@ public class RegexMatcherTestHelper {
         return results;
     }
     
+    public static List<Tuple> getScanSourceResults(String tableName, String regex, List<String> attributeNames,
+            RegexEngine regexEngine) throws TexeraException {
+        ScanBasedSourceOperator scanSource = new ScanBasedSourceOperator(new ScanSourcePredicate(tableName));
+        
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate(regex, attributeNames, false, regexEngine, RESULTS));
+        regexMatcher.setInputOperator(scanSource);
+        
+        Tuple tuple;
+        List<Tuple> results = new ArrayList<>();
+        
+        regexMatcher.open();
+        while ((tuple = regexMatcher.getNextTuple()) != null) {
+            results.add(tuple);
+        }  
+        regexMatcher.close();
+        
+        return results;
+    }
+    
     public static List<Tuple> getRegexSourceResults(String tableName, String regex, List<String> attributeNames,
             int limit, int offset) throws TexeraException {
         RegexSourcePredicate regexSourcePredicate = new RegexSourcePredicate(regex, attributeNames, tableName, RESULTS);
@@ -13,12 +13,17 @@ import edu.uci.ics.texera.api.constants.test.TestConstants;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcherTestHelper;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
 
 /**
  * Unit tests for LabeledRegexMatcher.
@@ -231,4 +236,40 @@ public class LabeledRegexMatcherTest {
         Assert.assertTrue(TestUtils.attributeEquals(expectedResults, exactResults, attributeNames));
     }
 
+    /*
+     * The special characters in the label values are matched literally,
+     *   the tuples with the same label values reuse the compiled regex.
+     */
+    @Test
+    public void testLabelValuesWithSpecialCharacters() throws Exception {
+        String query = "costs? <price> (today|now)";
+        Schema schema = new Schema(new Attribute("content", AttributeType.TEXT), new Attribute("price", AttributeType.LIST));
+        List<Tuple> tuples = Arrays.asList(
+                new Tuple(schema, new TextField("it costs $5.00 today"), 
+                        new ListField<>(Arrays.asList(new Span("content", 9, 14, "price", "$5.00")))),
+                new Tuple(schema, new TextField("cost $5.00 now, cost $5000 now"), 
+                        new ListField<>(Arrays.asList(new Span("content", 5, 10, "price", "$5.00")))),
+                new Tuple(schema, new TextField("it costs 5 today"), 
+                        new ListField<>(Arrays.asList(new Span("content", 9, 10, "price", "5")))));
+        
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate(query, Arrays.asList("content"), RESULTS));
+        regexMatcher.setInputOperator(new TupleSourceOperator(tuples, schema));
+        
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        regexMatcher.open();
+        while ((tuple = regexMatcher.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        regexMatcher.close();
+        
+        Assert.assertEquals(3, results.size());
+        ListField<Span> spanListField = results.get(0).getField(RESULTS);
+        Assert.assertEquals(Arrays.asList(new Span("content", 3, 20, query, "costs $5.00 today")), spanListField.getValue());
+        spanListField = results.get(1).getField(RESULTS);
+        Assert.assertEquals(Arrays.asList(new Span("content", 0, 14, query, "cost $5.00 now")), spanListField.getValue());
+        spanListField = results.get(2).getField(RESULTS);
+        Assert.assertEquals(Arrays.asList(new Span("content", 3, 16, query, "costs 5 today")), spanListField.getValue());
+    }
+
 }
@@ -0,0 +1,141 @@
+package edu.uci.ics.texera.dataflow.sink;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class IndexSinkTest {
+
+    public static final String INDEX_SINK_TABLE = "index_sink_test_table";
+    public static final Schema INDEX_SINK_SCHEMA = new Schema(
+            new Attribute("name", AttributeType.STRING), new Attribute("number", AttributeType.INTEGER));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+
+    @Before
+    public void setUp() throws TexeraException {
+        relationManager.deleteTable(INDEX_SINK_TABLE);
+        relationManager.createTable(INDEX_SINK_TABLE, TestUtils.getDefaultTestIndex().resolve(INDEX_SINK_TABLE),
+                INDEX_SINK_SCHEMA, LuceneAnalyzerConstants.standardAnalyzerString());
+    }
+
+    @After
+    public void cleanUp() throws TexeraException {
+        relationManager.deleteTable(INDEX_SINK_TABLE);
+    }
+
+    private static List<Tuple> createTuples(int number) {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            tuples.add(new Tuple(INDEX_SINK_SCHEMA, new StringField("name " + i), new IntegerField(i)));
+        }
+        return tuples;
+    }
+
+    /*
+     * An input operator which returns the tuples in a list.
+     */
+    private static IOperator createInputOperator(List<Tuple> tuples) {
+        return new IOperator() {
+            private Iterator<Tuple> tupleIterator;
+
+            public void open() {
+                tupleIterator = tuples.iterator();
+            }
+
+            public Tuple getNextTuple() {
+                return tupleIterator.hasNext() ? tupleIterator.next() : null;
+            }
+
+            public void close() {
+            }
+
+            public Schema getOutputSchema() {
+                return INDEX_SINK_SCHEMA;
+            }
+
+            public Schema transformToOutputSchema(Schema... inputSchema) {
+                return INDEX_SINK_SCHEMA;
+            }
+        };
+    }
+
+    private int countTableTuples() {
+        DataReader dataReader = relationManager.getTableDataReader(INDEX_SINK_TABLE, new MatchAllDocsQuery());
+        int count = 0;
+        dataReader.open();
+        while (dataReader.getNextTuple() != null) {
+            count++;
+        }
+        dataReader.close();
+        return count;
+    }
+
+    /*
+     * All the tuples are indexed and committed, in batches smaller than the input.
+     */
+    @Test
+    public void testIndexTuples() throws Exception {
+        IndexSink indexSink = new IndexSink(INDEX_SINK_TABLE, false, 7, 20, 10000);
+        indexSink.setInputOperator(createInputOperator(createTuples(100)));
+        indexSink.open();
+        indexSink.processTuples();
+        indexSink.close();
+
+        Assert.assertEquals(100, indexSink.getIndexedTupleCount());
+        Assert.assertEquals(100, indexSink.getCommittedTupleCount());
+        Assert.assertEquals(100, countTableTuples());
+    }
+
+    /*
+     * If indexing fails, the failure is thrown to the plan, and the tuples indexed before the failure are committed.
+     */
+    @Test
+    public void testIndexingFailure() throws Exception {
+        List<Tuple> tuples = createTuples(30);
+        // a tuple with a different schema fails to be inserted
+        tuples.add(new Tuple(new Schema(new Attribute("name", AttributeType.STRING)), new StringField("invalid")));
+        tuples.addAll(createTuples(30));
+
+        IndexSink indexSink = new IndexSink(INDEX_SINK_TABLE, false, 10, 1000, 10000);
+        indexSink.setInputOperator(createInputOperator(tuples));
+        indexSink.open();
+        boolean failed = false;
+        try {
+            indexSink.processTuples();
+            indexSink.close();
+        } catch (DataflowException e) {
+            failed = true;
+            try {
+                indexSink.close();
+            } catch (DataflowException closeException) {
+                // the failure is also thrown on close
+            }
+        }
+
+        Assert.assertTrue(failed);
+        Assert.assertEquals(30, indexSink.getCommittedTupleCount());
+        Assert.assertEquals(30, countTableTuples());
+    }
+
+}
@@ -72,4 +72,23 @@ public class ScanBasedSourceOperatorTest {
         scanBasedSourceOperator.close();
     }
 
+    /*
+     * The scan source counts the tuples by the index, and only reads the number of tuples set by the limit.
+     */
+    @Test
+    public void testCountAndLimit() throws TexeraException {
+        ScanBasedSourceOperator scanBasedSourceOperator = new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE));
+        Assert.assertTrue(scanBasedSourceOperator.isIndexQueryExact());
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size(), scanBasedSourceOperator.countMatchingTuples());
+        
+        scanBasedSourceOperator.setMatchingTupleLimit(2);
+        scanBasedSourceOperator.open();
+        int numTuples = 0;
+        while (scanBasedSourceOperator.getNextTuple() != null) {
+            numTuples++;
+        }
+        scanBasedSourceOperator.close();
+        Assert.assertEquals(2, numTuples);
+    }
+
 }
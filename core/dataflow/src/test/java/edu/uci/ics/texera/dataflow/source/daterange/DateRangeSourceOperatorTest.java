@@ -0,0 +1,179 @@
+package edu.uci.ics.texera.dataflow.source.daterange;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class DateRangeSourceOperatorTest {
+
+    public static final String PEOPLE_TABLE = "date_range_source_test_people";
+    public static final String EVENT_TABLE = "date_range_source_test_event";
+
+    public static final String EVENT_NAME = "name";
+    public static final String EVENT_TIME = "time";
+    public static final Schema EVENT_SCHEMA = new Schema(
+            new Attribute(EVENT_NAME, AttributeType.STRING), new Attribute(EVENT_TIME, AttributeType.DATETIME));
+
+    @BeforeClass
+    public static void setUp() throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+
+        // create the people table and write tuples
+        relationManager.createTable(PEOPLE_TABLE, TestUtils.getDefaultTestIndex().resolve(PEOPLE_TABLE),
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        DataWriter peopleDataWriter = relationManager.getTableDataWriter(PEOPLE_TABLE);
+        peopleDataWriter.open();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            peopleDataWriter.insertTuple(tuple);
+        }
+        peopleDataWriter.close();
+
+        // create the event table and write tuples
+        relationManager.createTable(EVENT_TABLE, TestUtils.getDefaultTestIndex().resolve(EVENT_TABLE),
+                EVENT_SCHEMA, LuceneAnalyzerConstants.standardAnalyzerString());
+        DataWriter eventDataWriter = relationManager.getTableDataWriter(EVENT_TABLE);
+        eventDataWriter.open();
+        eventDataWriter.insertTuple(new Tuple(EVENT_SCHEMA,
+                new StringField("before"), new DateTimeField(LocalDateTime.parse("2017-01-31T23:59:59.9991"))));
+        eventDataWriter.insertTuple(new Tuple(EVENT_SCHEMA,
+                new StringField("start"), new DateTimeField(LocalDateTime.parse("2017-02-01T00:00:00"))));
+        eventDataWriter.insertTuple(new Tuple(EVENT_SCHEMA,
+                new StringField("middle"), new DateTimeField(LocalDateTime.parse("2017-02-14T12:30:00"))));
+        eventDataWriter.insertTuple(new Tuple(EVENT_SCHEMA,
+                new StringField("end"), new DateTimeField(LocalDateTime.parse("2017-02-28T23:59:59.999999999"))));
+        eventDataWriter.insertTuple(new Tuple(EVENT_SCHEMA,
+                new StringField("after"), new DateTimeField(LocalDateTime.parse("2017-03-01T00:00:00"))));
+        eventDataWriter.close();
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(PEOPLE_TABLE);
+        relationManager.deleteTable(EVENT_TABLE);
+    }
+
+    public static List<Tuple> getQueryResults(DateRangeSourcePredicate predicate) throws TexeraException {
+        DateRangeSourceOperator dateRangeSource = new DateRangeSourceOperator(predicate);
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        dateRangeSource.open();
+        while ((tuple = dateRangeSource.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        dateRangeSource.close();
+        return results;
+    }
+
+    private static List<Tuple> getExpectedPeople(LocalDate startDate, LocalDate endDate) throws Exception {
+        return TestConstants.getSamplePeopleTuples().stream()
+                .filter(tuple -> {
+                    LocalDate date = tuple.getField(TestConstants.DATE_OF_BIRTH, DateField.class).getValue();
+                    return (startDate == null || ! date.isBefore(startDate)) && (endDate == null || ! date.isAfter(endDate));
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> getEventNames(List<Tuple> results) {
+        return results.stream()
+                .map(tuple -> tuple.getField(EVENT_NAME, StringField.class).getValue())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Test a closed range on a DATE attribute, both dates are inclusive.
+     */
+    @Test
+    public void testDateRange() throws Exception {
+        List<Tuple> results = getQueryResults(new DateRangeSourcePredicate(
+                PEOPLE_TABLE, TestConstants.DATE_OF_BIRTH, "1971-01-13", "1973-01-13"));
+        List<Tuple> expectedResults = getExpectedPeople(LocalDate.parse("1971-01-13"), LocalDate.parse("1973-01-13"));
+
+        Assert.assertEquals(3, expectedResults.size());
+        Assert.assertTrue(TestUtils.equals(expectedResults, results));
+    }
+
+    /*
+     * Test open ranges on a DATE attribute.
+     */
+    @Test
+    public void testOpenDateRange() throws Exception {
+        List<Tuple> results = getQueryResults(new DateRangeSourcePredicate(
+                PEOPLE_TABLE, TestConstants.DATE_OF_BIRTH, "1973-01-01", null));
+        Assert.assertTrue(TestUtils.equals(getExpectedPeople(LocalDate.parse("1973-01-01"), null), results));
+
+        results = getQueryResults(new DateRangeSourcePredicate(
+                PEOPLE_TABLE, TestConstants.DATE_OF_BIRTH, "", "1971-12-31T10:00:00"));
+        Assert.assertTrue(TestUtils.equals(getExpectedPeople(null, LocalDate.parse("1971-12-31")), results));
+
+        results = getQueryResults(new DateRangeSourcePredicate(
+                PEOPLE_TABLE, TestConstants.DATE_OF_BIRTH, null, null));
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), results));
+    }
+
+    /*
+     * Test a range of dates on a DATETIME attribute, the end date includes the whole day.
+     */
+    @Test
+    public void testDateTimeRangeWithDates() throws Exception {
+        List<Tuple> results = getQueryResults(new DateRangeSourcePredicate(
+                EVENT_TABLE, EVENT_TIME, "2017-02-01", "2017-02-28"));
+        Assert.assertEquals(Arrays.asList("end", "middle", "start"), getEventNames(results));
+    }
+
+    /*
+     * Test a range of date times on a DATETIME attribute,
+     *   values in the same millisecond as the bounds are checked exactly.
+     */
+    @Test
+    public void testDateTimeRangeWithDateTimes() throws Exception {
+        List<Tuple> results = getQueryResults(new DateRangeSourcePredicate(
+                EVENT_TABLE, EVENT_TIME, "2017-01-31T23:59:59.9995", "2017-02-28T23:59:59.9995"));
+        Assert.assertEquals(Arrays.asList("middle", "start"), getEventNames(results));
+
+        results = getQueryResults(new DateRangeSourcePredicate(
+                EVENT_TABLE, EVENT_TIME, "2017-01-31T23:59:59.9991", "2017-02-01T00:00:00"));
+        Assert.assertEquals(Arrays.asList("before", "start"), getEventNames(results));
+    }
+
+    /*
+     * A date range on an attribute which is not DATE or DATETIME should result in an exception.
+     */
+    @Test(expected = DataflowException.class)
+    public void testInvalidAttributeType() throws Exception {
+        getQueryResults(new DateRangeSourcePredicate(PEOPLE_TABLE, TestConstants.FIRST_NAME, "1971-01-13", null));
+    }
+
+    /*
+     * An invalid date should result in an exception.
+     */
+    @Test(expected = DataflowException.class)
+    public void testInvalidDate() throws Exception {
+        getQueryResults(new DateRangeSourcePredicate(PEOPLE_TABLE, TestConstants.DATE_OF_BIRTH, "01-13-1971", null));
+    }
+
+}
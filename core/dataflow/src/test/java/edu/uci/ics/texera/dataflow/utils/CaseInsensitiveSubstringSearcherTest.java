@@ -0,0 +1,49 @@
+package edu.uci.ics.texera.dataflow.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CaseInsensitiveSubstringSearcherTest {
+
+    private static List<Integer> findAll(String keyword, String text) {
+        CaseInsensitiveSubstringSearcher searcher = new CaseInsensitiveSubstringSearcher(keyword);
+        List<Integer> offsets = new ArrayList<>();
+        int index = searcher.indexOf(text, 0);
+        while (index != -1) {
+            offsets.add(index);
+            index = searcher.indexOf(text, index + 1);
+        }
+        return offsets;
+    }
+
+    /**
+     * Test that every occurrence is found ignoring the case, including the overlapping ones.
+     * @throws Exception
+     */
+    @Test
+    public void testCaseInsensitiveMatches() throws Exception {
+        Assert.assertEquals(Arrays.asList(6, 11), findAll("beta", "Alpha Beta BETA Gamma"));
+        Assert.assertEquals(Arrays.asList(0, 1, 2), findAll("a", "aAa"));
+        Assert.assertEquals(Arrays.asList(0, 2), findAll("ABA", "abababx"));
+        Assert.assertEquals(Arrays.asList(), findAll("gamma delta", "Alpha Beta Gamma"));
+        Assert.assertEquals(Arrays.asList(), findAll("", "Alpha"));
+    }
+
+    /**
+     * Test that the offsets of a match are the offsets in the original text,
+     * when the lower case of the text has a different length.
+     * @throws Exception
+     */
+    @Test
+    public void testOffsetsInOriginalText() throws Exception {
+        String text = "İSTANBUL istanbul";
+        Assert.assertTrue(text.length() != text.toLowerCase().length());
+        Assert.assertEquals(Arrays.asList(0, 9), findAll("istanbul", text));
+        Assert.assertEquals(Arrays.asList(1), findAll("Über", "üüBER"));
+    }
+
+}
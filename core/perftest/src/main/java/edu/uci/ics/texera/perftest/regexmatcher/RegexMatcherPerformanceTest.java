@@ -13,6 +13,7 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexEngine;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexSourcePredicate;
 
@@ -33,6 +34,10 @@ public class RegexMatcherPerformanceTest {
     private static double totalMatchingTime = 0.0;
     private static int totalRegexResultCount = 0;
     private static String csvFile  = "regex.csv";
+    
+    private static String ENGINE_HEADER = "Date, dataset, Engine, Average Time, Average Results";
+    private static String engineCsvFile = "regex-engines.csv";
+    private static List<RegexEngine> engines = Arrays.asList(RegexEngine.JAVA, RegexEngine.RE2J);
 
     /*
      * regexQueries is a list of regex queries.
@@ -83,6 +88,48 @@ public class RegexMatcherPerformanceTest {
    
     }
 
+    /*
+     * This function compares the regex engines (see RegexEngine):
+     * it matches the queries against all indices in ./index/trigram/ with each engine,
+     * without the gram index query, so every document is matched by the engine.
+     * 
+     * Test results are written to ./perftest-files/results/regex-engines.csv.
+     * 
+     * CSV file example: 
+     * Date,                dataset,      Engine, Average Time, Average Results
+     * 09-09-2016 00:54:29, abstract_100, java,   0.2798,       69.80
+     * 09-09-2016 00:54:29, abstract_100, re2j,   0.3412,       69.80
+     * 
+     */
+    public static void runEngineTest(List<String> regexQueries) throws TexeraException, IOException {
+        String currentTime = PerfTestUtils.formatTime(System.currentTimeMillis());
+
+        File indexFiles = new File(PerfTestUtils.trigramIndexFolder);
+        for (File file : indexFiles.listFiles()) {
+            if (file.getName().startsWith(".")) {
+                continue;
+            }
+            for (RegexEngine engine : engines) {
+                totalMatchingTime = 0.0;
+                totalRegexResultCount = 0;
+                matchRegex(regexQueries, file.getName(), engine);
+
+                PerfTestUtils.createFile(PerfTestUtils.getResultPath(engineCsvFile), ENGINE_HEADER);
+                BufferedWriter fileWriter = Files.newBufferedWriter
+                        (PerfTestUtils.getResultPath(engineCsvFile), StandardOpenOption.APPEND);
+                fileWriter.append("\n");
+                fileWriter.append(currentTime + delimiter);
+                fileWriter.append(file.getName() + delimiter);
+                fileWriter.append(engine + delimiter);
+                fileWriter.append(String.format("%.4f", totalMatchingTime / regexQueries.size()));
+                fileWriter.append(delimiter);
+                fileWriter.append(String.format("%.2f", totalRegexResultCount * 1.0 / regexQueries.size()));
+                fileWriter.flush();
+                fileWriter.close();
+            }
+        }
+    }
+
     /*
      *         This function does match for a list of regex queries
      */
@@ -113,4 +160,31 @@ public class RegexMatcherPerformanceTest {
         }
     }
 
+    /*
+     * This function matches a list of regex queries with an engine, on all the documents of the table.
+     */
+    public static void matchRegex(List<String> regexes, String tableName, RegexEngine engine)
+            throws TexeraException, IOException {
+        List<String> attributeNames = Arrays.asList(MedlineIndexWriter.ABSTRACT);
+
+        for (String regex : regexes) {
+            RegexSourcePredicate predicate = new RegexSourcePredicate(regex, attributeNames, false, engine, 
+                    tableName, false, SchemaConstants.SPAN_LIST);
+            RegexMatcherSourceOperator regexSource = new RegexMatcherSourceOperator(predicate);
+
+            long startMatchTime = System.currentTimeMillis();
+            regexSource.open();
+            int counter = 0;
+            Tuple nextTuple = null;
+            while ((nextTuple = regexSource.getNextTuple()) != null) {
+                ListField<Span> spanListField = nextTuple.getField(SchemaConstants.SPAN_LIST);
+                counter += spanListField.getValue().size();
+            }
+            regexSource.close();
+            long endMatchTime = System.currentTimeMillis();
+            totalMatchingTime += (endMatchTime - startMatchTime) / 1000.0;
+            totalRegexResultCount += counter;
+        }
+    }
+
 }
\ No newline at end of file
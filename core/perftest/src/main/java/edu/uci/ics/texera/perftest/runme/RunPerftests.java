@@ -7,6 +7,8 @@ import java.util.List;
 import edu.uci.ics.texera.perftest.keywordmatcher.*;
 import edu.uci.ics.texera.perftest.nlpextractor.NlpExtractorPerformanceTest;
 import edu.uci.ics.texera.perftest.regexmatcher.RegexMatcherPerformanceTest;
+import edu.uci.ics.texera.perftest.storage.CodecProfilePerformanceTest;
+import edu.uci.ics.texera.perftest.storage.ConcurrentSearchPerformanceTest;
 import edu.uci.ics.texera.perftest.utils.PerfTestUtils;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
@@ -55,7 +57,10 @@ public class RunPerftests {
             DictionaryMatcherPerformanceTest.runTest("sample_queries.txt");
             FuzzyTokenMatcherPerformanceTest.runTest("sample_queries.txt", thresholds);
             RegexMatcherPerformanceTest.runTest(regexQueries);
+            RegexMatcherPerformanceTest.runEngineTest(regexQueries);
             NlpExtractorPerformanceTest.runTest();
+            CodecProfilePerformanceTest.runTest();
+            ConcurrentSearchPerformanceTest.runTest("sample_queries.txt");
 
         } catch (StorageException | DataflowException | IOException e) {
             e.printStackTrace();
@@ -64,6 +64,7 @@ public class RunTests {
             DictionaryMatcherPerformanceTest.runTest("sample_queries.txt");
             FuzzyTokenMatcherPerformanceTest.runTest("sample_queries.txt", thresholds);
             RegexMatcherPerformanceTest.runTest(regexQueries);
+            RegexMatcherPerformanceTest.runEngineTest(regexQueries);
             NlpExtractorPerformanceTest.runTest();
 
         } catch (StorageException | DataflowException | IOException e) {
@@ -0,0 +1,134 @@
+package edu.uci.ics.texera.perftest.storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.perftest.medline.MedlineIndexWriter;
+import edu.uci.ics.texera.perftest.utils.PerfTestUtils;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+
+/**
+ * This is the performance test of the codec profiles of a table.
+ *
+ * For each data file and each LuceneCodecProfile, it writes the data file into a new table with the profile,
+ *   then records the index size, the time to write the index and the time to scan the whole table.
+ */
+public class CodecProfilePerformanceTest {
+
+    private static String HEADER = "Date,Record #,Codec Profile,Index Size (bytes),Write Time,Average Scan Time,Std,Tuples Per Second";
+    private static String delimiter = ",";
+    private static String newLine = "\n";
+
+    private static String codecProfileCsv = "codec-profile.csv";
+
+    // number of full scans for each profile
+    private static int scanRuns = 5;
+
+    private static String currentTime = "";
+
+    /*
+     * This function writes each data file starting with "abstract" in ./sample-data-files/
+     * into a table with each codec profile, the tables are deleted after the test.
+     *
+     * Test results are recorded in ./perftest-files/results/codec-profile.csv
+     *
+     * Example
+     *
+     * Date,                Record #,     Codec Profile,    Index Size (bytes), Write Time, Average Scan Time, Std,    Tuples Per Second
+     * 09-09-2016 00:54:18, abstract_100, best_compression, 1289324,            0.412,      0.0311,            0.0041, 3215.43
+     */
+    public static void runTest() throws Exception {
+        currentTime = PerfTestUtils.formatTime(System.currentTimeMillis());
+
+        File files = new File(PerfTestUtils.fileFolder);
+        for (File file : files.listFiles()) {
+            if (file.isDirectory() || ! file.getName().startsWith("abstract")) {
+                continue;
+            }
+            for (LuceneCodecProfile codecProfile : LuceneCodecProfile.values()) {
+                csvWriter(file, codecProfile);
+            }
+        }
+    }
+
+    public static void csvWriter(File dataFile, LuceneCodecProfile codecProfile) throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String recordNum = dataFile.getName().replace(".txt", "");
+        String tableName = recordNum + "_" + codecProfile.getProfileName();
+        Path indexPath = PerfTestUtils.getResourcePath("/index/codec-profile").resolve(tableName);
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(tableName, indexPath, MedlineIndexWriter.SCHEMA_MEDLINE,
+                LuceneAnalyzerConstants.standardAnalyzerString(), codecProfile);
+
+        long startWriteTime = System.currentTimeMillis();
+        MedlineIndexWriter.writeMedlineIndex(Paths.get(PerfTestUtils.fileFolder, dataFile.getName()), tableName);
+        double writeTime = (System.currentTimeMillis() - startWriteTime) / 1000.0;
+
+        long indexSize = getDirectorySize(indexPath);
+
+        List<Double> scanTimes = new ArrayList<>();
+        int tupleCount = 0;
+        for (int i = 0; i < scanRuns; i++) {
+            long startScanTime = System.currentTimeMillis();
+            tupleCount = scan(tableName);
+            scanTimes.add((System.currentTimeMillis() - startScanTime) / 1000.0);
+        }
+        double avgScanTime = PerfTestUtils.calculateAverage(scanTimes);
+
+        relationManager.deleteTable(tableName);
+
+        PerfTestUtils.createFile(PerfTestUtils.getResultPath(codecProfileCsv), HEADER);
+        BufferedWriter fileWriter = Files.newBufferedWriter(
+                PerfTestUtils.getResultPath(codecProfileCsv), StandardOpenOption.APPEND);
+        fileWriter.append(newLine);
+        fileWriter.append(currentTime + delimiter);
+        fileWriter.append(recordNum + delimiter);
+        fileWriter.append(codecProfile.getProfileName() + delimiter);
+        fileWriter.append(indexSize + delimiter);
+        fileWriter.append(String.format("%.4f", writeTime) + delimiter);
+        fileWriter.append(avgScanTime + delimiter);
+        fileWriter.append(PerfTestUtils.calculateSTD(scanTimes, avgScanTime) + delimiter);
+        fileWriter.append(String.format("%.2f", avgScanTime == 0 ? 0 : tupleCount / avgScanTime));
+        fileWriter.flush();
+        fileWriter.close();
+    }
+
+    /*
+     * Scans the whole table and returns the number of tuples.
+     */
+    private static int scan(String tableName) {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, new MatchAllDocsQuery());
+        int counter = 0;
+        dataReader.open();
+        Tuple tuple;
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            // access the largest attribute so that the whole tuple is materialized
+            tuple.getField(MedlineIndexWriter.ABSTRACT).getValue();
+            counter++;
+        }
+        dataReader.close();
+        return counter;
+    }
+
+    private static long getDirectorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+}
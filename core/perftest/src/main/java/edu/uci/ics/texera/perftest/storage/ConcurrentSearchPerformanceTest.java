@@ -0,0 +1,178 @@
+package edu.uci.ics.texera.perftest.storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.perftest.medline.MedlineIndexWriter;
+import edu.uci.ics.texera.perftest.utils.PerfTestUtils;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+/**
+ * This is the performance test of the concurrent segment search of ranked queries.
+ *
+ * For each data file, it writes the data file into a new table with several commits, so the table has several segments,
+ *   then records the average latency of the top-k keyword queries with each number of search threads.
+ */
+public class ConcurrentSearchPerformanceTest {
+
+    private static String HEADER = "Date,Record #,Segment #,Search Threads,Top K,Average Query Time,Std,Speedup";
+    private static String delimiter = ",";
+    private static String newLine = "\n";
+
+    private static String concurrentSearchCsv = "concurrent-search.csv";
+
+    private static List<Integer> threadCounts = Arrays.asList(1, 4, 16);
+    // number of commits, each one writes a new segment
+    private static int segmentCount = 8;
+    private static int topK = 100;
+    // number of runs of all the queries for each thread count
+    private static int queryRuns = 5;
+
+    private static String currentTime = "";
+
+    /*
+     * This function writes each data file starting with "abstract" in ./sample-data-files/
+     * into a table with several segments, and runs the queries in the query file on the abstract
+     * with each number of search threads, the tables are deleted after the test.
+     *
+     * Test results are recorded in ./perftest-files/results/concurrent-search.csv
+     *
+     * Example
+     *
+     * Date,                Record #,     Segment #, Search Threads, Top K, Average Query Time, Std,    Speedup
+     * 09-09-2016 00:54:18, abstract_100, 8,         4,              100,   0.0031,             0.0004, 2.87
+     */
+    public static void runTest(String queryFileName) throws Exception {
+        currentTime = PerfTestUtils.formatTime(System.currentTimeMillis());
+        List<Query> queries = new ArrayList<>();
+        for (String queryString : PerfTestUtils.readQueries(PerfTestUtils.getQueryPath(queryFileName))) {
+            if (! queryString.isEmpty()) {
+                queries.add(createKeywordQuery(queryString));
+            }
+        }
+
+        File files = new File(PerfTestUtils.fileFolder);
+        for (File file : files.listFiles()) {
+            if (file.isDirectory() || ! file.getName().startsWith("abstract")) {
+                continue;
+            }
+            csvWriter(file, queries);
+        }
+    }
+
+    public static void csvWriter(File dataFile, List<Query> queries) throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String recordNum = dataFile.getName().replace(".txt", "");
+        String tableName = recordNum + "_concurrent_search";
+        Path indexPath = PerfTestUtils.getResourcePath("/index/concurrent-search").resolve(tableName);
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(tableName, indexPath, MedlineIndexWriter.SCHEMA_MEDLINE,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+        writeSegments(Paths.get(PerfTestUtils.fileFolder, dataFile.getName()), tableName);
+
+        int originalThreadCount = relationManager.getSearchThreadCount();
+        double singleThreadTime = 0;
+        try {
+            for (int threadCount : threadCounts) {
+                relationManager.setSearchThreadCount(threadCount);
+                // warm up the threads and the index files
+                runQueries(tableName, queries);
+
+                List<Double> queryTimes = new ArrayList<>();
+                for (int i = 0; i < queryRuns; i++) {
+                    long startTime = System.nanoTime();
+                    runQueries(tableName, queries);
+                    queryTimes.add((System.nanoTime() - startTime) / 1e9 / queries.size());
+                }
+                double avgQueryTime = PerfTestUtils.calculateAverage(queryTimes);
+                if (threadCount == 1) {
+                    singleThreadTime = avgQueryTime;
+                }
+
+                PerfTestUtils.createFile(PerfTestUtils.getResultPath(concurrentSearchCsv), HEADER);
+                BufferedWriter fileWriter = Files.newBufferedWriter(
+                        PerfTestUtils.getResultPath(concurrentSearchCsv), StandardOpenOption.APPEND);
+                fileWriter.append(newLine);
+                fileWriter.append(currentTime + delimiter);
+                fileWriter.append(recordNum + delimiter);
+                fileWriter.append(segmentCount + delimiter);
+                fileWriter.append(threadCount + delimiter);
+                fileWriter.append(topK + delimiter);
+                fileWriter.append(String.format("%.4f", avgQueryTime) + delimiter);
+                fileWriter.append(String.format("%.4f", PerfTestUtils.calculateSTD(queryTimes, avgQueryTime)) + delimiter);
+                fileWriter.append(String.format("%.2f", avgQueryTime == 0 ? 0 : singleThreadTime / avgQueryTime));
+                fileWriter.flush();
+                fileWriter.close();
+            }
+        } finally {
+            relationManager.setSearchThreadCount(originalThreadCount);
+            relationManager.deleteTable(tableName);
+        }
+    }
+
+    /*
+     * Writes the records of the data file into the table with "segmentCount" commits.
+     */
+    private static void writeSegments(Path dataFilePath, String tableName) throws Exception {
+        List<String> records = Files.readAllLines(dataFilePath);
+        int recordsPerSegment = (records.size() + segmentCount - 1) / segmentCount;
+        for (int start = 0; start < records.size(); start += recordsPerSegment) {
+            DataWriter dataWriter = RelationManager.getInstance().getTableDataWriter(tableName);
+            dataWriter.open();
+            for (String record : records.subList(start, Math.min(records.size(), start + recordsPerSegment))) {
+                try {
+                    dataWriter.insertTuple(MedlineIndexWriter.recordToTuple(record));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            dataWriter.close();
+        }
+    }
+
+    /*
+     * Creates a ranked query on the abstract that matches any of the keywords in the query string.
+     */
+    private static Query createKeywordQuery(String queryString) {
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        for (String keyword : queryString.toLowerCase().split("\\s+")) {
+            queryBuilder.add(new TermQuery(new Term(MedlineIndexWriter.ABSTRACT, keyword)), BooleanClause.Occur.SHOULD);
+        }
+        return queryBuilder.build();
+    }
+
+    /*
+     * Reads the top k tuples of each query.
+     */
+    private static void runQueries(String tableName, List<Query> queries) {
+        for (Query query : queries) {
+            DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, query);
+            dataReader.setLimit(topK);
+            dataReader.open();
+            Tuple tuple;
+            while ((tuple = dataReader.getNextTuple()) != null) {
+                tuple.getField(MedlineIndexWriter.PMID).getValue();
+            }
+            dataReader.close();
+        }
+    }
+
+}
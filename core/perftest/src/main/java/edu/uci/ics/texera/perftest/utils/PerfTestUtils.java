@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 
 import edu.uci.ics.texera.api.constants.DataConstants.TexeraProject;
 import edu.uci.ics.texera.api.utils.Utils;
@@ -164,7 +163,7 @@ public class PerfTestUtils {
                 continue;
             }
             if (file.getName().startsWith("abstract")) {
-                writeIndex(file.getName(), new StandardAnalyzer(), "standard");
+                writeIndex(file.getName(), LuceneAnalyzerConstants.getStandardAnalyzer(), "standard");
             }
         }
     }
@@ -14,6 +14,7 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.Utils;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 
 /**
  * CatalogConstants stores the schema and the initial tuples of the catalog manager
@@ -23,10 +24,14 @@ import edu.uci.ics.texera.api.utils.Utils;
  * 
  * Initial tuples for the table catalog:
  * 
- *  tableName    |    tableDirectory    |    luceneAnalyzer
+ *  tableName    |    tableDirectory    |    luceneAnalyzer          |    codecProfile    |  partitionAttribute  |  partitionGranularity  |  storageEngine  |  gramSize  |  rowIDType
  * 
- * tableCatalog       ../catalog/table       standardLuceneAnalyzer
- * schemaCatalog      ../catalog/schema      standardLuceneAnalyzer
+ * tableCatalog       ../catalog/table       standardLuceneAnalyzer         best_speed                                                      lucene                        uuid
+ * schemaCatalog      ../catalog/schema      standardLuceneAnalyzer         best_speed                                                      lucene                        uuid
+ *   
+ * The partition attribute and the partition granularity are empty if the table is not partitioned.
+ * The gram size is empty if the TEXT attributes of the table don't have gram fields (see DataStore.getGramSize()).
+ * The row ID type is empty for the tables created before row ID types were added to the catalog, which use UUIDs.
  *   
  * ============================================
  *   
@@ -36,6 +41,12 @@ import edu.uci.ics.texera.api.utils.Utils;
  *   tableCatalog       tableName           string                0
  *   tableCatalog    tableDirectory         string                1
  *   tableCatalog     luceneAnalyzer        string                2
+ *   tableCatalog      codecProfile         string                3
+ *   tableCatalog   partitionAttribute      string                4
+ *   tableCatalog  partitionGranularity     string                5
+ *   tableCatalog      storageEngine        string                6
+ *   tableCatalog        gramSize           string                7
+ *   tableCatalog        rowIDType          string                8
  *   schemaCatalog      tableName           string                0
  *   schemaCatalog    attributeName         string                1
  *   schemaCatalog    attributeType         string                2
@@ -58,14 +69,30 @@ public class CatalogConstants {
     public static final String TABLE_NAME = "tableName";
     public static final String TABLE_DIRECTORY = "tableDirectory";
     public static final String TABLE_LUCENE_ANALYZER = "luceneAnalyzer";
+    public static final String TABLE_CODEC_PROFILE = "codecProfile";
+    public static final String TABLE_PARTITION_ATTRIBUTE = "partitionAttribute";
+    public static final String TABLE_PARTITION_GRANULARITY = "partitionGranularity";
+    public static final String TABLE_STORAGE_ENGINE = "storageEngine";
+    public static final String TABLE_GRAM_SIZE = "gramSize";
+    public static final String TABLE_ROW_ID_TYPE = "rowIDType";
 
     public static final Attribute TABLE_NAME_ATTR = new Attribute(TABLE_NAME, AttributeType.STRING);
     public static final Attribute TABLE_DIRECTORY_ATTR = new Attribute(TABLE_DIRECTORY, AttributeType.STRING);
     public static final Attribute TABLE_LUCENE_ANALYZER_ATTR = new Attribute(TABLE_LUCENE_ANALYZER,
             AttributeType.STRING);
+    public static final Attribute TABLE_CODEC_PROFILE_ATTR = new Attribute(TABLE_CODEC_PROFILE, AttributeType.STRING);
+    public static final Attribute TABLE_PARTITION_ATTRIBUTE_ATTR = new Attribute(TABLE_PARTITION_ATTRIBUTE,
+            AttributeType.STRING);
+    public static final Attribute TABLE_PARTITION_GRANULARITY_ATTR = new Attribute(TABLE_PARTITION_GRANULARITY,
+            AttributeType.STRING);
+    public static final Attribute TABLE_STORAGE_ENGINE_ATTR = new Attribute(TABLE_STORAGE_ENGINE, AttributeType.STRING);
+    public static final Attribute TABLE_GRAM_SIZE_ATTR = new Attribute(TABLE_GRAM_SIZE, AttributeType.STRING);
+    public static final Attribute TABLE_ROW_ID_TYPE_ATTR = new Attribute(TABLE_ROW_ID_TYPE, AttributeType.STRING);
 
     public static final Schema TABLE_CATALOG_SCHEMA = new Schema(TABLE_NAME_ATTR, TABLE_DIRECTORY_ATTR,
-            TABLE_LUCENE_ANALYZER_ATTR);
+            TABLE_LUCENE_ANALYZER_ATTR, TABLE_CODEC_PROFILE_ATTR,
+            TABLE_PARTITION_ATTRIBUTE_ATTR, TABLE_PARTITION_GRANULARITY_ATTR, TABLE_STORAGE_ENGINE_ATTR, TABLE_GRAM_SIZE_ATTR,
+            TABLE_ROW_ID_TYPE_ATTR);
     public static final Schema TABLE_CATALOG_SCHEMA_WITH_ID = Schema.Builder.getSchemaWithID(TABLE_CATALOG_SCHEMA);
 
     // Schema for "schema catalog" table
@@ -89,21 +116,46 @@ public class CatalogConstants {
             new DataStore(SCHEMA_CATALOG_DIRECTORY, SCHEMA_CATALOG_SCHEMA_WITH_ID);
 
 
+    /**
+     * Checks if a normalized directory (see PinnedSnapshotDeletionPolicy.normalize()) 
+     *   is the directory of a system catalog table.
+     * 
+     * @param normalizedDirectory
+     * @return
+     */
+    static boolean isCatalogDirectory(Path normalizedDirectory) {
+        return normalizedDirectory.equals(PinnedSnapshotDeletionPolicy.normalize(TABLE_CATALOG_DIRECTORY))
+                || normalizedDirectory.equals(PinnedSnapshotDeletionPolicy.normalize(SCHEMA_CATALOG_DIRECTORY));
+    }
+
     /**
      * Gets the tuple to be inserted to the table catalog.
      * 
      * @param tableName
      * @param tableDirectory
      * @param luceneAnalyzerStr
+     * @param codecProfile
+     * @param partitionScheme, null if the table is not partitioned
+     * @param storageEngine
+     * @param gramSize, 0 if the TEXT attributes don't have gram fields
+     * @param rowIDType
      * @return
      * @throws StorageException
      */
-    public static Tuple getTableCatalogTuple(String tableName, Path tableDirectory, String luceneAnalyzerStr) {
+    public static Tuple getTableCatalogTuple(String tableName, Path tableDirectory, String luceneAnalyzerStr,
+            LuceneCodecProfile codecProfile, PartitionScheme partitionScheme, StorageEngine storageEngine, int gramSize,
+            RowIDType rowIDType) {
 	    	try {
 	            return new Tuple(TABLE_CATALOG_SCHEMA, 
 	                    new StringField(tableName), 
 	                    new StringField(tableDirectory.toRealPath().toString()),
-	                    new StringField(luceneAnalyzerStr));
+	                    new StringField(luceneAnalyzerStr),
+	                    new StringField(codecProfile.getProfileName()),
+	                    new StringField(partitionScheme == null ? "" : partitionScheme.getAttributeName()),
+	                    new StringField(partitionScheme == null ? "" : partitionScheme.getGranularity().getName()),
+                    new StringField(storageEngine.getName()),
+                    new StringField(gramSize == 0 ? "" : Integer.toString(gramSize)),
+                    new StringField(rowIDType.getName()));
 	    	} catch (IOException e) {
 	    		throw new TexeraException(e);
 	    	}
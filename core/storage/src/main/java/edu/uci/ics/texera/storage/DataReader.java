@@ -4,28 +4,58 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiDocValues;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.apache.lucene.util.StringHelper;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IDField;
 import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.Attribute;
@@ -48,8 +78,45 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  * 
  * The purpose of the "payload" field is to make subsequent keyword match, fuzzy token match, and dictionary match faster,
  * because they don't need to tokenize the tuple every time.
+ * If the payload terms are set, the payload only contains the spans of these terms, 
+ *   they are looked up in the term vectors instead of reading all the terms of the document,
+ *   so the cost of the payload is proportional to the matches of the terms, not to the length of the document.
  *   
  * 
+ * If the table's LuceneCodecProfile stores TEXT values separately, 
+ *   DataReader reads the TEXT values from their binary doc values column instead of the stored fields.
+ * 
+ * If a ReadSnapshot is open on the current thread, DataReader reads the commit pinned by the snapshot,
+ *   so that all readers of the same table in one plan execution see the same data.
+ * 
+ * If the table is partitioned, DataReader only opens the partitions that the query can hit
+ *   (see PartitionScheme), and reads them together as one MultiReader.
+ * 
+ * DataReader can also count the matching documents (count) or check if any document matches (exists)
+ *   without constructing the tuples. 
+ * An unranked DataReader returns the tuples in the index order (the order of the documents in the segments),
+ *   whether the matching documents are found by the searcher or through the QueryResultCache, 
+ *   and with or without a limit, so a limited read returns the first tuples of the unlimited read.
+ *   A ranked DataReader returns the tuples by their scores.
+ * 
+ * If a limit is set, DataReader only reads the first "limit" matching documents in the index order,
+ *   without scoring them, and the search of each segment stops as soon as enough documents are found.
+ *   The segments are searched concurrently if RelationManager has more than 1 search thread (see SearchExecutor).
+ * 
+ * If the score attribute is set, DataReader is ranked: it reads the matching documents by their BM25 scores 
+ *   in descending order, and appends the score of each tuple as a DOUBLE attribute (after the payload).
+ *   With a limit, only the top "limit" documents are collected by the searcher.
+ * 
+ * If the TupleCache is enabled, the decoded fields and payloads of the documents are cached across queries,
+ *   a cached document is constructed without reading its stored fields or its term vectors.
+ * 
+ * If the QueryResultCache is enabled, the matching documents of a query (without a limit) 
+ *   are cached per segment across queries, and a cached query isn't evaluated again on the same segments.
+ * 
+ * If the table uses the MEMORY StorageEngine, the tuples are constructed from the InMemoryTable 
+ *   of the commit being read instead of the stored fields and the term vectors,
+ *   and a scan of all documents doesn't search the index.
+ * 
  * DataReader for a specific table is only accessible from RelationManager.
  * 
  * 
@@ -66,11 +133,37 @@ public class DataReader implements IOperator {
 
     private IndexReader luceneIndexReader;
     private IndexSearcher luceneIndexSearcher;
-    private ScoreDoc[] scoreDocs;
+    // true if the reader is shared with other DataReaders through a ReadSnapshot
+    private boolean isSharedReader = false;
+    // the partitions opened by the reader, if the table is partitioned
+    private List<Path> openedPartitionDirectories = new ArrayList<>();
+    // the docIDs of the matching documents
+    private int[] docIDs;
+    // the scores of the documents if the reader is ranked
+    private float[] scores;
+    // the in-memory table of the commit being read, null if the table doesn't use the MEMORY engine
+    private InMemoryTable inMemoryTable;
+    // attribute name -> doc values of a TEXT attribute that is stored separately
+    private Map<String, BinaryDocValues> separateTextValues;
+    // the numeric row IDs, the string _id of a table with UUID row IDs is read from the stored fields
+    private NumericDocValues rowIDValues;
+    // the segments of the reader and the normalized table directory, used to find the TupleCache key of a document
+    private List<LeafReaderContext> leaves;
+    private Path normalizedDataDirectory;
+    // the system catalog tables and the tables using the MEMORY engine don't use the TupleCache
+    private boolean tupleCacheUsed;
 
     private int cursor = CLOSED;
 
     private boolean payloadAdded;
+    // the analyzed terms whose spans are in the payload, null if the payload contains all the terms
+    private SortedSet<String> payloadTerms;
+    // the name of the score attribute, null if the reader isn't ranked
+    private String scoreAttributeName;
+    // the schema of the tuples constructed from the documents, the output schema without the score attribute
+    private Schema tupleSchema;
+    
+    private int limit = Integer.MAX_VALUE;
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -93,25 +186,339 @@ public class DataReader implements IOperator {
             return;
         }
         try {
+            openIndexReader();
+            
+            if (this.dataStore.getStorageEngine() == StorageEngine.MEMORY 
+                    && luceneIndexReader instanceof DirectoryReader) {
+                inMemoryTable = InMemoryTable.get(this.dataStore, (DirectoryReader) luceneIndexReader);
+            }
+
+            if (scoreAttributeName != null) {
+                // the ranked results are never read from the QueryResultCache, which keeps the index order
+                luceneIndexSearcher.setSimilarity(new BM25Similarity());
+                TopDocs topDocs = luceneIndexSearcher.search(query, limit);
+                docIDs = getDocIDs(topDocs.scoreDocs);
+                scores = getScores(topDocs.scoreDocs);
+            } else if (inMemoryTable != null && query instanceof MatchAllDocsQuery) {
+                int[] liveDocIDs = inMemoryTable.getLiveDocIDs();
+                docIDs = limit < liveDocIDs.length ? Arrays.copyOf(liveDocIDs, limit) : liveDocIDs;
+            } else if (limit == Integer.MAX_VALUE && isQueryResultCacheUsed()) {
+                docIDs = searchWithQueryResultCache();
+            } else {
+                docIDs = getDocIDs(collectFirstDocs(limit));
+            }
+
+            initializeDocValues();
+
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+
+        cursor = OPENED;
+    }
+
+    private static int[] getDocIDs(ScoreDoc[] scoreDocs) {
+        int[] docIDs = new int[scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            docIDs[i] = scoreDocs[i].doc;
+        }
+        return docIDs;
+    }
+    
+    private static float[] getScores(ScoreDoc[] scoreDocs) {
+        float[] scores = new float[scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            scores[i] = scoreDocs[i].score;
+        }
+        return scores;
+    }
+
+    /*
+     * Opens the reader of the table (or the pinned reader of the ReadSnapshot) and its searcher.
+     */
+    private void openIndexReader() throws IOException {
+        ReadSnapshot readSnapshot = ReadSnapshot.current();
+        if (this.dataStore.isPartitioned()) {
+            luceneIndexReader = openPartitions(readSnapshot);
+            isSharedReader = false;
+        } else if (readSnapshot != null && readSnapshot.covers(this.dataStore.getDataDirectory())) {
+            luceneIndexReader = readSnapshot.acquireReader(this.dataStore.getDataDirectory());
+            isSharedReader = true;
+        } else {
             Directory indexDirectory = FSDirectory.open(this.dataStore.getDataDirectory());
             luceneIndexReader = DirectoryReader.open(indexDirectory);
-            luceneIndexSearcher = new IndexSearcher(luceneIndexReader);
+            isSharedReader = false;
+        }
+        luceneIndexSearcher = SearchExecutor.newIndexSearcher(luceneIndexReader);
+    }
+    
+    private void releaseIndexReader() throws IOException {
+        if (luceneIndexReader != null) {
+            if (isSharedReader) {
+                luceneIndexReader.decRef();
+            } else {
+                luceneIndexReader.close();
+            }
+            luceneIndexReader = null;
+        }
+    }
+    
+    /*
+     * Collects the first "number" matching documents in the index order, 
+     *   the search of each segment stops as soon as enough documents are collected.
+     * A searcher backed by the SearchExecutor searches its slices of segments concurrently, 
+     *   and returns their collectors in the order of the slices, which is the index order.
+     */
+    private ScoreDoc[] collectFirstDocs(int number) throws IOException {
+        return luceneIndexSearcher.search(query, new CollectorManager<FirstDocsCollector, ScoreDoc[]>() {
+            @Override
+            public FirstDocsCollector newCollector() {
+                return new FirstDocsCollector(number);
+            }
 
-            TopDocs topDocs = luceneIndexSearcher.search(query, Integer.MAX_VALUE);
-            scoreDocs = topDocs.scoreDocs;
+            @Override
+            public ScoreDoc[] reduce(Collection<FirstDocsCollector> collectors) {
+                List<ScoreDoc> docs = new ArrayList<>();
+                for (FirstDocsCollector collector : collectors) {
+                    docs.addAll(collector.docs.subList(0, Math.min(collector.docs.size(), number - docs.size())));
+                }
+                return docs.toArray(new ScoreDoc[docs.size()]);
+            }
+        });
+    }
+    
+    /**
+     * Counts the documents matching the query, without constructing the tuples.
+     * 
+     * @return the number of matching documents
+     * @throws StorageException
+     */
+    public int count() throws StorageException {
+        if (cursor != CLOSED) {
+            throw new StorageException("count can't be called when DataReader is open");
+        }
+        try {
+            openIndexReader();
+            try {
+                if (isQueryResultCacheUsed()) {
+                    return searchWithQueryResultCache().length;
+                }
+                return luceneIndexSearcher.count(query);
+            } finally {
+                releaseIndexReader();
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Checks if any document matches the query, the search stops at the first matching document.
+     * 
+     * @return true if there's at least one matching document
+     * @throws StorageException
+     */
+    public boolean exists() throws StorageException {
+        if (cursor != CLOSED) {
+            throw new StorageException("exists can't be called when DataReader is open");
+        }
+        try {
+            openIndexReader();
+            try {
+                return collectFirstDocs(1).length > 0;
+            } finally {
+                releaseIndexReader();
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
 
-            inputSchema = this.dataStore.getSchema();
-            if (payloadAdded) {
-                outputSchema = new Schema.Builder(inputSchema).add(SchemaConstants.PAYLOAD_ATTRIBUTE).build();
-            } else {
-                outputSchema = inputSchema;
+    /*
+     * The QueryResultCache isn't used for a scan of all documents, which doesn't need to evaluate a query,
+     *   or for the system catalog tables.
+     */
+    private boolean isQueryResultCacheUsed() {
+        return QueryResultCache.getInstance().isEnabled() && ! (query instanceof MatchAllDocsQuery)
+                && ! CatalogConstants.isCatalogDirectory(PinnedSnapshotDeletionPolicy.normalize(this.dataStore.getDataDirectory()));
+    }
+    
+    /*
+     * Finds the live documents matching the query in the index order.
+     * The matching documents of each segment are read from the QueryResultCache, 
+     *   or they are computed by the query and cached if they are not cached yet.
+     */
+    private int[] searchWithQueryResultCache() throws IOException {
+        QueryResultCache queryResultCache = QueryResultCache.getInstance();
+        Path tableDirectory = PinnedSnapshotDeletionPolicy.normalize(this.dataStore.getDataDirectory());
+        Weight weight = null;
+        int[] matchingDocIDs = new int[0];
+        int matchingDocCount = 0;
+        
+        for (LeafReaderContext leafContext : luceneIndexReader.leaves()) {
+            SegmentCommitInfo segmentInfo = getSegmentInfo(leafContext);
+            QueryResultCache.Key cacheKey = segmentInfo == null ? null : new QueryResultCache.Key(tableDirectory,
+                    StringHelper.idToString(segmentInfo.info.getId()), segmentInfo.getDocValuesGen(), query);
+            RoaringDocIdSet segmentDocs = cacheKey == null ? null : queryResultCache.get(cacheKey);
+            if (segmentDocs == null) {
+                if (weight == null) {
+                    weight = luceneIndexSearcher.createNormalizedWeight(query, false);
+                }
+                segmentDocs = getSegmentMatchingDocs(weight, leafContext);
+                if (cacheKey != null) {
+                    queryResultCache.put(cacheKey, segmentDocs);
+                }
+            }
+            
+            // the cached documents include the deleted ones, which are filtered by the live docs of the segment
+            Bits liveDocs = leafContext.reader().getLiveDocs();
+            DocIdSetIterator iterator = segmentDocs.iterator();
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    matchingDocIDs = ArrayUtil.grow(matchingDocIDs, matchingDocCount + 1);
+                    matchingDocIDs[matchingDocCount++] = leafContext.docBase + doc;
+                }
             }
+        }
+        return Arrays.copyOf(matchingDocIDs, matchingDocCount);
+    }
+    
+    /*
+     * Evaluates a query on one segment, the result includes the deleted documents of the segment.
+     */
+    private static RoaringDocIdSet getSegmentMatchingDocs(Weight weight, LeafReaderContext leafContext) throws IOException {
+        RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(leafContext.reader().maxDoc());
+        Scorer scorer = weight.scorer(leafContext);
+        if (scorer != null) {
+            builder.add(scorer.iterator());
+        }
+        return builder.build();
+    }
 
+    /*
+     * Initializes the schemas and the doc values used to construct the tuples.
+     */
+    private void initializeDocValues() throws IOException {
+        inputSchema = this.dataStore.getSchema();
+        separateTextValues = new HashMap<>();
+        if (this.dataStore.getCodecProfile().isTextStoredSeparately()) {
+            for (Attribute attr : inputSchema.getAttributes()) {
+                if (attr.getType() != AttributeType.TEXT) {
+                    continue;
+                }
+                BinaryDocValues textValues = MultiDocValues.getBinaryValues(luceneIndexReader, attr.getName());
+                if (textValues != null) {
+                    separateTextValues.put(attr.getName(), textValues);
+                }
+            }
+        }
+        rowIDValues = MultiDocValues.getNumericValues(luceneIndexReader, SchemaConstants._ID);
+        leaves = luceneIndexReader.leaves();
+        normalizedDataDirectory = PinnedSnapshotDeletionPolicy.normalize(this.dataStore.getDataDirectory());
+        tupleCacheUsed = this.dataStore.getStorageEngine() != StorageEngine.MEMORY 
+                && ! CatalogConstants.isCatalogDirectory(normalizedDataDirectory);
+        if (payloadAdded) {
+            tupleSchema = new Schema.Builder(inputSchema).add(SchemaConstants.PAYLOAD_ATTRIBUTE).build();
+        } else {
+            tupleSchema = inputSchema;
+        }
+        if (scoreAttributeName != null) {
+            outputSchema = new Schema.Builder(tupleSchema).add(scoreAttributeName, AttributeType.DOUBLE).build();
+        } else {
+            outputSchema = tupleSchema;
+        }
+    }
+    
+    /*
+     * Reads one tuple (without payload) from a reader of the table opened by the caller, 
+     *   which keeps the ownership of the reader.
+     * It's used by the ID lookup of RelationManager, which looks up the docID itself.
+     */
+    static Tuple readTuple(DataStore dataStore, IndexReader indexReader, int docID) throws StorageException {
+        DataReader dataReader = new DataReader(dataStore, null, false);
+        try {
+            dataReader.luceneIndexReader = indexReader;
+            dataReader.luceneIndexSearcher = new IndexSearcher(indexReader);
+            dataReader.initializeDocValues();
+            return dataReader.constructTuple(docID);
+        } catch (IOException | ParseException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Reads the tuples (without payload) of all the live documents from a reader opened by the caller.
+     * It's used to load an InMemoryTable, the returned array is indexed by docID, and it's null for a deleted document.
+     */
+    static Tuple[] readAllTuples(DataStore dataStore, IndexReader indexReader) throws StorageException {
+        DataReader dataReader = new DataReader(dataStore, null, false);
+        try {
+            dataReader.luceneIndexReader = indexReader;
+            dataReader.luceneIndexSearcher = new IndexSearcher(indexReader);
+            dataReader.initializeDocValues();
+            Tuple[] tuples = new Tuple[indexReader.maxDoc()];
+            Bits liveDocs = MultiFields.getLiveDocs(indexReader);
+            for (int docID = 0; docID < tuples.length; docID++) {
+                if (liveDocs == null || liveDocs.get(docID)) {
+                    tuples[docID] = dataReader.constructTuple(docID);
+                }
+            }
+            return tuples;
+        } catch (IOException | ParseException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    /*
+     * Builds the payload of a document from its term vectors, given the fields of the document.
+     * It's used by InMemoryTable, which builds the payload once and keeps it.
+     */
+    static List<Span> readPayload(DataStore dataStore, IndexReader indexReader, int docID, IField[] fields) 
+            throws StorageException {
+        DataReader dataReader = new DataReader(dataStore, null, false);
+        dataReader.luceneIndexReader = indexReader;
+        dataReader.inputSchema = dataStore.getSchema();
+        try {
+            return dataReader.buildPayloadFromTermVector(Arrays.asList(fields), docID);
         } catch (IOException e) {
             throw new StorageException(e.getMessage(), e);
         }
+    }
 
-        cursor = OPENED;
+    /*
+     * Opens the partitions that the query can hit as one reader.
+     * Closing the returned reader releases the readers of all the partitions.
+     */
+    private IndexReader openPartitions(ReadSnapshot readSnapshot) throws IOException {
+        PartitionScheme partitionScheme = this.dataStore.getPartitionScheme();
+        openedPartitionDirectories = new ArrayList<>();
+        List<IndexReader> partitionReaders = new ArrayList<>();
+        for (String partitionKey : partitionScheme.getPartitionKeys(this.dataStore.getDataDirectory(), query)) {
+            Path partitionDirectory = PartitionScheme.getPartitionDirectory(this.dataStore.getDataDirectory(), partitionKey);
+            Directory directory = FSDirectory.open(partitionDirectory);
+            if (! DirectoryReader.indexExists(directory)) {
+                continue;
+            }
+            if (readSnapshot != null && readSnapshot.covers(partitionDirectory)) {
+                partitionReaders.add(readSnapshot.acquireReader(partitionDirectory));
+            } else {
+                partitionReaders.add(DirectoryReader.open(directory));
+            }
+            openedPartitionDirectories.add(partitionDirectory);
+        }
+        // the multi reader holds its own references of the partition readers
+        MultiReader multiReader = new MultiReader(partitionReaders.stream().toArray(IndexReader[]::new), false);
+        for (IndexReader partitionReader : partitionReaders) {
+            partitionReader.decRef();
+        }
+        return multiReader;
+    }
+    
+    /*
+     * Gets the directories of the partitions opened by the reader, used by tests to check partition pruning.
+     */
+    List<Path> getOpenedPartitionDirectories() {
+        return this.openedPartitionDirectories;
     }
 
     @Override
@@ -122,11 +529,15 @@ public class DataReader implements IOperator {
 
         Tuple resultTuple;
         try {
-            if (cursor >= scoreDocs.length) {
+            if (cursor >= docIDs.length) {
                 return null;
             }
-            int docID = scoreDocs[cursor].doc;
-            resultTuple = constructTuple(docID);
+            resultTuple = constructTuple(docIDs[cursor]);
+            if (scoreAttributeName != null) {
+                IField[] fields = resultTuple.getFields().toArray(new IField[outputSchema.getAttributes().size()]);
+                fields[fields.length - 1] = new DoubleField((double) scores[cursor]);
+                resultTuple = new Tuple(outputSchema, fields);
+            }
 
         } catch (IOException | ParseException e) {
             throw new StorageException(e.getMessage(), e);
@@ -139,40 +550,101 @@ public class DataReader implements IOperator {
     @Override
     public void close() throws StorageException {
         cursor = CLOSED;
-        if (luceneIndexReader != null) {
-            try {
-                luceneIndexReader.close();
-                luceneIndexReader = null;
-            } catch (IOException e) {
-                throw new StorageException(e.getMessage(), e);
-            }
+        inMemoryTable = null;
+        scores = null;
+        try {
+            releaseIndexReader();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
         }
     }
 
     private Tuple constructTuple(int docID) throws IOException, ParseException {
-        Document luceneDocument = luceneIndexSearcher.doc(docID);
-        ArrayList<IField> docFields = documentToFields(luceneDocument);
+        if (inMemoryTable != null) {
+            Tuple tuple = inMemoryTable.getTuple(docID, tupleSchema, luceneIndexReader);
+            return payloadTerms == null ? tuple : filterPayloadTerms(tuple);
+        }
+        
+        // a payload of some of the terms is cheap to build, and it's never cached
+        boolean fullPayloadAdded = payloadAdded && payloadTerms == null;
+        
+        TupleCache tupleCache = TupleCache.getInstance();
+        TupleCache.Key cacheKey = tupleCacheUsed && tupleCache.isEnabled() ? getTupleCacheKey(docID) : null;
+        TupleCache.CachedDocument cachedDocument = cacheKey == null ? null : tupleCache.get(cacheKey, fullPayloadAdded);
+        
+        if (cachedDocument == null) {
+            IField[] cachedFields = cacheKey == null ? null : tupleCache.peekFields(cacheKey);
+            List<IField> fields = cachedFields != null ? Arrays.asList(cachedFields) 
+                    : documentToFields(luceneIndexSearcher.doc(docID), docID);
+            ListField<Span> payload = fullPayloadAdded ? new ListField<Span>(buildPayloadFromTermVector(fields, docID)) : null;
+            cachedDocument = new TupleCache.CachedDocument(fields.stream().toArray(IField[]::new), payload);
+            if (cacheKey != null) {
+                tupleCache.put(cacheKey, cachedDocument);
+            }
+        }
 
-        if (payloadAdded) {
-            ArrayList<Span> payloadSpanList = buildPayloadFromTermVector(docFields, docID);
-            ListField<Span> payloadField = new ListField<Span>(payloadSpanList);
-            docFields.add(payloadField);
+        IField[] tupleFields = Arrays.copyOf(cachedDocument.fields, tupleSchema.getAttributes().size());
+        if (fullPayloadAdded) {
+            tupleFields[tupleFields.length - 1] = cachedDocument.payload;
+        } else if (payloadAdded) {
+            tupleFields[tupleFields.length - 1] = new ListField<Span>(
+                    buildPayloadFromTermVector(Arrays.asList(cachedDocument.fields), docID));
+        }
+        return new Tuple(tupleSchema, tupleFields);
+    }
+    
+    /*
+     * Gets the TupleCache key of a document, null if the document's segment doesn't have an ID.
+     */
+    private TupleCache.Key getTupleCacheKey(int docID) {
+        LeafReaderContext leafContext = leaves.get(ReaderUtil.subIndex(docID, leaves));
+        SegmentCommitInfo segmentInfo = getSegmentInfo(leafContext);
+        if (segmentInfo == null) {
+            return null;
         }
+        return new TupleCache.Key(normalizedDataDirectory, StringHelper.idToString(segmentInfo.info.getId()),
+                segmentInfo.getDocValuesGen(), docID - leafContext.docBase);
+    }
 
-        Tuple resultTuple = new Tuple(outputSchema, docFields.stream().toArray(IField[]::new));
-        return resultTuple;
+    /*
+     * Gets the info of a segment, which identifies the segment in the caches, 
+     *   null if the reader isn't a segment reader or the segment doesn't have an ID.
+     */
+    private static SegmentCommitInfo getSegmentInfo(LeafReaderContext leafContext) {
+        if (! (leafContext.reader() instanceof SegmentReader)) {
+            return null;
+        }
+        SegmentCommitInfo segmentInfo = ((SegmentReader) leafContext.reader()).getSegmentInfo();
+        return segmentInfo.info.getId() == null ? null : segmentInfo;
     }
 
-    private ArrayList<IField> documentToFields(Document luceneDocument) throws ParseException {
+    private ArrayList<IField> documentToFields(Document luceneDocument, int docID) throws ParseException {
         ArrayList<IField> fields = new ArrayList<>();
         for (Attribute attr : inputSchema.getAttributes()) {
             AttributeType attributeType = attr.getType();
-            String fieldValue = luceneDocument.get(attr.getName());
+            if (attributeType == AttributeType._ID_TYPE) {
+                fields.add(getIDField(luceneDocument, docID));
+                continue;
+            }
+            String fieldValue;
+            if (separateTextValues.containsKey(attr.getName())) {
+                fieldValue = separateTextValues.get(attr.getName()).get(docID).utf8ToString();
+            } else {
+                fieldValue = luceneDocument.get(attr.getName());
+            }
             fields.add(StorageUtils.getField(attributeType, fieldValue));
         }
         return fields;
     }
 
+    private IDField getIDField(Document luceneDocument, int docID) {
+        String storedID = luceneDocument.get(SchemaConstants._ID);
+        if (storedID != null) {
+            return new IDField(storedID);
+        }
+        return new IDField(rowIDValues.get(docID));
+    }
+
     private ArrayList<Span> buildPayloadFromTermVector(List<IField> fields, int docID) throws IOException {
         ArrayList<Span> payloadSpanList = new ArrayList<>();
 
@@ -195,23 +667,17 @@ public class DataReader implements IOperator {
 
             TermsEnum termsEnum = termVector.iterator();
             PostingsEnum termPostings = null;
-            // go through document terms
-            while ((termsEnum.next()) != null) {
-                termPostings = termsEnum.postings(termPostings, PostingsEnum.ALL);
-                if (termPostings.nextDoc() == DocIdSetIterator.NO_MORE_DOCS) {
-                    continue;
+            if (payloadTerms == null) {
+                // go through document terms
+                while ((termsEnum.next()) != null) {
+                    termPostings = addTermSpans(payloadSpanList, attributeName, fieldValue, termsEnum, termPostings);
                 }
-                // for each term, go through its postings
-                for (int i = 0; i < termPostings.freq(); i++) {
-                    int tokenPosition = termPostings.nextPosition(); // nextPosition needs to be called first
-                    int charStart = termPostings.startOffset();
-                    int charEnd = termPostings.endOffset();
-                    String analyzedTermStr = termsEnum.term().utf8ToString();
-                    String originalTermStr = fieldValue.substring(charStart, charEnd);
-
-                    Span span = new Span(attributeName, charStart, charEnd, analyzedTermStr, originalTermStr,
-                            tokenPosition);
-                    payloadSpanList.add(span);
+            } else {
+                // only seek the payload terms in the document terms
+                for (String term : payloadTerms) {
+                    if (termsEnum.seekExact(new BytesRef(term))) {
+                        termPostings = addTermSpans(payloadSpanList, attributeName, fieldValue, termsEnum, termPostings);
+                    }
                 }
             }
         }
@@ -219,6 +685,42 @@ public class DataReader implements IOperator {
         return payloadSpanList;
     }
     
+    /*
+     * Adds the spans of the current term of the term vector, returns the postings enum to reuse.
+     */
+    private static PostingsEnum addTermSpans(List<Span> payloadSpanList, String attributeName, String fieldValue, 
+            TermsEnum termsEnum, PostingsEnum termPostings) throws IOException {
+        termPostings = termsEnum.postings(termPostings, PostingsEnum.ALL);
+        if (termPostings.nextDoc() == DocIdSetIterator.NO_MORE_DOCS) {
+            return termPostings;
+        }
+        String analyzedTermStr = termsEnum.term().utf8ToString();
+        // for each term, go through its postings
+        for (int i = 0; i < termPostings.freq(); i++) {
+            int tokenPosition = termPostings.nextPosition(); // nextPosition needs to be called first
+            int charStart = termPostings.startOffset();
+            int charEnd = termPostings.endOffset();
+            String originalTermStr = fieldValue.substring(charStart, charEnd);
+
+            Span span = new Span(attributeName, charStart, charEnd, analyzedTermStr, originalTermStr,
+                    tokenPosition);
+            payloadSpanList.add(span);
+        }
+        return termPostings;
+    }
+    
+    /*
+     * Keeps the spans of the payload terms in the full payload of a tuple of an InMemoryTable.
+     */
+    private Tuple filterPayloadTerms(Tuple tuple) {
+        List<Span> payload = tuple.<ListField<Span>>getField(SchemaConstants.PAYLOAD).getValue();
+        List<Span> filteredPayload = payload.stream()
+                .filter(span -> payloadTerms.contains(span.getKey())).collect(Collectors.toList());
+        IField[] fields = tuple.getFields().stream().toArray(IField[]::new);
+        fields[fields.length - 1] = new ListField<Span>(filteredPayload);
+        return new Tuple(tupleSchema, fields);
+    }
+    
     public boolean isPayloadAdded() {
         return this.payloadAdded;
     }
@@ -226,6 +728,50 @@ public class DataReader implements IOperator {
     public void setPayloadAdded(boolean payloadAdded) {
         this.payloadAdded = payloadAdded;
     }
+    
+    /**
+     * Restricts the payload to the spans of some analyzed terms, for an operator that only looks for these terms,
+     *   it must be set before the reader is opened.
+     * 
+     * @param payloadTerms, the analyzed terms, null to add the spans of all the terms
+     */
+    public void setPayloadTerms(Collection<String> payloadTerms) {
+        this.payloadTerms = payloadTerms == null ? null : new TreeSet<>(payloadTerms);
+    }
+    
+    public SortedSet<String> getPayloadTerms() {
+        return this.payloadTerms;
+    }
+    
+    /**
+     * Makes the reader ranked: the tuples are read by their BM25 scores in descending order,
+     *   and the score of each tuple is added as a DOUBLE attribute. It must be set before the reader is opened.
+     * 
+     * @param scoreAttributeName, the name of the score attribute, null if the reader isn't ranked
+     */
+    public void setScoreAttributeName(String scoreAttributeName) {
+        this.scoreAttributeName = scoreAttributeName;
+    }
+    
+    public String getScoreAttributeName() {
+        return this.scoreAttributeName;
+    }
+
+    /**
+     * Sets the maximum number of tuples to read, it must be set before the reader is opened.
+     * 
+     * @param limit
+     */
+    public void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new StorageException("limit of DataReader must be positive");
+        }
+        this.limit = limit;
+    }
+    
+    public int getLimit() {
+        return this.limit;
+    }
 
     public Schema getOutputSchema() {
         return outputSchema;
@@ -247,4 +793,40 @@ public class DataReader implements IOperator {
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
         throw new TexeraException(ErrorMessages.INVALID_FUNCTION_CALL);
     }
+    
+    /*
+     * A collector of the first matching documents, which terminates the collection once it's full.
+     */
+    private static class FirstDocsCollector extends SimpleCollector {
+        
+        private final int number;
+        private final List<ScoreDoc> docs = new ArrayList<>();
+        private int docBase;
+        
+        FirstDocsCollector(int number) {
+            this.number = number;
+        }
+        
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            if (docs.size() >= number) {
+                throw new CollectionTerminatedException();
+            }
+            this.docBase = context.docBase;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            docs.add(new ScoreDoc(docBase + doc, Float.NaN));
+            if (docs.size() >= number) {
+                throw new CollectionTerminatedException();
+            }
+        }
+
+        @Override
+        public boolean needsScores() {
+            return false;
+        }
+        
+    }
 }
\ No newline at end of file
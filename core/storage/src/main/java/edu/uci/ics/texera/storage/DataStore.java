@@ -4,20 +4,59 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 
 public class DataStore {
     private Path dataDirectory;
     private int numDocuments;
     private Schema schema;
+    private LuceneCodecProfile codecProfile;
+    // null if the table is not partitioned
+    private PartitionScheme partitionScheme;
+    private StorageEngine storageEngine;
+    // the size of the grams in the gram fields of the TEXT attributes, 0 if the table doesn't have gram fields
+    private int gramSize;
+    private RowIDType rowIDType;
 
     public DataStore(String dataDirectory, Schema schema) {
-        this.dataDirectory = Paths.get(dataDirectory);
-        this.schema = schema;
+        this(Paths.get(dataDirectory), schema);
     }
     
     public DataStore(Path dataDirectory, Schema schema) {
+        this(dataDirectory, schema, LuceneCodecProfile.DEFAULT_PROFILE);
+    }
+    
+    public DataStore(String dataDirectory, Schema schema, LuceneCodecProfile codecProfile) {
+        this(Paths.get(dataDirectory), schema, codecProfile);
+    }
+    
+    public DataStore(Path dataDirectory, Schema schema, LuceneCodecProfile codecProfile) {
+        this(dataDirectory, schema, codecProfile, null);
+    }
+    
+    public DataStore(Path dataDirectory, Schema schema, LuceneCodecProfile codecProfile, PartitionScheme partitionScheme) {
+        this(dataDirectory, schema, codecProfile, partitionScheme, StorageEngine.DEFAULT_ENGINE);
+    }
+    
+    public DataStore(Path dataDirectory, Schema schema, LuceneCodecProfile codecProfile, PartitionScheme partitionScheme,
+            StorageEngine storageEngine) {
+        this(dataDirectory, schema, codecProfile, partitionScheme, storageEngine, 0);
+    }
+    
+    public DataStore(Path dataDirectory, Schema schema, LuceneCodecProfile codecProfile, PartitionScheme partitionScheme,
+            StorageEngine storageEngine, int gramSize) {
+        this(dataDirectory, schema, codecProfile, partitionScheme, storageEngine, gramSize, RowIDType.DEFAULT_TYPE);
+    }
+    
+    public DataStore(Path dataDirectory, Schema schema, LuceneCodecProfile codecProfile, PartitionScheme partitionScheme,
+            StorageEngine storageEngine, int gramSize, RowIDType rowIDType) {
         this.dataDirectory = dataDirectory;
         this.schema = schema;
+        this.codecProfile = codecProfile;
+        this.partitionScheme = partitionScheme;
+        this.storageEngine = storageEngine;
+        this.gramSize = gramSize;
+        this.rowIDType = rowIDType;
     }
 
     public void incrementNumDocuments(int incrementBy) {
@@ -35,5 +74,40 @@ public class DataStore {
     public Schema getSchema() {
         return schema;
     }
+    
+    public LuceneCodecProfile getCodecProfile() {
+        return codecProfile;
+    }
+    
+    public PartitionScheme getPartitionScheme() {
+        return partitionScheme;
+    }
+    
+    public boolean isPartitioned() {
+        return partitionScheme != null;
+    }
+    
+    public StorageEngine getStorageEngine() {
+        return storageEngine;
+    }
+    
+    /**
+     * Gets the size of the grams of the gram fields, 0 if the table doesn't have gram fields.
+     * 
+     * If a table has gram fields, the value of each TEXT attribute is also indexed (but not stored) 
+     *   as the n-grams of its lower case text in the field StorageUtils.getGramFieldName(attributeName),
+     *   the n-grams of a substring are used to find the documents that may contain it.
+     */
+    public int getGramSize() {
+        return gramSize;
+    }
+    
+    public boolean hasGramFields() {
+        return gramSize > 0;
+    }
+    
+    public RowIDType getRowIDType() {
+        return rowIDType;
+    }
 
 }
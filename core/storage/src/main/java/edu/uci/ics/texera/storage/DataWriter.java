@@ -3,17 +3,28 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
@@ -24,6 +35,7 @@ import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
@@ -32,8 +44,11 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  *   
  * Write Operations:
  *   DataWriter will write tuples to a Lucene index folder.
- *   DataWriter will assign an random generated "_id" field to every tuple
- *   that is being inserted to the table.
+ *   DataWriter will assign an ID as the "_id" field to every tuple
+ *   that is being inserted to the table, by the RowIDType of the table: a random UUID,
+ *   or a 64-bit row ID that increases monotonically in the table. The next row ID of a NUMERIC table
+ *   is kept in the commit data of its index (of every partition, if the table is partitioned).
+ *   DATE and DATETIME values are also indexed as numbers in a separate field, to support range queries.
  *   
  * Delete Operations:
  *   DataWriter can handle deletions according to one or more Lucene queries.
@@ -43,6 +58,23 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  * Update Operations:
  *   DataWriter can update the tuple, with the tuple's _id remaining the same.
  *   
+ * Storage Layout:
+ *   DataWriter writes the index with the codec of the table's LuceneCodecProfile.
+ *   If the profile stores TEXT values separately, TEXT values are written to a binary doc values column 
+ *   instead of Lucene's stored fields.
+ *   
+ * Partitioned Tables:
+ *   If the table is partitioned (see PartitionScheme), each tuple is written to the partition of 
+ *   its partition attribute's value, and each partition has its own Lucene IndexWriter.
+ *   Partition writers are opened when a partition is first written to.
+ *   Deletions and updates are applied to all the partitions.
+ *   
+ * Concurrency:
+ *   The Lucene IndexWriter of each index is long-lived and shared by all the DataWriters (see IndexWriterRegistry).
+ *   A DataWriter holds the write lock of its table from open() to close(), another DataWriter of the same table
+ *   waits for it in open(). close() commits the changes and releases the lock, the IndexWriter stays open
+ *   until it's idle (see IndexWriterRegistry).
+ *   
  *   
  * DataWriter for a specific table is only accessible from RelationManager.
  * 
@@ -56,10 +88,21 @@ public class DataWriter {
     private Schema schema;
     private DataStore dataStore;
     private Analyzer analyzer;
+    private LuceneCodecProfile codecProfile;
+    private RowIDType rowIDType;
 
     private IndexWriter luceneIndexWriter;
     
+    // the writers of a partitioned table, keyed by the partition key, null if the table is not partitioned
+    private PartitionScheme partitionScheme;
+    private Map<String, IndexWriter> partitionWriters = new HashMap<>();
+    
+    // the ID of the next tuple inserted to the table, if the table has NUMERIC row IDs
+    private long nextRowID;
+    
     private boolean isOpen = false;
+    
+    private static final String NEXT_ROW_ID = "nextRowID";
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -73,7 +116,11 @@ public class DataWriter {
         if (! this.schema.containsAttribute(SchemaConstants._ID)) {
             this.schema = Schema.Builder.getSchemaWithID(this.schema);
         }
-        this.dataStore = new DataStore(indexDirectory, schema);
+        this.codecProfile = dataStore.getCodecProfile();
+        this.partitionScheme = dataStore.getPartitionScheme();
+        this.rowIDType = dataStore.getRowIDType();
+        this.dataStore = new DataStore(indexDirectory, schema, codecProfile, partitionScheme, 
+                dataStore.getStorageEngine(), dataStore.getGramSize(), rowIDType);
         this.analyzer = analyzer;
     }
     
@@ -81,27 +128,173 @@ public class DataWriter {
         return this.dataStore;
     }
     
+    /**
+     * Opens the writer, it waits if another DataWriter of the table is open.
+     * 
+     * @throws StorageException, if the table stays locked by another DataWriter 
+     *   for the write lock timeout (see RelationManager.setWriteLockTimeout())
+     */
     public void open() throws StorageException {
-        if (this.luceneIndexWriter == null || ! this.luceneIndexWriter.isOpen()) {
-            try {
-                Directory directory = FSDirectory.open(this.indexDirectory);
-                IndexWriterConfig conf = new IndexWriterConfig(analyzer);
-                this.luceneIndexWriter = new IndexWriter(directory, conf);
-                this.isOpen = true;
-            } catch (IOException e) {
-                throw new StorageException(e.getMessage(), e);
+        if (isOpen) {
+            return;
+        }
+        IndexWriterRegistry.lockTable(indexDirectory);
+        try {
+            this.nextRowID = 0;
+            if (partitionScheme != null) {
+                // partition writers are acquired when they are needed
+                if (rowIDType == RowIDType.NUMERIC) {
+                    for (String partitionKey : partitionScheme.getPartitionKeys(indexDirectory)) {
+                        this.nextRowID = Math.max(this.nextRowID, 
+                                readNextRowID(PartitionScheme.getPartitionDirectory(indexDirectory, partitionKey)));
+                    }
+                }
+            } else {
+                if (rowIDType == RowIDType.NUMERIC) {
+                    this.nextRowID = readNextRowID(this.indexDirectory);
+                }
+                this.luceneIndexWriter = IndexWriterRegistry.getIndexWriter(this.indexDirectory, analyzer, codecProfile);
             }
+            this.isOpen = true;
+        } catch (IOException e) {
+            IndexWriterRegistry.unlockTable(indexDirectory);
+            throw new StorageException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Commits the changes and releases the table to the other DataWriters.
+     * 
+     * @throws StorageException
+     */
     public void close() throws StorageException {
-        if (this.luceneIndexWriter != null) {
-            try {
-                this.luceneIndexWriter.close();
-                this.isOpen = false;
-            } catch (IOException e) {
-                throw new StorageException(e.getMessage(), e);
+        if (! isOpen) {
+            return;
+        }
+        try {
+            for (IndexWriter indexWriter : getOpenWriters()) {
+                if (indexWriter.isOpen()) {
+                    setNextRowIDCommitData(indexWriter);
+                    indexWriter.commit();
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        } finally {
+            this.isOpen = false;
+            this.luceneIndexWriter = null;
+            partitionWriters.clear();
+            IndexWriterRegistry.unlockTable(indexDirectory);
+        }
+    }
+    
+    /*
+     * Keeps the next row ID in the commit data, so that it's committed with the tuples.
+     */
+    private void setNextRowIDCommitData(IndexWriter indexWriter) {
+        if (rowIDType != RowIDType.NUMERIC) {
+            return;
+        }
+        Map<String, String> commitData = new HashMap<>(indexWriter.getCommitData());
+        commitData.put(NEXT_ROW_ID, Long.toString(nextRowID));
+        indexWriter.setCommitData(commitData);
+    }
+    
+    /*
+     * Reads the next row ID of an index from its last commit.
+     * If the index was committed without it, the next row ID is found from the largest numeric ID in the index.
+     */
+    private static long readNextRowID(Path directoryPath) throws IOException {
+        Directory directory = FSDirectory.open(directoryPath);
+        if (! DirectoryReader.indexExists(directory)) {
+            return 0;
+        }
+        String nextRowID = SegmentInfos.readLatestCommit(directory).getUserData().get(NEXT_ROW_ID);
+        if (nextRowID != null) {
+            return Long.parseLong(nextRowID);
+        }
+        long maxRowID = -1;
+        try (DirectoryReader indexReader = DirectoryReader.open(directory)) {
+            for (LeafReaderContext leafContext : indexReader.leaves()) {
+                LeafReader leafReader = leafContext.reader();
+                NumericDocValues rowIDs = leafReader.getNumericDocValues(SchemaConstants._ID);
+                Bits docsWithRowID = leafReader.getDocsWithField(SchemaConstants._ID);
+                if (rowIDs == null) {
+                    continue;
+                }
+                for (int docID = 0; docID < leafReader.maxDoc(); docID++) {
+                    if (docsWithRowID.get(docID)) {
+                        maxRowID = Math.max(maxRowID, rowIDs.get(docID));
+                    }
+                }
+            }
+        }
+        return maxRowID + 1;
+    }
+    
+    /*
+     * Gets the writer of a partition, acquires it (and creates the partition) if it's not used by this writer yet.
+     */
+    private IndexWriter getPartitionWriter(String partitionKey) throws IOException {
+        IndexWriter partitionWriter = partitionWriters.get(partitionKey);
+        if (partitionWriter == null) {
+            partitionWriter = IndexWriterRegistry.getIndexWriter(
+                    PartitionScheme.getPartitionDirectory(indexDirectory, partitionKey), analyzer, codecProfile);
+            partitionWriters.put(partitionKey, partitionWriter);
+        }
+        return partitionWriter;
+    }
+    
+    /*
+     * Gets the writers used by this writer so far.
+     */
+    private Collection<IndexWriter> getOpenWriters() {
+        return partitionScheme == null ? 
+                Collections.singletonList(this.luceneIndexWriter) : partitionWriters.values();
+    }
+    
+    /*
+     * Gets the writer that a tuple should be written to.
+     */
+    private IndexWriter getTupleWriter(Tuple tuple) throws IOException {
+        if (partitionScheme == null) {
+            return this.luceneIndexWriter;
+        }
+        Object partitionValue = tuple.getField(partitionScheme.getAttributeName()).getValue();
+        return getPartitionWriter(partitionScheme.getPartitionKey(partitionValue));
+    }
+    
+    /*
+     * Gets the writers of the whole table, which are all the partitions' writers if the table is partitioned.
+     */
+    private Collection<IndexWriter> getTableWriters() throws IOException {
+        if (partitionScheme == null) {
+            return Collections.singletonList(this.luceneIndexWriter);
+        }
+        for (String partitionKey : partitionScheme.getPartitionKeys(indexDirectory)) {
+            getPartitionWriter(partitionKey);
+        }
+        return partitionWriters.values();
+    }
+
+    /**
+     * Commits the changes made so far without closing the writer,
+     *   so that they are durable and visible to the readers opened afterwards.
+     * 
+     * @throws StorageException
+     */
+    public void commit() throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        try {
+            for (IndexWriter indexWriter : getOpenWriters()) {
+                setNextRowIDCommitData(indexWriter);
+                indexWriter.commit();
             }
+        } catch (IOException e) {
+            close();
+            throw new StorageException(e.getMessage(), e);
         }
     }
 
@@ -110,7 +303,9 @@ public class DataWriter {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
         try {
-            this.luceneIndexWriter.deleteAll();
+            for (IndexWriter indexWriter : getTableWriters()) {
+                indexWriter.deleteAll();
+            }
         } catch (IOException e) {
             close();
             throw new StorageException(e.getMessage(), e);
@@ -127,8 +322,8 @@ public class DataWriter {
                 throw new StorageException("Tuple must not contain _id field. _id must be generated by the system");
             }
             
-            // generate a random ID for this tuple
-            IDField idField = new IDField(UUID.randomUUID().toString());
+            // assign the next row ID, or a random UUID, to this tuple
+            IDField idField = rowIDType == RowIDType.NUMERIC ? new IDField(nextRowID) : IDField.newRandomID();
             Tuple tupleWithID = getTupleWithID(tuple, idField);
             
             // make sure the tuple's schema agrees with the table's schema
@@ -137,8 +332,9 @@ public class DataWriter {
             }
             
             Document document = getLuceneDocument(tupleWithID);
-            this.luceneIndexWriter.addDocument(document);
+            getTupleWriter(tupleWithID).addDocument(document);
             this.dataStore.incrementNumDocuments(1);
+            nextRowID++;
             
             return idField;
         } catch (IOException e) {
@@ -149,6 +345,7 @@ public class DataWriter {
     
     /**
      * Deletes a tuple by its ID field.
+     * A string ID of a table with NUMERIC row IDs is converted to the numeric ID (see RowIDType.normalize()).
      * 
      * @param idField
      * @throws StorageException
@@ -158,7 +355,10 @@ public class DataWriter {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
         try {
-            this.luceneIndexWriter.deleteDocuments(new Term(SchemaConstants._ID, idField.getValue().toString()));
+            Term idTerm = StorageUtils.getIDTerm(rowIDType.normalize(idField));
+            for (IndexWriter indexWriter : getTableWriters()) {
+                indexWriter.deleteDocuments(idTerm);
+            }
         } catch (IOException e) {
             close();
             throw new StorageException(e);
@@ -173,7 +373,9 @@ public class DataWriter {
      */
     public void deleteTuple(Query... deletionQuery) throws StorageException {
         try {
-            this.luceneIndexWriter.deleteDocuments(deletionQuery);
+            for (IndexWriter indexWriter : getTableWriters()) {
+                indexWriter.deleteDocuments(deletionQuery);
+            }
         } catch (IOException e) {
             close();
             throw new StorageException(e.getMessage(), e);
@@ -182,6 +384,7 @@ public class DataWriter {
     
     /**
      * Updates a tuple by its ID.
+     * A string ID of a table with NUMERIC row IDs is converted to the numeric ID (see RowIDType.normalize()).
      * 
      * @param newTuple
      * @param idField
@@ -192,18 +395,27 @@ public class DataWriter {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
         try {
+            idField = rowIDType.normalize(idField);
             // if the newTuple contains the _id field, make sure the ID is consistent.
             if (newTuple.getSchema().containsAttribute(SchemaConstants._ID)) {
-                if (newTuple.getField(SchemaConstants._ID) != idField) {
+                if (! rowIDType.normalize(newTuple.getField(SchemaConstants._ID)).equals(idField)) {
                     throw new StorageException("New tuple's ID is inconsistent with idValue.");
                 }
-            } else { // else, add the original ID to the tuple
-                newTuple = getTupleWithID(newTuple, idField);
+                newTuple = new Tuple.Builder(newTuple).remove(SchemaConstants._ID).build();
             }
+            // add the normalized ID to the tuple
+            newTuple = getTupleWithID(newTuple, idField);
             
-            this.luceneIndexWriter.updateDocument(
-                    new Term(SchemaConstants._ID, idField.getValue().toString()),
-                    getLuceneDocument(newTuple)); 
+            Term idTerm = StorageUtils.getIDTerm(idField);
+            if (partitionScheme == null) {
+                this.luceneIndexWriter.updateDocument(idTerm, getLuceneDocument(newTuple));
+            } else {
+                // the new tuple might belong to a different partition than the old one
+                for (IndexWriter indexWriter : getTableWriters()) {
+                    indexWriter.deleteDocuments(idTerm);
+                }
+                getTupleWriter(newTuple).addDocument(getLuceneDocument(newTuple));
+            }
         } catch (IOException e) {
             close();
             throw new StorageException(e);
@@ -213,7 +425,7 @@ public class DataWriter {
     /*
      * Converts a Texera tuple to a Lucene document
      */
-    private static Document getLuceneDocument(Tuple tuple) {
+    private Document getLuceneDocument(Tuple tuple) {
         List<IField> fields = tuple.getFields();
         List<Attribute> attributes = tuple.getSchema().getAttributes();
         Document doc = new Document();
@@ -221,7 +433,25 @@ public class DataWriter {
             IField field = fields.get(count);
             Attribute attr = attributes.get(count);
             AttributeType attributeType = attr.getType();
-            doc.add(StorageUtils.getLuceneField(attributeType, attr.getName(), field.getValue()));
+            if (attributeType == AttributeType._ID_TYPE) {
+                for (IndexableField idField : StorageUtils.getLuceneIDFields((IDField) field)) {
+                    doc.add(idField);
+                }
+            } else if (attributeType == AttributeType.TEXT && codecProfile.isTextStoredSeparately()) {
+                String textValue = (String) field.getValue();
+                doc.add(StorageUtils.getLuceneTextField(attr.getName(), textValue, false));
+                doc.add(new BinaryDocValuesField(attr.getName(), new BytesRef(textValue)));
+            } else {
+                doc.add(StorageUtils.getLuceneField(attributeType, attr.getName(), field.getValue()));
+            }
+            // dates are also indexed as numbers to support range queries
+            if (attributeType == AttributeType.DATE || attributeType == AttributeType.DATETIME) {
+                doc.add(StorageUtils.getLuceneNumericDateField(attributeType, attr.getName(), field.getValue()));
+            }
+            // TEXT values are also indexed as n-grams to find the candidates of substring queries
+            if (attributeType == AttributeType.TEXT && dataStore.hasGramFields()) {
+                doc.add(StorageUtils.getLuceneGramField(attr.getName(), (String) field.getValue()));
+            }
         }
         return doc;
     }
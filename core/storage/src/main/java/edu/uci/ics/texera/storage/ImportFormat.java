@@ -0,0 +1,54 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * ImportFormat is the format of a file imported into a table by TableImporter.
+ *
+ *   CSV:   comma separated values (RFC 4180), a field can be quoted with double quotes,
+ *            a quoted field can contain commas, line breaks, and double quotes escaped as "".
+ *   JSONL: JSON lines, each line is a JSON object whose keys are the attribute names.
+ */
+public enum ImportFormat {
+
+    CSV("csv"),
+
+    JSONL("jsonl");
+
+    private final String name;
+
+    private ImportFormat(String name) {
+        this.name = name;
+    }
+
+    @JsonValue
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Gets the ImportFormat by its name, case insensitive.
+     *
+     * @param name
+     * @return
+     * @throws StorageException, if the name is not a valid format
+     */
+    @JsonCreator
+    public static ImportFormat fromName(String name) throws StorageException {
+        return Stream.of(ImportFormat.values())
+                .filter(format -> format.name.equalsIgnoreCase(name))
+                .findAny()
+                .orElseThrow(() -> new StorageException(String.format("Import format %s is not valid.", name)));
+    }
+
+}
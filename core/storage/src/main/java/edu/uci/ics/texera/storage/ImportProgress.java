@@ -0,0 +1,131 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * ImportProgress is the progress of a TableImporter.
+ *
+ * It's updated by the threads of the import, and can be read by other threads (e.g. a web request) at any time.
+ * The failed records (which can't be parsed into a tuple of the table's schema) are skipped,
+ *   the error of the first failed record is kept to help find the problem in the file.
+ */
+public class ImportProgress {
+
+    public enum ImportState {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String tableName;
+    private final long totalBytes;
+
+    private final AtomicLong parsedBytes = new AtomicLong();
+    private final AtomicLong indexedTupleCount = new AtomicLong();
+    private final AtomicLong committedTupleCount = new AtomicLong();
+    private final AtomicLong failedRecordCount = new AtomicLong();
+
+    private volatile ImportState state = ImportState.RUNNING;
+    private volatile String errorMessage = null;
+    private final long startTime = System.currentTimeMillis();
+    private volatile long endTime = 0;
+
+    ImportProgress(String tableName, long totalBytes) {
+        this.tableName = tableName;
+        this.totalBytes = totalBytes;
+    }
+
+    void addParsedBytes(long bytes) {
+        parsedBytes.addAndGet(bytes);
+    }
+
+    void addIndexedTuples(long tupleCount) {
+        indexedTupleCount.addAndGet(tupleCount);
+    }
+
+    void setCommittedTuples(long tupleCount) {
+        committedTupleCount.set(tupleCount);
+    }
+
+    /*
+     * Records a failed record, only the error of the first failed record is kept.
+     */
+    synchronized void addFailedRecord(String recordError) {
+        if (failedRecordCount.getAndIncrement() == 0) {
+            this.errorMessage = recordError;
+        }
+    }
+
+    void complete() {
+        this.endTime = System.currentTimeMillis();
+        this.state = ImportState.COMPLETED;
+    }
+
+    synchronized void fail(String errorMessage) {
+        this.endTime = System.currentTimeMillis();
+        this.errorMessage = errorMessage;
+        this.state = ImportState.FAILED;
+    }
+
+    @JsonProperty("tableName")
+    public String getTableName() {
+        return tableName;
+    }
+
+    @JsonProperty("state")
+    public ImportState getState() {
+        return state;
+    }
+
+    @JsonProperty("totalBytes")
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @JsonProperty("parsedBytes")
+    public long getParsedBytes() {
+        return parsedBytes.get();
+    }
+
+    @JsonProperty("indexedTupleCount")
+    public long getIndexedTupleCount() {
+        return indexedTupleCount.get();
+    }
+
+    @JsonProperty("committedTupleCount")
+    public long getCommittedTupleCount() {
+        return committedTupleCount.get();
+    }
+
+    @JsonProperty("failedRecordCount")
+    public long getFailedRecordCount() {
+        return failedRecordCount.get();
+    }
+
+    /**
+     * Gets the error of the import if it failed, otherwise the error of the first failed record.
+     *
+     * @return the error message, null if there's no error
+     */
+    @JsonProperty("errorMessage")
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Gets the time spent on the import in milliseconds, until now if the import is running.
+     *
+     * @return
+     */
+    @JsonProperty("elapsedMillis")
+    public long getElapsedMillis() {
+        return (state == ImportState.RUNNING ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportProgress [table = %s, state = %s, parsed bytes = %d/%d, indexed tuples = %d, failed records = %d]",
+                tableName, state, getParsedBytes(), totalBytes, getIndexedTupleCount(), getFailedRecordCount());
+    }
+
+}
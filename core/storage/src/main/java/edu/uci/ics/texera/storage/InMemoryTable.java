@@ -0,0 +1,171 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * InMemoryTable keeps the tuples of one commit of a table in memory, for tables using the MEMORY StorageEngine.
+ *
+ * The tuples are kept in columnar form: one array of fields per attribute, indexed by the Lucene docID,
+ *   so DataReader can construct a tuple by the docIDs it gets from the index without reading the stored fields,
+ *   and a full scan doesn't touch the index at all.
+ * The payload of each tuple is built from the term vectors the first time a reader asks for it,
+ *   and it's kept with the columns afterwards.
+ *
+ * An InMemoryTable is bound to the version of the index reader it's loaded from.
+ * The loaded tables are kept in a process-wide registry keyed by the index directory,
+ *   a reader of a newer commit loads the table again and replaces the old one.
+ * A reader of an older commit (for example, the pinned reader of a ReadSnapshot)
+ *   loads its own copy without replacing the newer one.
+ */
+class InMemoryTable {
+
+    // index directory -> the table loaded from the latest commit read so far
+    private static final Map<Path, InMemoryTable> loadedTables = new HashMap<>();
+
+    private final DataStore dataStore;
+    private final long version;
+    private final Schema schema;
+    private final int maxDoc;
+
+    // the docIDs of the live documents, in the index order
+    private final int[] liveDocIDs;
+    // columns[attributeIndex][docID], null for a deleted document
+    private final IField[][] columns;
+    // the payload of each document, null until it's built
+    private volatile ListField<Span>[] payloads;
+
+    private InMemoryTable(DataStore dataStore, long version, Tuple[] tuples) {
+        this.dataStore = dataStore;
+        this.version = version;
+        this.schema = dataStore.getSchema();
+        this.maxDoc = tuples.length;
+
+        int liveDocCount = 0;
+        for (Tuple tuple : tuples) {
+            if (tuple != null) {
+                liveDocCount++;
+            }
+        }
+        this.liveDocIDs = new int[liveDocCount];
+        this.columns = new IField[schema.getAttributes().size()][tuples.length];
+        int liveDocIndex = 0;
+        for (int docID = 0; docID < tuples.length; docID++) {
+            if (tuples[docID] == null) {
+                continue;
+            }
+            liveDocIDs[liveDocIndex++] = docID;
+            List<IField> fields = tuples[docID].getFields();
+            for (int i = 0; i < columns.length; i++) {
+                columns[i][docID] = fields.get(i);
+            }
+        }
+    }
+
+    /**
+     * Gets the in-memory table of the commit that an index reader reads,
+     *   it's loaded from the reader if it's not loaded yet.
+     *
+     * @param dataStore, the DataStore of the table
+     * @param indexReader, a reader of the table opened by the caller
+     * @return
+     * @throws StorageException
+     */
+    static InMemoryTable get(DataStore dataStore, DirectoryReader indexReader) throws StorageException {
+        Path tableDirectory = PinnedSnapshotDeletionPolicy.normalize(dataStore.getDataDirectory());
+        long version = indexReader.getVersion();
+        synchronized (InMemoryTable.class) {
+            InMemoryTable loadedTable = loadedTables.get(tableDirectory);
+            if (loadedTable != null && loadedTable.version == version && loadedTable.schema.equals(dataStore.getSchema())) {
+                return loadedTable;
+            }
+            InMemoryTable table = new InMemoryTable(dataStore, version, DataReader.readAllTuples(dataStore, indexReader));
+            if (loadedTable == null || loadedTable.version <= version) {
+                loadedTables.put(tableDirectory, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Releases the in-memory table of an index directory,
+     *   it should be called when the table is deleted or stops using the MEMORY engine.
+     *
+     * @param tableDirectory
+     */
+    static synchronized void invalidate(Path tableDirectory) {
+        loadedTables.remove(PinnedSnapshotDeletionPolicy.normalize(tableDirectory));
+    }
+
+    /**
+     * Gets the docIDs of all the live documents in the index order, the returned array must not be modified.
+     *
+     * @return
+     */
+    int[] getLiveDocIDs() {
+        return liveDocIDs;
+    }
+
+    /**
+     * Constructs the tuple of a document from the columns.
+     *
+     * @param docID
+     * @param outputSchema, the schema of the tuple, with the payload attribute if the payload is added
+     * @param indexReader, the reader the table is loaded from, used to build the payload on the first call
+     * @return
+     * @throws StorageException
+     */
+    Tuple getTuple(int docID, Schema outputSchema, IndexReader indexReader) throws StorageException {
+        int attributeCount = columns.length;
+        boolean payloadAdded = outputSchema.getAttributes().size() > attributeCount;
+        IField[] fields = new IField[payloadAdded ? attributeCount + 1 : attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            fields[i] = columns[i][docID];
+        }
+        if (payloadAdded) {
+            fields[attributeCount] = getPayloads(indexReader)[docID];
+        }
+        return new Tuple(outputSchema, fields);
+    }
+
+    /*
+     * Gets the payloads of all the documents, builds them if they are not built yet.
+     */
+    private ListField<Span>[] getPayloads(IndexReader indexReader) throws StorageException {
+        if (payloads == null) {
+            synchronized (this) {
+                if (payloads == null) {
+                    @SuppressWarnings("unchecked")
+                    ListField<Span>[] builtPayloads = (ListField<Span>[]) new ListField<?>[maxDoc];
+                    for (int docID : liveDocIDs) {
+                        builtPayloads[docID] = new ListField<Span>(
+                                DataReader.readPayload(dataStore, indexReader, docID, getColumnFields(docID)));
+                    }
+                    payloads = builtPayloads;
+                }
+            }
+        }
+        return payloads;
+    }
+
+    private IField[] getColumnFields(int docID) {
+        IField[] fields = new IField[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            fields[i] = columns[i][docID];
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,370 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.FSDirectory;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * IndexWriterRegistry keeps one long-lived Lucene IndexWriter per index directory, shared by all the DataWriters,
+ *   and one write lock per table, so concurrent requests never open two IndexWriters on the same index
+ *   (which fails with Lucene's LockObtainFailedException).
+ *
+ * A DataWriter holds the write lock of its table from open() to close(), and commits the shared writer on close(),
+ *   so the write sessions of a table are serialized, while the sessions of different tables run concurrently.
+ * The lock isn't bound to a thread, a DataWriter can be opened and closed by different threads.
+ * The catalog operations of RelationManager (creating, deleting a table, dropping a partition) lock the table 
+ *   with lockTableForCatalog(), which is reentrant for the thread holding the lock: 
+ *   a thread with an open DataWriter can delete its table, and the DataWriters opened by a catalog operation 
+ *   don't wait for the operation itself. The write sessions of a thread are still serialized with each other.
+ * The lock of a deleted table is removed once it's released by all the threads holding or waiting for it.
+ * A writer waiting for the lock fails with a StorageException after the write lock timeout 
+ *   (DEFAULT_WRITE_LOCK_TIMEOUT_SECONDS, set by RelationManager.setWriteLockTimeout()).
+ * A long write session, such as an IndexSink writing the results of a plan or a TableImporter importing a file,
+ *   holds the lock for its whole duration, so the timeout must be longer than the longest session expected 
+ *   on a table, otherwise the other writers of the table fail while it runs.
+ *
+ * An IndexWriter holds the write.lock file of its index while it's open, the registry closes:
+ *   - the writers of a table that has no open DataWriter for the idle timeout 
+ *     (DEFAULT_IDLE_TIMEOUT_SECONDS, set by RelationManager.setIndexWriterIdleTimeout()),
+ *   - the writers of an index directory that is deleted by deleteIndexDirectory(),
+ *   - all the writers when closeAll() is called, for example when the application stops.
+ * A closed IndexWriter (including one closed by a failure) is opened again by the next DataWriter.
+ */
+class IndexWriterRegistry {
+
+    static final long DEFAULT_WRITE_LOCK_TIMEOUT_SECONDS = 30;
+    static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 600;
+
+    // the interval of checking for idle writers
+    private static final long IDLE_CHECK_INTERVAL_SECONDS = 60;
+
+    private static volatile long writeLockTimeoutSeconds = DEFAULT_WRITE_LOCK_TIMEOUT_SECONDS;
+    // 0 if idle writers are not closed
+    private static volatile long idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+
+    // normalized index directory -> the writer shared by the DataWriters of the index
+    private static final Map<Path, IndexWriter> indexWriters = new HashMap<>();
+    // normalized table directory -> the write lock of the table
+    private static final Map<Path, TableLock> tableLocks = new HashMap<>();
+
+    // closes the idle writers, started when the first writer is opened, null if it's not started
+    private static ScheduledExecutorService idleWriterCloser = null;
+
+    /*
+     * The write lock of a table, and the time it was last released.
+     * The fields other than the semaphore are guarded by the registry.
+     */
+    private static class TableLock {
+        private final Semaphore semaphore = new Semaphore(1);
+        private volatile long unlockTimeNanos = System.nanoTime();
+        // the thread that acquired the lock, null if it's not held
+        private Thread owner = null;
+        // the number of times the lock is held, and how many of them are held by catalog operations
+        private int holdCount = 0;
+        private int catalogHoldCount = 0;
+        // the number of threads holding or waiting for the lock
+        private int userCount = 0;
+        // if the table is deleted, the lock is removed when it has no users
+        private boolean deleted = false;
+    }
+
+    private IndexWriterRegistry() {
+    }
+
+    static void setWriteLockTimeout(long timeoutSeconds) throws StorageException {
+        if (timeoutSeconds < 1) {
+            throw new StorageException("the write lock timeout must be positive");
+        }
+        writeLockTimeoutSeconds = timeoutSeconds;
+    }
+
+    static long getWriteLockTimeout() {
+        return writeLockTimeoutSeconds;
+    }
+
+    static void setIdleTimeout(long timeoutSeconds) throws StorageException {
+        if (timeoutSeconds < 0) {
+            throw new StorageException("the idle timeout of index writers must not be negative");
+        }
+        idleTimeoutSeconds = timeoutSeconds;
+    }
+
+    static long getIdleTimeout() {
+        return idleTimeoutSeconds;
+    }
+
+    /**
+     * Acquires the write lock of a table for a DataWriter, waits if another DataWriter of the table is open.
+     * It doesn't wait if the current thread holds the lock for a catalog operation.
+     *
+     * @param tableDirectory, the directory of the table (not of one of its partitions)
+     * @throws StorageException, if the lock isn't acquired in time
+     */
+    static void lockTable(Path tableDirectory) throws StorageException {
+        lockTable(tableDirectory, false);
+    }
+
+    static void unlockTable(Path tableDirectory) {
+        unlockTable(tableDirectory, false);
+    }
+
+    /**
+     * Acquires the write lock of a table for a catalog operation, waits if a DataWriter of the table is open.
+     * It doesn't wait if the current thread already holds the lock.
+     *
+     * @param tableDirectory, the directory of the table (not of one of its partitions)
+     * @throws StorageException, if the lock isn't acquired in time
+     */
+    static void lockTableForCatalog(Path tableDirectory) throws StorageException {
+        lockTable(tableDirectory, true);
+    }
+
+    static void unlockTableForCatalog(Path tableDirectory) {
+        unlockTable(tableDirectory, true);
+    }
+
+    private static void lockTable(Path tableDirectory, boolean forCatalog) throws StorageException {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(tableDirectory);
+        TableLock tableLock;
+        synchronized (IndexWriterRegistry.class) {
+            tableLock = tableLocks.computeIfAbsent(directory, key -> new TableLock());
+            if (tableLock.owner == Thread.currentThread() && (forCatalog || tableLock.catalogHoldCount > 0)) {
+                tableLock.holdCount++;
+                tableLock.catalogHoldCount += forCatalog ? 1 : 0;
+                return;
+            }
+            tableLock.userCount++;
+        }
+        boolean acquired = false;
+        try {
+            acquired = tableLock.semaphore.tryAcquire(writeLockTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException(e);
+        } finally {
+            synchronized (IndexWriterRegistry.class) {
+                if (acquired) {
+                    tableLock.owner = Thread.currentThread();
+                    tableLock.holdCount = 1;
+                    tableLock.catalogHoldCount = forCatalog ? 1 : 0;
+                } else {
+                    removeUser(directory, tableLock);
+                }
+            }
+        }
+        if (! acquired) {
+            throw new StorageException(String.format(
+                    "Table directory %s is locked by another writer.", tableDirectory));
+        }
+    }
+
+    private static void unlockTable(Path tableDirectory, boolean forCatalog) {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(tableDirectory);
+        TableLock tableLock;
+        synchronized (IndexWriterRegistry.class) {
+            tableLock = tableLocks.get(directory);
+            tableLock.holdCount--;
+            tableLock.catalogHoldCount -= forCatalog ? 1 : 0;
+            if (tableLock.holdCount > 0) {
+                return;
+            }
+            tableLock.owner = null;
+            tableLock.unlockTimeNanos = System.nanoTime();
+            removeUser(directory, tableLock);
+        }
+        tableLock.semaphore.release();
+    }
+
+    private static void removeUser(Path directory, TableLock tableLock) {
+        tableLock.userCount--;
+        if (tableLock.deleted && tableLock.userCount == 0) {
+            tableLocks.remove(directory, tableLock);
+        }
+    }
+
+    /**
+     * Removes the write lock of a deleted table once it's released by all the threads holding or waiting for it.
+     *
+     * @param tableDirectory, the directory of the deleted table
+     */
+    static synchronized void removeTableLock(Path tableDirectory) {
+        TableLock tableLock = tableLocks.get(PinnedSnapshotDeletionPolicy.normalize(tableDirectory));
+        if (tableLock != null) {
+            tableLock.deleted = true;
+        }
+    }
+
+    static synchronized boolean hasTableLock(Path tableDirectory) {
+        return tableLocks.containsKey(PinnedSnapshotDeletionPolicy.normalize(tableDirectory));
+    }
+
+    /**
+     * Gets the shared writer of an index directory, opens it if it's not opened yet.
+     * The caller must hold the write lock of the table.
+     *
+     * @param indexDirectory, the directory of the table, or of one of its partitions
+     * @param analyzer, the analyzer of the table
+     * @param codecProfile, the codec profile of the table
+     * @return
+     * @throws IOException
+     */
+    static synchronized IndexWriter getIndexWriter(Path indexDirectory, Analyzer analyzer, LuceneCodecProfile codecProfile)
+            throws IOException {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(indexDirectory);
+        IndexWriter indexWriter = indexWriters.get(directory);
+        if (indexWriter == null || ! indexWriter.isOpen()) {
+            IndexWriterConfig conf = new IndexWriterConfig(analyzer);
+            conf.setCodec(codecProfile.getCodec());
+            // keep the commits pinned by open read snapshots
+            conf.setIndexDeletionPolicy(new PinnedSnapshotDeletionPolicy(indexDirectory));
+            indexWriter = new IndexWriter(FSDirectory.open(indexDirectory), conf);
+            indexWriters.put(directory, indexWriter);
+            startIdleWriterCloser();
+        }
+        return indexWriter;
+    }
+
+    private static void startIdleWriterCloser() {
+        if (idleWriterCloser != null) {
+            return;
+        }
+        idleWriterCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "texera-idle-index-writer-closer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleWriterCloser.scheduleWithFixedDelay(() -> {
+            long timeoutSeconds = idleTimeoutSeconds;
+            if (timeoutSeconds > 0) {
+                closeIdleIndexWriters(TimeUnit.SECONDS.toNanos(timeoutSeconds));
+            }
+        }, IDLE_CHECK_INTERVAL_SECONDS, IDLE_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Closes the writers of the tables that have no open DataWriter and were last written for longer than the idle time.
+     * The tables that are being written are skipped without waiting.
+     *
+     * @param idleNanos, the idle time in nanoseconds
+     */
+    static synchronized void closeIdleIndexWriters(long idleNanos) {
+        long now = System.nanoTime();
+        for (Map.Entry<Path, TableLock> entry : tableLocks.entrySet()) {
+            TableLock tableLock = entry.getValue();
+            if (now - tableLock.unlockTimeNanos < idleNanos || ! tableLock.semaphore.tryAcquire()) {
+                continue;
+            }
+            try {
+                closeIndexWriters(entry.getKey());
+            } catch (StorageException e) {
+                // the failed writers are removed from the registry, and opened again by the next DataWriter
+            } finally {
+                tableLock.semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Closes all the writers without committing them, and stops closing idle writers.
+     * The uncommitted changes of the DataWriters that are still open are discarded, and they fail on the next write.
+     * The writers are opened again if the tables are written after that.
+     *
+     * @throws StorageException
+     */
+    static synchronized void closeAll() throws StorageException {
+        if (idleWriterCloser != null) {
+            idleWriterCloser.shutdownNow();
+            idleWriterCloser = null;
+        }
+        IOException closeException = null;
+        for (IndexWriter indexWriter : indexWriters.values()) {
+            try {
+                indexWriter.rollback();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        indexWriters.clear();
+        if (closeException != null) {
+            throw new StorageException(closeException.getMessage(), closeException);
+        }
+    }
+
+    /**
+     * Closes the writers of a directory (and of the directories under it), and deletes the directory.
+     * It waits for the open DataWriter of the table to close, unless the current thread holds the lock of the table.
+     *
+     * @param tableDirectory, the directory of the table
+     * @param directory, the directory to delete, the table directory or the directory of a partition
+     * @throws StorageException
+     */
+    static void deleteIndexDirectory(Path tableDirectory, Path directory) throws StorageException {
+        lockTableForCatalog(tableDirectory);
+        try {
+            closeIndexWriters(directory);
+            StorageUtils.deleteDirectory(directory.toString());
+        } finally {
+            unlockTableForCatalog(tableDirectory);
+        }
+    }
+
+    /**
+     * Closes the writers left in a directory that a new table is created in or imported to,
+     *   in case the directory was deleted without the registry.
+     *
+     * @param tableDirectory, the directory of the new table
+     * @throws StorageException
+     */
+    static void resetIndexDirectory(Path tableDirectory) throws StorageException {
+        lockTableForCatalog(tableDirectory);
+        try {
+            closeIndexWriters(tableDirectory);
+        } finally {
+            unlockTableForCatalog(tableDirectory);
+        }
+    }
+
+    /**
+     * Closes the writers of a directory (and of the directories under it) without committing them.
+     * The caller must hold the write lock of the table.
+     *
+     * @param directory
+     * @throws StorageException
+     */
+    private static synchronized void closeIndexWriters(Path directory) throws StorageException {
+        Path normalizedDirectory = PinnedSnapshotDeletionPolicy.normalize(directory);
+        IOException closeException = null;
+        Iterator<Map.Entry<Path, IndexWriter>> iterator = indexWriters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, IndexWriter> entry = iterator.next();
+            if (! entry.getKey().startsWith(normalizedDirectory)) {
+                continue;
+            }
+            iterator.remove();
+            try {
+                entry.getValue().rollback();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        if (closeException != null) {
+            throw new StorageException(closeException.getMessage(), closeException);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package edu.uci.ics.texera.storage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.stream.Stream;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * PartitionGranularity decides how the tuples of a partitioned table are grouped into partitions
+ *   by the date of their partition attribute.
+ *
+ * Each partition is identified by a partition key, which is also the name of the partition's directory:
+ *   DAY:   2017-01-31
+ *   MONTH: 2017-01
+ *   YEAR:  2017
+ */
+public enum PartitionGranularity {
+
+    DAY("day"),
+
+    MONTH("month"),
+
+    YEAR("year");
+
+    private final String name;
+
+    private PartitionGranularity(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Gets the key of the partition that contains a date.
+     *
+     * @param date
+     * @return
+     */
+    public String getPartitionKey(LocalDate date) {
+        switch (this) {
+        case DAY:
+            return date.toString();
+        case MONTH:
+            return YearMonth.from(date).toString();
+        default:
+            return String.format("%04d", date.getYear());
+        }
+    }
+
+    /**
+     * Gets the first day of a partition.
+     *
+     * @param partitionKey
+     * @return the first day, null if the key is not a valid partition key
+     */
+    public LocalDate getPartitionStart(String partitionKey) {
+        try {
+            switch (this) {
+            case DAY:
+                return LocalDate.parse(partitionKey);
+            case MONTH:
+                return YearMonth.parse(partitionKey).atDay(1);
+            default:
+                return partitionKey.matches("\\d{4}") ? LocalDate.of(Integer.parseInt(partitionKey), 1, 1) : null;
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the first day after a partition.
+     *
+     * @param partitionKey, a valid partition key
+     * @return
+     */
+    public LocalDate getPartitionEnd(String partitionKey) {
+        LocalDate partitionStart = getPartitionStart(partitionKey);
+        switch (this) {
+        case DAY:
+            return partitionStart.plusDays(1);
+        case MONTH:
+            return partitionStart.plusMonths(1);
+        default:
+            return partitionStart.plusYears(1);
+        }
+    }
+
+    /**
+     * Converts a granularity name (case insensitive) to a PartitionGranularity.
+     *
+     * @param name
+     * @return
+     * @throws StorageException, if the name is not valid
+     */
+    public static PartitionGranularity fromName(String name) throws StorageException {
+        return Stream.of(PartitionGranularity.values())
+                .filter(granularity -> granularity.name.equalsIgnoreCase(name))
+                .findAny()
+                .orElseThrow(() -> new StorageException(String.format("Partition granularity %s is not valid.", name)));
+    }
+
+}
@@ -0,0 +1,193 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * PartitionScheme describes how a partitioned table is split into multiple physical Lucene indexes.
+ *
+ * The tuples are partitioned by the date of a DATE or DATETIME attribute (the partition attribute),
+ *   with a PartitionGranularity (day, month or year).
+ * Each partition is a Lucene index in a sub directory of the table directory, named by its partition key:
+ *
+ *   tableDirectory/2017-01
+ *   tableDirectory/2017-02
+ *   ...
+ *
+ * A DataReader only opens the partitions that the date range of its query can hit (partition pruning),
+ *   the date range is found from the NumericRangeQuery on the numeric field of the partition attribute
+ *   (see StorageUtils.getNumericDateFieldName), either as the query itself, or as a required clause of a BooleanQuery.
+ * A partition can be dropped by deleting its directory, without running a delete query on the table.
+ */
+public class PartitionScheme {
+
+    private final String attributeName;
+    private final AttributeType attributeType;
+    private final PartitionGranularity granularity;
+
+    public PartitionScheme(String attributeName, AttributeType attributeType, PartitionGranularity granularity)
+            throws StorageException {
+        if (attributeType != AttributeType.DATE && attributeType != AttributeType.DATETIME) {
+            throw new StorageException(String.format(
+                    "Partition attribute %s must be DATE or DATETIME.", attributeName));
+        }
+        this.attributeName = attributeName;
+        this.attributeType = attributeType;
+        this.granularity = granularity;
+    }
+
+    public String getAttributeName() {
+        return this.attributeName;
+    }
+
+    public AttributeType getAttributeType() {
+        return this.attributeType;
+    }
+
+    public PartitionGranularity getGranularity() {
+        return this.granularity;
+    }
+
+    /**
+     * Gets the key of the partition that a value of the partition attribute belongs to.
+     *
+     * @param fieldValue, a LocalDate or a LocalDateTime
+     * @return
+     */
+    public String getPartitionKey(Object fieldValue) {
+        if (attributeType == AttributeType.DATE) {
+            return granularity.getPartitionKey((LocalDate) fieldValue);
+        } else {
+            return granularity.getPartitionKey(((LocalDateTime) fieldValue).toLocalDate());
+        }
+    }
+
+    public static Path getPartitionDirectory(Path tableDirectory, String partitionKey) {
+        return tableDirectory.resolve(partitionKey);
+    }
+
+    /**
+     * Gets the keys of all the partitions of a table, sorted by their dates.
+     *
+     * @param tableDirectory
+     * @return
+     * @throws StorageException
+     */
+    public List<String> getPartitionKeys(Path tableDirectory) throws StorageException {
+        if (Files.notExists(tableDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> directories = Files.list(tableDirectory)) {
+            return directories
+                    .filter(directory -> Files.isDirectory(directory))
+                    .map(directory -> directory.getFileName().toString())
+                    .filter(partitionKey -> granularity.getPartitionStart(partitionKey) != null)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the keys of the partitions that a query can hit.
+     *
+     * @param tableDirectory
+     * @param query
+     * @return
+     * @throws StorageException
+     */
+    public List<String> getPartitionKeys(Path tableDirectory, Query query) throws StorageException {
+        long[] queryRange = getQueryRange(query);
+        if (queryRange == null) {
+            return getPartitionKeys(tableDirectory);
+        }
+        return getPartitionKeys(tableDirectory).stream()
+                .filter(partitionKey -> {
+                    long[] partitionRange = getPartitionRange(partitionKey);
+                    return partitionRange[0] <= queryRange[1] && queryRange[0] <= partitionRange[1];
+                })
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Gets the range (both ends inclusive) of the encoded values of the partition attribute in a partition.
+     */
+    private long[] getPartitionRange(String partitionKey) {
+        LocalDate partitionStart = granularity.getPartitionStart(partitionKey);
+        LocalDate partitionEnd = granularity.getPartitionEnd(partitionKey);
+        if (attributeType == AttributeType.DATE) {
+            return new long[] { StorageUtils.encodeDateValue(attributeType, partitionStart),
+                    StorageUtils.encodeDateValue(attributeType, partitionEnd) - 1 };
+        } else {
+            return new long[] { StorageUtils.encodeDateValue(attributeType, partitionStart.atStartOfDay()),
+                    StorageUtils.encodeDateValue(attributeType, partitionEnd.atStartOfDay()) - 1 };
+        }
+    }
+
+    /*
+     * Gets the range (both ends inclusive) of the encoded values of the partition attribute that a query restricts to,
+     *   returns null if the query doesn't restrict the partition attribute.
+     */
+    private long[] getQueryRange(Query query) {
+        String numericFieldName = StorageUtils.getNumericDateFieldName(attributeName);
+        if (query instanceof NumericRangeQuery) {
+            NumericRangeQuery<?> rangeQuery = (NumericRangeQuery<?>) query;
+            if (! rangeQuery.getField().equals(numericFieldName)) {
+                return null;
+            }
+            long lower = Long.MIN_VALUE;
+            long upper = Long.MAX_VALUE;
+            if (rangeQuery.getMin() != null) {
+                lower = rangeQuery.getMin().longValue();
+                if (! rangeQuery.includesMin()) {
+                    lower = lower == Long.MAX_VALUE ? lower : lower + 1;
+                }
+            }
+            if (rangeQuery.getMax() != null) {
+                upper = rangeQuery.getMax().longValue();
+                if (! rangeQuery.includesMax()) {
+                    upper = upper == Long.MIN_VALUE ? upper : upper - 1;
+                }
+            }
+            return new long[] { lower, upper };
+        }
+        if (query instanceof BooleanQuery) {
+            // the ranges of all the required clauses are intersected
+            long[] range = null;
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (! clause.isRequired()) {
+                    continue;
+                }
+                long[] clauseRange = getQueryRange(clause.getQuery());
+                if (clauseRange == null) {
+                    continue;
+                }
+                if (range == null) {
+                    range = clauseRange;
+                } else {
+                    range = new long[] { Math.max(range[0], clauseRange[0]), Math.min(range[1], clauseRange[1]) };
+                }
+            }
+            return range;
+        }
+        return null;
+    }
+
+}
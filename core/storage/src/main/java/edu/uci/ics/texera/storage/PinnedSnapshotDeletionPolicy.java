@@ -0,0 +1,83 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexDeletionPolicy;
+
+/**
+ * PinnedSnapshotDeletionPolicy is the deletion policy used by every DataWriter.
+ *
+ * It behaves like Lucene's default KeepOnlyLastCommitDeletionPolicy, except that
+ *   commits pinned by an open ReadSnapshot are kept until the snapshot releases them.
+ *
+ * Lucene's own SnapshotDeletionPolicy keeps its snapshots inside one IndexWriter instance,
+ *   but DataWriters are short-lived (a new one is created for each write operation),
+ *   so the pinned generations are kept in a process-wide registry keyed by index directory instead.
+ * A released commit is deleted the next time a writer is opened or commits on that index.
+ */
+class PinnedSnapshotDeletionPolicy extends IndexDeletionPolicy {
+
+    // index directory -> (commit generation -> number of snapshots pinning it)
+    private static final Map<Path, Map<Long, Integer>> pinnedGenerations = new HashMap<>();
+
+    private final Path indexDirectory;
+
+    PinnedSnapshotDeletionPolicy(Path indexDirectory) {
+        this.indexDirectory = normalize(indexDirectory);
+    }
+
+    @Override
+    public void onInit(List<? extends IndexCommit> commits) {
+        onCommit(commits);
+    }
+
+    @Override
+    public void onCommit(List<? extends IndexCommit> commits) {
+        synchronized (PinnedSnapshotDeletionPolicy.class) {
+            // commits are sorted by age, the last one is the most recent commit and is always kept
+            for (int i = 0; i < commits.size() - 1; i++) {
+                IndexCommit commit = commits.get(i);
+                if (! isPinned(indexDirectory, commit.getGeneration())) {
+                    commit.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Pins a commit generation of an index, so that writers won't delete it.
+     */
+    static synchronized void pin(Path indexDirectory, long generation) {
+        pinnedGenerations.computeIfAbsent(normalize(indexDirectory), k -> new HashMap<>())
+            .merge(generation, 1, Integer::sum);
+    }
+
+    /**
+     * Releases a commit generation pinned by pin().
+     */
+    static synchronized void release(Path indexDirectory, long generation) {
+        Path directory = normalize(indexDirectory);
+        Map<Long, Integer> generations = pinnedGenerations.get(directory);
+        if (generations == null) {
+            return;
+        }
+        generations.computeIfPresent(generation, (k, count) -> count > 1 ? count - 1 : null);
+        if (generations.isEmpty()) {
+            pinnedGenerations.remove(directory);
+        }
+    }
+
+    static synchronized boolean isPinned(Path indexDirectory, long generation) {
+        Map<Long, Integer> generations = pinnedGenerations.get(normalize(indexDirectory));
+        return generations != null && generations.containsKey(generation);
+    }
+
+    static Path normalize(Path indexDirectory) {
+        return indexDirectory.toAbsolutePath().normalize();
+    }
+
+}
@@ -0,0 +1,228 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.RoaringDocIdSet;
+
+/**
+ * QueryResultCache is a process-wide LRU cache of the documents matching the Lucene queries of DataReader,
+ *   shared by all the queries, so the same keyword or regex gram query isn't evaluated again on an unchanged index.
+ *
+ * The matching documents are cached per segment, keyed by (table, segment, doc values generation of the segment, query),
+ *   as a compressed bitset (RoaringDocIdSet) of the segment's docIDs.
+ * The cached bitset includes the deleted documents of the segment, and DataReader filters them
+ *   by the live docs of the segment it reads, so the deletions of new commits don't invalidate the cached results.
+ * Like the TupleCache, a cached result stays valid across commits of the table until its segment is merged away.
+ *
+ * The cache is bounded by the memory used by the cached bitsets and queries,
+ *   the least recently used results are evicted first.
+ * The cache is disabled (its maximum size is 0) by default, it's enabled by setMaxSizeInBytes().
+ */
+public class QueryResultCache {
+
+    private static final QueryResultCache instance = new QueryResultCache();
+
+    // estimated memory of an entry (key, map entry) and of the cached query, without the bitset
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private volatile long maxSizeInBytes = 0;
+    private long sizeInBytes = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    // entries in the access order, the first entry is the least recently used one
+    private final LinkedHashMap<Key, RoaringDocIdSet> cachedResults = new LinkedHashMap<>(16, 0.75f, true);
+
+    private QueryResultCache() {
+    }
+
+    public static QueryResultCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the maximum estimated size of the cache, 0 disables the cache.
+     * The least recently used results are evicted if the cache is larger than the new size.
+     *
+     * @param maxSizeInBytes
+     */
+    public synchronized void setMaxSizeInBytes(long maxSizeInBytes) {
+        this.maxSizeInBytes = Math.max(0, maxSizeInBytes);
+        evict();
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * Gets the cached matching documents of a query in a segment.
+     *
+     * @param key
+     * @return the matching docIDs of the segment (including the deleted ones), null if the result isn't cached
+     */
+    synchronized RoaringDocIdSet get(Key key) {
+        RoaringDocIdSet matchingDocs = cachedResults.get(key);
+        if (matchingDocs == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return matchingDocs;
+    }
+
+    /**
+     * Caches the matching documents of a query in a segment, it replaces the cached result with the same key.
+     *
+     * @param key
+     * @param matchingDocs
+     */
+    synchronized void put(Key key, RoaringDocIdSet matchingDocs) {
+        if (! isEnabled()) {
+            return;
+        }
+        RoaringDocIdSet previousDocs = cachedResults.put(key, matchingDocs);
+        if (previousDocs != null) {
+            sizeInBytes -= getEntrySize(previousDocs);
+        }
+        sizeInBytes += getEntrySize(matchingDocs);
+        evict();
+    }
+
+    private static long getEntrySize(RoaringDocIdSet matchingDocs) {
+        return ENTRY_OVERHEAD + matchingDocs.ramBytesUsed();
+    }
+
+    /*
+     * Evicts the least recently used results until the cache is within its maximum size.
+     */
+    private void evict() {
+        Iterator<RoaringDocIdSet> iterator = cachedResults.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            sizeInBytes -= getEntrySize(iterator.next());
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes the cached results of a table, it should be called when the table is deleted.
+     *
+     * @param tableDirectory
+     */
+    synchronized void invalidate(Path tableDirectory) {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(tableDirectory);
+        Iterator<Map.Entry<Key, RoaringDocIdSet>> iterator = cachedResults.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, RoaringDocIdSet> entry = iterator.next();
+            if (entry.getKey().tableDirectory.equals(directory)) {
+                sizeInBytes -= getEntrySize(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached results and resets the metrics.
+     */
+    public synchronized void clear() {
+        cachedResults.clear();
+        sizeInBytes = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the ratio of hits in all the lookups since the cache is created or cleared.
+     *
+     * @return the hit rate, 0 if there's no lookup
+     */
+    public synchronized double getHitRate() {
+        long lookupCount = hitCount + missCount;
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getResultCount() {
+        return cachedResults.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("QueryResultCache [results = %d, size = %d/%d bytes, hits = %d, misses = %d, evictions = %d]",
+                cachedResults.size(), sizeInBytes, maxSizeInBytes, hitCount, missCount, evictionCount);
+    }
+
+    /**
+     * The key of the cached result of a query in a segment.
+     */
+    static class Key {
+
+        // the normalized directory of the table
+        private final Path tableDirectory;
+        private final String segmentID;
+        private final long docValuesGeneration;
+        // the query is not copied, the queries built by the operators are not changed after they are executed
+        private final Query query;
+
+        /*
+         * The table directory must be normalized by PinnedSnapshotDeletionPolicy.normalize(),
+         *   it's normalized once by the DataReader instead of for every segment.
+         */
+        Key(Path tableDirectory, String segmentID, long docValuesGeneration, Query query) {
+            this.tableDirectory = tableDirectory;
+            this.segmentID = segmentID;
+            this.docValuesGeneration = docValuesGeneration;
+            this.query = query;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = segmentID.hashCode();
+            result = 31 * result + Long.hashCode(docValuesGeneration);
+            result = 31 * result + query.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (! (obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return docValuesGeneration == other.docValuesGeneration && segmentID.equals(other.segmentID)
+                    && tableDirectory.equals(other.tableDirectory) && query.equals(other.query);
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * ReadSnapshot pins a point-in-time view of the tables read during one plan execution.
+ *
+ * Inside a snapshot, all DataReaders of the same table see the same Lucene commit,
+ *   even if a DataWriter (for example an IndexSink or an ingestion job) commits new data in the meantime.
+ * The first DataReader of a table opens the index and pins its IndexCommit,
+ *   the following DataReaders of that table share the pinned reader.
+ * Writers are never blocked by a snapshot, they keep committing new generations,
+ *   PinnedSnapshotDeletionPolicy only keeps the pinned commit's files alive until the snapshot is closed.
+ *
+ * A snapshot is bound to the thread that opens it (the thread executing the plan),
+ *   and it must be closed to release the pinned commits, for example:
+ *
+ *   try (ReadSnapshot snapshot = RelationManager.getInstance().openReadSnapshot()) {
+ *       Engine.getEngine().evaluate(plan);
+ *   }
+ *
+ * The system catalog tables are never pinned, catalog lookups always see the latest commit.
+ */
+public class ReadSnapshot implements AutoCloseable {
+
+    private static final ThreadLocal<ReadSnapshot> currentSnapshot = new ThreadLocal<>();
+
+    // the snapshot that was active on this thread before this one is opened
+    private final ReadSnapshot previousSnapshot;
+    private final Map<Path, DirectoryReader> pinnedReaders = new HashMap<>();
+
+    private boolean isOpen = true;
+
+    private ReadSnapshot(ReadSnapshot previousSnapshot) {
+        this.previousSnapshot = previousSnapshot;
+    }
+
+    /**
+     * Opens a new snapshot and binds it to the current thread.
+     *
+     * @return the opened snapshot
+     */
+    static ReadSnapshot open() {
+        ReadSnapshot snapshot = new ReadSnapshot(currentSnapshot.get());
+        currentSnapshot.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Gets the snapshot bound to the current thread.
+     *
+     * @return the current snapshot, null if there's no open snapshot
+     */
+    public static ReadSnapshot current() {
+        return currentSnapshot.get();
+    }
+
+    /**
+     * Gets a reader of the pinned commit of an index.
+     * The index is opened and its commit is pinned on the first call.
+     *
+     * The caller shares the returned reader with other DataReaders,
+     *   it must call decRef() instead of close() when it's done with the reader.
+     *
+     * @param indexDirectory
+     * @return the pinned reader, with its reference count incremented
+     * @throws StorageException
+     */
+    synchronized DirectoryReader acquireReader(Path indexDirectory) throws StorageException {
+        if (! isOpen) {
+            throw new StorageException("The read snapshot is already closed");
+        }
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(indexDirectory);
+        DirectoryReader reader = pinnedReaders.get(directory);
+        try {
+            if (reader == null) {
+                reader = DirectoryReader.open(FSDirectory.open(directory));
+                PinnedSnapshotDeletionPolicy.pin(directory, reader.getIndexCommit().getGeneration());
+                pinnedReaders.put(directory, reader);
+            }
+            reader.incRef();
+            return reader;
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks if the snapshot pins the index in the directory.
+     * The system catalog tables are not pinned.
+     *
+     * @param indexDirectory
+     * @return
+     */
+    boolean covers(Path indexDirectory) {
+        return ! CatalogConstants.isCatalogDirectory(PinnedSnapshotDeletionPolicy.normalize(indexDirectory));
+    }
+
+    /**
+     * Gets the generation of the commit pinned for an index.
+     *
+     * @param indexDirectory
+     * @return the pinned generation, -1 if the index hasn't been read in this snapshot
+     * @throws StorageException
+     */
+    public synchronized long getPinnedGeneration(Path indexDirectory) throws StorageException {
+        DirectoryReader reader = pinnedReaders.get(PinnedSnapshotDeletionPolicy.normalize(indexDirectory));
+        if (reader == null) {
+            return -1;
+        }
+        try {
+            return reader.getIndexCommit().getGeneration();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Releases all the pinned commits and unbinds the snapshot from the current thread.
+     */
+    @Override
+    public synchronized void close() throws StorageException {
+        if (! isOpen) {
+            return;
+        }
+        isOpen = false;
+        if (currentSnapshot.get() == this) {
+            if (previousSnapshot == null) {
+                currentSnapshot.remove();
+            } else {
+                currentSnapshot.set(previousSnapshot);
+            }
+        }
+
+        StorageException closeException = null;
+        for (Map.Entry<Path, DirectoryReader> entry : pinnedReaders.entrySet()) {
+            DirectoryReader reader = entry.getValue();
+            try {
+                PinnedSnapshotDeletionPolicy.release(entry.getKey(), reader.getIndexCommit().getGeneration());
+                reader.decRef();
+            } catch (IOException e) {
+                closeException = new StorageException(e.getMessage(), e);
+            }
+        }
+        pinnedReaders.clear();
+
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+}
@@ -3,8 +3,13 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -14,7 +19,6 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 
-import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.field.IDField;
@@ -24,12 +28,27 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
+/**
+ * RelationManager manages the tables of Texera: the table and schema catalogs, 
+ *   and the DataReaders and DataWriters of the tables.
+ * 
+ * RelationManager is thread-safe. 
+ * The operations that change the catalog (creating, importing and deleting tables, dropping partitions, 
+ *   and changing a table's engine) are serialized, so they never interleave their catalog writes.
+ * The operations that change the index of a table lock the table before they enter the catalog monitor, 
+ *   so waiting for an open DataWriter of one table (such as a long IndexSink session) doesn't block the others.
+ * The DataWriters of a table share one long-lived Lucene IndexWriter, and only one of them is open at a time 
+ *   (see IndexWriterRegistry), while DataReaders read the last commit of the table without any lock.
+ */
 public class RelationManager {
     
     private static volatile RelationManager singletonInstance = null;
     
+    private final RowIDLookup rowIDLookup = new RowIDLookup();
+    
     private RelationManager() throws StorageException {
         if (! checkCatalogExistence()) {
             initializeCatalog();
@@ -75,6 +94,126 @@ public class RelationManager {
      */
     public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString)
             throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, LuceneCodecProfile.DEFAULT_PROFILE);
+    }
+    
+    /**
+     * Creates a new table with a codec profile. 
+     *   The codec profile decides the compression of the stored fields 
+     *   and whether TEXT values are stored separately (see LuceneCodecProfile),
+     *   it's persisted in the table catalog and applied by every DataWriter of the table.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param codecProfile, the codec profile of the table
+     * @throws StorageException
+     */
+    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile) throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, null, 0, RowIDType.DEFAULT_TYPE);
+    }
+    
+    /**
+     * Creates a new table with a row ID type (see RowIDType).
+     *   The row ID type decides the "_id" assigned to the inserted tuples, 
+     *   it's persisted in the table catalog and can only be chosen when the table is created.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param codecProfile, the codec profile of the table
+     * @param rowIDType, the row ID type of the table
+     * @throws StorageException
+     */
+    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile, RowIDType rowIDType) throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, null, 0, rowIDType);
+    }
+    
+    /**
+     * Creates a new table with gram fields.
+     *   The value of each TEXT attribute is also indexed as its n-grams (see DataStore.getGramSize()),
+     *   so the documents that may contain a substring are found by the index instead of scanning the table.
+     *   The gram fields make the index larger and the writes slower, they can only be chosen when the table is created.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param codecProfile, the codec profile of the table
+     * @param gramSize, the size of the grams, must be positive
+     * @throws StorageException
+     */
+    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile, int gramSize) throws StorageException {
+        if (gramSize <= 0) {
+            throw new StorageException("the size of the grams must be positive");
+        }
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, null, gramSize, 
+                RowIDType.DEFAULT_TYPE);
+    }
+    
+    /**
+     * Creates a new partitioned table.
+     *   The tuples are stored in one Lucene index per partition (see PartitionScheme),
+     *   partitioned by the date of a DATE or DATETIME attribute.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the partitions, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param partitionAttributeName, the DATE or DATETIME attribute to partition the table by
+     * @param granularity, the granularity of the partitions
+     * @throws StorageException
+     */
+    public void createPartitionedTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            String partitionAttributeName, PartitionGranularity granularity) throws StorageException {
+        createPartitionedTable(tableName, indexDirectory, schema, luceneAnalyzerString, 
+                LuceneCodecProfile.DEFAULT_PROFILE, partitionAttributeName, granularity);
+    }
+    
+    /**
+     * Creates a new partitioned table with a codec profile.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the partitions, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param codecProfile, the codec profile of the table
+     * @param partitionAttributeName, the DATE or DATETIME attribute to partition the table by
+     * @param granularity, the granularity of the partitions
+     * @throws StorageException
+     */
+    public void createPartitionedTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile, String partitionAttributeName, PartitionGranularity granularity) 
+                    throws StorageException {
+        if (! schema.containsAttribute(partitionAttributeName)) {
+            throw new StorageException(String.format("Partition attribute %s is not in the schema.", partitionAttributeName));
+        }
+        PartitionScheme partitionScheme = new PartitionScheme(partitionAttributeName, 
+                schema.getAttribute(partitionAttributeName).getType(), granularity);
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, partitionScheme, 0, 
+                RowIDType.DEFAULT_TYPE);
+    }
+    
+    private void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile, PartitionScheme partitionScheme, int gramSize, RowIDType rowIDType) 
+                    throws StorageException {
+        IndexWriterRegistry.lockTableForCatalog(indexDirectory);
+        try {
+            createLockedTable(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, partitionScheme, 
+                    gramSize, rowIDType);
+        } finally {
+            IndexWriterRegistry.unlockTableForCatalog(indexDirectory);
+        }
+    }
+    
+    private synchronized void createLockedTable(String tableName, Path indexDirectory, Schema schema, 
+            String luceneAnalyzerString, LuceneCodecProfile codecProfile, PartitionScheme partitionScheme, int gramSize, 
+            RowIDType rowIDType) throws StorageException {
         // convert the table name to lower case
         tableName = tableName.toLowerCase();
         // table should not exist
@@ -82,6 +221,39 @@ public class RelationManager {
             throw new StorageException(String.format("Table %s already exists.", tableName));
         }
         
+        // create folder if it's not there
+        // and check if it's already taken by another table
+        checkIndexDirectoryNotTaken(indexDirectory);
+        
+        // check if the lucene analyzer string is valid
+        Analyzer luceneAnalyzer = null;
+        try {
+            luceneAnalyzer = getTableAnalyzer(luceneAnalyzerString, gramSize);
+        } catch (DataflowException e) {
+            throw new StorageException("Lucene Analyzer String is not valid.");
+        }
+        
+        // create the directory and clear all data in the index directory
+        IndexWriterRegistry.resetIndexDirectory(indexDirectory);
+        Schema tableSchema = Schema.Builder.getSchemaWithID(schema);
+        DataStore tableDataStore = new DataStore(indexDirectory, tableSchema, codecProfile, partitionScheme, 
+                StorageEngine.DEFAULT_ENGINE, gramSize, rowIDType);
+        DataWriter dataWriter = new DataWriter(tableDataStore, luceneAnalyzer);
+        dataWriter.open();
+        dataWriter.clearData();
+        dataWriter.close();
+        
+        // write table info to catalog
+        writeTableInfoToCatalog(tableName, indexDirectory, schema, luceneAnalyzerString, codecProfile, partitionScheme,
+                StorageEngine.DEFAULT_ENGINE, gramSize, rowIDType);
+
+    }
+    
+    /*
+     * Creates the index directory if it's not there,
+     *   and throws an exception if the directory is already taken by another table.
+     */
+    private void checkIndexDirectoryNotTaken(Path indexDirectory) throws StorageException {
         // create folder if it's not there
         // and convert the index directory to its absolute path
         String indexDirectoryStr;
@@ -110,26 +282,76 @@ public class RelationManager {
                     "Table %s already takes the index directory %s. Please choose another directory.", 
                     overlapTableName, indexDirectory));
         }
-        
-        // check if the lucene analyzer string is valid
-        Analyzer luceneAnalyzer = null;
+    }
+    
+    /**
+     * Exports a table to an archive file (see TableArchive).
+     * The archive contains the catalog entry of the table and the files of its Lucene index,
+     *   it can be imported by importTable(), on this or another Texera instance.
+     * 
+     * The last commit of the table is exported, writers of the table are not blocked during the export.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param archiveFile, the file to write the archive to, it's overwritten if it exists
+     * @throws StorageException
+     */
+    public void exportTable(String tableName, Path archiveFile) throws StorageException {
+        if (isSystemCatalog(tableName)) {
+            throw new StorageException("Exporting a system catalog table is prohibited.");
+        }
+        TableArchive.write(getTableDataStore(tableName), getTableAnalyzerString(tableName), archiveFile);
+    }
+    
+    /**
+     * Imports a table from an archive file written by exportTable().
+     * The index files in the archive are copied to the index directory as they are, 
+     *   the tuples are not analyzed again.
+     * 
+     * The table is created with the schema, the analyzer, the codec profile, the partition scheme
+     *   and the row ID type in the archive, under the given table name.
+     * The checksum of the archive is verified before the table is added to the catalog.
+     * 
+     * @param tableName, the name of the imported table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index, must be empty if it exists
+     * @param archiveFile, the archive file
+     * @throws StorageException, if the table already exists, or the archive is not valid
+     */
+    public void importTable(String tableName, Path indexDirectory, Path archiveFile) throws StorageException {
+        IndexWriterRegistry.lockTableForCatalog(indexDirectory);
         try {
-            luceneAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerString);
-        } catch (DataflowException e) {
-            throw new StorageException("Lucene Analyzer String is not valid.");
+            importLockedTable(tableName, indexDirectory, archiveFile);
+        } finally {
+            IndexWriterRegistry.unlockTableForCatalog(indexDirectory);
+        }
+    }
+    
+    private synchronized void importLockedTable(String tableName, Path indexDirectory, Path archiveFile) 
+            throws StorageException {
+        // convert the table name to lower case
+        tableName = tableName.toLowerCase();
+        // table should not exist
+        if (checkTableExistence(tableName)) {
+            throw new StorageException(String.format("Table %s already exists.", tableName));
+        }
+        // the index directory should be empty
+        if (Files.exists(indexDirectory)) {
+            try (Stream<Path> files = Files.list(indexDirectory)) {
+                if (files.findAny().isPresent()) {
+                    throw new StorageException(String.format("Index directory %s is not empty.", indexDirectory));
+                }
+            } catch (IOException e) {
+                throw new StorageException(e);
+            }
         }
+        checkIndexDirectoryNotTaken(indexDirectory);
+        IndexWriterRegistry.resetIndexDirectory(indexDirectory);
         
-        // create the directory and clear all data in the index directory
-        Schema tableSchema = Schema.Builder.getSchemaWithID(schema);
-        DataStore tableDataStore = new DataStore(indexDirectory, tableSchema);
-        DataWriter dataWriter = new DataWriter(tableDataStore, luceneAnalyzer);
-        dataWriter.open();
-        dataWriter.clearData();
-        dataWriter.close();
+        TableArchive tableArchive = TableArchive.read(archiveFile, indexDirectory);
         
         // write table info to catalog
-        writeTableInfoToCatalog(tableName, indexDirectory, schema, luceneAnalyzerString);
-
+        writeTableInfoToCatalog(tableName, indexDirectory, tableArchive.getSchema(), tableArchive.getLuceneAnalyzerString(),
+                tableArchive.getCodecProfile(), tableArchive.getPartitionScheme(), StorageEngine.DEFAULT_ENGINE,
+                tableArchive.getGramSize(), tableArchive.getRowIDType());
     }
 
     /**
@@ -137,26 +359,33 @@ public class RelationManager {
      * If the table doesn't exist, it won't do anything.
      * Deleting system catalog tables is prohibited.
      * 
+     * It waits for the open DataWriter of the table to close, unless it's opened by the current thread.
+     * 
      * @param tableName, the name of a table, case insensitive
      * @throws StorageException
      */
     public void deleteTable(String tableName) throws StorageException {
-        tableName = tableName.toLowerCase();
+        String lowerCaseTableName = tableName.toLowerCase();
         // User can't delete catalog table
-        if (isSystemCatalog(tableName)) {
+        if (isSystemCatalog(lowerCaseTableName)) {
             throw new StorageException("Deleting a system catalog table is prohibited.");
         }
         // if table doesn't exist, then do nothing
-        if (! checkTableExistence(tableName)) {
-            return;
-        }
-        
+        runWithTableLocked(lowerCaseTableName, tableDirectory -> {
+            deleteLockedTable(lowerCaseTableName, tableDirectory);
+            return null;
+        });
+    }
+    
+    private void deleteLockedTable(String tableName, Path tableDirectory) throws StorageException {
         // try to clear all data in the table
         DataWriter dataWriter = getTableDataWriter(tableName);
         dataWriter.open();
         dataWriter.clearData();
         dataWriter.close();
-        StorageUtils.deleteDirectory(getTableDirectory(tableName));
+        invalidateTableCaches(tableDirectory);
+        IndexWriterRegistry.deleteIndexDirectory(tableDirectory, tableDirectory);
+        IndexWriterRegistry.removeTableLock(tableDirectory);
 
         // generate a query for the table name
         Query catalogTableNameQuery = new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName));
@@ -177,21 +406,74 @@ public class RelationManager {
         
     }
     
+    /*
+     * Locks the table, then runs an operation on it in the catalog monitor, with the directory of the table.
+     * The lock is acquired outside of the monitor, so waiting for an open DataWriter of the table 
+     *   doesn't block the catalog operations of the other tables.
+     * Returns null without running the operation if the table doesn't exist.
+     */
+    private <T> T runWithTableLocked(String tableName, Function<Path, T> operation) throws StorageException {
+        while (true) {
+            Path tableDirectory = getTableDirectoryIfExists(tableName);
+            if (tableDirectory == null) {
+                return null;
+            }
+            IndexWriterRegistry.lockTableForCatalog(tableDirectory);
+            try {
+                synchronized (this) {
+                    // the table may be deleted, or created again in another directory, while waiting for the lock
+                    if (tableDirectory.equals(getTableDirectoryIfExists(tableName))) {
+                        return operation.apply(tableDirectory);
+                    }
+                }
+            } finally {
+                IndexWriterRegistry.unlockTableForCatalog(tableDirectory);
+            }
+        }
+    }
+    
+    private static Path getTableDirectoryIfExists(String tableName) throws StorageException {
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        if (tableCatalogTuple == null) {
+            return null;
+        }
+        return Paths.get(tableCatalogTuple.getField(CatalogConstants.TABLE_DIRECTORY).getValue().toString());
+    }
+    
+    private void invalidateTableCaches(Path tableDirectory) throws StorageException {
+        rowIDLookup.invalidate(tableDirectory);
+        InMemoryTable.invalidate(tableDirectory);
+        TupleCache.getInstance().invalidate(tableDirectory);
+        QueryResultCache.getInstance().invalidate(tableDirectory);
+    }
+    
     /**
      * Gets a tuple in a table by its _id field.
      * Returns null if the tuple doesn't exist.
      * 
+     * The ID is looked up in a cached reader of the table (see RowIDLookup),
+     *   unless the table is partitioned or the lookup needs to read a ReadSnapshot.
+     * A string ID of a table with NUMERIC row IDs is converted to the numeric ID (see RowIDType.normalize()).
+     * 
      * @param tableName, the name of the table, case insensitive
      * @param idValue, the IDField to lookup
      * @return
      * @throws StorageException
      */
     public Tuple getTupleByID(String tableName, IDField idField) throws StorageException {
+        DataStore tableDataStore = getTableDataStore(tableName);
+        idField = tableDataStore.getRowIDType().normalize(idField);
+        ReadSnapshot readSnapshot = ReadSnapshot.current();
+        if (! tableDataStore.isPartitioned() 
+                && (readSnapshot == null || ! readSnapshot.covers(tableDataStore.getDataDirectory()))) {
+            return rowIDLookup.getTupleByID(tableDataStore, idField);
+        }
+        
         // construct the ID query
-        Query tupleIDQuery = new TermQuery(new Term(SchemaConstants._ID, idField.getValue().toString()));
+        Query tupleIDQuery = new TermQuery(StorageUtils.getIDTerm(idField));
         
         // find the tuple using DataReader
-        DataReader dataReader = getTableDataReader(tableName, tupleIDQuery);
+        DataReader dataReader = new DataReader(tableDataStore, tupleIDQuery);
         dataReader.setPayloadAdded(false);
 
         dataReader.open(); 
@@ -216,6 +498,79 @@ public class RelationManager {
         return new DataWriter(getTableDataStore(tableName), getTableAnalyzer(tableName));
     }
     
+    /**
+     * Opens a read snapshot on the current thread.
+     * Until the snapshot is closed, all the DataReaders opened by this thread
+     *   read the same point-in-time view of each table, regardless of concurrent writes.
+     * 
+     * The snapshot should be opened before a plan is executed and closed after the plan finishes.
+     * 
+     * @return the opened ReadSnapshot
+     */
+    public ReadSnapshot openReadSnapshot() {
+        return ReadSnapshot.open();
+    }
+    
+    /**
+     * Sets the number of threads shared by all the DataReaders to search the segments of a table concurrently.
+     * A DataReader with a limit scores the segments in parallel to find the top matching documents.
+     * The default is 1, which searches the segments one by one on the reader's thread.
+     * 
+     * @param threadCount, the number of search threads, must be positive
+     * @throws StorageException
+     */
+    public void setSearchThreadCount(int threadCount) throws StorageException {
+        SearchExecutor.setThreadCount(threadCount);
+    }
+    
+    public int getSearchThreadCount() {
+        return SearchExecutor.getThreadCount();
+    }
+    
+    /**
+     * Sets how long a DataWriter waits in open() for another DataWriter of the same table to close.
+     * A DataWriter keeps the table locked from open() to close(), so the timeout should be longer than 
+     *   the longest write session on a table, such as an IndexSink or a TableImporter writing a large input.
+     * The default is 30 seconds.
+     * 
+     * @param timeoutSeconds, the timeout in seconds, must be positive
+     * @throws StorageException
+     */
+    public void setWriteLockTimeout(long timeoutSeconds) throws StorageException {
+        IndexWriterRegistry.setWriteLockTimeout(timeoutSeconds);
+    }
+    
+    public long getWriteLockTimeout() {
+        return IndexWriterRegistry.getWriteLockTimeout();
+    }
+    
+    /**
+     * Sets how long the Lucene IndexWriter of a table stays open after its last DataWriter is closed.
+     * An open IndexWriter holds the write.lock of the index, and the memory of its buffers.
+     * The default is 600 seconds, 0 keeps the IndexWriters open until closeIndexWriters() is called.
+     * 
+     * @param timeoutSeconds, the idle timeout in seconds, must not be negative
+     * @throws StorageException
+     */
+    public void setIndexWriterIdleTimeout(long timeoutSeconds) throws StorageException {
+        IndexWriterRegistry.setIdleTimeout(timeoutSeconds);
+    }
+    
+    public long getIndexWriterIdleTimeout() {
+        return IndexWriterRegistry.getIdleTimeout();
+    }
+    
+    /**
+     * Closes the Lucene IndexWriters of all the tables and releases their write.lock files,
+     *   it should be called when the application stops.
+     * The uncommitted changes of the DataWriters that are still open are discarded.
+     * 
+     * @throws StorageException
+     */
+    public void closeIndexWriters() throws StorageException {
+        IndexWriterRegistry.closeAll();
+    }
+    
     /**
      * Gets a DataReader for a table based on a query.
      * DataReader can return tuples that match the query.
@@ -230,6 +585,32 @@ public class RelationManager {
         return new DataReader(tableDataStore, tupleQuery);
     }
     
+    /**
+     * Counts the tuples of a table that match a query.
+     * The matching documents are counted by the index, the tuples are not read.
+     * 
+     * @param tableName, the name of a table, case insensitive
+     * @param tupleQuery, the query to run on the table
+     * @return the number of matching tuples
+     * @throws StorageException
+     */
+    public int getTableTupleCount(String tableName, Query tupleQuery) throws StorageException {
+        return new DataReader(getTableDataStore(tableName), tupleQuery).count();
+    }
+    
+    /**
+     * Checks if any tuple of a table matches a query.
+     * The search stops at the first matching document, the tuple is not read.
+     * 
+     * @param tableName, the name of a table, case insensitive
+     * @param tupleQuery, the query to run on the table
+     * @return true if at least one tuple matches the query
+     * @throws StorageException
+     */
+    public boolean checkTupleExistence(String tableName, Query tupleQuery) throws StorageException {
+        return new DataReader(getTableDataStore(tableName), tupleQuery).exists();
+    }
+    
     /**
      * Gets the DataStore(directory and schema) of a table.
      * 
@@ -240,7 +621,13 @@ public class RelationManager {
     public DataStore getTableDataStore(String tableName) throws StorageException {
         String tableDirectory = getTableDirectory(tableName);
         Schema tableSchema = getTableSchema(tableName);
-        return new DataStore(tableDirectory, tableSchema);
+        LuceneCodecProfile codecProfile = getTableCodecProfile(tableName);
+        PartitionScheme partitionScheme = getTablePartitionScheme(tableName);
+        StorageEngine storageEngine = getTableStorageEngine(tableName);
+        int gramSize = getTableGramSize(tableName);
+        RowIDType rowIDType = getTableRowIDType(tableName);
+        return new DataStore(Paths.get(tableDirectory), tableSchema, codecProfile, partitionScheme, storageEngine, 
+                gramSize, rowIDType);
     }
 
     /**
@@ -316,6 +703,251 @@ public class RelationManager {
         return analyzerString;
     }
 
+    /**
+     * Gets the codec profile of a table.
+     * Tables created before codec profiles were added to the catalog use the default profile.
+     *   
+     * @param tableName, the name of the table, case insensitive
+     * @return
+     * @throws StorageException
+     */
+    public LuceneCodecProfile getTableCodecProfile(String tableName) throws StorageException {
+        // get the tuples with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        
+        // if the tuple is not found, then the table name is not found
+        if (tableCatalogTuple == null) {
+            throw new StorageException(String.format("The codec profile for table %s is not found.", tableName));
+        }
+        
+        Object codecProfileName = tableCatalogTuple.getField(CatalogConstants.TABLE_CODEC_PROFILE).getValue();
+        if (codecProfileName == null) {
+            return LuceneCodecProfile.DEFAULT_PROFILE;
+        }
+        return LuceneCodecProfile.fromProfileName(codecProfileName.toString());
+    }
+
+    /**
+     * Gets the partition scheme of a table.
+     *   
+     * @param tableName, the name of the table, case insensitive
+     * @return the partition scheme, null if the table is not partitioned
+     * @throws StorageException
+     */
+    public PartitionScheme getTablePartitionScheme(String tableName) throws StorageException {
+        // get the tuples with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        
+        // if the tuple is not found, then the table name is not found
+        if (tableCatalogTuple == null) {
+            throw new StorageException(String.format("The partition scheme for table %s is not found.", tableName));
+        }
+        
+        Object attributeName = tableCatalogTuple.getField(CatalogConstants.TABLE_PARTITION_ATTRIBUTE).getValue();
+        if (attributeName == null || attributeName.toString().isEmpty()) {
+            return null;
+        }
+        Object granularityName = tableCatalogTuple.getField(CatalogConstants.TABLE_PARTITION_GRANULARITY).getValue();
+        AttributeType attributeType = getTableSchema(tableName).getAttribute(attributeName.toString()).getType();
+        return new PartitionScheme(attributeName.toString(), attributeType, 
+                PartitionGranularity.fromName(granularityName.toString()));
+    }
+    
+    /**
+     * Gets the storage engine of a table.
+     * Tables created before storage engines were added to the catalog use the default engine.
+     *   
+     * @param tableName, the name of the table, case insensitive
+     * @return
+     * @throws StorageException
+     */
+    public StorageEngine getTableStorageEngine(String tableName) throws StorageException {
+        // get the tuples with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        
+        // if the tuple is not found, then the table name is not found
+        if (tableCatalogTuple == null) {
+            throw new StorageException(String.format("The storage engine for table %s is not found.", tableName));
+        }
+        
+        Object storageEngineName = tableCatalogTuple.getField(CatalogConstants.TABLE_STORAGE_ENGINE).getValue();
+        if (storageEngineName == null || storageEngineName.toString().isEmpty()) {
+            return StorageEngine.DEFAULT_ENGINE;
+        }
+        return StorageEngine.fromName(storageEngineName.toString());
+    }
+    
+    /**
+     * Gets the size of the grams of the gram fields of a table (see DataStore.getGramSize()).
+     *   
+     * @param tableName, the name of the table, case insensitive
+     * @return the size of the grams, 0 if the table doesn't have gram fields
+     * @throws StorageException
+     */
+    public int getTableGramSize(String tableName) throws StorageException {
+        // get the tuples with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        
+        // if the tuple is not found, then the table name is not found
+        if (tableCatalogTuple == null) {
+            throw new StorageException(String.format("The gram size for table %s is not found.", tableName));
+        }
+        
+        Object gramSize = tableCatalogTuple.getField(CatalogConstants.TABLE_GRAM_SIZE).getValue();
+        if (gramSize == null || gramSize.toString().isEmpty()) {
+            return 0;
+        }
+        return Integer.parseInt(gramSize.toString());
+    }
+    
+    /**
+     * Gets the row ID type of a table.
+     * Tables created before row ID types were added to the catalog use the default type.
+     *   
+     * @param tableName, the name of the table, case insensitive
+     * @return
+     * @throws StorageException
+     */
+    public RowIDType getTableRowIDType(String tableName) throws StorageException {
+        // get the tuples with tableName from the table catalog
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        
+        // if the tuple is not found, then the table name is not found
+        if (tableCatalogTuple == null) {
+            throw new StorageException(String.format("The row ID type for table %s is not found.", tableName));
+        }
+        
+        Object rowIDTypeName = tableCatalogTuple.getField(CatalogConstants.TABLE_ROW_ID_TYPE).getValue();
+        if (rowIDTypeName == null || rowIDTypeName.toString().isEmpty()) {
+            return RowIDType.DEFAULT_TYPE;
+        }
+        return RowIDType.fromName(rowIDTypeName.toString());
+    }
+    
+    /**
+     * Sets the storage engine of a table (see StorageEngine).
+     * The data of the table is not changed, the engine only decides how the tuples are read.
+     * The MEMORY engine can't be used by partitioned tables.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param storageEngine, the new storage engine of the table
+     * @throws StorageException
+     */
+    public synchronized void setTableStorageEngine(String tableName, StorageEngine storageEngine) throws StorageException {
+        tableName = tableName.toLowerCase();
+        if (isSystemCatalog(tableName)) {
+            throw new StorageException("modify system catalog is not allowed");
+        }
+        if (! checkTableExistence(tableName)) {
+            throw new StorageException(String.format("Table %s doesn't exist.", tableName));
+        }
+        
+        Path tableDirectory = Paths.get(getTableDirectory(tableName));
+        String luceneAnalyzerString = getTableAnalyzerString(tableName);
+        LuceneCodecProfile codecProfile = getTableCodecProfile(tableName);
+        PartitionScheme partitionScheme = getTablePartitionScheme(tableName);
+        int gramSize = getTableGramSize(tableName);
+        RowIDType rowIDType = getTableRowIDType(tableName);
+        if (storageEngine == StorageEngine.MEMORY && partitionScheme != null) {
+            throw new StorageException(String.format(
+                    "Table %s is partitioned, it can't use the %s storage engine.", tableName, storageEngine));
+        }
+        
+        // replace the table's tuple in the table catalog
+        DataWriter tableCatalogWriter = new DataWriter(CatalogConstants.TABLE_CATALOG_DATASTORE, 
+                LuceneAnalyzerConstants.getStandardAnalyzer());
+        tableCatalogWriter.open();
+        tableCatalogWriter.deleteTuple(new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName)));
+        tableCatalogWriter.insertTuple(CatalogConstants.getTableCatalogTuple(tableName, tableDirectory, luceneAnalyzerString,
+                codecProfile, partitionScheme, storageEngine, gramSize, rowIDType));
+        tableCatalogWriter.close();
+        
+        // release the memory of the table if it's not used anymore
+        if (storageEngine != StorageEngine.MEMORY) {
+            InMemoryTable.invalidate(tableDirectory);
+        }
+    }
+    
+    /**
+     * Gets the keys of the partitions of a partitioned table, sorted by their dates.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @return
+     * @throws StorageException, if the table is not partitioned
+     */
+    public List<String> getTablePartitionKeys(String tableName) throws StorageException {
+        return getPartitionSchemeOrThrow(tableName).getPartitionKeys(Paths.get(getTableDirectory(tableName)));
+    }
+    
+    /**
+     * Drops a partition of a partitioned table by deleting its index directory,
+     *   which is much cheaper than deleting its tuples by a query.
+     * If the partition doesn't exist, it won't do anything.
+     * 
+     * Like deleteTable(), it waits for the open DataWriter of the table to close, 
+     *   unless it's opened by the current thread.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param partitionKey, the key of the partition, for example "2017-01" for a monthly partition
+     * @throws StorageException, if the table is not partitioned
+     */
+    public void dropPartition(String tableName, String partitionKey) throws StorageException {
+        PartitionScheme partitionScheme = getPartitionSchemeOrThrow(tableName);
+        if (partitionScheme.getGranularity().getPartitionStart(partitionKey) == null) {
+            throw new StorageException(String.format("Partition key %s is not valid.", partitionKey));
+        }
+        dropPartitions(tableName, partitionKeys -> 
+                partitionKeys.contains(partitionKey) ? Arrays.asList(partitionKey) : Collections.emptyList());
+    }
+    
+    /**
+     * Drops all the partitions of a partitioned table which only contain tuples before a date.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param date, partitions which end before (or on) this date are dropped
+     * @return the keys of the dropped partitions
+     * @throws StorageException, if the table is not partitioned
+     */
+    public List<String> dropPartitionsBefore(String tableName, LocalDate date) throws StorageException {
+        PartitionScheme partitionScheme = getPartitionSchemeOrThrow(tableName);
+        return dropPartitions(tableName, partitionKeys -> partitionKeys.stream()
+                .filter(partitionKey -> ! partitionScheme.getGranularity().getPartitionEnd(partitionKey).isAfter(date))
+                .collect(Collectors.toList()));
+    }
+    
+    /*
+     * Drops the partitions chosen from the existing partition keys of a table, with the table locked
+     *   (see runWithTableLocked()), and returns the keys of the dropped partitions.
+     */
+    private List<String> dropPartitions(String tableName, Function<List<String>, List<String>> partitionKeySelector)
+            throws StorageException {
+        String lowerCaseTableName = tableName.toLowerCase();
+        List<String> droppedPartitionKeys = runWithTableLocked(lowerCaseTableName, tableDirectory -> {
+            List<String> partitionKeys = partitionKeySelector.apply(
+                    getPartitionSchemeOrThrow(lowerCaseTableName).getPartitionKeys(tableDirectory));
+            for (String partitionKey : partitionKeys) {
+                IndexWriterRegistry.deleteIndexDirectory(tableDirectory, 
+                        PartitionScheme.getPartitionDirectory(tableDirectory, partitionKey));
+            }
+            if (! partitionKeys.isEmpty()) {
+                invalidateTableCaches(tableDirectory);
+            }
+            return partitionKeys;
+        });
+        if (droppedPartitionKeys == null) {
+            throw new StorageException(String.format("Table %s doesn't exist.", lowerCaseTableName));
+        }
+        return droppedPartitionKeys;
+    }
+    
+    private PartitionScheme getPartitionSchemeOrThrow(String tableName) throws StorageException {
+        PartitionScheme partitionScheme = getTablePartitionScheme(tableName);
+        if (partitionScheme == null) {
+            throw new StorageException(String.format("Table %s is not partitioned.", tableName));
+        }
+        return partitionScheme;
+    }
+
     /**
      * Gets the Lucene analyzer of a table.
      *   
@@ -329,7 +961,7 @@ public class RelationManager {
         // convert a lucene analyzer string to an analyzer object
         Analyzer luceneAnalyzer = null;
         try {
-            luceneAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(analyzerString);
+            luceneAnalyzer = getTableAnalyzer(analyzerString, getTableGramSize(tableName));
         } catch (DataflowException e) {
             throw new StorageException(e);
         }
@@ -337,31 +969,43 @@ public class RelationManager {
         return luceneAnalyzer;
     }
     
+    /*
+     * Gets the analyzer of a table, which also tokenizes the gram fields if the table has them.
+     */
+    private static Analyzer getTableAnalyzer(String luceneAnalyzerString, int gramSize) throws DataflowException {
+        if (gramSize > 0) {
+            return LuceneAnalyzerConstants.getGramFieldAnalyzer(luceneAnalyzerString, gramSize);
+        }
+        return LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerString);
+    }
+    
     /*
      * This is a helper function that writes the table information to 
      *   the table catalog and the schema catalog.
      */
-    private void writeTableInfoToCatalog(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString) 
-            throws StorageException {   
-        // write table catalog
-        DataStore tableCatalogStore = new DataStore(CatalogConstants.TABLE_CATALOG_DIRECTORY,
-                CatalogConstants.TABLE_CATALOG_SCHEMA);
-        DataWriter dataWriter = new DataWriter(tableCatalogStore, LuceneAnalyzerConstants.getStandardAnalyzer());
-        dataWriter.open();
-        dataWriter.insertTuple(CatalogConstants.getTableCatalogTuple(tableName, indexDirectory, luceneAnalyzerString));
-        dataWriter.close();
-       
+    private void writeTableInfoToCatalog(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            LuceneCodecProfile codecProfile, PartitionScheme partitionScheme, StorageEngine storageEngine, int gramSize,
+            RowIDType rowIDType) throws StorageException {   
         // write schema catalog
         Schema tableSchema = Schema.Builder.getSchemaWithID(schema);
         DataStore schemaCatalogStore = new DataStore(CatalogConstants.SCHEMA_CATALOG_DIRECTORY,
                 CatalogConstants.SCHEMA_CATALOG_SCHEMA);
-        dataWriter = new DataWriter(schemaCatalogStore, LuceneAnalyzerConstants.getStandardAnalyzer());
+        DataWriter dataWriter = new DataWriter(schemaCatalogStore, LuceneAnalyzerConstants.getStandardAnalyzer());
         // each attribute in the table schema will be one row in schema catalog
         dataWriter.open();
         for (Tuple tuple : CatalogConstants.getSchemaCatalogTuples(tableName, tableSchema)) {
             dataWriter.insertTuple(tuple);
         }
         dataWriter.close();
+       
+        // write table catalog after the schema catalog, the table exists once it's in the table catalog
+        DataStore tableCatalogStore = new DataStore(CatalogConstants.TABLE_CATALOG_DIRECTORY,
+                CatalogConstants.TABLE_CATALOG_SCHEMA);
+        dataWriter = new DataWriter(tableCatalogStore, LuceneAnalyzerConstants.getStandardAnalyzer());
+        dataWriter.open();
+        dataWriter.insertTuple(CatalogConstants.getTableCatalogTuple(tableName, indexDirectory, luceneAnalyzerString, 
+                codecProfile, partitionScheme, storageEngine, gramSize, rowIDType));
+        dataWriter.close();
     }
     
     /*
@@ -437,12 +1081,22 @@ public class RelationManager {
             writeTableInfoToCatalog(CatalogConstants.TABLE_CATALOG.toLowerCase(), 
             			CatalogConstants.TABLE_CATALOG_DIRECTORY.toRealPath(),
             			CatalogConstants.TABLE_CATALOG_SCHEMA,
-            			LuceneAnalyzerConstants.standardAnalyzerString());
+            			LuceneAnalyzerConstants.standardAnalyzerString(),
+            			LuceneCodecProfile.DEFAULT_PROFILE,
+            			null,
+            			StorageEngine.DEFAULT_ENGINE,
+            			0,
+            			RowIDType.DEFAULT_TYPE);
             // create schema catalog
             writeTableInfoToCatalog(CatalogConstants.SCHEMA_CATALOG.toLowerCase(),
         				CatalogConstants.SCHEMA_CATALOG_DIRECTORY.toRealPath(),
                     	CatalogConstants.SCHEMA_CATALOG_SCHEMA,
-                    	LuceneAnalyzerConstants.standardAnalyzerString()); 
+                    	LuceneAnalyzerConstants.standardAnalyzerString(),
+                    	LuceneCodecProfile.DEFAULT_PROFILE,
+                    	null,
+                    	StorageEngine.DEFAULT_ENGINE,
+                    	0,
+                    	RowIDType.DEFAULT_TYPE); 
         } catch (IOException e) {
             throw new StorageException(e);
         }
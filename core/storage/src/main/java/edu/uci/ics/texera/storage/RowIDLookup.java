@@ -0,0 +1,155 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * RowIDLookup finds the tuple of a table by its _id, with a reader of the table kept open between lookups.
+ *
+ * Before each lookup, the cached reader is refreshed by DirectoryReader.openIfChanged,
+ *   which only opens the segments written since the last lookup.
+ * The _id term is then looked up directly in the terms dictionary of each segment,
+ *   instead of opening a new reader and searching a TermQuery for every lookup.
+ *
+ * At most maxCachedReaders readers (DEFAULT_MAX_CACHED_READERS by default) are kept open, the reader of the least recently used table is closed 
+ *   when another table is looked up, and reopened on its next lookup.
+ *
+ * RowIDLookup is only used by RelationManager, for tables which are not partitioned.
+ */
+class RowIDLookup {
+
+    static final int DEFAULT_MAX_CACHED_READERS = 16;
+
+    private final int maxCachedReaders;
+
+    // normalized table directory -> the cached reader of the table, in the order of the last lookup
+    private final Map<Path, DirectoryReader> cachedReaders = new LinkedHashMap<Path, DirectoryReader>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, DirectoryReader> eldest) {
+            if (size() <= maxCachedReaders) {
+                return false;
+            }
+            // a lookup using the reader keeps its own reference, the reader is closed after the lookup
+            releaseReader(eldest.getValue());
+            return true;
+        }
+    };
+
+    RowIDLookup() {
+        this(DEFAULT_MAX_CACHED_READERS);
+    }
+
+    RowIDLookup(int maxCachedReaders) {
+        this.maxCachedReaders = maxCachedReaders;
+    }
+
+    /**
+     * Gets the tuple with an _id in a table.
+     *
+     * @param dataStore, the DataStore of the table
+     * @param idField
+     * @return the tuple, null if the tuple doesn't exist
+     * @throws StorageException
+     */
+    Tuple getTupleByID(DataStore dataStore, IDField idField) throws StorageException {
+        try {
+            DirectoryReader indexReader = acquireReader(dataStore.getDataDirectory());
+            try {
+                BytesRef idBytes = StorageUtils.getIDTerm(idField).bytes();
+                for (LeafReaderContext leafContext : indexReader.leaves()) {
+                    Terms idTerms = leafContext.reader().terms(SchemaConstants._ID);
+                    if (idTerms == null) {
+                        continue;
+                    }
+                    TermsEnum termsEnum = idTerms.iterator();
+                    if (! termsEnum.seekExact(idBytes)) {
+                        continue;
+                    }
+                    Bits liveDocs = leafContext.reader().getLiveDocs();
+                    PostingsEnum postings = termsEnum.postings(null, PostingsEnum.NONE);
+                    int docID;
+                    while ((docID = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                        if (liveDocs == null || liveDocs.get(docID)) {
+                            return DataReader.readTuple(dataStore, indexReader, leafContext.docBase + docID);
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                indexReader.decRef();
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Gets the refreshed reader of a table, with its reference count incremented.
+     */
+    private synchronized DirectoryReader acquireReader(Path tableDirectory) throws IOException {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(tableDirectory);
+        DirectoryReader indexReader = cachedReaders.get(directory);
+        if (indexReader == null) {
+            indexReader = DirectoryReader.open(FSDirectory.open(directory));
+            cachedReaders.put(directory, indexReader);
+        } else {
+            DirectoryReader newReader = DirectoryReader.openIfChanged(indexReader);
+            if (newReader != null) {
+                indexReader.decRef();
+                indexReader = newReader;
+                cachedReaders.put(directory, indexReader);
+            }
+        }
+        indexReader.incRef();
+        return indexReader;
+    }
+
+    /**
+     * Closes the cached reader of a table, it should be called before the table is deleted.
+     *
+     * @param tableDirectory
+     * @throws StorageException
+     */
+    synchronized void invalidate(Path tableDirectory) throws StorageException {
+        DirectoryReader indexReader = cachedReaders.remove(PinnedSnapshotDeletionPolicy.normalize(tableDirectory));
+        if (indexReader != null) {
+            releaseReader(indexReader);
+        }
+    }
+
+    /**
+     * Gets the number of the cached readers.
+     */
+    synchronized int getCachedReaderCount() {
+        return cachedReaders.size();
+    }
+
+    private static void releaseReader(DirectoryReader indexReader) throws StorageException {
+        try {
+            indexReader.decRef();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.stream.Stream;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.IDField;
+
+/**
+ * RowIDType decides the "_id" that DataWriter assigns to the tuples inserted to a table.
+ * The type of a table is persisted in the table catalog, it can only be chosen when the table is created.
+ *
+ *   UUID:    a random UUID string, indexed and stored as a string term.
+ *   NUMERIC: a 64-bit number that increases monotonically in the table,
+ *              indexed as a single numeric term and a numeric doc value, and not written to the stored fields.
+ *              The next row ID is kept in the commit data of the index.
+ *
+ * An ID that is looked up, updated or deleted in a table is converted to the kind of IDs of the table's type 
+ *   by normalize(), since the IDs created from strings (such as the IDs parsed from JSON) are always string IDs.
+ */
+public enum RowIDType {
+
+    UUID("uuid"),
+
+    NUMERIC("numeric");
+
+    public static final RowIDType DEFAULT_TYPE = UUID;
+
+    private final String name;
+
+    private RowIDType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the type, which is the string stored in the table catalog.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Converts an ID to the kind of IDs of this type.
+     * A string ID of a NUMERIC table must be the digits of a number, it's converted to the numeric ID,
+     *   and a numeric ID of a UUID table is converted to the string ID of its digits.
+     *
+     * @param idField
+     * @return
+     * @throws StorageException, if the ID can't be an ID of this type
+     */
+    public IDField normalize(IDField idField) throws StorageException {
+        if (this != NUMERIC) {
+            return idField.isNumeric() ? new IDField(idField.getValue()) : idField;
+        }
+        if (idField.isNumeric()) {
+            return idField;
+        }
+        String idValue = idField.getValue();
+        try {
+            long numericID = Long.parseLong(idValue);
+            // the canonical digits only, so that every numeric ID has one string form
+            if (Long.toString(numericID).equals(idValue)) {
+                return new IDField(numericID);
+            }
+        } catch (NumberFormatException e) {
+            // not a number, rejected below
+        }
+        throw new StorageException(String.format("ID %s is not a numeric row ID.", idValue));
+    }
+
+    /**
+     * Converts a type name (case insensitive) to a RowIDType.
+     *
+     * @param name
+     * @return
+     * @throws StorageException, if the name is not valid
+     */
+    public static RowIDType fromName(String name) throws StorageException {
+        return Stream.of(RowIDType.values())
+                .filter(type -> type.name.equalsIgnoreCase(name))
+                .findAny()
+                .orElseThrow(() -> new StorageException(String.format("Row ID type %s is not valid.", name)));
+    }
+
+}
@@ -0,0 +1,77 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * SearchExecutor holds the thread pool shared by the searchers of all the DataReaders,
+ *   it's configured by RelationManager.setSearchThreadCount().
+ *
+ * A searcher backed by the pool searches the segments of the index concurrently, when it scores the top documents 
+ *   of a ranked query or collects the matching documents of an unranked one (see DataReader),
+ *   so a query on a table with many segments fans out across the threads.
+ * With 1 thread (the default), the searchers search the segments one by one on the caller's thread.
+ *
+ * When the thread count is changed, the old pool isn't shut down, because searchers opened before may still use it,
+ *   its idle threads terminate by themselves.
+ */
+class SearchExecutor {
+
+    // the time an idle thread of the pool is kept alive
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static int threadCount = 1;
+    // null if the search is single-threaded
+    private static ExecutorService executor = null;
+
+    private SearchExecutor() {
+    }
+
+    static synchronized void setThreadCount(int newThreadCount) throws StorageException {
+        if (newThreadCount < 1) {
+            throw new StorageException("the number of search threads must be positive");
+        }
+        if (newThreadCount == threadCount) {
+            return;
+        }
+        threadCount = newThreadCount;
+        executor = newThreadCount == 1 ? null : newThreadPool(newThreadCount);
+    }
+
+    static synchronized int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Creates a searcher of an index reader, backed by the shared thread pool if there's more than 1 search thread.
+     *
+     * @param indexReader
+     * @return
+     */
+    static synchronized IndexSearcher newIndexSearcher(IndexReader indexReader) {
+        return executor == null ? new IndexSearcher(indexReader) : new IndexSearcher(indexReader, executor);
+    }
+
+    private static ExecutorService newThreadPool(int threadCount) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "texera-search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threadCount, threadCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        threadPool.allowCoreThreadTimeOut(true);
+        return threadPool;
+    }
+
+}
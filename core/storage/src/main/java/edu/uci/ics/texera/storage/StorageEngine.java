@@ -0,0 +1,60 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.stream.Stream;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * StorageEngine decides where DataReader reads the tuples of a table from.
+ * The engine of a table is persisted in the table catalog, and it can be changed at any time.
+ *
+ *   LUCENE: the tuples are decoded from Lucene's stored fields, and the payload is built from the term vectors,
+ *             every time the tuples are read.
+ *   MEMORY: the tuples of the last commit are kept in memory in columnar form (see InMemoryTable),
+ *             the payload is also kept once it's built, so a scan doesn't touch the index at all.
+ *             It's meant for small tables that are read often, such as dictionaries and lookup tables.
+ *
+ * Both engines write the tuples to the Lucene index through the same DataWriter,
+ *   and queries other than a full scan are always answered by the index.
+ */
+public enum StorageEngine {
+
+    LUCENE("lucene"),
+
+    MEMORY("memory");
+
+    public static final StorageEngine DEFAULT_ENGINE = LUCENE;
+
+    private final String name;
+
+    private StorageEngine(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the engine, which is the string stored in the table catalog.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Converts an engine name (case insensitive) to a StorageEngine.
+     *
+     * @param name
+     * @return
+     * @throws StorageException, if the name is not valid
+     */
+    public static StorageEngine fromName(String name) throws StorageException {
+        return Stream.of(StorageEngine.values())
+                .filter(engine -> engine.name.equalsIgnoreCase(name))
+                .findAny()
+                .orElseThrow(() -> new StorageException(String.format("Storage engine %s is not valid.", name)));
+    }
+
+}
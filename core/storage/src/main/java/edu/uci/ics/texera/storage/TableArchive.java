@@ -0,0 +1,310 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.store.FSDirectory;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * TableArchive is a binary snapshot of a table: its catalog entry and the files of its Lucene index,
+ *   written to a single file by RelationManager.exportTable() and read by RelationManager.importTable().
+ *
+ * The index files are copied as they are, so a table is imported without analyzing its tuples again.
+ * The files of the last commit of the index (of each partition, if the table is partitioned) are exported,
+ *   the commit is pinned (see PinnedSnapshotDeletionPolicy) while it's copied, so writers are not blocked.
+ *
+ * Archive layout:
+ *
+ *   magic number | format version
+ *   analyzer | codec profile | partition attribute | partition granularity  ("" if the table is not partitioned)
+ *   gram size  (0 if the table doesn't have gram fields, since format version 2)
+ *   row ID type  (since format version 3, the tables of older archives use UUIDs)
+ *   attribute count | (attribute name | attribute type) ...
+ *   file count | (relative path | length | bytes) ...
+ *   CRC32 of all the bytes above
+ *
+ * Both export and import stream the files through a fixed size buffer.
+ * The checksum is verified after the files are written to the new index directory,
+ *   and the directory is deleted if the archive is corrupted.
+ */
+class TableArchive {
+
+    private static final int MAGIC_NUMBER = 0x54585441;
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int COPY_BUFFER_SIZE = 1 << 20;
+
+    private String luceneAnalyzerString;
+    private Schema schema;
+    private LuceneCodecProfile codecProfile;
+    // null if the table is not partitioned
+    private PartitionScheme partitionScheme;
+    private int gramSize;
+    private RowIDType rowIDType;
+
+    private TableArchive(String luceneAnalyzerString, Schema schema, LuceneCodecProfile codecProfile,
+            PartitionScheme partitionScheme, int gramSize, RowIDType rowIDType) {
+        this.luceneAnalyzerString = luceneAnalyzerString;
+        this.schema = schema;
+        this.codecProfile = codecProfile;
+        this.partitionScheme = partitionScheme;
+        this.gramSize = gramSize;
+        this.rowIDType = rowIDType;
+    }
+
+    public String getLuceneAnalyzerString() {
+        return luceneAnalyzerString;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public LuceneCodecProfile getCodecProfile() {
+        return codecProfile;
+    }
+
+    public PartitionScheme getPartitionScheme() {
+        return partitionScheme;
+    }
+
+    public int getGramSize() {
+        return gramSize;
+    }
+
+    public RowIDType getRowIDType() {
+        return rowIDType;
+    }
+
+    /**
+     * Writes the archive of a table.
+     *
+     * @param tableDataStore, the DataStore of the table
+     * @param luceneAnalyzerString, the analyzer of the table
+     * @param archiveFile, the file to write to, it's overwritten if it exists
+     * @throws StorageException
+     */
+    static void write(DataStore tableDataStore, String luceneAnalyzerString, Path archiveFile) throws StorageException {
+        Path tableDirectory = tableDataStore.getDataDirectory();
+        PartitionScheme partitionScheme = tableDataStore.getPartitionScheme();
+
+        // the index directories of the table, and the prefix of their files in the archive
+        List<String> indexPrefixes = new ArrayList<>();
+        if (partitionScheme == null) {
+            indexPrefixes.add("");
+        } else {
+            for (String partitionKey : partitionScheme.getPartitionKeys(tableDirectory)) {
+                indexPrefixes.add(partitionKey + "/");
+            }
+        }
+
+        // index directory -> the reader of its pinned commit
+        Map<Path, DirectoryReader> pinnedReaders = new HashMap<>();
+        try (CheckedOutputStream checkedOutput = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(archiveFile), COPY_BUFFER_SIZE), new CRC32());
+                DataOutputStream output = new DataOutputStream(checkedOutput)) {
+            // pin the last commit of every index, and collect the files of the commits
+            List<String> archivedFiles = new ArrayList<>();
+            for (String indexPrefix : indexPrefixes) {
+                Path indexDirectory = tableDirectory.resolve(indexPrefix);
+                FSDirectory directory = FSDirectory.open(indexDirectory);
+                if (! DirectoryReader.indexExists(directory)) {
+                    continue;
+                }
+                DirectoryReader reader = DirectoryReader.open(directory);
+                IndexCommit indexCommit = reader.getIndexCommit();
+                PinnedSnapshotDeletionPolicy.pin(indexDirectory, indexCommit.getGeneration());
+                pinnedReaders.put(indexDirectory, reader);
+                for (String fileName : indexCommit.getFileNames()) {
+                    archivedFiles.add(indexPrefix + fileName);
+                }
+            }
+
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(luceneAnalyzerString);
+            output.writeUTF(tableDataStore.getCodecProfile().getProfileName());
+            output.writeUTF(partitionScheme == null ? "" : partitionScheme.getAttributeName());
+            output.writeUTF(partitionScheme == null ? "" : partitionScheme.getGranularity().getName());
+            output.writeInt(tableDataStore.getGramSize());
+            output.writeUTF(tableDataStore.getRowIDType().getName());
+
+            List<Attribute> attributes = tableDataStore.getSchema().getAttributes();
+            output.writeInt(attributes.size());
+            for (Attribute attribute : attributes) {
+                output.writeUTF(attribute.getName());
+                output.writeUTF(attribute.getType().getName());
+            }
+
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            output.writeInt(archivedFiles.size());
+            for (String archivedFile : archivedFiles) {
+                Path filePath = tableDirectory.resolve(archivedFile);
+                output.writeUTF(archivedFile);
+                output.writeLong(Files.size(filePath));
+                try (InputStream fileInput = Files.newInputStream(filePath)) {
+                    int length;
+                    while ((length = fileInput.read(buffer)) != -1) {
+                        output.write(buffer, 0, length);
+                    }
+                }
+            }
+
+            output.flush();
+            output.writeLong(checkedOutput.getChecksum().getValue());
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        } finally {
+            releaseCommits(pinnedReaders);
+        }
+    }
+
+    /**
+     * Reads an archive, and writes the index files of the table to a directory.
+     * If the archive is not valid, the files written to the directory are deleted.
+     *
+     * @param archiveFile, the archive written by write()
+     * @param tableDirectory, the index directory of the imported table, must be empty if it exists
+     * @return the TableArchive with the catalog entry of the table
+     * @throws StorageException, if the archive is not valid or its checksum doesn't match
+     */
+    static TableArchive read(Path archiveFile, Path tableDirectory) throws StorageException {
+        try {
+            return readArchive(archiveFile, tableDirectory);
+        } catch (TexeraException e) {
+            StorageUtils.deleteDirectory(tableDirectory.toString());
+            throw e;
+        }
+    }
+
+    private static TableArchive readArchive(Path archiveFile, Path tableDirectory) throws StorageException {
+        try (CheckedInputStream checkedInput = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(archiveFile), COPY_BUFFER_SIZE), new CRC32());
+                DataInputStream input = new DataInputStream(checkedInput)) {
+            if (input.readInt() != MAGIC_NUMBER) {
+                throw new StorageException(String.format("File %s is not a table archive.", archiveFile));
+            }
+            int formatVersion = input.readInt();
+            if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+                throw new StorageException(String.format("Table archive version %d is not supported.", formatVersion));
+            }
+
+            String luceneAnalyzerString = input.readUTF();
+            LuceneCodecProfile codecProfile = LuceneCodecProfile.fromProfileName(input.readUTF());
+            String partitionAttributeName = input.readUTF();
+            String partitionGranularityName = input.readUTF();
+            int gramSize = formatVersion >= 2 ? input.readInt() : 0;
+            RowIDType rowIDType = formatVersion >= 3 ? RowIDType.fromName(input.readUTF()) : RowIDType.DEFAULT_TYPE;
+
+            int attributeCount = input.readInt();
+            List<Attribute> attributes = new ArrayList<>();
+            for (int i = 0; i < attributeCount; i++) {
+                String attributeName = input.readUTF();
+                attributes.add(new Attribute(attributeName, getAttributeType(input.readUTF())));
+            }
+            Schema schema = new Schema(attributes.stream().toArray(Attribute[]::new));
+
+            PartitionScheme partitionScheme = null;
+            if (! partitionAttributeName.isEmpty()) {
+                partitionScheme = new PartitionScheme(partitionAttributeName,
+                        schema.getAttribute(partitionAttributeName).getType(),
+                        PartitionGranularity.fromName(partitionGranularityName));
+            }
+
+            Files.createDirectories(tableDirectory);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int fileCount = input.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                Path filePath = getArchivedFilePath(tableDirectory, input.readUTF());
+                Files.createDirectories(filePath.getParent());
+                long remaining = input.readLong();
+                try (OutputStream fileOutput = Files.newOutputStream(filePath)) {
+                    while (remaining > 0) {
+                        int length = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (length == -1) {
+                            throw new EOFException();
+                        }
+                        fileOutput.write(buffer, 0, length);
+                        remaining -= length;
+                    }
+                }
+            }
+
+            long checksum = checkedInput.getChecksum().getValue();
+            if (input.readLong() != checksum) {
+                throw new StorageException(String.format("The checksum of table archive %s doesn't match.", archiveFile));
+            }
+
+            return new TableArchive(luceneAnalyzerString, schema, codecProfile, partitionScheme, gramSize, rowIDType);
+        } catch (EOFException e) {
+            throw new StorageException(String.format("Table archive %s is truncated.", archiveFile), e);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Releases the commits pinned by write() and closes their readers.
+     */
+    private static void releaseCommits(Map<Path, DirectoryReader> pinnedReaders) throws StorageException {
+        IOException closeException = null;
+        for (Map.Entry<Path, DirectoryReader> entry : pinnedReaders.entrySet()) {
+            try {
+                PinnedSnapshotDeletionPolicy.release(entry.getKey(), entry.getValue().getIndexCommit().getGeneration());
+                entry.getValue().close();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        if (closeException != null) {
+            throw new StorageException(closeException.getMessage(), closeException);
+        }
+    }
+
+    /*
+     * Resolves the path of a file in the archive against the table directory,
+     *   the file must not be outside of the directory.
+     */
+    private static Path getArchivedFilePath(Path tableDirectory, String archivedFile) throws StorageException {
+        Path filePath = tableDirectory.resolve(archivedFile).normalize();
+        if (! filePath.startsWith(tableDirectory.normalize()) || filePath.equals(tableDirectory.normalize())) {
+            throw new StorageException(String.format("File %s in the table archive is not valid.", archivedFile));
+        }
+        return filePath;
+    }
+
+    private static AttributeType getAttributeType(String attributeTypeName) throws StorageException {
+        for (AttributeType attributeType : AttributeType.values()) {
+            if (attributeType.getName().equals(attributeTypeName)) {
+                return attributeType;
+            }
+        }
+        throw new StorageException(String.format("Attribute type %s in the table archive is not valid.", attributeTypeName));
+    }
+
+}
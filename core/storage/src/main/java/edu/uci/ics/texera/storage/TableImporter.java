@@ -0,0 +1,414 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/**
+ * TableImporter imports a CSV or JSON lines file into an existing table.
+ *
+ * The file is imported through a pipeline:
+ *   the file is memory-mapped in chunks, each chunk ends at a record boundary (chunkSize bytes or a bit less),
+ *   the chunks are parsed into tuples of the table's schema by a pool of parser threads,
+ *   and the tuples are inserted by the importing thread in the order of the file,
+ *   while the parser threads parse the next chunks.
+ * The table is committed every commitSize tuples.
+ *
+ * A record that can't be parsed into a tuple (e.g. a missing attribute or an invalid number) is skipped
+ *   and counted as a failed record in the ImportProgress, which can be read by other threads during the import.
+ * If the import fails (e.g. the file can't be read), the tuples inserted before the failure stay in the table.
+ *
+ * A CSV file has a header line with the attribute names by default,
+ *   its columns can be in any order and the columns not in the schema are ignored.
+ * Without a header line, the columns must be in the order of the schema.
+ * Attributes of type LIST can't be imported.
+ */
+public class TableImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_COMMIT_SIZE = 100000;
+
+    private final String tableName;
+    private final Path filePath;
+    private final ImportFormat format;
+    private final Schema tupleSchema;
+
+    private int parserThreadNumber = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int commitSize = DEFAULT_COMMIT_SIZE;
+    private boolean csvHeader = true;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile ImportProgress progress = null;
+
+    /**
+     * Creates a TableImporter of a file into a table.
+     *
+     * @param tableName, the name of the table, the table must exist
+     * @param filePath, the path of the file
+     * @param format, the format of the file
+     * @throws StorageException, if the table or the file doesn't exist, or the schema has a LIST attribute
+     */
+    public TableImporter(String tableName, Path filePath, ImportFormat format) throws StorageException {
+        RelationManager relationManager = RelationManager.getInstance();
+        if (! relationManager.checkTableExistence(tableName)) {
+            throw new StorageException(String.format("table %s doesn't exist", tableName));
+        }
+        if (! Files.isRegularFile(filePath)) {
+            throw new StorageException(String.format("file %s doesn't exist", filePath));
+        }
+        this.tableName = tableName;
+        this.filePath = filePath;
+        this.format = format;
+        this.tupleSchema = new Schema.Builder(relationManager.getTableSchema(tableName))
+                .removeIfExists(SchemaConstants._ID).build();
+        for (Attribute attribute : tupleSchema.getAttributes()) {
+            if (attribute.getType() == AttributeType.LIST) {
+                throw new StorageException(String.format("attribute %s of type LIST can't be imported", attribute.getName()));
+            }
+        }
+    }
+
+    public void setParserThreadNumber(int parserThreadNumber) {
+        if (parserThreadNumber <= 0) {
+            throw new StorageException("number of parser threads must be positive");
+        }
+        this.parserThreadNumber = parserThreadNumber;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new StorageException("chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setCommitSize(int commitSize) {
+        if (commitSize <= 0) {
+            throw new StorageException("commit size must be positive");
+        }
+        this.commitSize = commitSize;
+    }
+
+    /**
+     * Sets if the first line of a CSV file is a header with the attribute names, it's true by default.
+     *
+     * @param csvHeader
+     */
+    public void setCsvHeader(boolean csvHeader) {
+        this.csvHeader = csvHeader;
+    }
+
+    /**
+     * Gets the progress of the import, it can be called by any thread.
+     *
+     * @return the progress, null if the import hasn't started
+     */
+    public ImportProgress getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Imports the file into the table, and returns when the import is finished.
+     *
+     * @return the final progress of the import
+     * @throws StorageException, if the import fails
+     */
+    public ImportProgress importTable() throws StorageException {
+        if (this.progress != null) {
+            throw new StorageException("the file is already imported by this TableImporter");
+        }
+        ExecutorService parserPool = Executors.newFixedThreadPool(parserThreadNumber, runnable -> {
+            Thread thread = new Thread(runnable, "TableImporter-" + tableName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        DataWriter dataWriter = RelationManager.getInstance().getTableDataWriter(tableName);
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            this.progress = new ImportProgress(tableName, fileSize);
+
+            long position = 0;
+            int[] columnIndices = new int[tupleSchema.getAttributes().size()];
+            for (int i = 0; i < columnIndices.length; i++) {
+                columnIndices[i] = i;
+            }
+            if (format == ImportFormat.CSV && csvHeader && fileSize > 0) {
+                position = readCsvHeader(fileChannel, fileSize, columnIndices);
+                progress.addParsedBytes(position);
+            }
+
+            dataWriter.open();
+            // the chunks being parsed, in the order of the file
+            Deque<Future<List<Tuple>>> parsingChunks = new ArrayDeque<>();
+            long insertedTupleCount = 0;
+            long uncommittedTupleCount = 0;
+            while (position < fileSize || ! parsingChunks.isEmpty()) {
+                // keep at most 2 chunks per parser thread in memory
+                if (position < fileSize && parsingChunks.size() < parserThreadNumber * 2) {
+                    long chunkPosition = position;
+                    ByteBuffer chunk = mapNextChunk(fileChannel, position, fileSize);
+                    position += chunk.remaining();
+                    parsingChunks.add(parserPool.submit(() -> parseChunk(chunk, chunkPosition, columnIndices)));
+                    continue;
+                }
+                List<Tuple> tuples = parsingChunks.poll().get();
+                for (Tuple tuple : tuples) {
+                    dataWriter.insertTuple(tuple);
+                }
+                insertedTupleCount += tuples.size();
+                uncommittedTupleCount += tuples.size();
+                progress.addIndexedTuples(tuples.size());
+                if (uncommittedTupleCount >= commitSize) {
+                    dataWriter.commit();
+                    progress.setCommittedTuples(insertedTupleCount);
+                    uncommittedTupleCount = 0;
+                }
+            }
+            dataWriter.close();
+            progress.setCommittedTuples(insertedTupleCount);
+            progress.complete();
+            return progress;
+        } catch (IOException | ExecutionException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (this.progress == null) {
+                this.progress = new ImportProgress(tableName, 0);
+            }
+            progress.fail(cause.getMessage());
+            throw new StorageException(String.format("failed to import %s into table %s: %s",
+                    filePath, tableName, cause.getMessage()), cause);
+        } finally {
+            parserPool.shutdownNow();
+            // commits the tuples inserted before a failure, it does nothing if the writer is closed
+            dataWriter.close();
+        }
+    }
+
+    /*
+     * Memory-maps the next chunk of the file which starts at "position".
+     * The chunk ends at the last record boundary within chunkSize bytes,
+     *   it's extended if a single record is longer than chunkSize.
+     */
+    private ByteBuffer mapNextChunk(FileChannel fileChannel, long position, long fileSize) throws IOException {
+        long regionSize = Math.min(chunkSize, fileSize - position);
+        while (true) {
+            ByteBuffer region = fileChannel.map(MapMode.READ_ONLY, position, regionSize);
+            if (position + regionSize == fileSize) {
+                return region;
+            }
+            int recordEnd = findLastRecordEnd(region);
+            if (recordEnd >= 0) {
+                region.limit(recordEnd + 1);
+                return region;
+            }
+            if (regionSize >= Integer.MAX_VALUE) {
+                throw new StorageException(String.format("a record at byte %d is larger than 2GB", position));
+            }
+            regionSize = Math.min(Math.min(regionSize * 2, Integer.MAX_VALUE), fileSize - position);
+        }
+    }
+
+    /*
+     * Finds the position of the last line break that ends a record, returns -1 if there's none.
+     * A line break in a quoted CSV field doesn't end a record.
+     * Line breaks and quotes are single bytes in UTF-8, they are never a part of a multi-byte character.
+     */
+    private int findLastRecordEnd(ByteBuffer buffer) {
+        if (format == ImportFormat.JSONL) {
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int lastRecordEnd = -1;
+        boolean inQuotes = false;
+        for (int i = 0; i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                inQuotes = ! inQuotes;
+            } else if (b == '\n' && ! inQuotes) {
+                lastRecordEnd = i;
+            }
+        }
+        return lastRecordEnd;
+    }
+
+    /*
+     * Reads the header line of a CSV file, and finds the column of each attribute.
+     * Returns the position after the header line.
+     */
+    private long readCsvHeader(FileChannel fileChannel, long fileSize, int[] columnIndices) throws IOException {
+        ByteBuffer firstChunk = mapNextChunk(fileChannel, 0, fileSize);
+        int headerEnd = firstChunk.limit();
+        boolean inQuotes = false;
+        for (int i = 0; i < firstChunk.limit(); i++) {
+            byte b = firstChunk.get(i);
+            if (b == '"') {
+                inQuotes = ! inQuotes;
+            } else if (b == '\n' && ! inQuotes) {
+                headerEnd = i + 1;
+                break;
+            }
+        }
+        firstChunk.limit(headerEnd);
+        List<String> headers = new ArrayList<>();
+        parseCsvRecord(decode(firstChunk), 0, headers);
+
+        List<Attribute> attributes = tupleSchema.getAttributes();
+        for (int i = 0; i < attributes.size(); i++) {
+            columnIndices[i] = -1;
+            for (int column = 0; column < headers.size(); column++) {
+                if (headers.get(column).trim().equalsIgnoreCase(attributes.get(i).getName())) {
+                    columnIndices[i] = column;
+                }
+            }
+            if (columnIndices[i] == -1) {
+                throw new StorageException(String.format("attribute %s is not in the CSV header", attributes.get(i).getName()));
+            }
+        }
+        return headerEnd;
+    }
+
+    /*
+     * Parses the records in a chunk into tuples, it's run by the parser threads.
+     */
+    private List<Tuple> parseChunk(ByteBuffer chunk, long chunkPosition, int[] columnIndices) throws IOException {
+        int chunkBytes = chunk.remaining();
+        String chunkText = decode(chunk);
+        List<Tuple> tuples = new ArrayList<>();
+        int recordStart = 0;
+        while (recordStart < chunkText.length()) {
+            List<String> values = new ArrayList<>();
+            int nextRecordStart;
+            if (format == ImportFormat.CSV) {
+                nextRecordStart = parseCsvRecord(chunkText, recordStart, values);
+            } else {
+                int lineEnd = chunkText.indexOf('\n', recordStart);
+                nextRecordStart = lineEnd == -1 ? chunkText.length() : lineEnd + 1;
+                values.add(chunkText.substring(recordStart, nextRecordStart).trim());
+            }
+            recordStart = nextRecordStart;
+            // skip empty lines
+            if (values.size() == 1 && values.get(0).trim().isEmpty()) {
+                continue;
+            }
+            try {
+                tuples.add(format == ImportFormat.CSV ?
+                        csvRecordToTuple(values, columnIndices) : jsonRecordToTuple(values.get(0)));
+            } catch (IOException | ParseException | RuntimeException e) {
+                progress.addFailedRecord(String.format("failed to parse a record in the chunk at byte %d: %s",
+                        chunkPosition, e.getMessage()));
+            }
+        }
+        progress.addParsedBytes(chunkBytes);
+        return tuples;
+    }
+
+    private Tuple csvRecordToTuple(List<String> values, int[] columnIndices) throws ParseException {
+        List<Attribute> attributes = tupleSchema.getAttributes();
+        IField[] fields = new IField[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            if (columnIndices[i] >= values.size()) {
+                throw new StorageException(String.format("attribute %s is missing", attributes.get(i).getName()));
+            }
+            fields[i] = toField(attributes.get(i).getType(), values.get(columnIndices[i]));
+        }
+        return new Tuple(tupleSchema, fields);
+    }
+
+    private Tuple jsonRecordToTuple(String line) throws IOException, ParseException {
+        JsonNode record = objectMapper.readTree(line);
+        List<Attribute> attributes = tupleSchema.getAttributes();
+        IField[] fields = new IField[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            JsonNode value = record.get(attributes.get(i).getName());
+            if (value == null || value.isNull()) {
+                throw new StorageException(String.format("attribute %s is missing", attributes.get(i).getName()));
+            }
+            fields[i] = toField(attributes.get(i).getType(), value.isTextual() ? value.textValue() : value.toString());
+        }
+        return new Tuple(tupleSchema, fields);
+    }
+
+    private static IField toField(AttributeType attributeType, String value) throws ParseException {
+        if (attributeType == AttributeType.STRING || attributeType == AttributeType.TEXT) {
+            return StorageUtils.getField(attributeType, value);
+        }
+        return StorageUtils.getField(attributeType, value.trim());
+    }
+
+    private static String decode(ByteBuffer buffer) throws IOException {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(buffer).toString();
+    }
+
+    /*
+     * Parses the CSV record starting at "start" into a list of values, returns the start of the next record.
+     */
+    static int parseCsvRecord(String text, int start, List<String> values) {
+        StringBuilder value = new StringBuilder();
+        boolean inQuotes = false;
+        int i = start;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inQuotes) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    // an escaped quote
+                    value.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                i++;
+                break;
+            } else if (c != '\r') {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return i;
+    }
+
+}
@@ -0,0 +1,276 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.Span;
+
+/**
+ * TupleCache is a process-wide LRU cache of the tuples decoded by DataReader, shared by all the queries.
+ *
+ * A cached document is keyed by (table, segment, docID in the segment, doc values generation of the segment).
+ * Lucene segments are never modified once they are written, and each segment has a unique ID,
+ *   so a cached document stays valid across commits of the table until its segment is merged away,
+ *   the doc values generation only changes if the doc values of the segment are updated in place.
+ * The fields of a document are cached when it's read for the first time,
+ *   its payload is cached when it's read for the first time by a reader that adds the payload.
+ *
+ * The cache is bounded by the estimated size of the cached fields and payloads,
+ *   the least recently used documents are evicted first.
+ * The cache is disabled (its maximum size is 0) by default, it's enabled by setMaxSizeInBytes().
+ *
+ * Tables using the MEMORY StorageEngine don't use the cache, their tuples are already in memory.
+ */
+public class TupleCache {
+
+    private static final TupleCache instance = new TupleCache();
+
+    // estimated memory of an entry (key, map entry and arrays), a field, and a span, without their strings
+    private static final long ENTRY_OVERHEAD = 160;
+    private static final long FIELD_OVERHEAD = 32;
+    private static final long SPAN_OVERHEAD = 64;
+
+    private volatile long maxSizeInBytes = 0;
+    private long sizeInBytes = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    // entries in the access order, the first entry is the least recently used one
+    private final LinkedHashMap<Key, CachedDocument> cachedDocuments = new LinkedHashMap<>(16, 0.75f, true);
+
+    private TupleCache() {
+    }
+
+    public static TupleCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the maximum estimated size of the cache, 0 disables the cache.
+     * The least recently used documents are evicted if the cache is larger than the new size.
+     *
+     * @param maxSizeInBytes
+     */
+    public synchronized void setMaxSizeInBytes(long maxSizeInBytes) {
+        this.maxSizeInBytes = Math.max(0, maxSizeInBytes);
+        evict();
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * Gets a cached document.
+     *
+     * @param key
+     * @param payloadNeeded, if the payload of the document is needed
+     * @return the cached document, null if the document isn't cached, or the payload is needed but it isn't cached
+     */
+    synchronized CachedDocument get(Key key, boolean payloadNeeded) {
+        CachedDocument cachedDocument = cachedDocuments.get(key);
+        if (cachedDocument == null || (payloadNeeded && cachedDocument.payload == null)) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return cachedDocument;
+    }
+
+    /**
+     * Gets the fields of a cached document without counting a hit or a miss,
+     *   it's used to find the fields of a document whose payload isn't cached yet.
+     *
+     * @param key
+     * @return the cached fields, null if the document isn't cached
+     */
+    synchronized IField[] peekFields(Key key) {
+        CachedDocument cachedDocument = cachedDocuments.get(key);
+        return cachedDocument == null ? null : cachedDocument.fields;
+    }
+
+    /**
+     * Caches a document, it replaces the cached document with the same key.
+     *
+     * @param key
+     * @param cachedDocument
+     */
+    synchronized void put(Key key, CachedDocument cachedDocument) {
+        if (! isEnabled()) {
+            return;
+        }
+        CachedDocument previousDocument = cachedDocuments.put(key, cachedDocument);
+        if (previousDocument != null) {
+            sizeInBytes -= previousDocument.sizeInBytes;
+        }
+        sizeInBytes += cachedDocument.sizeInBytes;
+        evict();
+    }
+
+    /*
+     * Evicts the least recently used documents until the cache is within its maximum size.
+     */
+    private void evict() {
+        Iterator<CachedDocument> iterator = cachedDocuments.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            sizeInBytes -= iterator.next().sizeInBytes;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes the cached documents of a table, it should be called when the table is deleted.
+     *
+     * @param tableDirectory
+     */
+    synchronized void invalidate(Path tableDirectory) {
+        Path directory = PinnedSnapshotDeletionPolicy.normalize(tableDirectory);
+        Iterator<Map.Entry<Key, CachedDocument>> iterator = cachedDocuments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, CachedDocument> entry = iterator.next();
+            if (entry.getKey().tableDirectory.equals(directory)) {
+                sizeInBytes -= entry.getValue().sizeInBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached documents and resets the metrics.
+     */
+    public synchronized void clear() {
+        cachedDocuments.clear();
+        sizeInBytes = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the ratio of hits in all the lookups since the cache is created or cleared.
+     *
+     * @return the hit rate, 0 if there's no lookup
+     */
+    public synchronized double getHitRate() {
+        long lookupCount = hitCount + missCount;
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getDocumentCount() {
+        return cachedDocuments.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TupleCache [documents = %d, size = %d/%d bytes, hits = %d, misses = %d, evictions = %d]",
+                cachedDocuments.size(), sizeInBytes, maxSizeInBytes, hitCount, missCount, evictionCount);
+    }
+
+    /**
+     * The key of a cached document.
+     */
+    static class Key {
+
+        // the normalized directory of the table
+        private final Path tableDirectory;
+        private final String segmentID;
+        private final long docValuesGeneration;
+        private final int segmentDocID;
+
+        /*
+         * The table directory must be normalized by PinnedSnapshotDeletionPolicy.normalize(),
+         *   it's normalized once by the DataReader instead of for every document.
+         */
+        Key(Path tableDirectory, String segmentID, long docValuesGeneration, int segmentDocID) {
+            this.tableDirectory = tableDirectory;
+            this.segmentID = segmentID;
+            this.docValuesGeneration = docValuesGeneration;
+            this.segmentDocID = segmentDocID;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = segmentID.hashCode();
+            result = 31 * result + Long.hashCode(docValuesGeneration);
+            result = 31 * result + segmentDocID;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (! (obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return segmentDocID == other.segmentDocID && docValuesGeneration == other.docValuesGeneration
+                    && segmentID.equals(other.segmentID) && tableDirectory.equals(other.tableDirectory);
+        }
+
+    }
+
+    /**
+     * A cached document: its fields in the order of the table's schema, and its payload.
+     */
+    static class CachedDocument {
+
+        final IField[] fields;
+        // null if the payload isn't cached
+        final ListField<Span> payload;
+        final long sizeInBytes;
+
+        CachedDocument(IField[] fields, ListField<Span> payload) {
+            this.fields = fields;
+            this.payload = payload;
+            this.sizeInBytes = estimateSize(fields, payload);
+        }
+
+        private static long estimateSize(IField[] fields, ListField<Span> payload) {
+            long size = ENTRY_OVERHEAD;
+            for (IField field : fields) {
+                size += FIELD_OVERHEAD;
+                Object value = field.getValue();
+                if (value instanceof String) {
+                    size += 2 * ((String) value).length();
+                }
+            }
+            if (payload != null) {
+                for (Span span : payload.getValue()) {
+                    size += SPAN_OVERHEAD + 2 * (span.getKey().length() + span.getValue().length());
+                }
+            }
+            return size;
+        }
+
+    }
+
+}
@@ -1,15 +1,19 @@
 package edu.uci.ics.texera.storage.constants;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
 import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
 import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
 import org.apache.lucene.analysis.custom.CustomAnalyzer;
 import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.util.CharArraySet;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
  * LuceneAnalyzerConstants contains helper functions specifically
@@ -24,6 +28,11 @@ public class LuceneAnalyzerConstants {
     
     public static final String CHINESE_ANALYZER = "chinese";
     
+    // a map from analyzer string to the shared analyzer instance
+    private static final ConcurrentHashMap<String, Analyzer> analyzerRegistry = new ConcurrentHashMap<>();
+    
+    private static final Analyzer standardAnalyzerWithStopwords = new StandardAnalyzer(CharArraySet.EMPTY_SET);
+    
     
     public static String standardAnalyzerString() {
         return STANDARD_ANALYZER;
@@ -47,39 +56,101 @@ public class LuceneAnalyzerConstants {
      *   
      *   "n-gram", n represents the number of grams, for example, "3-gram",
      *     same as calling nGramAnalyzerString(3).
+     *     
+     *   "chinese", same as calling chineseAnalyzerString().
+     * 
+     * Analyzers are cached in a process-wide registry, one analyzer instance per analyzer string.
+     * Lucene analyzers are thread-safe and reuse their token stream components per thread, 
+     *   so the same instance is shared by all operators and all threads.
+     * The returned analyzer must NOT be closed by the caller.
      * 
      * @param luceneAnalyzerString
      * @return
      * @throws DataflowException, if the luceneAnalyzerString is invalid
      */
     public static Analyzer getLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
-        if (luceneAnalyzerString.equals("standard")) {
-            return LuceneAnalyzerConstants.getStandardAnalyzer();
+        return analyzerRegistry.computeIfAbsent(luceneAnalyzerString, LuceneAnalyzerConstants::createLuceneAnalyzer);
+    }
+
+    public static Analyzer getStandardAnalyzer() {
+        return getLuceneAnalyzer(STANDARD_ANALYZER);
+    }
+    
+    /**
+     * @return a standard analyzer with an empty stop word list, the stop words are kept as tokens.
+     */
+    public static Analyzer getStandardAnalyzerWithStopwords() {
+        return standardAnalyzerWithStopwords;
+    }
+
+    /**
+     * @return a n-gram analyzer that tokenizes the text into grams of length n.
+     * @throws DataflowException
+     */
+    public static Analyzer getNGramAnalyzer(int gramNum) throws DataflowException {
+        return getLuceneAnalyzer(nGramAnalyzerString(gramNum));
+    }
+    
+    /**
+     * Gets the analyzer of a table with gram fields (see DataStore.getGramSize()):
+     *   the gram fields are tokenized by the n-gram analyzer, the other fields by the analyzer of the table.
+     * It's shared in the same registry as the other analyzers.
+     * 
+     * @param luceneAnalyzerString, the analyzer of the table
+     * @param gramSize, the size of the grams
+     * @return
+     * @throws DataflowException, if the luceneAnalyzerString is invalid
+     */
+    public static Analyzer getGramFieldAnalyzer(String luceneAnalyzerString, int gramSize) throws DataflowException {
+        Analyzer fieldAnalyzer = getLuceneAnalyzer(luceneAnalyzerString);
+        Analyzer gramAnalyzer = getNGramAnalyzer(gramSize);
+        return analyzerRegistry.computeIfAbsent(luceneAnalyzerString + StorageUtils.GRAM_FIELD_SUFFIX + gramSize, 
+                key -> new GramFieldAnalyzer(fieldAnalyzer, gramAnalyzer));
+    }
+    
+    /*
+     * An analyzer that uses the n-gram analyzer for the gram fields, and another analyzer for the other fields.
+     */
+    private static class GramFieldAnalyzer extends DelegatingAnalyzerWrapper {
+        
+        private final Analyzer fieldAnalyzer;
+        private final Analyzer gramAnalyzer;
+        
+        GramFieldAnalyzer(Analyzer fieldAnalyzer, Analyzer gramAnalyzer) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.fieldAnalyzer = fieldAnalyzer;
+            this.gramAnalyzer = gramAnalyzer;
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            return StorageUtils.isGramFieldName(fieldName) ? gramAnalyzer : fieldAnalyzer;
+        }
+    }
+    
+    /*
+     * Creates a new analyzer instance based on the analyzer string, 
+     *   this function is only called once per analyzer string by the registry.
+     */
+    private static Analyzer createLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
+        if (luceneAnalyzerString.equals(STANDARD_ANALYZER)) {
+            return new StandardAnalyzer();
         }
         else if (luceneAnalyzerString.endsWith("-gram")) {
             try {
                 Integer gramNum = Integer.parseInt(
                         luceneAnalyzerString.substring(0, luceneAnalyzerString.indexOf('-')));
-                return getNGramAnalyzer(gramNum);
+                return createNGramAnalyzer(gramNum);
             } catch (NumberFormatException e) {
                 throw new DataflowException(luceneAnalyzerString + " is not a valid lucene analyzer");
             }
-        } else if (luceneAnalyzerString.equals("chinese")) {
+        } else if (luceneAnalyzerString.equals(CHINESE_ANALYZER)) {
             return new SmartChineseAnalyzer();
         }
         throw new DataflowException(luceneAnalyzerString + " is not a valid lucene analyzer");
     }
 
-
-    public static Analyzer getStandardAnalyzer() {
-        return new StandardAnalyzer();
-    }
-
-    /**
-     * @return a n-gram analyzer that tokenizes the text into grams of length n.
-     * @throws DataflowException
-     */
-    public static Analyzer getNGramAnalyzer(int gramNum) throws DataflowException {
+    private static Analyzer createNGramAnalyzer(int gramNum) throws DataflowException {
         try {
             return CustomAnalyzer.builder()
                     .withTokenizer(NGramTokenizerFactory.class, 
@@ -0,0 +1,95 @@
+package edu.uci.ics.texera.storage.constants;
+
+import java.util.stream.Stream;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
+import org.apache.lucene.codecs.lucene54.Lucene54Codec;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * LuceneCodecProfile decides how a table stores its fields on disk.
+ * The profile of a table is chosen when the table is created and it is persisted in the table catalog.
+ *
+ * There are two independent choices:
+ *   1. the compression mode of Lucene's stored fields:
+ *      BEST_SPEED uses LZ4 on small blocks, it's faster to decompress on every scan,
+ *      BEST_COMPRESSION uses DEFLATE on larger blocks, it makes the index smaller but decompression is slower.
+ *   2. whether the values of TEXT attributes are stored separately from the other stored fields:
+ *      if they are, TEXT values are stored in a binary doc values column instead of the compressed stored fields blocks,
+ *      so reading a document doesn't decompress the whole block that holds its (possibly huge) TEXT values.
+ *      Indexing, positions, offsets and term vectors of TEXT attributes are the same in every profile.
+ *
+ * BEST_SPEED is the default profile, it's the same layout Lucene uses by default.
+ */
+public enum LuceneCodecProfile {
+
+    BEST_SPEED("best_speed", Lucene50StoredFieldsFormat.Mode.BEST_SPEED, false),
+
+    BEST_COMPRESSION("best_compression", Lucene50StoredFieldsFormat.Mode.BEST_COMPRESSION, false),
+
+    BEST_SPEED_SEPARATE_TEXT("best_speed_separate_text", Lucene50StoredFieldsFormat.Mode.BEST_SPEED, true),
+
+    BEST_COMPRESSION_SEPARATE_TEXT("best_compression_separate_text",
+            Lucene50StoredFieldsFormat.Mode.BEST_COMPRESSION, true);
+
+    public static final LuceneCodecProfile DEFAULT_PROFILE = BEST_SPEED;
+
+    private final String profileName;
+    private final Lucene50StoredFieldsFormat.Mode storedFieldsMode;
+    private final boolean textStoredSeparately;
+
+    // codecs are stateless, one instance is shared by all the writers using the profile
+    private final Codec codec;
+
+    private LuceneCodecProfile(String profileName, Lucene50StoredFieldsFormat.Mode storedFieldsMode,
+            boolean textStoredSeparately) {
+        this.profileName = profileName;
+        this.storedFieldsMode = storedFieldsMode;
+        this.textStoredSeparately = textStoredSeparately;
+        this.codec = new Lucene54Codec(storedFieldsMode);
+    }
+
+    /**
+     * Gets the name of the profile, which is the string stored in the table catalog.
+     */
+    public String getProfileName() {
+        return this.profileName;
+    }
+
+    public Lucene50StoredFieldsFormat.Mode getStoredFieldsMode() {
+        return this.storedFieldsMode;
+    }
+
+    public boolean isTextStoredSeparately() {
+        return this.textStoredSeparately;
+    }
+
+    /**
+     * Gets the Lucene codec to be set to the IndexWriterConfig of the table's writers.
+     */
+    public Codec getCodec() {
+        return this.codec;
+    }
+
+    @Override
+    public String toString() {
+        return this.profileName;
+    }
+
+    /**
+     * Converts a profile name (case insensitive) to a LuceneCodecProfile.
+     *
+     * @param profileName
+     * @return
+     * @throws StorageException, if the profile name is not valid
+     */
+    public static LuceneCodecProfile fromProfileName(String profileName) throws StorageException {
+        return Stream.of(LuceneCodecProfile.values())
+                .filter(profile -> profile.profileName.equalsIgnoreCase(profileName))
+                .findAny()
+                .orElseThrow(() -> new StorageException(String.format("Codec profile %s is not valid.", profileName)));
+    }
+
+}
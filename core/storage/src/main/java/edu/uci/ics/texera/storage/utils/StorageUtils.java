@@ -8,11 +8,23 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.FieldType.NumericType;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.NumericUtils;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
 
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.field.DateField;
@@ -28,6 +40,32 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 
 public class StorageUtils {
     
+    // suffix of the name of the numeric field indexed for a DATE or DATETIME attribute
+    public static final String NUMERIC_DATE_FIELD_SUFFIX = "#numeric";
+    // suffix of the name of the gram field indexed for a TEXT attribute
+    public static final String GRAM_FIELD_SUFFIX = "#gram";
+    
+    // the indexed (not stored) gram field, without frequencies, positions and norms since it's only used as a filter
+    private static final FieldType GRAM_FIELD_TYPE = new FieldType();
+    static {
+        GRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        GRAM_FIELD_TYPE.setOmitNorms(true);
+        GRAM_FIELD_TYPE.setStored(false);
+        GRAM_FIELD_TYPE.setTokenized(true);
+        GRAM_FIELD_TYPE.freeze();
+    }
+    
+    // the indexed (not stored) numeric _id field, with only the full precision term since IDs are only looked up exactly
+    private static final FieldType NUMERIC_ID_FIELD_TYPE = new FieldType();
+    static {
+        NUMERIC_ID_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        NUMERIC_ID_FIELD_TYPE.setOmitNorms(true);
+        NUMERIC_ID_FIELD_TYPE.setTokenized(false);
+        NUMERIC_ID_FIELD_TYPE.setNumericType(NumericType.LONG);
+        NUMERIC_ID_FIELD_TYPE.setNumericPrecisionStep(Integer.MAX_VALUE);
+        NUMERIC_ID_FIELD_TYPE.freeze();
+    }
+    
     public static IField getField(AttributeType attributeType, String fieldValue) throws ParseException {
         IField field = null;
         switch (attributeType) {
@@ -84,20 +122,7 @@ public class StorageUtils {
             luceneField = new org.apache.lucene.document.StringField(attributeName, dateTimeString, Store.YES);
             break;
         case TEXT:
-            // By default we enable positional indexing in Lucene so that we can
-            // return
-            // information about character offsets and token offsets
-            org.apache.lucene.document.FieldType luceneFieldType = new org.apache.lucene.document.FieldType();
-            luceneFieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
-            luceneFieldType.setStored(true);
-            luceneFieldType.setStoreTermVectors(true);
-            luceneFieldType.setStoreTermVectorOffsets(true);
-            luceneFieldType.setStoreTermVectorPayloads(true);
-            luceneFieldType.setStoreTermVectorPositions(true);
-            luceneFieldType.setTokenized(true);
-
-            luceneField = new org.apache.lucene.document.Field(attributeName, (String) fieldValue, luceneFieldType);
-
+            luceneField = getLuceneTextField(attributeName, (String) fieldValue, true);
             break;
         case LIST:
             // Lucene doesn't have list field
@@ -107,6 +132,146 @@ public class StorageUtils {
         return luceneField;
     }
     
+    /**
+     * Gets the Lucene field of a TEXT attribute.
+     * 
+     * By default we enable positional indexing in Lucene so that we can return
+     *   information about character offsets and token offsets.
+     * The value is not stored with the other stored fields if "stored" is false,
+     *   this is used when a table stores its TEXT values separately (see LuceneCodecProfile).
+     * 
+     * @param attributeName
+     * @param fieldValue
+     * @param stored, whether the value is kept in Lucene's stored fields
+     * @return
+     */
+    public static IndexableField getLuceneTextField(String attributeName, String fieldValue, boolean stored) {
+        org.apache.lucene.document.FieldType luceneFieldType = new org.apache.lucene.document.FieldType();
+        luceneFieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        luceneFieldType.setStored(stored);
+        luceneFieldType.setStoreTermVectors(true);
+        luceneFieldType.setStoreTermVectorOffsets(true);
+        luceneFieldType.setStoreTermVectorPayloads(true);
+        luceneFieldType.setStoreTermVectorPositions(true);
+        luceneFieldType.setTokenized(true);
+
+        return new org.apache.lucene.document.Field(attributeName, fieldValue, luceneFieldType);
+    }
+    
+    /**
+     * Gets the gram field of a TEXT attribute, for a table with gram fields (see DataStore.getGramSize()).
+     * 
+     * The field is only indexed, it's tokenized into n-grams by the analyzer of the table (see LuceneAnalyzerConstants.getGramFieldAnalyzer).
+     * 
+     * @param attributeName
+     * @param fieldValue
+     * @return
+     */
+    public static IndexableField getLuceneGramField(String attributeName, String fieldValue) {
+        return new org.apache.lucene.document.Field(getGramFieldName(attributeName), fieldValue, GRAM_FIELD_TYPE);
+    }
+    
+    /**
+     * Gets the name of the gram field indexed for a TEXT attribute.
+     * 
+     * @param attributeName
+     * @return
+     */
+    public static String getGramFieldName(String attributeName) {
+        return attributeName + GRAM_FIELD_SUFFIX;
+    }
+    
+    public static boolean isGramFieldName(String fieldName) {
+        return fieldName != null && fieldName.endsWith(GRAM_FIELD_SUFFIX);
+    }
+    
+    /**
+     * Gets the numeric Lucene field of a DATE or DATETIME attribute.
+     * 
+     * DATE and DATETIME values are stored (and indexed) as strings in the attribute's own field,
+     *   this field indexes the same value as a long in a separate field (see getNumericDateFieldName),
+     *   so that a date range can be answered by a NumericRangeQuery instead of scanning and parsing every tuple.
+     * A DATE is encoded as its epoch day, a DATETIME is encoded as its epoch millisecond in UTC.
+     * 
+     * @param attributeType, DATE or DATETIME
+     * @param attributeName
+     * @param fieldValue
+     * @return
+     * @throws StorageException, if the attribute type is not DATE or DATETIME
+     */
+    public static IndexableField getLuceneNumericDateField(AttributeType attributeType, String attributeName, Object fieldValue) 
+            throws StorageException {
+        return new org.apache.lucene.document.LongField(getNumericDateFieldName(attributeName), 
+                encodeDateValue(attributeType, fieldValue), Store.NO);
+    }
+    
+    /**
+     * Gets the name of the numeric field indexed for a DATE or DATETIME attribute.
+     * 
+     * @param attributeName
+     * @return
+     */
+    public static String getNumericDateFieldName(String attributeName) {
+        return attributeName + NUMERIC_DATE_FIELD_SUFFIX;
+    }
+    
+    /**
+     * Encodes a DATE (LocalDate) or DATETIME (LocalDateTime) value to the long indexed in its numeric field.
+     * The encoding preserves the order of the values.
+     * 
+     * @param attributeType, DATE or DATETIME
+     * @param fieldValue
+     * @return
+     * @throws StorageException, if the attribute type is not DATE or DATETIME
+     */
+    public static long encodeDateValue(AttributeType attributeType, Object fieldValue) throws StorageException {
+        switch (attributeType) {
+        case DATE:
+            return ((LocalDate) fieldValue).toEpochDay();
+        case DATETIME:
+            return ((LocalDateTime) fieldValue).toInstant(ZoneOffset.UTC).toEpochMilli();
+        default:
+            throw new StorageException("Unable to encode a date value: attribute type is " + attributeType.getName());
+        }
+    }
+    
+    /**
+     * Gets the Lucene fields of the _id of a tuple.
+     * 
+     * A numeric ID is indexed as a single numeric term (for lookups) and a numeric doc value (for reading),
+     *   it's not written to the stored fields.
+     * A string ID (of a table with UUID row IDs, see RowIDType) is indexed and stored as a string.
+     * 
+     * @param idField
+     * @return
+     */
+    public static List<IndexableField> getLuceneIDFields(IDField idField) {
+        if (idField.isNumeric()) {
+            return Arrays.asList(
+                    new org.apache.lucene.document.LongField(SchemaConstants._ID, idField.getNumericValue(), NUMERIC_ID_FIELD_TYPE),
+                    new NumericDocValuesField(SchemaConstants._ID, idField.getNumericValue()));
+        } else {
+            return Arrays.asList(
+                    new org.apache.lucene.document.StringField(SchemaConstants._ID, idField.getValue(), Store.YES));
+        }
+    }
+    
+    /**
+     * Gets the Lucene term of an _id, which matches the tuple with the ID.
+     * 
+     * @param idField
+     * @return
+     */
+    public static Term getIDTerm(IDField idField) {
+        if (idField.isNumeric()) {
+            BytesRefBuilder idBytes = new BytesRefBuilder();
+            NumericUtils.longToPrefixCoded(idField.getNumericValue(), 0, idBytes);
+            return new Term(SchemaConstants._ID, idBytes.get());
+        } else {
+            return new Term(SchemaConstants._ID, idField.getValue());
+        }
+    }
+    
     public static void deleteDirectory(String indexDir) throws StorageException {
         Path directory = Paths.get(indexDir);
         if (!Files.exists(directory)) {
@@ -0,0 +1,98 @@
+package edu.uci.ics.texera.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+/*
+ * Tests that a DataReader with payload terms builds the payload of only these terms.
+ */
+public class DataReaderPayloadTermsTest {
+    
+    public static final String PEOPLE_TABLE = "data_reader_payload_terms_test_people";
+
+    @BeforeClass
+    public static void setUp() throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+        
+        // create the people table and write tuples
+        relationManager.createTable(PEOPLE_TABLE, TestUtils.getDefaultTestIndex().resolve(PEOPLE_TABLE), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        DataWriter peopleDataWriter = relationManager.getTableDataWriter(PEOPLE_TABLE);
+        peopleDataWriter.open();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            peopleDataWriter.insertTuple(tuple);
+        }
+        peopleDataWriter.close();
+    }
+    
+    @AfterClass
+    public static void cleanUp() throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(PEOPLE_TABLE);
+    }
+    
+    private static List<List<Span>> readPayloads(List<String> payloadTerms) {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setPayloadAdded(true);
+        dataReader.setPayloadTerms(payloadTerms);
+        
+        Tuple nextTuple = null;
+        List<List<Span>> payloads = new ArrayList<>();
+        
+        dataReader.open();
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            ListField<Span> payloadField = nextTuple.getField(SchemaConstants.PAYLOAD);
+            payloads.add(payloadField.getValue());
+        }
+        dataReader.close();
+        return payloads;
+    }
+    
+    /*
+     * The payload of some terms contains the same spans as the full payload for these terms,
+     *   and it isn't cached as the full payload.
+     */
+    @Test
+    public void testPayloadTerms() throws Exception {
+        List<String> payloadTerms = Arrays.asList("tall", "angry", "fair");
+        TupleCache.getInstance().setMaxSizeInBytes(1 << 20);
+        try {
+            List<List<Span>> termPayloads = readPayloads(payloadTerms);
+            List<List<Span>> fullPayloads = readPayloads(null);
+            
+            Assert.assertEquals(fullPayloads.size(), termPayloads.size());
+            Assert.assertTrue(termPayloads.stream().anyMatch(payload -> ! payload.isEmpty()));
+            for (int i = 0; i < fullPayloads.size(); i++) {
+                List<Span> expectedPayload = fullPayloads.get(i).stream()
+                        .filter(span -> payloadTerms.contains(span.getKey())).collect(Collectors.toList());
+                Assert.assertEquals(expectedPayload, termPayloads.get(i));
+                Assert.assertTrue(fullPayloads.get(i).size() >= termPayloads.get(i).size());
+            }
+            Assert.assertTrue(fullPayloads.stream().anyMatch(payload -> payload.stream()
+                    .anyMatch(span -> ! payloadTerms.contains(span.getKey()))));
+        } finally {
+            TupleCache.getInstance().setMaxSizeInBytes(0);
+            TupleCache.getInstance().clear();
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+
+public class LuceneCodecProfileTest {
+
+    public static final String PROFILE_TABLE = "codec_profile_test_table";
+    public static final String PROFILE_TABLE_DIRECTORY = "./index/codec_profile_test_table";
+    public static final Schema PROFILE_TABLE_SCHEMA = new Schema(
+            new Attribute("name", AttributeType.STRING),
+            new Attribute("count", AttributeType.INTEGER),
+            new Attribute("content", AttributeType.TEXT));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+
+    @After
+    public void cleanUp() throws TexeraException {
+        relationManager.deleteTable(PROFILE_TABLE);
+    }
+
+    private void createTable(LuceneCodecProfile codecProfile) {
+        relationManager.deleteTable(PROFILE_TABLE);
+        relationManager.createTable(PROFILE_TABLE, Paths.get(PROFILE_TABLE_DIRECTORY), PROFILE_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString(), codecProfile);
+    }
+
+    private List<Tuple> insertTuples(int number) {
+        List<Tuple> tuples = new ArrayList<>();
+        DataWriter dataWriter = relationManager.getTableDataWriter(PROFILE_TABLE);
+        dataWriter.open();
+        for (int i = 0; i < number; i++) {
+            Tuple tuple = new Tuple(PROFILE_TABLE_SCHEMA, new StringField("name " + i), new IntegerField(i),
+                    new TextField("tuple number " + i + " is written by the codec profile test of the storage layer"));
+            dataWriter.insertTuple(tuple);
+            tuples.add(tuple);
+        }
+        dataWriter.close();
+        return tuples;
+    }
+
+    private List<Tuple> readTuples(boolean payloadAdded) {
+        DataReader dataReader = relationManager.getTableDataReader(PROFILE_TABLE, new MatchAllDocsQuery());
+        dataReader.setPayloadAdded(payloadAdded);
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        dataReader.close();
+        return results;
+    }
+
+    private static long getDirectorySize(String directory) throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    /*
+     * Test that the codec profile is persisted in the catalog, and tables created without a profile use the default one.
+     */
+    @Test
+    public void testCodecProfileInCatalog() throws Exception {
+        createTable(LuceneCodecProfile.BEST_COMPRESSION_SEPARATE_TEXT);
+        Assert.assertEquals(LuceneCodecProfile.BEST_COMPRESSION_SEPARATE_TEXT,
+                relationManager.getTableCodecProfile(PROFILE_TABLE));
+        Assert.assertEquals(LuceneCodecProfile.BEST_COMPRESSION_SEPARATE_TEXT,
+                relationManager.getTableDataStore(PROFILE_TABLE).getCodecProfile());
+
+        relationManager.deleteTable(PROFILE_TABLE);
+        relationManager.createTable(PROFILE_TABLE, Paths.get(PROFILE_TABLE_DIRECTORY), PROFILE_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+        Assert.assertEquals(LuceneCodecProfile.DEFAULT_PROFILE, relationManager.getTableCodecProfile(PROFILE_TABLE));
+        Assert.assertEquals(LuceneCodecProfile.DEFAULT_PROFILE,
+                relationManager.getTableCodecProfile(CatalogConstants.TABLE_CATALOG));
+    }
+
+    /*
+     * Test that the tuples (and the payload) read from a table are the same for every codec profile.
+     */
+    @Test
+    public void testReadWriteWithEveryProfile() throws Exception {
+        for (LuceneCodecProfile codecProfile : LuceneCodecProfile.values()) {
+            createTable(codecProfile);
+            List<Tuple> insertedTuples = insertTuples(20);
+
+            List<Tuple> results = readTuples(false);
+            Assert.assertEquals(insertedTuples.size(), results.size());
+            for (int i = 0; i < insertedTuples.size(); i++) {
+                Tuple result = results.get(i);
+                for (Attribute attr : PROFILE_TABLE_SCHEMA.getAttributes()) {
+                    Assert.assertEquals(insertedTuples.get(i).getField(attr.getName()), result.getField(attr.getName()));
+                }
+            }
+
+            Tuple tupleWithPayload = readTuples(true).get(0);
+            ListField<Span> payload = tupleWithPayload.getField(SchemaConstants.PAYLOAD);
+            Assert.assertFalse(payload.getValue().isEmpty());
+            for (Span span : payload.getValue()) {
+                Assert.assertEquals(span.getKey(), span.getValue().toLowerCase());
+            }
+        }
+    }
+
+    /*
+     * Test that TEXT values are not kept in Lucene's stored fields if they are stored separately,
+     *   and that the TEXT attribute can still be searched and updated.
+     */
+    @Test
+    public void testSeparateTextStorage() throws Exception {
+        createTable(LuceneCodecProfile.BEST_SPEED_SEPARATE_TEXT);
+        insertTuples(5);
+
+        try (DirectoryReader luceneReader = DirectoryReader.open(FSDirectory.open(Paths.get(PROFILE_TABLE_DIRECTORY)))) {
+            Assert.assertNull(luceneReader.document(0).get("content"));
+            Assert.assertNotNull(luceneReader.document(0).get("name"));
+        }
+
+        DataReader dataReader = relationManager.getTableDataReader(PROFILE_TABLE, new TermQuery(new Term("content", "3")));
+        dataReader.open();
+        Tuple tuple = dataReader.getNextTuple();
+        Assert.assertNull(dataReader.getNextTuple());
+        dataReader.close();
+
+        Tuple newTuple = new Tuple(PROFILE_TABLE_SCHEMA, new StringField("name 3"), new IntegerField(3),
+                new TextField("the updated content"));
+        DataWriter dataWriter = relationManager.getTableDataWriter(PROFILE_TABLE);
+        dataWriter.open();
+        dataWriter.updateTuple(newTuple, tuple.getField(SchemaConstants._ID));
+        dataWriter.close();
+
+        Tuple updatedTuple = relationManager.getTupleByID(PROFILE_TABLE, tuple.getField(SchemaConstants._ID));
+        Assert.assertEquals(new TextField("the updated content"), updatedTuple.getField("content"));
+    }
+
+    /*
+     * Test that the best compression profile writes a smaller index than the best speed profile.
+     */
+    @Test
+    public void testBestCompressionIsSmaller() throws Exception {
+        createTable(LuceneCodecProfile.BEST_SPEED);
+        insertTuples(2000);
+        long bestSpeedSize = getDirectorySize(PROFILE_TABLE_DIRECTORY);
+
+        createTable(LuceneCodecProfile.BEST_COMPRESSION);
+        insertTuples(2000);
+        long bestCompressionSize = getDirectorySize(PROFILE_TABLE_DIRECTORY);
+
+        Assert.assertTrue(bestCompressionSize < bestSpeedSize);
+    }
+
+    /*
+     * Test that an invalid codec profile name is rejected.
+     */
+    @Test(expected = StorageException.class)
+    public void testInvalidProfileName() throws Exception {
+        LuceneCodecProfile.fromProfileName("invalid_profile");
+    }
+
+}
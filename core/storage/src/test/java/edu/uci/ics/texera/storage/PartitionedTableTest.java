@@ -0,0 +1,165 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+public class PartitionedTableTest {
+
+    public static final String PARTITIONED_TABLE = "partitioned_table_test_table";
+    public static final String PARTITIONED_TABLE_DIRECTORY = "./index/partitioned_table_test_table";
+    public static final String NAME = "name";
+    public static final String TIME = "time";
+    public static final Schema PARTITIONED_TABLE_SCHEMA = new Schema(
+            new Attribute(NAME, AttributeType.STRING),
+            new Attribute(TIME, AttributeType.DATETIME));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+
+    @Before
+    public void setUp() throws TexeraException {
+        relationManager.deleteTable(PARTITIONED_TABLE);
+        relationManager.createPartitionedTable(PARTITIONED_TABLE, Paths.get(PARTITIONED_TABLE_DIRECTORY),
+                PARTITIONED_TABLE_SCHEMA, LuceneAnalyzerConstants.standardAnalyzerString(), TIME, PartitionGranularity.MONTH);
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(PARTITIONED_TABLE);
+        dataWriter.open();
+        dataWriter.insertTuple(createTuple("january", "2017-01-15T10:00:00"));
+        dataWriter.insertTuple(createTuple("february-1", "2017-02-01T00:00:00"));
+        dataWriter.insertTuple(createTuple("february-2", "2017-02-28T23:59:59"));
+        dataWriter.insertTuple(createTuple("march", "2017-03-31T12:00:00"));
+        dataWriter.close();
+    }
+
+    @After
+    public void cleanUp() throws TexeraException {
+        relationManager.deleteTable(PARTITIONED_TABLE);
+    }
+
+    private static Tuple createTuple(String name, String time) {
+        return new Tuple(PARTITIONED_TABLE_SCHEMA, new StringField(name), new DateTimeField(LocalDateTime.parse(time)));
+    }
+
+    private static Query createTimeRangeQuery(String start, String end) {
+        return NumericRangeQuery.newLongRange(StorageUtils.getNumericDateFieldName(TIME),
+                StorageUtils.encodeDateValue(AttributeType.DATETIME, LocalDateTime.parse(start)),
+                StorageUtils.encodeDateValue(AttributeType.DATETIME, LocalDateTime.parse(end)), true, true);
+    }
+
+    private List<String> readNames(DataReader dataReader) {
+        List<String> names = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            names.add(tuple.getField(NAME, StringField.class).getValue());
+        }
+        dataReader.close();
+        return names.stream().sorted().collect(Collectors.toList());
+    }
+
+    private List<String> readNames(Query query) {
+        return readNames(relationManager.getTableDataReader(PARTITIONED_TABLE, query));
+    }
+
+    /*
+     * Tuples are written to the partitions of their months, and all of them are read by a full scan.
+     */
+    @Test
+    public void testPartitionRouting() throws Exception {
+        Assert.assertEquals(Arrays.asList("2017-01", "2017-02", "2017-03"),
+                relationManager.getTablePartitionKeys(PARTITIONED_TABLE));
+        Assert.assertEquals(Arrays.asList("february-1", "february-2", "january", "march"),
+                readNames(new MatchAllDocsQuery()));
+    }
+
+    /*
+     * Only the partitions that a date range can hit are opened.
+     */
+    @Test
+    public void testPartitionPruning() throws Exception {
+        DataReader dataReader = relationManager.getTableDataReader(PARTITIONED_TABLE,
+                createTimeRangeQuery("2017-02-10T00:00:00", "2017-03-01T00:00:00"));
+        Assert.assertEquals(Arrays.asList("february-2"), readNames(dataReader));
+
+        Path tableDirectory = Paths.get(relationManager.getTableDirectory(PARTITIONED_TABLE));
+        Assert.assertEquals(Arrays.asList(tableDirectory.resolve("2017-02"), tableDirectory.resolve("2017-03")),
+                dataReader.getOpenedPartitionDirectories());
+    }
+
+    /*
+     * Dropping a partition removes its tuples without touching the other partitions.
+     */
+    @Test
+    public void testDropPartition() throws Exception {
+        relationManager.dropPartition(PARTITIONED_TABLE, "2017-02");
+        Assert.assertEquals(Arrays.asList("2017-01", "2017-03"), relationManager.getTablePartitionKeys(PARTITIONED_TABLE));
+        Assert.assertEquals(Arrays.asList("january", "march"), readNames(new MatchAllDocsQuery()));
+
+        List<String> droppedKeys = relationManager.dropPartitionsBefore(PARTITIONED_TABLE, LocalDate.parse("2017-03-31"));
+        Assert.assertEquals(Arrays.asList("2017-01"), droppedKeys);
+        Assert.assertEquals(Arrays.asList("march"), readNames(new MatchAllDocsQuery()));
+    }
+
+    /*
+     * Updating the partition attribute of a tuple moves it to another partition, with the same ID.
+     */
+    @Test
+    public void testUpdateAcrossPartitions() throws Exception {
+        DataWriter dataWriter = relationManager.getTableDataWriter(PARTITIONED_TABLE);
+        dataWriter.open();
+        IDField idField = dataWriter.insertTuple(createTuple("moving", "2017-01-20T00:00:00"));
+        dataWriter.close();
+
+        dataWriter.open();
+        dataWriter.updateTuple(createTuple("moving", "2017-04-02T00:00:00"), idField);
+        dataWriter.close();
+
+        Assert.assertEquals(Arrays.asList("2017-01", "2017-02", "2017-03", "2017-04"),
+                relationManager.getTablePartitionKeys(PARTITIONED_TABLE));
+        Assert.assertEquals(Arrays.asList("january"),
+                readNames(createTimeRangeQuery("2017-01-01T00:00:00", "2017-01-31T00:00:00")));
+        Tuple movedTuple = relationManager.getTupleByID(PARTITIONED_TABLE, idField);
+        Assert.assertEquals(LocalDateTime.parse("2017-04-02T00:00:00"), movedTuple.getField(TIME).getValue());
+
+        dataWriter.open();
+        dataWriter.deleteTupleByID(idField);
+        dataWriter.close();
+        Assert.assertNull(relationManager.getTupleByID(PARTITIONED_TABLE, idField));
+    }
+
+    /*
+     * A table can only be partitioned by a DATE or DATETIME attribute.
+     */
+    @Test(expected = StorageException.class)
+    public void testInvalidPartitionAttribute() throws Exception {
+        relationManager.deleteTable(PARTITIONED_TABLE);
+        relationManager.createPartitionedTable(PARTITIONED_TABLE, Paths.get(PARTITIONED_TABLE_DIRECTORY),
+                PARTITIONED_TABLE_SCHEMA, LuceneAnalyzerConstants.standardAnalyzerString(), NAME, PartitionGranularity.MONTH);
+    }
+
+}
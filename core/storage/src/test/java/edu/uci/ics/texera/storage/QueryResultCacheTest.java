@@ -0,0 +1,176 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+
+public class QueryResultCacheTest {
+
+    public static final String CACHE_TABLE = "query_result_cache_test_table";
+    public static final String CACHE_TABLE_DIRECTORY = "./index/query_result_cache_test_table";
+    public static final Schema CACHE_TABLE_SCHEMA = new Schema(
+            new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+    private QueryResultCache queryResultCache = QueryResultCache.getInstance();
+
+    @Before
+    public void setUp() throws Exception {
+        relationManager.deleteTable(CACHE_TABLE);
+        relationManager.createTable(CACHE_TABLE, Paths.get(CACHE_TABLE_DIRECTORY), CACHE_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString(), LuceneCodecProfile.DEFAULT_PROFILE, RowIDType.NUMERIC);
+        DataWriter dataWriter = relationManager.getTableDataWriter(CACHE_TABLE);
+        dataWriter.open();
+        for (int i = 0; i < 50; i++) {
+            dataWriter.insertTuple(new Tuple(CACHE_TABLE_SCHEMA, new StringField("city " + i),
+                    new TextField(i % 2 == 0 ? "a large city by the river" : "a small city in the mountains")));
+        }
+        dataWriter.close();
+        queryResultCache.clear();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        queryResultCache.setMaxSizeInBytes(0);
+        queryResultCache.clear();
+        relationManager.deleteTable(CACHE_TABLE);
+    }
+
+    private static Query getRiverQuery() {
+        return new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("description", "large")), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term("description", "river")), BooleanClause.Occur.MUST)
+                .build();
+    }
+
+    private List<Tuple> readTuples(Query query) {
+        DataReader dataReader = relationManager.getTableDataReader(CACHE_TABLE, query);
+        List<Tuple> tuples = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            tuples.add(tuple);
+        }
+        dataReader.close();
+        return tuples;
+    }
+
+    /*
+     * A repeated query reads its matching documents from the cache, and gets the same results.
+     */
+    @Test
+    public void testRepeatedQueries() throws Exception {
+        List<Tuple> expectedTuples = readTuples(getRiverQuery());
+        Assert.assertEquals(25, expectedTuples.size());
+        Assert.assertEquals(0, queryResultCache.getHitCount() + queryResultCache.getMissCount());
+
+        queryResultCache.setMaxSizeInBytes(1 << 20);
+        Assert.assertTrue(TestUtils.equals(expectedTuples, readTuples(getRiverQuery())));
+        Assert.assertEquals(0, queryResultCache.getHitCount());
+        Assert.assertTrue(queryResultCache.getMissCount() > 0);
+        Assert.assertTrue(queryResultCache.getResultCount() > 0);
+
+        long missCount = queryResultCache.getMissCount();
+        Assert.assertTrue(TestUtils.equals(expectedTuples, readTuples(getRiverQuery())));
+        Assert.assertEquals(missCount, queryResultCache.getMissCount());
+        Assert.assertEquals(missCount, queryResultCache.getHitCount());
+
+        Assert.assertEquals(25, relationManager.getTableDataReader(CACHE_TABLE, getRiverQuery()).count());
+        Assert.assertEquals(2 * missCount, queryResultCache.getHitCount());
+
+        // a different query isn't answered by the cached results
+        Assert.assertEquals(25, readTuples(new TermQuery(new Term("description", "mountains"))).size());
+        Assert.assertEquals(2 * missCount, queryResultCache.getMissCount());
+    }
+
+    /*
+     * The tuples are returned in the index order, whether the cache is used or not,
+     *   even if the documents that come later in the index have higher scores.
+     */
+    @Test
+    public void testResultOrder() throws Exception {
+        DataWriter dataWriter = relationManager.getTableDataWriter(CACHE_TABLE);
+        dataWriter.open();
+        for (String description : Arrays.asList("river", "river river", "river river river")) {
+            dataWriter.insertTuple(new Tuple(CACHE_TABLE_SCHEMA, new StringField(description), new TextField(description)));
+        }
+        dataWriter.close();
+        Query riverQuery = new TermQuery(new Term("description", "river"));
+
+        List<Tuple> uncachedTuples = readTuples(riverQuery);
+        Assert.assertEquals(28, uncachedTuples.size());
+        Assert.assertEquals("river river river", uncachedTuples.get(27).getField("city").getValue());
+
+        queryResultCache.setMaxSizeInBytes(1 << 20);
+        Assert.assertEquals(uncachedTuples, readTuples(riverQuery));
+        Assert.assertEquals(uncachedTuples, readTuples(riverQuery));
+        Assert.assertTrue(queryResultCache.getHitCount() > 0);
+    }
+
+    /*
+     * The cached results of the segments that are still in the index are valid after new commits,
+     *   the deleted documents are filtered and the new segments are searched.
+     */
+    @Test
+    public void testNewCommits() throws Exception {
+        queryResultCache.setMaxSizeInBytes(1 << 20);
+        readTuples(getRiverQuery());
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(CACHE_TABLE);
+        dataWriter.open();
+        dataWriter.deleteTupleByID(new IDField(0));
+        dataWriter.insertTuple(new Tuple(CACHE_TABLE_SCHEMA,
+                new StringField("new city"), new TextField("a new large city by the river")));
+        dataWriter.close();
+
+        long hitCount = queryResultCache.getHitCount();
+        List<Tuple> tuples = readTuples(getRiverQuery());
+        Assert.assertEquals(25, tuples.size());
+        Assert.assertTrue(queryResultCache.getHitCount() > hitCount);
+        Assert.assertFalse(tuples.stream().anyMatch(tuple -> tuple.getField("city").getValue().equals("city 0")));
+        Assert.assertTrue(tuples.stream().anyMatch(tuple -> tuple.getField("city").getValue().equals("new city")));
+
+        relationManager.deleteTable(CACHE_TABLE);
+        Assert.assertEquals(0, queryResultCache.getResultCount());
+        Assert.assertEquals(0, queryResultCache.getSizeInBytes());
+    }
+
+    /*
+     * The least recently used results are evicted when the cache is full.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        queryResultCache.setMaxSizeInBytes(1 << 20);
+        readTuples(getRiverQuery());
+        readTuples(new TermQuery(new Term("description", "mountains")));
+        int resultCount = queryResultCache.getResultCount();
+
+        queryResultCache.setMaxSizeInBytes(queryResultCache.getSizeInBytes() - 1);
+        Assert.assertTrue(queryResultCache.getEvictionCount() > 0);
+        Assert.assertTrue(queryResultCache.getResultCount() < resultCount);
+        Assert.assertEquals(25, readTuples(getRiverQuery()).size());
+    }
+
+}
@@ -0,0 +1,104 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Paths;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class ReadSnapshotTest {
+
+    public static final String SNAPSHOT_TABLE = "read_snapshot_test_table";
+    public static final String SNAPSHOT_TABLE_DIRECTORY = "./index/read_snapshot_test_table";
+    public static final Schema SNAPSHOT_TABLE_SCHEMA = new Schema(new Attribute("content", AttributeType.STRING));
+
+    private RelationManager relationManager;
+
+    @Before
+    public void setUp() throws TexeraException {
+        relationManager = RelationManager.getInstance();
+        relationManager.deleteTable(SNAPSHOT_TABLE);
+        relationManager.createTable(SNAPSHOT_TABLE, Paths.get(SNAPSHOT_TABLE_DIRECTORY),
+                SNAPSHOT_TABLE_SCHEMA, LuceneAnalyzerConstants.standardAnalyzerString());
+        insertTuples(2);
+    }
+
+    @After
+    public void cleanUp() throws TexeraException {
+        relationManager.deleteTable(SNAPSHOT_TABLE);
+    }
+
+    private void insertTuples(int number) {
+        DataWriter dataWriter = relationManager.getTableDataWriter(SNAPSHOT_TABLE);
+        dataWriter.open();
+        for (int i = 0; i < number; i++) {
+            dataWriter.insertTuple(new Tuple(SNAPSHOT_TABLE_SCHEMA, new StringField("content " + i)));
+        }
+        dataWriter.close();
+    }
+
+    private int countTuples() {
+        DataReader dataReader = relationManager.getTableDataReader(SNAPSHOT_TABLE, new MatchAllDocsQuery());
+        int counter = 0;
+        dataReader.open();
+        while (dataReader.getNextTuple() != null) {
+            counter++;
+        }
+        dataReader.close();
+        return counter;
+    }
+
+    /*
+     * Test that readers inside a snapshot don't see the tuples committed after the snapshot pins the table.
+     */
+    @Test
+    public void testSnapshotIsolation() throws Exception {
+        try (ReadSnapshot readSnapshot = relationManager.openReadSnapshot()) {
+            Assert.assertEquals(2, countTuples());
+
+            insertTuples(3);
+
+            // a second scan of the same table in the same snapshot still sees the pinned commit
+            Assert.assertEquals(2, countTuples());
+        }
+
+        // after the snapshot is closed, readers see the latest commit
+        Assert.assertEquals(5, countTuples());
+    }
+
+    /*
+     * Test that the pinned commit is kept by writers until the snapshot is closed.
+     */
+    @Test
+    public void testPinnedCommitIsKept() throws Exception {
+        String tableDirectory = relationManager.getTableDirectory(SNAPSHOT_TABLE);
+
+        ReadSnapshot readSnapshot = relationManager.openReadSnapshot();
+        Assert.assertEquals(-1, readSnapshot.getPinnedGeneration(Paths.get(tableDirectory)));
+
+        countTuples();
+        long pinnedGeneration = readSnapshot.getPinnedGeneration(Paths.get(tableDirectory));
+        Assert.assertTrue(PinnedSnapshotDeletionPolicy.isPinned(Paths.get(tableDirectory), pinnedGeneration));
+
+        // several commits after the snapshot is taken
+        insertTuples(1);
+        insertTuples(1);
+        Assert.assertEquals(2, countTuples());
+
+        readSnapshot.close();
+        Assert.assertNull(ReadSnapshot.current());
+        Assert.assertFalse(PinnedSnapshotDeletionPolicy.isPinned(Paths.get(tableDirectory), pinnedGeneration));
+        Assert.assertEquals(4, countTuples());
+    }
+
+}
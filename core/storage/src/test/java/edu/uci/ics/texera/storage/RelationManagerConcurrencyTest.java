@@ -0,0 +1,357 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.Lock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
+
+/*
+ * Tests that RelationManager can be used by many threads at the same time,
+ *   like the requests handled by the web server.
+ */
+public class RelationManagerConcurrencyTest {
+
+    public static final String TABLE_PREFIX = "concurrency_test_table_";
+    public static final String DIRECTORY_PREFIX = "./index/concurrency_test/";
+    public static final Schema TABLE_SCHEMA = new Schema(
+            new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+
+    private static final int THREAD_COUNT = 8;
+
+    private RelationManager relationManager = RelationManager.getInstance();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        deleteTestTables();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        deleteTestTables();
+        StorageUtils.deleteDirectory(DIRECTORY_PREFIX);
+    }
+
+    private void deleteTestTables() {
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            relationManager.deleteTable(TABLE_PREFIX + i);
+        }
+        relationManager.deleteTable(TABLE_PREFIX + "shared");
+    }
+
+    /*
+     * Runs the tasks on the threads at the same time, and rethrows the first exception of the tasks.
+     */
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        List<Future<T>> futures = executor.invokeAll(tasks);
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static void insertTuples(DataWriter dataWriter, String cityPrefix, int tupleCount) {
+        for (int i = 0; i < tupleCount; i++) {
+            dataWriter.insertTuple(new Tuple(TABLE_SCHEMA,
+                    new StringField(cityPrefix + i), new TextField("a description of " + cityPrefix + i)));
+        }
+    }
+
+    private List<Tuple> readAllTuples(String tableName) {
+        DataReader dataReader = relationManager.getTableDataReader(tableName, new MatchAllDocsQuery());
+        List<Tuple> tuples = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            tuples.add(tuple);
+        }
+        dataReader.close();
+        return tuples;
+    }
+
+    /*
+     * Each thread creates, writes, reads and deletes its own table repeatedly.
+     */
+    @Test
+    public void testConcurrentTableLifecycles() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            String tableName = TABLE_PREFIX + i;
+            tasks.add(() -> {
+                int readCount = 0;
+                for (int round = 0; round < 5; round++) {
+                    relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                            LuceneAnalyzerConstants.standardAnalyzerString());
+                    DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+                    dataWriter.open();
+                    insertTuples(dataWriter, "city ", 20);
+                    dataWriter.close();
+                    readCount += readAllTuples(tableName).size();
+                    relationManager.deleteTable(tableName);
+                }
+                return readCount;
+            });
+        }
+        for (int readCount : runConcurrently(tasks)) {
+            Assert.assertEquals(100, readCount);
+        }
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            Assert.assertFalse(relationManager.checkTableExistence(TABLE_PREFIX + i));
+        }
+    }
+
+    /*
+     * The threads write to the same table with their own DataWriters,
+     *   while other threads read the table, every tuple gets a unique ID.
+     */
+    @Test
+    public void testConcurrentWritersOfOneTable() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+
+        AtomicInteger runningWriters = new AtomicInteger(THREAD_COUNT / 2);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT / 2; i++) {
+            String cityPrefix = "city " + i + " ";
+            tasks.add(() -> {
+                try {
+                    for (int session = 0; session < 5; session++) {
+                        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+                        dataWriter.open();
+                        insertTuples(dataWriter, cityPrefix + session + " ", 10);
+                        dataWriter.close();
+                    }
+                } finally {
+                    runningWriters.decrementAndGet();
+                }
+                return 0;
+            });
+        }
+        for (int i = 0; i < THREAD_COUNT / 2; i++) {
+            tasks.add(() -> {
+                int lastCount = 0;
+                while (runningWriters.get() > 0) {
+                    int count = relationManager.getTableTupleCount(tableName, new MatchAllDocsQuery());
+                    // a reader sees whole commits, and the table only grows
+                    Assert.assertEquals(0, count % 10);
+                    Assert.assertTrue(count >= lastCount);
+                    lastCount = count;
+                }
+                return lastCount;
+            });
+        }
+        runConcurrently(tasks);
+
+        List<Tuple> tuples = readAllTuples(tableName);
+        Assert.assertEquals(THREAD_COUNT / 2 * 50, tuples.size());
+        Set<Object> ids = new HashSet<>();
+        for (Tuple tuple : tuples) {
+            ids.add(tuple.getField(SchemaConstants._ID).getValue());
+        }
+        Assert.assertEquals(tuples.size(), ids.size());
+    }
+
+    /*
+     * Only one of the threads creating the same table succeeds.
+     */
+    @Test
+    public void testConcurrentCreationOfOneTable() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            String tableDirectory = DIRECTORY_PREFIX + tableName + "_" + i;
+            tasks.add(() -> {
+                try {
+                    relationManager.createTable(tableName, Paths.get(tableDirectory), TABLE_SCHEMA,
+                            LuceneAnalyzerConstants.standardAnalyzerString());
+                    return true;
+                } catch (StorageException e) {
+                    return false;
+                }
+            });
+        }
+        List<Boolean> results = runConcurrently(tasks);
+        Assert.assertEquals(1, results.stream().filter(created -> created).count());
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(TABLE_SCHEMA), relationManager.getTableSchema(tableName));
+    }
+
+    /*
+     * A DataWriter waits for the open DataWriter of the same table,
+     *   instead of failing on the lock of the Lucene index.
+     */
+    @Test
+    public void testWriterWaitsForOpenWriter() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter firstWriter = relationManager.getTableDataWriter(tableName);
+        firstWriter.open();
+        insertTuples(firstWriter, "first city ", 10);
+
+        Future<Integer> secondWrite = executor.submit(() -> {
+            DataWriter secondWriter = relationManager.getTableDataWriter(tableName);
+            secondWriter.open();
+            insertTuples(secondWriter, "second city ", 10);
+            secondWriter.close();
+            return readAllTuples(tableName).size();
+        });
+        Thread.sleep(200);
+        Assert.assertFalse(secondWrite.isDone());
+
+        firstWriter.close();
+        Assert.assertEquals(20, (int) secondWrite.get(1, TimeUnit.MINUTES));
+    }
+
+    /*
+     * A DataWriter fails if the table stays locked for longer than the write lock timeout.
+     */
+    @Test
+    public void testWriteLockTimeout() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter firstWriter = relationManager.getTableDataWriter(tableName);
+        firstWriter.open();
+        relationManager.setWriteLockTimeout(1);
+        try {
+            relationManager.getTableDataWriter(tableName).open();
+            Assert.fail("the second writer should time out");
+        } catch (StorageException e) {
+            // expected
+        } finally {
+            relationManager.setWriteLockTimeout(IndexWriterRegistry.DEFAULT_WRITE_LOCK_TIMEOUT_SECONDS);
+            firstWriter.close();
+        }
+    }
+
+    /*
+     * Deleting a table waits for its open DataWriter without blocking the catalog operations of the other tables.
+     */
+    @Test
+    public void testDeleteTableDoesNotBlockOtherTables() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        String otherTableName = TABLE_PREFIX + 0;
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        Future<?> deletion = executor.submit(() -> relationManager.deleteTable(tableName));
+        Thread.sleep(200);
+        Assert.assertFalse(deletion.isDone());
+
+        Future<?> otherTableLifecycle = executor.submit(() -> {
+            relationManager.createTable(otherTableName, Paths.get(DIRECTORY_PREFIX + otherTableName), TABLE_SCHEMA,
+                    LuceneAnalyzerConstants.standardAnalyzerString());
+            relationManager.deleteTable(otherTableName);
+        });
+        otherTableLifecycle.get(10, TimeUnit.SECONDS);
+        Assert.assertFalse(deletion.isDone());
+
+        dataWriter.close();
+        deletion.get(1, TimeUnit.MINUTES);
+        Assert.assertFalse(relationManager.checkTableExistence(tableName));
+    }
+
+    /*
+     * A thread can delete a table while it has an open DataWriter of the table,
+     *   and the lock of the table is removed once the DataWriter is closed.
+     */
+    @Test
+    public void testDeleteTableWithOpenWriterOfSameThread() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+        Path tableDirectory = Paths.get(relationManager.getTableDirectory(tableName));
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        insertTuples(dataWriter, "city ", 10);
+        relationManager.setWriteLockTimeout(1);
+        try {
+            relationManager.deleteTable(tableName);
+        } finally {
+            relationManager.setWriteLockTimeout(IndexWriterRegistry.DEFAULT_WRITE_LOCK_TIMEOUT_SECONDS);
+            dataWriter.close();
+        }
+        Assert.assertFalse(relationManager.checkTableExistence(tableName));
+        Assert.assertFalse(IndexWriterRegistry.hasTableLock(tableDirectory));
+    }
+
+    /*
+     * The IndexWriter of a table without an open DataWriter is closed when it's idle, which releases the write.lock,
+     *   and it's opened again by the next DataWriter.
+     */
+    @Test
+    public void testIdleWritersAreClosed() throws Exception {
+        String tableName = TABLE_PREFIX + "shared";
+        relationManager.createTable(tableName, Paths.get(DIRECTORY_PREFIX + tableName), TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        insertTuples(dataWriter, "first city ", 10);
+        // the writer of a table being written is not closed
+        IndexWriterRegistry.closeIdleIndexWriters(0);
+        insertTuples(dataWriter, "second city ", 10);
+        dataWriter.close();
+        Assert.assertFalse(isWriteLockReleased(tableName));
+
+        IndexWriterRegistry.closeIdleIndexWriters(0);
+        Assert.assertTrue(isWriteLockReleased(tableName));
+
+        dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        insertTuples(dataWriter, "third city ", 10);
+        dataWriter.close();
+        Assert.assertEquals(30, readAllTuples(tableName).size());
+    }
+
+    private static boolean isWriteLockReleased(String tableName) throws Exception {
+        try (Directory directory = FSDirectory.open(Paths.get(DIRECTORY_PREFIX + tableName))) {
+            Lock lock = directory.obtainLock(IndexWriter.WRITE_LOCK_NAME);
+            lock.close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+}
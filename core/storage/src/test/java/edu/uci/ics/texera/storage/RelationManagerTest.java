@@ -1,13 +1,18 @@
 package edu.uci.ics.texera.storage;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.junit.Assert;
@@ -18,11 +23,14 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.IDField;
 import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 public class RelationManagerTest {
     
@@ -429,4 +437,293 @@ public class RelationManagerTest {
 
         relationManager.deleteTable(tableName);
     }
+
+    /*
+     * Test that the count and the existence check of matching tuples don't depend on reading the tuples,
+     *   and a DataReader with a limit only returns the first tuples.
+     */
+    @Test
+    public void test18() throws Exception {
+        String tableName = "relation_manager_test_table_18";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_18";
+        Schema tableSchema = new Schema(new Attribute("content", AttributeType.STRING));
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        for (int i = 0; i < 10; i++) {
+            dataWriter.insertTuple(new Tuple(tableSchema, new StringField(i % 2 == 0 ? "even" : "odd")));
+        }
+        dataWriter.close();
+
+        Query evenQuery = new TermQuery(new Term("content", "even"));
+        Query noneQuery = new TermQuery(new Term("content", "none"));
+        Assert.assertEquals(10, relationManager.getTableTupleCount(tableName, new MatchAllDocsQuery()));
+        Assert.assertEquals(5, relationManager.getTableTupleCount(tableName, evenQuery));
+        Assert.assertEquals(0, relationManager.getTableTupleCount(tableName, noneQuery));
+        Assert.assertTrue(relationManager.checkTupleExistence(tableName, evenQuery));
+        Assert.assertFalse(relationManager.checkTupleExistence(tableName, noneQuery));
+
+        DataReader dataReader = relationManager.getTableDataReader(tableName, new MatchAllDocsQuery());
+        dataReader.setLimit(3);
+        dataReader.open();
+        int tupleCount = 0;
+        while (dataReader.getNextTuple() != null) {
+            tupleCount++;
+        }
+        dataReader.close();
+        Assert.assertEquals(3, tupleCount);
+
+        relationManager.deleteTable(tableName);
+    }
+
+    /*
+     * Test that a table exported to an archive is imported under a new name with the same schema and tuples,
+     *   and the row IDs of the imported table continue after the exported tuples.
+     */
+    @Test
+    public void test19() throws Exception {
+        String tableName = "relation_manager_test_table_19";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_19";
+        String importedTableName = "relation_manager_test_table_19_imported";
+        String importedTableDirectory = "./index/test_table/relation_manager_test_table_19_imported";
+        Schema tableSchema = new Schema(
+                new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+        Path archiveFile = Files.createTempFile("relation_manager_test_table_19", ".archive");
+
+        relationManager.deleteTable(tableName);
+        relationManager.deleteTable(importedTableName);
+        relationManager.createTable(tableName, Paths.get(tableDirectory), tableSchema, 
+                LuceneAnalyzerConstants.standardAnalyzerString(), LuceneCodecProfile.DEFAULT_PROFILE, RowIDType.NUMERIC);
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        for (int i = 0; i < 100; i++) {
+            dataWriter.insertTuple(new Tuple(tableSchema, 
+                    new StringField("city " + i), new TextField("a description of city " + i)));
+        }
+        dataWriter.close();
+
+        relationManager.exportTable(tableName, archiveFile);
+        relationManager.importTable(importedTableName, Paths.get(importedTableDirectory), archiveFile);
+
+        Assert.assertEquals(relationManager.getTableSchema(tableName), relationManager.getTableSchema(importedTableName));
+        Assert.assertEquals(relationManager.getTableAnalyzerString(tableName), 
+                relationManager.getTableAnalyzerString(importedTableName));
+        Assert.assertEquals(RowIDType.NUMERIC, relationManager.getTableRowIDType(importedTableName));
+        Assert.assertEquals(100, relationManager.getTableTupleCount(importedTableName, new MatchAllDocsQuery()));
+        Assert.assertEquals(1, relationManager.getTableTupleCount(importedTableName, 
+                new TermQuery(new Term("description", "42"))));
+
+        // the imported table is independent of the exported table
+        relationManager.deleteTable(tableName);
+        DataWriter importedDataWriter = relationManager.getTableDataWriter(importedTableName);
+        importedDataWriter.open();
+        IDField idField = importedDataWriter.insertTuple(new Tuple(tableSchema, 
+                new StringField("new city"), new TextField("a new description")));
+        importedDataWriter.close();
+        Assert.assertEquals(new IDField(100), idField);
+        Assert.assertEquals("new city", relationManager.getTupleByID(importedTableName, idField).getField("city").getValue());
+
+        relationManager.deleteTable(importedTableName);
+        Files.delete(archiveFile);
+    }
+
+    /*
+     * Test that a corrupted archive is not imported, and the index directory is cleaned up.
+     */
+    @Test
+    public void test20() throws Exception {
+        String tableName = "relation_manager_test_table_20";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_20";
+        String importedTableName = "relation_manager_test_table_20_imported";
+        String importedTableDirectory = "./index/test_table/relation_manager_test_table_20_imported";
+        Schema tableSchema = new Schema(new Attribute("content", AttributeType.STRING));
+        Path archiveFile = Files.createTempFile("relation_manager_test_table_20", ".archive");
+
+        relationManager.deleteTable(tableName);
+        relationManager.deleteTable(importedTableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        dataWriter.insertTuple(new Tuple(tableSchema, new StringField("content")));
+        dataWriter.close();
+        relationManager.exportTable(tableName, archiveFile);
+        relationManager.deleteTable(tableName);
+
+        // flip a byte in the middle of the archive
+        byte[] archiveBytes = Files.readAllBytes(archiveFile);
+        archiveBytes[archiveBytes.length / 2] ^= 0xFF;
+        Files.write(archiveFile, archiveBytes);
+
+        try {
+            relationManager.importTable(importedTableName, Paths.get(importedTableDirectory), archiveFile);
+            Assert.fail("Importing a corrupted archive should throw an exception");
+        } catch (StorageException e) {
+            Assert.assertFalse(relationManager.checkTableExistence(importedTableName));
+            Assert.assertFalse(Files.exists(Paths.get(importedTableDirectory)));
+        } finally {
+            Files.delete(archiveFile);
+        }
+    }
+
+    /*
+     * Test that a table using the MEMORY storage engine returns the same tuples (and payloads) as the LUCENE engine,
+     *   and the tuples committed after the table is loaded into memory are read.
+     */
+    @Test
+    public void test21() throws Exception {
+        String tableName = "relation_manager_test_table_21";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_21";
+        Schema tableSchema = new Schema(
+                new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+        Assert.assertEquals(StorageEngine.LUCENE, relationManager.getTableStorageEngine(tableName));
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        List<IDField> idFields = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            idFields.add(dataWriter.insertTuple(new Tuple(tableSchema, 
+                    new StringField("city " + i), new TextField("a description of city " + i))));
+        }
+        dataWriter.deleteTupleByID(idFields.get(3));
+        dataWriter.close();
+        
+        Query descriptionQuery = new TermQuery(new Term("description", "7"));
+        List<Tuple> luceneTuples = readTuples(tableName, new MatchAllDocsQuery(), true, Integer.MAX_VALUE);
+        List<Tuple> luceneQueryTuples = readTuples(tableName, descriptionQuery, false, Integer.MAX_VALUE);
+
+        relationManager.setTableStorageEngine(tableName, StorageEngine.MEMORY);
+        Assert.assertEquals(StorageEngine.MEMORY, relationManager.getTableStorageEngine(tableName));
+        Assert.assertEquals(19, luceneTuples.size());
+        Assert.assertEquals(luceneTuples, readTuples(tableName, new MatchAllDocsQuery(), true, Integer.MAX_VALUE));
+        Assert.assertEquals(luceneQueryTuples, readTuples(tableName, descriptionQuery, false, Integer.MAX_VALUE));
+        Assert.assertEquals(luceneTuples.subList(0, 5), readTuples(tableName, new MatchAllDocsQuery(), true, 5));
+
+        // a new commit is read by the MEMORY engine
+        dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        dataWriter.insertTuple(new Tuple(tableSchema, new StringField("new city"), new TextField("a new description")));
+        dataWriter.close();
+        List<Tuple> memoryTuples = readTuples(tableName, new MatchAllDocsQuery(), false, Integer.MAX_VALUE);
+        Assert.assertEquals(20, memoryTuples.size());
+        Assert.assertEquals("new city", memoryTuples.get(19).getField("city").getValue());
+
+        relationManager.setTableStorageEngine(tableName, StorageEngine.LUCENE);
+        Assert.assertEquals(memoryTuples, readTuples(tableName, new MatchAllDocsQuery(), false, Integer.MAX_VALUE));
+
+        relationManager.deleteTable(tableName);
+    }
+    
+    /*
+     * Test that a ranked query on a table with many segments finds the same top tuples
+     *   when the segments are searched concurrently.
+     */
+    @Test
+    public void test22() throws Exception {
+        String tableName = "relation_manager_test_table_22";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_22";
+        Schema tableSchema = new Schema(
+                new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // each commit writes a new segment
+        for (int segment = 0; segment < 4; segment++) {
+            DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+            dataWriter.open();
+            for (int i = 0; i < 10; i++) {
+                String description = String.join(" ", Collections.nCopies(1 + (segment * 10 + i) % 7, "river"));
+                dataWriter.insertTuple(new Tuple(tableSchema, 
+                        new StringField("city " + segment + " " + i), new TextField(description + " city")));
+            }
+            dataWriter.close();
+        }
+        
+        Query riverQuery = new TermQuery(new Term("description", "river"));
+        List<Tuple> expectedTuples = readTuples(tableName, riverQuery, false, 10);
+        Assert.assertEquals(10, expectedTuples.size());
+        try {
+            relationManager.setSearchThreadCount(4);
+            Assert.assertEquals(4, relationManager.getSearchThreadCount());
+            Assert.assertEquals(expectedTuples, readTuples(tableName, riverQuery, false, 10));
+            Assert.assertEquals(40, readTuples(tableName, riverQuery, false, Integer.MAX_VALUE).size());
+        } finally {
+            relationManager.setSearchThreadCount(1);
+        }
+
+        relationManager.deleteTable(tableName);
+    }
+    
+    /*
+     * Test that the TEXT attributes of a table with gram fields are indexed as their grams,
+     *   and the gram size is kept in the catalog and in the exported archive.
+     */
+    @Test
+    public void test23() throws Exception {
+        String tableName = "relation_manager_test_table_23";
+        String tableDirectory = "./index/test_table/relation_manager_test_table_23";
+        String importedTableName = "relation_manager_test_table_23_imported";
+        String importedTableDirectory = "./index/test_table/relation_manager_test_table_23_imported";
+        Schema tableSchema = new Schema(
+                new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+        Path archiveFile = Files.createTempFile("relation_manager_test_table_23", ".archive");
+
+        relationManager.deleteTable(tableName);
+        relationManager.deleteTable(importedTableName);
+        relationManager.createTable(tableName, Paths.get(tableDirectory), tableSchema, 
+                LuceneAnalyzerConstants.standardAnalyzerString(), LuceneCodecProfile.DEFAULT_PROFILE, 3);
+        Assert.assertEquals(3, relationManager.getTableGramSize(tableName));
+        Assert.assertTrue(relationManager.getTableDataStore(tableName).hasGramFields());
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        IDField idField = dataWriter.insertTuple(new Tuple(tableSchema, new StringField("Irvine"), new TextField("Orange County")));
+        dataWriter.insertTuple(new Tuple(tableSchema, new StringField("Los Angeles"), new TextField("Los Angeles County")));
+        dataWriter.close();
+
+        String gramFieldName = StorageUtils.getGramFieldName("description");
+        Assert.assertEquals(2, relationManager.getTableTupleCount(tableName, new TermQuery(new Term(gramFieldName, "ang"))));
+        Assert.assertEquals(1, relationManager.getTableTupleCount(tableName, new TermQuery(new Term(gramFieldName, "s a"))));
+        // the other fields are still tokenized by the analyzer of the table
+        Assert.assertEquals(1, relationManager.getTableTupleCount(tableName, new TermQuery(new Term("description", "angeles"))));
+        Assert.assertEquals(tableSchema.getAttributeNames().size() + 1, 
+                relationManager.getTupleByID(tableName, idField).getFields().size());
+
+        relationManager.exportTable(tableName, archiveFile);
+        relationManager.importTable(importedTableName, Paths.get(importedTableDirectory), archiveFile);
+        Assert.assertEquals(3, relationManager.getTableGramSize(importedTableName));
+        Assert.assertEquals(2, relationManager.getTableTupleCount(importedTableName, 
+                new TermQuery(new Term(gramFieldName, "ang"))));
+
+        relationManager.deleteTable(tableName);
+        relationManager.deleteTable(importedTableName);
+        Files.delete(archiveFile);
+    }
+    
+    private List<Tuple> readTuples(String tableName, Query query, boolean payloadAdded, int limit) throws Exception {
+        DataReader dataReader = relationManager.getTableDataReader(tableName, query);
+        dataReader.setPayloadAdded(payloadAdded);
+        if (limit != Integer.MAX_VALUE) {
+            dataReader.setLimit(limit);
+        }
+        List<Tuple> tuples = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            tuples.add(tuple);
+        }
+        dataReader.close();
+        return tuples;
+    }
 }
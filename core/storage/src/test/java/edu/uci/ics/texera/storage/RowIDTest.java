@@ -0,0 +1,211 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+
+public class RowIDTest {
+
+    public static final String ROW_ID_TABLE = "row_id_test_table";
+    public static final String ROW_ID_TABLE_DIRECTORY = "./index/row_id_test_table";
+    public static final String UUID_TABLE = "row_id_test_uuid_table";
+    public static final String UUID_TABLE_DIRECTORY = "./index/row_id_test_uuid_table";
+    public static final Schema ROW_ID_TABLE_SCHEMA = new Schema(new Attribute("name", AttributeType.STRING));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+
+    @Before
+    public void setUp() throws TexeraException {
+        relationManager.deleteTable(ROW_ID_TABLE);
+        relationManager.deleteTable(UUID_TABLE);
+        relationManager.createTable(ROW_ID_TABLE, Paths.get(ROW_ID_TABLE_DIRECTORY), ROW_ID_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString(), LuceneCodecProfile.DEFAULT_PROFILE, RowIDType.NUMERIC);
+        relationManager.createTable(UUID_TABLE, Paths.get(UUID_TABLE_DIRECTORY), ROW_ID_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+    }
+
+    @After
+    public void cleanUp() throws TexeraException {
+        relationManager.deleteTable(ROW_ID_TABLE);
+        relationManager.deleteTable(UUID_TABLE);
+    }
+
+    private List<IDField> insertTuples(int number) {
+        return insertTuples(ROW_ID_TABLE, number);
+    }
+
+    private List<IDField> insertTuples(String tableName, int number) {
+        List<IDField> idFields = new ArrayList<>();
+        DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
+        dataWriter.open();
+        for (int i = 0; i < number; i++) {
+            idFields.add(dataWriter.insertTuple(new Tuple(ROW_ID_TABLE_SCHEMA, new StringField("name " + i))));
+        }
+        dataWriter.close();
+        return idFields;
+    }
+
+    /*
+     * Row IDs increase monotonically in a table, also after the table is reopened or its tuples are deleted.
+     */
+    @Test
+    public void testMonotonicRowIDs() throws Exception {
+        List<IDField> idFields = insertTuples(3);
+        DataWriter dataWriter = relationManager.getTableDataWriter(ROW_ID_TABLE);
+        dataWriter.open();
+        dataWriter.deleteTupleByID(idFields.get(2));
+        dataWriter.close();
+        idFields.addAll(insertTuples(2));
+
+        for (int i = 0; i < idFields.size(); i++) {
+            Assert.assertTrue(idFields.get(i).isNumeric());
+            Assert.assertEquals(i, idFields.get(i).getNumericValue());
+        }
+    }
+
+    /*
+     * The IDs read by DataReader are the numeric IDs assigned by DataWriter.
+     */
+    @Test
+    public void testReadRowIDs() throws Exception {
+        List<IDField> idFields = insertTuples(5);
+
+        DataReader dataReader = relationManager.getTableDataReader(ROW_ID_TABLE, new MatchAllDocsQuery());
+        List<IDField> readIDFields = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            readIDFields.add(tuple.getField(SchemaConstants._ID));
+        }
+        dataReader.close();
+
+        Assert.assertEquals(idFields, readIDFields);
+    }
+
+    /*
+     * getTupleByID sees the writes made after the cached reader is opened.
+     */
+    @Test
+    public void testGetTupleByID() throws Exception {
+        List<IDField> idFields = insertTuples(3);
+        Tuple tuple = relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(1));
+        Assert.assertEquals("name 1", tuple.getField("name").getValue());
+        Assert.assertEquals(idFields.get(1), tuple.getField(SchemaConstants._ID));
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(ROW_ID_TABLE);
+        dataWriter.open();
+        dataWriter.updateTuple(new Tuple(ROW_ID_TABLE_SCHEMA, new StringField("updated")), idFields.get(1));
+        dataWriter.deleteTupleByID(idFields.get(2));
+        dataWriter.close();
+
+        Assert.assertEquals("updated", relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(1)).getField("name").getValue());
+        Assert.assertNull(relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(2)));
+        // an ID parsed from its string value finds the same tuple
+        Assert.assertNotNull(relationManager.getTupleByID(ROW_ID_TABLE, 
+                new IDField(Long.parseLong(idFields.get(0).getValue()))));
+    }
+
+    /*
+     * A string ID of a NUMERIC table, such as an ID parsed from JSON, is converted to the numeric ID,
+     *   and a string which isn't the digits of a number is rejected.
+     */
+    @Test
+    public void testStringIDOfNumericTable() throws Exception {
+        List<IDField> idFields = insertTuples(3);
+        Tuple tuple = relationManager.getTupleByID(ROW_ID_TABLE, new IDField(idFields.get(1).getValue()));
+        Assert.assertEquals("name 1", tuple.getField("name").getValue());
+        Assert.assertEquals(idFields.get(1), tuple.getField(SchemaConstants._ID));
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(ROW_ID_TABLE);
+        dataWriter.open();
+        dataWriter.updateTuple(new Tuple(ROW_ID_TABLE_SCHEMA, new StringField("updated")), 
+                new IDField(idFields.get(1).getValue()));
+        dataWriter.deleteTupleByID(new IDField(idFields.get(2).getValue()));
+        dataWriter.close();
+
+        Assert.assertEquals(idFields.get(1), relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(1))
+                .getField(SchemaConstants._ID));
+        Assert.assertEquals("updated", relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(1)).getField("name").getValue());
+        Assert.assertNull(relationManager.getTupleByID(ROW_ID_TABLE, idFields.get(2)));
+        Assert.assertEquals(2, relationManager.getTableTupleCount(ROW_ID_TABLE, new MatchAllDocsQuery()));
+
+        for (String idValue : Arrays.asList("0f8fad5b-d9cb-469f-a165-70867728950e", "01", "+1")) {
+            try {
+                relationManager.getTupleByID(ROW_ID_TABLE, new IDField(idValue));
+                Assert.fail(idValue + " should be rejected");
+            } catch (StorageException e) {
+                // expected
+            }
+        }
+    }
+
+    /*
+     * The tables created without a row ID type keep using UUID string IDs.
+     */
+    @Test
+    public void testUUIDRowIDs() throws Exception {
+        Assert.assertEquals(RowIDType.UUID, relationManager.getTableRowIDType(UUID_TABLE));
+        List<IDField> idFields = insertTuples(UUID_TABLE, 3);
+        for (IDField idField : idFields) {
+            Assert.assertFalse(idField.isNumeric());
+            Assert.assertEquals(idField, relationManager.getTupleByID(UUID_TABLE, new IDField(idField.getValue()))
+                    .getField(SchemaConstants._ID));
+        }
+    }
+
+    /*
+     * The kind of an ID is decided by its constructor: a string of digits is a string ID, not the number.
+     */
+    @Test
+    public void testIDFieldRepresentation() throws Exception {
+        Assert.assertEquals(new IDField(42), new IDField(42));
+        Assert.assertEquals("42", new IDField(42).getValue());
+        Assert.assertFalse(new IDField("42").isNumeric());
+        Assert.assertFalse(new IDField(42).equals(new IDField("42")));
+        Assert.assertFalse(new IDField("0f8fad5b-d9cb-469f-a165-70867728950e").isNumeric());
+        IDField randomID = IDField.newRandomID();
+        Assert.assertFalse(randomID.isNumeric());
+        Assert.assertEquals(4, UUID.fromString(randomID.getValue()).version());
+    }
+
+    /*
+     * The readers of the least recently used tables are closed, and reopened by their next lookups.
+     */
+    @Test
+    public void testCachedReadersAreBounded() throws Exception {
+        IDField rowID = insertTuples(1).get(0);
+        IDField uuid = insertTuples(UUID_TABLE, 1).get(0);
+        DataStore rowIDTableStore = relationManager.getTableDataStore(ROW_ID_TABLE);
+        DataStore uuidTableStore = relationManager.getTableDataStore(UUID_TABLE);
+
+        RowIDLookup rowIDLookup = new RowIDLookup(1);
+        Assert.assertNotNull(rowIDLookup.getTupleByID(rowIDTableStore, rowID));
+        Assert.assertNotNull(rowIDLookup.getTupleByID(uuidTableStore, uuid));
+        Assert.assertEquals(1, rowIDLookup.getCachedReaderCount());
+        Assert.assertNotNull(rowIDLookup.getTupleByID(rowIDTableStore, rowID));
+        Assert.assertEquals(1, rowIDLookup.getCachedReaderCount());
+        rowIDLookup.invalidate(rowIDTableStore.getDataDirectory());
+        Assert.assertEquals(0, rowIDLookup.getCachedReaderCount());
+    }
+
+}
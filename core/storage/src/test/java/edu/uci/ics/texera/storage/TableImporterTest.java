@@ -0,0 +1,135 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.ImportProgress.ImportState;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class TableImporterTest {
+
+    public static final String IMPORT_TABLE = "table_importer_test_table";
+    public static final String IMPORT_TABLE_DIRECTORY = "./index/table_importer_test_table";
+    public static final Schema IMPORT_TABLE_SCHEMA = new Schema(
+            new Attribute("name", AttributeType.STRING), new Attribute("age", AttributeType.INTEGER),
+            new Attribute("description", AttributeType.TEXT));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+    private Path importFile;
+
+    @Before
+    public void setUp() throws Exception {
+        relationManager.deleteTable(IMPORT_TABLE);
+        relationManager.createTable(IMPORT_TABLE, Paths.get(IMPORT_TABLE_DIRECTORY), IMPORT_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString());
+        importFile = Files.createTempFile("table_importer_test", ".txt");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        relationManager.deleteTable(IMPORT_TABLE);
+        Files.deleteIfExists(importFile);
+    }
+
+    private List<Tuple> readTableTuples() {
+        DataReader dataReader = relationManager.getTableDataReader(IMPORT_TABLE, new MatchAllDocsQuery());
+        List<Tuple> tuples = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            tuples.add(tuple);
+        }
+        dataReader.close();
+        return tuples;
+    }
+
+    /*
+     * A CSV file with quoted values is imported in the order of the file, through chunks smaller than some records.
+     * The columns are mapped by the header, and an invalid record is skipped.
+     */
+    @Test
+    public void testImportCsv() throws Exception {
+        StringBuilder csv = new StringBuilder("description,age,name,unused\n");
+        csv.append("\"a description, with a comma\",20,first,x\r\n");
+        csv.append("\"a description with\na line break and \"\"quotes\"\"\",30,second,x\n");
+        csv.append("an invalid age,thirty,invalid,x\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("description " + i + "," + i + ",name " + i + ",x\n");
+        }
+        Files.write(importFile, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        TableImporter tableImporter = new TableImporter(IMPORT_TABLE, importFile, ImportFormat.CSV);
+        tableImporter.setChunkSize(64);
+        tableImporter.setParserThreadNumber(3);
+        tableImporter.setCommitSize(10);
+        ImportProgress progress = tableImporter.importTable();
+
+        Assert.assertEquals(ImportState.COMPLETED, progress.getState());
+        Assert.assertEquals(102, progress.getIndexedTupleCount());
+        Assert.assertEquals(102, progress.getCommittedTupleCount());
+        Assert.assertEquals(1, progress.getFailedRecordCount());
+        Assert.assertEquals(progress.getTotalBytes(), progress.getParsedBytes());
+
+        List<Tuple> tuples = readTableTuples();
+        Assert.assertEquals(102, tuples.size());
+        Assert.assertEquals("first", tuples.get(0).getField("name").getValue());
+        Assert.assertEquals("a description, with a comma", tuples.get(0).getField("description").getValue());
+        Assert.assertEquals("a description with\na line break and \"quotes\"", tuples.get(1).getField("description").getValue());
+        Assert.assertEquals(30, tuples.get(1).getField("age").getValue());
+        Assert.assertEquals("name 99", tuples.get(101).getField("name").getValue());
+    }
+
+    /*
+     * A JSON lines file is imported, the keys of each object are mapped to the attributes.
+     */
+    @Test
+    public void testImportJsonLines() throws Exception {
+        StringBuilder jsonLines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            jsonLines.append(String.format("{\"age\": %d, \"name\": \"name %d\", \"description\": \"line\\n%d\"}\n", i, i, i));
+        }
+        jsonLines.append("{\"name\": \"no age\", \"description\": \"\"}\n");
+        Files.write(importFile, jsonLines.toString().getBytes(StandardCharsets.UTF_8));
+
+        TableImporter tableImporter = new TableImporter(IMPORT_TABLE, importFile, ImportFormat.fromName("JSONL"));
+        tableImporter.setChunkSize(1000);
+        tableImporter.setParserThreadNumber(4);
+        ImportProgress progress = tableImporter.importTable();
+
+        Assert.assertEquals(1000, progress.getIndexedTupleCount());
+        Assert.assertEquals(1, progress.getFailedRecordCount());
+        Assert.assertTrue(progress.getErrorMessage().contains("age"));
+
+        List<Tuple> tuples = readTableTuples();
+        Assert.assertEquals(1000, tuples.size());
+        for (int i = 0; i < tuples.size(); i++) {
+            Assert.assertEquals(i, tuples.get(i).getField("age").getValue());
+            Assert.assertEquals("line\n" + i, tuples.get(i).getField("description").getValue());
+        }
+    }
+
+    /*
+     * A CSV file without the columns of the table fails to be imported.
+     */
+    @Test(expected = TexeraException.class)
+    public void testImportCsvMissingColumn() throws Exception {
+        Files.write(importFile, "name,age\nfirst,20\n".getBytes(StandardCharsets.UTF_8));
+        new TableImporter(IMPORT_TABLE, importFile, ImportFormat.CSV).importTable();
+    }
+
+}
@@ -0,0 +1,138 @@
+package edu.uci.ics.texera.storage;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.constants.LuceneCodecProfile;
+
+public class TupleCacheTest {
+
+    public static final String CACHE_TABLE = "tuple_cache_test_table";
+    public static final String CACHE_TABLE_DIRECTORY = "./index/tuple_cache_test_table";
+    public static final Schema CACHE_TABLE_SCHEMA = new Schema(
+            new Attribute("city", AttributeType.STRING), new Attribute("description", AttributeType.TEXT));
+
+    private RelationManager relationManager = RelationManager.getInstance();
+    private TupleCache tupleCache = TupleCache.getInstance();
+
+    @Before
+    public void setUp() throws Exception {
+        relationManager.deleteTable(CACHE_TABLE);
+        relationManager.createTable(CACHE_TABLE, Paths.get(CACHE_TABLE_DIRECTORY), CACHE_TABLE_SCHEMA,
+                LuceneAnalyzerConstants.standardAnalyzerString(), LuceneCodecProfile.DEFAULT_PROFILE, RowIDType.NUMERIC);
+        DataWriter dataWriter = relationManager.getTableDataWriter(CACHE_TABLE);
+        dataWriter.open();
+        for (int i = 0; i < 50; i++) {
+            dataWriter.insertTuple(new Tuple(CACHE_TABLE_SCHEMA,
+                    new StringField("city " + i), new TextField("a description of city " + i)));
+        }
+        dataWriter.close();
+        tupleCache.clear();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        tupleCache.setMaxSizeInBytes(0);
+        tupleCache.clear();
+        relationManager.deleteTable(CACHE_TABLE);
+    }
+
+    private List<Tuple> readTuples(Query query, boolean payloadAdded) {
+        DataReader dataReader = relationManager.getTableDataReader(CACHE_TABLE, query);
+        dataReader.setPayloadAdded(payloadAdded);
+        List<Tuple> tuples = new ArrayList<>();
+        Tuple tuple;
+        dataReader.open();
+        while ((tuple = dataReader.getNextTuple()) != null) {
+            tuples.add(tuple);
+        }
+        dataReader.close();
+        return tuples;
+    }
+
+    /*
+     * The documents read by a query are cached, a repeated query reads them from the cache,
+     *   and the payload is cached when it's first read.
+     */
+    @Test
+    public void testRepeatedQueries() throws Exception {
+        List<Tuple> expectedTuples = readTuples(new MatchAllDocsQuery(), true);
+        Assert.assertEquals(0, tupleCache.getHitCount() + tupleCache.getMissCount());
+
+        tupleCache.setMaxSizeInBytes(1 << 20);
+        Assert.assertEquals(50, readTuples(new MatchAllDocsQuery(), false).size());
+        Assert.assertEquals(0, tupleCache.getHitCount());
+        Assert.assertEquals(50, tupleCache.getMissCount());
+        Assert.assertEquals(50, tupleCache.getDocumentCount());
+
+        readTuples(new MatchAllDocsQuery(), false);
+        Assert.assertEquals(50, tupleCache.getHitCount());
+
+        // the payload isn't cached yet
+        Assert.assertEquals(expectedTuples, readTuples(new MatchAllDocsQuery(), true));
+        Assert.assertEquals(100, tupleCache.getMissCount());
+        Assert.assertEquals(expectedTuples, readTuples(new MatchAllDocsQuery(), true));
+        Assert.assertEquals(100, tupleCache.getHitCount());
+        Assert.assertEquals(0.5, tupleCache.getHitRate(), 0.001);
+    }
+
+    /*
+     * The least recently used documents are evicted when the cache is full.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        tupleCache.setMaxSizeInBytes(10 * 1024);
+        List<Tuple> tuples = readTuples(new MatchAllDocsQuery(), true);
+        Assert.assertEquals(50, tuples.size());
+        Assert.assertTrue(tupleCache.getEvictionCount() > 0);
+        Assert.assertTrue(tupleCache.getSizeInBytes() <= 10 * 1024);
+        Assert.assertTrue(tupleCache.getDocumentCount() < 50);
+
+        Assert.assertEquals(tuples, readTuples(new MatchAllDocsQuery(), true));
+
+        tupleCache.setMaxSizeInBytes(1024);
+        Assert.assertTrue(tupleCache.getSizeInBytes() <= 1024);
+    }
+
+    /*
+     * The cached documents of the segments that are still in the index are valid after new commits.
+     */
+    @Test
+    public void testNewCommits() throws Exception {
+        tupleCache.setMaxSizeInBytes(1 << 20);
+        readTuples(new MatchAllDocsQuery(), false);
+
+        DataWriter dataWriter = relationManager.getTableDataWriter(CACHE_TABLE);
+        dataWriter.open();
+        dataWriter.deleteTupleByID(new IDField(0));
+        dataWriter.updateTuple(new Tuple(CACHE_TABLE_SCHEMA,
+                new StringField("updated city"), new TextField("an updated description")), new IDField(1));
+        dataWriter.close();
+
+        List<Tuple> tuples = readTuples(new MatchAllDocsQuery(), false);
+        Assert.assertEquals(49, tuples.size());
+        Assert.assertEquals(48, tupleCache.getHitCount());
+        Assert.assertTrue(tuples.stream().anyMatch(tuple -> tuple.getField("city").getValue().equals("updated city")));
+        Assert.assertFalse(tuples.stream().anyMatch(tuple -> tuple.getField("city").getValue().equals("city 1")));
+
+        relationManager.deleteTable(CACHE_TABLE);
+        Assert.assertEquals(0, tupleCache.getDocumentCount());
+    }
+
+}
@@ -0,0 +1,68 @@
+package edu.uci.ics.texera.storage.constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+
+public class LuceneAnalyzerConstantsTest {
+
+    /*
+     * Test that the same analyzer instance is returned for the same analyzer string.
+     */
+    @Test
+    public void testAnalyzerIsCached() throws Exception {
+        Analyzer standardAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.standardAnalyzerString());
+        Assert.assertTrue(standardAnalyzer instanceof StandardAnalyzer);
+        Assert.assertSame(standardAnalyzer, LuceneAnalyzerConstants.getStandardAnalyzer());
+
+        Analyzer trigramAnalyzer = LuceneAnalyzerConstants.getNGramAnalyzer(3);
+        Assert.assertSame(trigramAnalyzer, LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.nGramAnalyzerString(3)));
+        Assert.assertNotSame(trigramAnalyzer, LuceneAnalyzerConstants.getNGramAnalyzer(2));
+
+        Analyzer chineseAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.chineseAnalyzerString());
+        Assert.assertTrue(chineseAnalyzer instanceof SmartChineseAnalyzer);
+        Assert.assertSame(chineseAnalyzer, LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.chineseAnalyzerString()));
+    }
+
+    /*
+     * Test that an invalid analyzer string is rejected and not registered.
+     */
+    @Test
+    public void testInvalidAnalyzerString() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                LuceneAnalyzerConstants.getLuceneAnalyzer("invalid-analyzer");
+                Assert.fail("DataflowException should be thrown for an invalid analyzer string");
+            } catch (DataflowException e) {
+            }
+        }
+    }
+
+    /*
+     * Test that all threads get the same shared analyzer.
+     */
+    @Test
+    public void testAnalyzerIsSharedAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Analyzer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit((Callable<Analyzer>) () -> LuceneAnalyzerConstants.getNGramAnalyzer(4)));
+        }
+        for (Future<Analyzer> future : futures) {
+            Assert.assertSame(LuceneAnalyzerConstants.getNGramAnalyzer(4), future.get());
+        }
+        executor.shutdown();
+    }
+
+}
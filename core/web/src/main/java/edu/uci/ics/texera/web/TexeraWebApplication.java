@@ -1,18 +1,25 @@
 package edu.uci.ics.texera.web;
 
+import com.codahale.metrics.Gauge;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.github.dirkraft.dropwizard.fileassets.FileAssetsBundle;
 
+import edu.uci.ics.texera.api.utils.Utils;
 import edu.uci.ics.texera.perftest.sample.SampleExtraction;
 import edu.uci.ics.texera.perftest.twitter.TwitterSample;
+import edu.uci.ics.texera.storage.QueryResultCache;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.TupleCache;
 import edu.uci.ics.texera.web.healthcheck.SampleHealthCheck;
 import edu.uci.ics.texera.web.resource.DownloadFileResource;
 import edu.uci.ics.texera.web.resource.FileUploadResource;
 import edu.uci.ics.texera.web.resource.QueryPlanResource;
 import edu.uci.ics.texera.web.resource.PlanStoreResource;
 import edu.uci.ics.texera.web.resource.SystemResource;
+import edu.uci.ics.texera.web.resource.TableImportResource;
 import io.dropwizard.Application;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import org.eclipse.jetty.servlets.CrossOriginFilter;
@@ -20,6 +27,8 @@ import org.glassfish.jersey.media.multipart.MultiPartFeature;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.FilterRegistration;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.EnumSet;
 
 /**
@@ -40,6 +49,41 @@ public class TexeraWebApplication extends Application<TexeraWebConfiguration> {
         // serve backend at /api
         environment.jersey().setUrlPattern("/api/*");
         
+        // Sets the size of the TupleCache shared by all the queries, and registers its metrics
+        final TupleCache tupleCache = TupleCache.getInstance();
+        tupleCache.setMaxSizeInBytes(texeraWebConfiguration.getTupleCacheSizeMB() * 1024 * 1024);
+        environment.metrics().register("tupleCache.hitRate", (Gauge<Double>) tupleCache::getHitRate);
+        environment.metrics().register("tupleCache.hits", (Gauge<Long>) tupleCache::getHitCount);
+        environment.metrics().register("tupleCache.misses", (Gauge<Long>) tupleCache::getMissCount);
+        environment.metrics().register("tupleCache.evictions", (Gauge<Long>) tupleCache::getEvictionCount);
+        environment.metrics().register("tupleCache.sizeInBytes", (Gauge<Long>) tupleCache::getSizeInBytes);
+        
+        // Sets the size of the QueryResultCache shared by all the queries, and registers its metrics
+        final QueryResultCache queryResultCache = QueryResultCache.getInstance();
+        queryResultCache.setMaxSizeInBytes(texeraWebConfiguration.getQueryResultCacheSizeMB() * 1024 * 1024);
+        environment.metrics().register("queryResultCache.hitRate", (Gauge<Double>) queryResultCache::getHitRate);
+        environment.metrics().register("queryResultCache.hits", (Gauge<Long>) queryResultCache::getHitCount);
+        environment.metrics().register("queryResultCache.misses", (Gauge<Long>) queryResultCache::getMissCount);
+        environment.metrics().register("queryResultCache.evictions", (Gauge<Long>) queryResultCache::getEvictionCount);
+        environment.metrics().register("queryResultCache.sizeInBytes", (Gauge<Long>) queryResultCache::getSizeInBytes);
+        
+        // Sets the number of threads that search the segments of a table concurrently
+        RelationManager.getInstance().setSearchThreadCount(texeraWebConfiguration.getSearchThreadCount());
+        
+        // Sets the timeouts of the index writers, and closes the index writers when the application stops
+        RelationManager.getInstance().setWriteLockTimeout(texeraWebConfiguration.getWriteLockTimeoutSeconds());
+        RelationManager.getInstance().setIndexWriterIdleTimeout(texeraWebConfiguration.getIndexWriterIdleTimeoutSeconds());
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() {
+            }
+            
+            @Override
+            public void stop() throws Exception {
+                RelationManager.getInstance().closeIndexWriters();
+            }
+        });
+        
         final QueryPlanResource newQueryPlanResource = new QueryPlanResource();
         environment.jersey().register(newQueryPlanResource);
 
@@ -66,6 +110,14 @@ public class TexeraWebApplication extends Application<TexeraWebConfiguration> {
         // Registers the fileUploadResource with Jersey
         environment.jersey().register(fileUploadResource);
 
+        // Creates an instance of the TableImportResource class to register with Jersey,
+        // which imports the files in the configured import directory
+        final Path importDirectory = texeraWebConfiguration.getImportDirectory() == null ?
+                Utils.getTexeraHomePath().resolve("imports") : Paths.get(texeraWebConfiguration.getImportDirectory());
+        final TableImportResource tableImportResource = new TableImportResource(importDirectory);
+        // Registers the tableImportResource with Jersey
+        environment.jersey().register(tableImportResource);
+
         // Registers MultiPartFeature to support file upload
         environment.jersey().register(MultiPartFeature.class);
 
@@ -1,5 +1,7 @@
 package edu.uci.ics.texera.web;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.dropwizard.Configuration;
 /**
  * This class maps the configuration properties from a .yaml file
@@ -7,5 +9,53 @@ import io.dropwizard.Configuration;
  * Created by kishore on 10/4/16.
  */
 public class TexeraWebConfiguration extends Configuration {
-    // The configuration class will remain empty for now
+    
+    // the maximum size of the TupleCache in megabytes, 0 disables the cache
+    @JsonProperty
+    private long tupleCacheSizeMB = 0;
+    
+    // the maximum size of the QueryResultCache in megabytes, 0 disables the cache
+    @JsonProperty
+    private long queryResultCacheSizeMB = 0;
+    
+    // the number of threads that search the segments of a table concurrently
+    @JsonProperty
+    private int searchThreadCount = 1;
+    
+    // the time a writer of a table waits for another writer of the table, in seconds
+    @JsonProperty
+    private long writeLockTimeoutSeconds = 30;
+    
+    // the time an index writer stays open after the last write of its table, in seconds, 0 keeps it open
+    @JsonProperty
+    private long indexWriterIdleTimeoutSeconds = 600;
+    
+    // the directory that tables are imported from, "imports" under the texera home directory by default
+    @JsonProperty
+    private String importDirectory = null;
+    
+    public long getTupleCacheSizeMB() {
+        return tupleCacheSizeMB;
+    }
+    
+    public long getQueryResultCacheSizeMB() {
+        return queryResultCacheSizeMB;
+    }
+    
+    public int getSearchThreadCount() {
+        return searchThreadCount;
+    }
+    
+    public long getWriteLockTimeoutSeconds() {
+        return writeLockTimeoutSeconds;
+    }
+    
+    public long getIndexWriterIdleTimeoutSeconds() {
+        return indexWriterIdleTimeoutSeconds;
+    }
+    
+    public String getImportDirectory() {
+        return importDirectory;
+    }
+    
 }
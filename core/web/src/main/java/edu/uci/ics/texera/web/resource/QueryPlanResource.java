@@ -31,6 +31,8 @@ import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
 import edu.uci.ics.texera.dataflow.plangen.LogicalPlan;
 import edu.uci.ics.texera.dataflow.sink.tuple.TupleSink;
+import edu.uci.ics.texera.storage.ReadSnapshot;
+import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.web.TexeraWebException;
 
 /**
@@ -65,9 +67,13 @@ public class QueryPlanResource {
             // send response back to frontend
             if (sink instanceof TupleSink) {
                 TupleSink tupleSink = (TupleSink) sink;
-                tupleSink.open();
-                List<Tuple> results = tupleSink.collectAllTuples();
-                tupleSink.close();
+                List<Tuple> results;
+                // all the operators in the plan read the same snapshot of each table
+                try (ReadSnapshot readSnapshot = RelationManager.getInstance().openReadSnapshot()) {
+                    tupleSink.open();
+                    results = tupleSink.collectAllTuples();
+                    tupleSink.close();
+                }
                 
                 // make sure result directory is created
                 if (Files.notExists(resultDirectory)) {
@@ -99,7 +105,9 @@ public class QueryPlanResource {
                 return response;
             } else {
                 // execute the plan and return success message
-                Engine.getEngine().evaluate(plan);
+                try (ReadSnapshot readSnapshot = RelationManager.getInstance().openReadSnapshot()) {
+                    Engine.getEngine().evaluate(plan);
+                }
                 ObjectNode response = new ObjectMapper().createObjectNode();
                 response.put("code", 1);
                 response.put("message", "plan sucessfully executed");
@@ -0,0 +1,224 @@
+package edu.uci.ics.texera.web.resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.utils.Utils;
+import edu.uci.ics.texera.storage.ImportFormat;
+import edu.uci.ics.texera.storage.ImportProgress;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.TableImporter;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.web.TexeraWebException;
+import edu.uci.ics.texera.web.response.TexeraWebResponse;
+
+/**
+ * This class is the resource for importing a CSV or JSON lines file on the server into a table.
+ *
+ * An import runs in the background, the request returns the ID of the import,
+ *   which is used to get the progress of the import.
+ * The progress of a finished import is kept for FINISHED_IMPORT_RETENTION_MILLIS, 
+ *   the finished imports older than that are dropped when another request comes.
+ *
+ * The name of the table is used as the name of its index directory if the table is created,
+ *   so it may only contain letters, digits and underscores.
+ * The file path of an import is resolved against the import directory of the server, 
+ *   a path that leads out of the import directory is rejected.
+ */
+@Path("/import")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class TableImportResource {
+
+    public static class TableImportRequest {
+        @JsonProperty("tableName")
+        String tableName;
+        // the path of the file, relative to the import directory
+        @JsonProperty("filePath")
+        String filePath;
+        @JsonProperty("format")
+        ImportFormat format;
+        // optional, true by default
+        @JsonProperty("csvHeader")
+        Boolean csvHeader;
+        // optional, the table is created with the schema if it doesn't exist
+        @JsonProperty("schema")
+        Schema schema;
+        // optional, the analyzer of the created table, the standard analyzer by default
+        @JsonProperty("luceneAnalyzer")
+        String luceneAnalyzer;
+
+        public TableImportRequest() { }
+    }
+
+    public static final long FINISHED_IMPORT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Pattern TABLE_NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /*
+     * An import started by a request, and the time it finished (0 if it's still running).
+     */
+    private static class TableImport {
+        private final TableImporter tableImporter;
+        private volatile long finishTime = 0;
+
+        private TableImport(TableImporter tableImporter) {
+            this.tableImporter = tableImporter;
+        }
+    }
+
+    // the directory that the files are imported from
+    private final java.nio.file.Path importDirectory;
+
+    // import ID -> the import
+    private final Map<String, TableImport> tableImports = new ConcurrentHashMap<>();
+
+    private final ExecutorService importExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "TableImportResource");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TableImportResource(java.nio.file.Path importDirectory) {
+        this.importDirectory = importDirectory;
+    }
+
+    /**
+     * Starts to import a file on the server into a table.
+     *
+     * @param importRequest, the table, the path and the format of the file
+     * @return a TexeraWebResponse whose message is the ID of the import
+     */
+    @POST
+    @Path("/table")
+    public TexeraWebResponse importTable(TableImportRequest importRequest) {
+        if (importRequest == null || importRequest.tableName == null || importRequest.filePath == null
+                || importRequest.format == null) {
+            throw new TexeraWebException("tableName, filePath and format of the import are required");
+        }
+        if (! TABLE_NAME_PATTERN.matcher(importRequest.tableName).matches()) {
+            throw new TexeraWebException(String.format(
+                    "table name %s is not valid, it may only contain letters, digits and underscores", importRequest.tableName));
+        }
+        java.nio.file.Path importFile = resolveImportFile(importDirectory, importRequest.filePath);
+        removeFinishedImports();
+        try {
+            RelationManager relationManager = RelationManager.getInstance();
+            if (! relationManager.checkTableExistence(importRequest.tableName) && importRequest.schema != null) {
+                String luceneAnalyzer = importRequest.luceneAnalyzer == null ?
+                        LuceneAnalyzerConstants.standardAnalyzerString() : importRequest.luceneAnalyzer;
+                relationManager.createTable(importRequest.tableName,
+                        Utils.getDefaultIndexDirectory().resolve(importRequest.tableName), importRequest.schema, luceneAnalyzer);
+            }
+
+            TableImporter tableImporter = new TableImporter(
+                    importRequest.tableName, importFile, importRequest.format);
+            if (importRequest.csvHeader != null) {
+                tableImporter.setCsvHeader(importRequest.csvHeader);
+            }
+
+            String importID = UUID.randomUUID().toString();
+            TableImport tableImport = new TableImport(tableImporter);
+            tableImports.put(importID, tableImport);
+            importExecutor.submit(() -> {
+                try {
+                    tableImporter.importTable();
+                } catch (TexeraException e) {
+                    // the failure is reported by the progress of the import
+                } finally {
+                    tableImport.finishTime = System.currentTimeMillis();
+                }
+            });
+            return new TexeraWebResponse(0, importID);
+        } catch (TexeraException e) {
+            throw new TexeraWebException(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the progress of an import.
+     *
+     * @param importID, the ID returned when the import is started
+     * @return a TexeraWebResponse whose message is the JSON of the ImportProgress
+     * @throws JsonProcessingException
+     */
+    @GET
+    @Path("/table/{importID}")
+    public TexeraWebResponse getImportProgress(@PathParam("importID") String importID) throws JsonProcessingException {
+        removeFinishedImports();
+        TableImport tableImport = tableImports.get(importID);
+        if (tableImport == null) {
+            throw new TexeraWebException(String.format("import %s doesn't exist", importID));
+        }
+        ImportProgress progress = tableImport.tableImporter.getProgress();
+        if (progress == null) {
+            return new TexeraWebResponse(0, "import has not started");
+        }
+        return new TexeraWebResponse(0, objectMapper.writeValueAsString(progress));
+    }
+
+    /**
+     * Resolves the file path of an import against the import directory.
+     *
+     * @param importDirectory
+     * @param filePath, the path of the file relative to the import directory
+     * @return the normalized absolute path of the file
+     * @throws TexeraWebException, if the path leads out of the import directory
+     */
+    static java.nio.file.Path resolveImportFile(java.nio.file.Path importDirectory, String filePath) {
+        java.nio.file.Path directory = importDirectory.toAbsolutePath().normalize();
+        java.nio.file.Path file;
+        try {
+            file = directory.resolve(filePath).normalize();
+        } catch (InvalidPathException e) {
+            throw new TexeraWebException(e.getMessage());
+        }
+        boolean isInDirectory = file.startsWith(directory) && ! file.equals(directory);
+        // a symbolic link in the import directory must not lead out of it either
+        if (isInDirectory && Files.exists(file)) {
+            try {
+                isInDirectory = file.toRealPath().startsWith(directory.toRealPath());
+            } catch (IOException e) {
+                throw new TexeraWebException(e.getMessage());
+            }
+        }
+        if (! isInDirectory) {
+            throw new TexeraWebException(String.format("file %s is not in the import directory", filePath));
+        }
+        return file;
+    }
+
+    /*
+     * Drops the imports which finished more than FINISHED_IMPORT_RETENTION_MILLIS ago.
+     */
+    private void removeFinishedImports() {
+        long now = System.currentTimeMillis();
+        tableImports.values().removeIf(tableImport -> 
+                tableImport.finishTime != 0 && now - tableImport.finishTime > FINISHED_IMPORT_RETENTION_MILLIS);
+    }
+
+}
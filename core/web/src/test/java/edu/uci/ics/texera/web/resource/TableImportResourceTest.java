@@ -0,0 +1,38 @@
+package edu.uci.ics.texera.web.resource;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.web.TexeraWebException;
+
+public class TableImportResourceTest {
+
+    private static final Path IMPORT_DIRECTORY = Paths.get("./table-import-test").toAbsolutePath().normalize();
+
+    @Test
+    public void testResolveImportFile() throws Exception {
+        Assert.assertEquals(IMPORT_DIRECTORY.resolve("people.csv"), 
+                TableImportResource.resolveImportFile(IMPORT_DIRECTORY, "people.csv"));
+        Assert.assertEquals(IMPORT_DIRECTORY.resolve("twitter/tweets.jsonl"), 
+                TableImportResource.resolveImportFile(IMPORT_DIRECTORY, "twitter/../twitter/./tweets.jsonl"));
+    }
+
+    /*
+     * The paths that lead out of the import directory are rejected.
+     */
+    @Test
+    public void testRejectFileOutsideImportDirectory() throws Exception {
+        for (String filePath : new String[] { "../people.csv", "twitter/../../people.csv", "/etc/passwd", "", "." }) {
+            try {
+                TableImportResource.resolveImportFile(IMPORT_DIRECTORY, filePath);
+                Assert.fail(filePath + " should be rejected");
+            } catch (TexeraWebException e) {
+                // expected
+            }
+        }
+    }
+
+}